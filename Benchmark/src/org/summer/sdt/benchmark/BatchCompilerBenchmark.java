@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.summer.sdt.internal.compiler.batch.Main;
+
+/**
+ * Measures the batch compiler end to end: reading the corpus from disk, compiling it and
+ * writing the class files. A new {@link Main} is used for each operation, as on the command line.
+ */
+public class BatchCompilerBenchmark extends Benchmark {
+
+	private File directory;
+	private String[] arguments;
+	int errorCount;
+
+	public String getName() {
+		return "Main.compile"; //$NON-NLS-1$
+	}
+
+	public void setUp(SyntheticCorpus syntheticCorpus, String[] classpathEntries) throws Exception {
+		super.setUp(syntheticCorpus, classpathEntries);
+		this.directory = File.createTempFile("benchmark", null); //$NON-NLS-1$
+		this.directory.delete();
+		File sourceDirectory = new File(this.directory, "src"); //$NON-NLS-1$
+		String[] paths = syntheticCorpus.writeTo(sourceDirectory);
+
+		StringBuffer classpath = new StringBuffer();
+		for (int i = 0, l = classpathEntries.length; i < l; i++) {
+			if (i > 0) classpath.append(File.pathSeparatorChar);
+			classpath.append(classpathEntries[i]);
+		}
+		String[] options = new String[] {
+			"-1.8", //$NON-NLS-1$
+			"-nowarn", //$NON-NLS-1$
+			"-proceedOnError", //$NON-NLS-1$
+			"-encoding", SyntheticCorpus.ENCODING, //$NON-NLS-1$
+			"-d", new File(this.directory, "bin").getPath(), //$NON-NLS-1$ //$NON-NLS-2$
+			"-classpath", classpath.toString() //$NON-NLS-1$
+		};
+		this.arguments = new String[options.length + paths.length];
+		System.arraycopy(options, 0, this.arguments, 0, options.length);
+		System.arraycopy(paths, 0, this.arguments, options.length, paths.length);
+		run();
+		if (this.errorCount > 0)
+			System.out.println(getName() + ": " + this.errorCount + " errors reported, check the classpath"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public long run() throws Exception {
+		Main main = new Main(new PrintWriter(new StringWriter()), new PrintWriter(new StringWriter()), false /*systemExit*/, null /*options*/, null /*progress*/);
+		main.compile(this.arguments);
+		this.errorCount = main.globalErrorsCount;
+		return main.globalProblemsCount + main.exportedClassFilesCounter;
+	}
+
+	public void tearDown() throws Exception {
+		delete(this.directory);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null)
+			for (int i = 0, l = children.length; i < l; i++)
+				delete(children[i]);
+		file.delete();
+	}
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.summer.sdt.internal.compiler.impl.CompilerOptions;
+
+/**
+ * A unit of measured work run repeatedly by the {@link BenchmarkRunner}.
+ * <p>
+ * Subclasses prepare their state in {@link #setUp(SyntheticCorpus, String[])}, outside of the
+ * measurement, and do one operation over the whole corpus in {@link #run()}. The value answered
+ * by {@link #run()} is consumed by the runner, so that the work cannot be optimized away.
+ * </p>
+ */
+public abstract class Benchmark {
+
+	protected SyntheticCorpus corpus;
+	protected String[] classpath;
+
+	public abstract String getName();
+
+	/**
+	 * Answers the compiler settings used by all the benchmarks.
+	 */
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	protected Map getCompilerSettings() {
+		Map settings = new HashMap();
+		settings.put(CompilerOptions.OPTION_Compliance, CompilerOptions.VERSION_1_8);
+		settings.put(CompilerOptions.OPTION_Source, CompilerOptions.VERSION_1_8);
+		settings.put(CompilerOptions.OPTION_TargetPlatform, CompilerOptions.VERSION_1_8);
+		settings.put(CompilerOptions.OPTION_ReportUnusedImport, CompilerOptions.IGNORE);
+		settings.put(CompilerOptions.OPTION_ReportRawTypeReference, CompilerOptions.IGNORE);
+		return settings;
+	}
+
+	protected CompilerOptions getCompilerOptions() {
+		return new CompilerOptions(getCompilerSettings());
+	}
+
+	public void setUp(SyntheticCorpus syntheticCorpus, String[] classpathEntries) throws Exception {
+		this.corpus = syntheticCorpus;
+		this.classpath = classpathEntries;
+	}
+
+	public abstract long run() throws Exception;
+
+	/**
+	 * Answers what the runner should print after the measures of this benchmark, <code>null</code> if nothing.
+	 */
+	public String getResultSummary() {
+		return null;
+	}
+
+	public void tearDown() throws Exception {
+		// nothing to release by default
+	}
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.summer.sdt.internal.compiler.batch.FileSystem;
+import org.summer.sdt.internal.compiler.util.Util;
+
+/**
+ * Runs the compiler benchmarks over a synthetic corpus and prints their throughput.
+ * <p>
+ * Each benchmark is run for a number of warmup iterations, then for a number of measured
+ * iterations. An iteration repeats the benchmark operation until the iteration time has elapsed.
+ * Usage:
+ * <pre>
+ * BenchmarkRunner [-types &lt;n&gt;] [-methods &lt;n&gt;] [-warmup &lt;n&gt;] [-iterations &lt;n&gt;]
+ *                 [-time &lt;ms&gt;] [-classpath &lt;paths&gt;] [&lt;benchmark name&gt;...]
+ * </pre>
+ * The classpath must contain the class libraries, it defaults to the ones of the running VM.
+ * When the VM can tell, the memory allocated by the running thread per operation is printed too.
+ * Names select the benchmarks whose name contains one of them, all the benchmarks are run by default.
+ * </p>
+ */
+public class BenchmarkRunner {
+
+	int typeCount = 200;
+	int methodCount = 10;
+	int warmupIterations = 5;
+	int measuredIterations = 10;
+	long iterationTime = 1000;
+	String[] classpath;
+	List<String> selectedNames = new ArrayList<String>();
+
+	public static Benchmark[] getBenchmarks() {
+		return new Benchmark[] {
+			new ScannerBenchmark(),
+			new ParserBenchmark(),
+			new ParserTablesBenchmark(),
+			new MethodBodiesBenchmark(),
+			new TypeCompletionBenchmark(),
+			new CodeGenerationBenchmark(),
+			new BatchCompilerBenchmark(),
+			new ReconcileBenchmark(false),
+			new ReconcileBenchmark(true),
+			new TypeSystemBenchmark(1),
+			new TypeSystemBenchmark(8),
+			new CharOperationBenchmark(false),
+			new CharOperationBenchmark(true)
+		};
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		if (!runner.configure(args)) {
+			printUsage();
+			return;
+		}
+		runner.run();
+	}
+
+	public static void printUsage() {
+		System.out.println("Usage: BenchmarkRunner [-types <n>] [-methods <n>] [-warmup <n>] [-iterations <n>] [-time <ms>] [-classpath <paths>] [<benchmark name>...]"); //$NON-NLS-1$
+		System.out.println("e.g. BenchmarkRunner -types 1000 -methods 20 Parser"); //$NON-NLS-1$
+	}
+
+	boolean configure(String[] args) {
+		String classpathOption = null;
+		try {
+			for (int i = 0, l = args.length; i < l; i++) {
+				String arg = args[i];
+				if (arg.startsWith("-") && i + 1 == l) //$NON-NLS-1$
+					return false;
+				if ("-types".equals(arg)) { //$NON-NLS-1$
+					this.typeCount = Integer.parseInt(args[++i]);
+				} else if ("-methods".equals(arg)) { //$NON-NLS-1$
+					this.methodCount = Integer.parseInt(args[++i]);
+				} else if ("-warmup".equals(arg)) { //$NON-NLS-1$
+					this.warmupIterations = Integer.parseInt(args[++i]);
+				} else if ("-iterations".equals(arg)) { //$NON-NLS-1$
+					this.measuredIterations = Integer.parseInt(args[++i]);
+				} else if ("-time".equals(arg)) { //$NON-NLS-1$
+					this.iterationTime = Long.parseLong(args[++i]);
+				} else if ("-classpath".equals(arg) || "-cp".equals(arg)) { //$NON-NLS-1$ //$NON-NLS-2$
+					classpathOption = args[++i];
+				} else if (arg.startsWith("-")) { //$NON-NLS-1$
+					return false;
+				} else {
+					this.selectedNames.add(arg);
+				}
+			}
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		if (this.typeCount <= 0 || this.methodCount < 0 || this.measuredIterations <= 0 || this.iterationTime <= 0)
+			return false;
+
+		List<String> entries = new ArrayList<String>();
+		if (classpathOption != null) {
+			String[] paths = classpathOption.split(File.pathSeparator);
+			for (int i = 0, l = paths.length; i < l; i++)
+				if (paths[i].length() > 0)
+					entries.add(paths[i]);
+		} else {
+			List<FileSystem.Classpath> libraries = new ArrayList<FileSystem.Classpath>();
+			Util.collectRunningVMBootclasspath(libraries);
+			for (int i = 0, l = libraries.size(); i < l; i++)
+				entries.add(libraries.get(i).getPath());
+		}
+		this.classpath = entries.toArray(new String[entries.size()]);
+		return true;
+	}
+
+	boolean isSelected(Benchmark benchmark) {
+		if (this.selectedNames.isEmpty()) return true;
+		for (int i = 0, l = this.selectedNames.size(); i < l; i++)
+			if (benchmark.getName().indexOf(this.selectedNames.get(i)) != -1)
+				return true;
+		return false;
+	}
+
+	void run() throws Exception {
+		SyntheticCorpus corpus = new SyntheticCorpus(this.typeCount, this.methodCount);
+		System.out.println("Corpus: " + corpus.typeCount + " types, " + corpus.methodCount + " methods per type, " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			+ corpus.characterCount + " characters"); //$NON-NLS-1$
+		Benchmark[] benchmarks = getBenchmarks();
+		long consumed = 0;
+		for (int i = 0, l = benchmarks.length; i < l; i++) {
+			Benchmark benchmark = benchmarks[i];
+			if (!isSelected(benchmark)) continue;
+
+			benchmark.setUp(corpus, this.classpath);
+			try {
+				for (int w = 0; w < this.warmupIterations; w++)
+					consumed += iterate(benchmark, null);
+				long[] result = new long[3]; // operations, elapsed nanoseconds & allocated bytes
+				for (int m = 0; m < this.measuredIterations; m++)
+					consumed += iterate(benchmark, result);
+				double millisPerOperation = result[1] / 1000000.0 / result[0];
+				System.out.println(benchmark.getName() + ": " + format(millisPerOperation) + " ms/op, " //$NON-NLS-1$ //$NON-NLS-2$
+					+ format(corpus.typeCount / millisPerOperation * 1000) + " units/s, " //$NON-NLS-1$
+					+ format(corpus.characterCount / millisPerOperation / 1000) + " MB/s, " //$NON-NLS-1$
+					+ (result[2] < 0 ? "" : format(result[2] / 1024.0 / 1024.0 / result[0]) + " MB allocated/op (") //$NON-NLS-1$ //$NON-NLS-2$
+					+ result[0] + " ops)"); //$NON-NLS-1$
+				String summary = benchmark.getResultSummary();
+				if (summary != null)
+					System.out.println("  " + summary); //$NON-NLS-1$
+			} finally {
+				benchmark.tearDown();
+			}
+		}
+		if (consumed == 42)
+			System.out.println(); // makes the results reachable
+	}
+
+	long iterate(Benchmark benchmark, long[] result) throws Exception {
+		long consumed = 0;
+		int operations = 0;
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		long end = start + this.iterationTime * 1000000;
+		long now;
+		do {
+			consumed += benchmark.run();
+			operations++;
+		} while ((now = System.nanoTime()) < end);
+		if (result != null) {
+			result[0] += operations;
+			result[1] += now - start;
+			if (allocated < 0 || result[2] < 0)
+				result[2] = -1;
+			else
+				result[2] += allocatedBytes() - allocated;
+		}
+		return consumed;
+	}
+
+	/*
+	 * Answers the bytes allocated so far by the current thread, or -1 if the VM does not tell.
+	 * The threads started by a benchmark are not accounted for.
+	 */
+	static long allocatedBytes() {
+		try {
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", new Class[] { long.class }); //$NON-NLS-1$ //$NON-NLS-2$
+			return ((Long) method.invoke(threads, new Object[] { Long.valueOf(Thread.currentThread().getId()) })).longValue();
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	static String format(double value) {
+		return String.valueOf(Math.round(value * 100) / 100.0);
+	}
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import org.summer.sdt.core.compiler.CharOperation;
+
+/**
+ * Measures the comparisons of {@link CharOperation} over the identifiers of the corpus, as done either by
+ * the code assist, which filters names by prefix and camel case, or by the search patterns, which match
+ * names exactly or against wildcards, ignoring the case.
+ */
+public class CharOperationBenchmark extends Benchmark {
+
+	static final char[][] COMPLETION_TOKENS = {
+		"co".toCharArray(), "Ty".toCharArray(), "St".toCharArray(), "na".toCharArray(), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		"tot".toCharArray(), "SB".toCharArray(), "NFE".toCharArray(), "TY".toCharArray() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	};
+	static final char[][] SEARCH_PATTERNS = {
+		"type1*".toCharArray(), "*ompute*".toCharArray(), "comp?te1*".toCharArray(), "str*builder".toCharArray() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	};
+	static final char[][] SEARCH_NAMES = {
+		"stringbuilder".toCharArray(), "Type10".toCharArray(), "COUNT".toCharArray(), "numberFormatException".toCharArray() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	};
+
+	final boolean search;
+	private char[][] identifiers;
+
+	/**
+	 * Measures the comparisons of the search patterns if search, the ones of the code assist otherwise.
+	 */
+	public CharOperationBenchmark(boolean search) {
+		this.search = search;
+	}
+
+	public String getName() {
+		return "CharOperation (" + (this.search ? "search patterns)" : "code assist)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	public void setUp(SyntheticCorpus syntheticCorpus, String[] classpathEntries) throws Exception {
+		super.setUp(syntheticCorpus, classpathEntries);
+		this.identifiers = syntheticCorpus.identifiers();
+	}
+
+	public long run() throws Exception {
+		long matches = 0;
+		char[][] names = this.identifiers;
+		if (this.search) {
+			for (int i = 0, l = names.length; i < l; i++) {
+				char[] name = names[i];
+				for (int j = 0, m = SEARCH_PATTERNS.length; j < m; j++)
+					if (CharOperation.match(SEARCH_PATTERNS[j], name, false))
+						matches++;
+				for (int j = 0, m = SEARCH_NAMES.length; j < m; j++)
+					if (CharOperation.equals(SEARCH_NAMES[j], name, false))
+						matches++;
+			}
+		} else {
+			for (int i = 0, l = names.length; i < l; i++) {
+				char[] name = names[i];
+				for (int j = 0, m = COMPLETION_TOKENS.length; j < m; j++) {
+					char[] token = COMPLETION_TOKENS[j];
+					if (CharOperation.prefixEquals(token, name, false) || CharOperation.camelCaseMatch(token, name))
+						matches++;
+					if (CharOperation.equals(token, name))
+						matches++;
+				}
+			}
+		}
+		return matches;
+	}
+}
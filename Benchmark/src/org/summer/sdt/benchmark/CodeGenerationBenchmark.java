@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import org.summer.sdt.internal.compiler.ClassFile;
+import org.summer.sdt.internal.compiler.CompilationResult;
+import org.summer.sdt.internal.compiler.Compiler;
+import org.summer.sdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.summer.sdt.internal.compiler.ICompilerRequestor;
+import org.summer.sdt.internal.compiler.batch.FileSystem;
+import org.summer.sdt.internal.compiler.env.ICompilationUnit;
+import org.summer.sdt.internal.compiler.problem.DefaultProblemFactory;
+
+/**
+ * Measures the complete compilation of the corpus in memory, up to the generation of the
+ * class files by the {@link ClassFile} and {@link org.summer.sdt.internal.compiler.codegen.CodeStream}.
+ */
+public class CodeGenerationBenchmark extends Benchmark {
+
+	private FileSystem environment;
+	private Compiler compiler;
+	long generatedBytes;
+	int errorCount;
+
+	public String getName() {
+		return "Compiler.compile"; //$NON-NLS-1$
+	}
+
+	public void setUp(SyntheticCorpus syntheticCorpus, String[] classpathEntries) throws Exception {
+		super.setUp(syntheticCorpus, classpathEntries);
+		this.environment = new FileSystem(classpathEntries, null, SyntheticCorpus.ENCODING);
+		ICompilerRequestor requestor = new ICompilerRequestor() {
+			public void acceptResult(CompilationResult result) {
+				if (result.hasErrors())
+					CodeGenerationBenchmark.this.errorCount++;
+				ClassFile[] classFiles = result.getClassFiles();
+				for (int i = 0, l = classFiles.length; i < l; i++)
+					CodeGenerationBenchmark.this.generatedBytes += classFiles[i].getBytes().length;
+			}
+		};
+		this.compiler = new Compiler(this.environment, DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+			getCompilerOptions(), requestor, new DefaultProblemFactory());
+		run();
+		if (this.errorCount > 0)
+			System.out.println(getName() + ": " + this.errorCount + " units have errors, check the classpath"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public long run() throws Exception {
+		this.generatedBytes = 0;
+		// the compiler clears the units it was given
+		this.compiler.compile((ICompilationUnit[]) this.corpus.units.clone());
+		return this.generatedBytes;
+	}
+
+	public void tearDown() throws Exception {
+		this.environment.cleanup();
+	}
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import org.summer.sdt.internal.compiler.ast.CompilationUnitDeclaration;
+
+/**
+ * Measures the diet parse of all the compilation units of the corpus followed by
+ * {@link org.summer.sdt.internal.compiler.parser.Parser#getMethodBodies(CompilationUnitDeclaration)},
+ * as done by the compiler. The diet parse alone is measured by running the {@link ParserBenchmark}.
+ */
+public class MethodBodiesBenchmark extends ParserBenchmark {
+
+	public String getName() {
+		return "Parser.getMethodBodies"; //$NON-NLS-1$
+	}
+
+	public long run() throws Exception {
+		long statements = 0;
+		for (int i = 0, l = this.corpus.units.length; i < l; i++) {
+			CompilationUnitDeclaration unit = this.parser.dietParse(this.corpus.units[i], newCompilationResult(i));
+			this.parser.getMethodBodies(unit);
+			statements += unit.sourceEnd;
+		}
+		return statements;
+	}
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import org.summer.sdt.internal.compiler.CompilationResult;
+import org.summer.sdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.summer.sdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.summer.sdt.internal.compiler.env.ICompilationUnit;
+import org.summer.sdt.internal.compiler.impl.CompilerOptions;
+import org.summer.sdt.internal.compiler.parser.Parser;
+import org.summer.sdt.internal.compiler.problem.DefaultProblemFactory;
+import org.summer.sdt.internal.compiler.problem.ProblemReporter;
+
+/**
+ * Measures a full parse, including the method bodies, of all the compilation units of the corpus.
+ */
+public class ParserBenchmark extends Benchmark {
+
+	protected Parser parser;
+	protected CompilerOptions options;
+
+	public String getName() {
+		return "Parser.parse"; //$NON-NLS-1$
+	}
+
+	public void setUp(SyntheticCorpus syntheticCorpus, String[] classpathEntries) throws Exception {
+		super.setUp(syntheticCorpus, classpathEntries);
+		this.options = getCompilerOptions();
+		ProblemReporter problemReporter = new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+			this.options, new DefaultProblemFactory());
+		this.parser = new Parser(problemReporter, true /*optimize string literals*/);
+	}
+
+	protected CompilationResult newCompilationResult(int index) {
+		ICompilationUnit unit = this.corpus.units[index];
+		return new CompilationResult(unit, index, this.corpus.units.length, this.options.maxProblemsPerUnit);
+	}
+
+	public long run() throws Exception {
+		long types = 0;
+		for (int i = 0, l = this.corpus.units.length; i < l; i++) {
+			CompilationUnitDeclaration unit = this.parser.parse(this.corpus.units[i], newCompilationResult(i));
+			if (unit.types != null)
+				types += unit.types.length;
+		}
+		return types;
+	}
+}
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import org.summer.sdt.internal.compiler.parser.Parser;
+
+/**
+ * Measures the loading of the parser tables, which every compiler VM does once when the parser class is
+ * initialized. The tables are loaded again over the ones in use, they are equal.
+ */
+public class ParserTablesBenchmark extends Benchmark {
+
+	public String getName() {
+		return "Parser.initTables"; //$NON-NLS-1$
+	}
+
+	public long run() throws Exception {
+		Parser.initTables();
+		return Parser.lhs.length + Parser.name.length;
+	}
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import java.io.File;
+
+import org.summer.sdt.internal.compiler.CompilationResult;
+import org.summer.sdt.internal.compiler.Compiler;
+import org.summer.sdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.summer.sdt.internal.compiler.ICompilerRequestor;
+import org.summer.sdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.summer.sdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.summer.sdt.internal.compiler.ast.MethodDeclaration;
+import org.summer.sdt.internal.compiler.ast.TypeDeclaration;
+import org.summer.sdt.internal.compiler.batch.FileSystem;
+import org.summer.sdt.internal.compiler.problem.DefaultProblemFactory;
+
+/**
+ * Measures the resolution of each compilation unit of the corpus on its own, the way a working copy
+ * is reconciled: a new {@link Compiler} resolves, analyses and generates the code of one unit, the other
+ * units being read from the source folder when they are referenced.
+ * <p>
+ * When the unchanged bodies are skipped, all the method bodies are flagged to skip their flow analysis and
+ * code generation, as the problem finder does for the bodies unchanged since the previous reconcile.
+ * Comparing both measures tells what a reconcile saves when a single body was edited.
+ * </p>
+ */
+public class ReconcileBenchmark extends Benchmark {
+
+	private final boolean skipUnchangedBodies;
+	private File directory;
+	private FileSystem environment;
+	int problemCount;
+
+	public ReconcileBenchmark(boolean skipUnchangedBodies) {
+		this.skipUnchangedBodies = skipUnchangedBodies;
+	}
+
+	public String getName() {
+		return this.skipUnchangedBodies ? "Compiler.resolve (unchanged bodies skipped)" : "Compiler.resolve"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void setUp(SyntheticCorpus syntheticCorpus, String[] classpathEntries) throws Exception {
+		super.setUp(syntheticCorpus, classpathEntries);
+		this.directory = File.createTempFile("benchmark", null); //$NON-NLS-1$
+		this.directory.delete();
+		syntheticCorpus.writeTo(this.directory);
+		String[] entries = new String[classpathEntries.length + 1];
+		System.arraycopy(classpathEntries, 0, entries, 0, classpathEntries.length);
+		entries[classpathEntries.length] = this.directory.getPath();
+		this.environment = new FileSystem(entries, null, SyntheticCorpus.ENCODING);
+		run();
+	}
+
+	public long run() throws Exception {
+		this.problemCount = 0;
+		ICompilerRequestor requestor = new ICompilerRequestor() {
+			public void acceptResult(CompilationResult result) {
+				ReconcileBenchmark.this.problemCount += result.problemCount;
+			}
+		};
+		for (int i = 0, l = this.corpus.units.length; i < l; i++) {
+			Compiler compiler = new Compiler(this.environment, DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+					getCompilerOptions(), requestor, new DefaultProblemFactory()) {
+				protected void analyseAndGenerateCode(CompilationUnitDeclaration unit, boolean analyzeCode, boolean generateCode) {
+					if (ReconcileBenchmark.this.skipUnchangedBodies) {
+						skipBodies(unit.types);
+						if (unit.module != null)
+							skipBodies(unit.module.types);
+					}
+					super.analyseAndGenerateCode(unit, analyzeCode, generateCode);
+				}
+			};
+			compiler.resolve(null, this.corpus.units[i], true /*verify methods*/, true /*analyze code*/, true /*generate code*/);
+		}
+		return this.problemCount;
+	}
+
+	public String getResultSummary() {
+		return this.problemCount + " problems reported"; //$NON-NLS-1$
+	}
+
+	static void skipBodies(TypeDeclaration[] types) {
+		if (types == null) return;
+		for (int i = 0, l = types.length; i < l; i++) {
+			AbstractMethodDeclaration[] methods = types[i].methods;
+			if (methods != null)
+				for (int j = 0, m = methods.length; j < m; j++)
+					if (methods[j] instanceof MethodDeclaration)
+						methods[j].skipBodyAnalysis = true;
+			skipBodies(types[i].memberTypes);
+		}
+	}
+
+	public void tearDown() throws Exception {
+		this.environment.cleanup();
+		delete(this.directory);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null)
+			for (int i = 0, l = children.length; i < l; i++)
+				delete(children[i]);
+		file.delete();
+	}
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import org.summer.sdt.internal.compiler.classfmt.ClassFileConstants;
+import org.summer.sdt.internal.compiler.parser.Scanner;
+import org.summer.sdt.internal.compiler.parser.TerminalTokens;
+
+/**
+ * Measures {@link Scanner#getNextToken()} over all the compilation units of the corpus.
+ */
+public class ScannerBenchmark extends Benchmark {
+
+	private Scanner scanner;
+
+	public String getName() {
+		return "Scanner.getNextToken"; //$NON-NLS-1$
+	}
+
+	public void setUp(SyntheticCorpus syntheticCorpus, String[] classpathEntries) throws Exception {
+		super.setUp(syntheticCorpus, classpathEntries);
+		this.scanner = new Scanner(false /*comment*/, false /*whitespace*/, false /*nls*/, ClassFileConstants.JDK1_8 /*sourceLevel*/,
+			ClassFileConstants.JDK1_8 /*complianceLevel*/, null /*taskTags*/, null /*taskPriorities*/, true /*taskCaseSensitive*/);
+	}
+
+	public long run() throws Exception {
+		long tokens = 0;
+		for (int i = 0, l = this.corpus.units.length; i < l; i++) {
+			this.scanner.setSource(this.corpus.units[i].getContents());
+			while (this.scanner.getNextToken() != TerminalTokens.TokenNameEOF)
+				tokens++;
+		}
+		return tokens;
+	}
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.summer.sdt.core.compiler.InvalidInputException;
+import org.summer.sdt.internal.compiler.batch.CompilationUnit;
+import org.summer.sdt.internal.compiler.classfmt.ClassFileConstants;
+import org.summer.sdt.internal.compiler.env.ICompilationUnit;
+import org.summer.sdt.internal.compiler.parser.Scanner;
+import org.summer.sdt.internal.compiler.parser.TerminalTokens;
+
+/**
+ * A generated set of compilation units whose size is controlled by the number of types and
+ * the number of methods per type. The generation is deterministic so runs can be compared.
+ * <p>
+ * Each compilation unit declares a module holding one top level class. Types are spread over
+ * a few packages and reference other types of their package, so that the lookup has to resolve
+ * supertypes and fields declared in other compilation units. The generated code avoids the
+ * contextual keywords of the language (add, get, set, remove, event, function...) and the '&lt;'
+ * token, type arguments and less than comparisons, which the current parser tables do not accept.
+ * It also sticks to the constructs the whole compilation handles in modules: methods have no
+ * parameters, fields have no initializers except constants, and methods are only invoked on
+ * library types.
+ * </p>
+ */
+public class SyntheticCorpus {
+
+	static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+	static final int TYPES_PER_PACKAGE = 50;
+
+	public final int typeCount;
+	public final int methodCount;
+	public final ICompilationUnit[] units;
+	public final long characterCount;
+
+	public SyntheticCorpus(int typeCount, int methodCount) {
+		this.typeCount = typeCount;
+		this.methodCount = methodCount;
+		this.units = new ICompilationUnit[typeCount];
+		long characters = 0;
+		for (int i = 0; i < typeCount; i++) {
+			char[] contents = generateType(i).toCharArray();
+			characters += contents.length;
+			this.units[i] = new CompilationUnit(contents, fileName(i), ENCODING);
+		}
+		this.characterCount = characters;
+	}
+
+	static String packageName(int index) {
+		return "bench.p" + (index / TYPES_PER_PACKAGE); //$NON-NLS-1$
+	}
+
+	static String typeName(int index) {
+		return "Type" + index; //$NON-NLS-1$
+	}
+
+	static String fileName(int index) {
+		return packageName(index).replace('.', File.separatorChar) + File.separatorChar + typeName(index) + ".java"; //$NON-NLS-1$
+	}
+
+	String generateType(int index) {
+		String name = typeName(index);
+		// each type depends on a previous one of the same package
+		int first = index - index % TYPES_PER_PACKAGE;
+		int dependency = index == first ? -1 : first + (index * 7 + 3) % (index - first);
+		StringBuffer buffer = new StringBuffer(1024 + this.methodCount * 512);
+		buffer.append("package ").append(packageName(index)).append(";\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("import java.io.Serializable;\n\n"); //$NON-NLS-1$
+		buffer.append("module ").append(name).append(" {\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("/**\n * Generated type ").append(index).append(".\n */\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("class ").append(name); //$NON-NLS-1$
+		if (dependency >= 0 && index % 3 == 0)
+			buffer.append(" extends ").append(typeName(dependency)).append(" {\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		else
+			buffer.append(" implements Serializable {\n\n"); //$NON-NLS-1$
+
+		buffer.append("\tpublic static final int ID = ").append(index).append(";\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("\tprivate String[] names;\n\tint[] values;\n\tString prefix;\n\tprotected int count;\n"); //$NON-NLS-1$
+		if (dependency >= 0)
+			buffer.append("\t").append(typeName(dependency)).append(" other;\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append('\n');
+
+		for (int m = 0; m < this.methodCount; m++) {
+			buffer.append("\t/**\n\t * Computes value ").append(m).append(".\n\t */\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\tpublic int compute").append(m).append("() {\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t\tint total = ").append(m).append(";\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t\tfor (int i = 0; i != this.values.length; i++) {\n"); //$NON-NLS-1$
+			buffer.append("\t\t\tif (this.values[i] % 2 == 0) {\n\t\t\t\ttotal += this.values[i] * ").append(m + 1).append(";\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t\t\t} else if (this.values[i] > 100) {\n\t\t\t\ttotal -= this.values[i] >> 1;\n"); //$NON-NLS-1$
+			buffer.append("\t\t\t} else {\n\t\t\t\ttotal ^= this.values[i];\n\t\t\t}\n\t\t}\n"); //$NON-NLS-1$
+			buffer.append("\t\tStringBuilder builder = new StringBuilder(this.prefix);\n"); //$NON-NLS-1$
+			buffer.append("\t\tfor (int i = 0; i != this.names.length; i++) {\n"); //$NON-NLS-1$
+			buffer.append("\t\t\tString next = this.names[i];\n"); //$NON-NLS-1$
+			buffer.append("\t\t\tif (next.length() > ").append(m % 5).append(") builder.append(next).append(',');\n\t\t}\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t\ttry {\n\t\t\ttotal += Integer.parseInt(builder.toString().trim());\n"); //$NON-NLS-1$
+			buffer.append("\t\t} catch (NumberFormatException e) {\n\t\t\ttotal += builder.length();\n\t\t}\n"); //$NON-NLS-1$
+			buffer.append("\t\tswitch (total & 3) {\n\t\t\tcase 0 : return total;\n\t\t\tcase 1 : return -total;\n"); //$NON-NLS-1$
+			buffer.append("\t\t\tdefault : return this.count + total + \"").append(m).append("\".hashCode();\n\t\t}\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t}\n\n"); //$NON-NLS-1$
+		}
+
+		buffer.append("\tpublic int rank() {\n"); //$NON-NLS-1$
+		if (dependency >= 0)
+			buffer.append("\t\treturn this.other == null ? ID : this.other.count + ID;\n\t}\n\n"); //$NON-NLS-1$
+		else
+			buffer.append("\t\treturn ID;\n\t}\n\n"); //$NON-NLS-1$
+		buffer.append("\tstatic class Entry {\n\t\t").append(name).append(" owner;\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("\t\tint size() {\n\t\t\treturn this.owner.names.length + ").append(name).append(".ID;\n\t\t}\n\t}\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("}\n}\n"); //$NON-NLS-1$
+		return buffer.toString();
+	}
+
+	/**
+	 * Answers the identifiers of all the compilation units in the order they occur, each in its own array.
+	 */
+	public char[][] identifiers() throws InvalidInputException {
+		Scanner scanner = new Scanner(false /*comment*/, false /*whitespace*/, false /*nls*/, ClassFileConstants.JDK1_8 /*sourceLevel*/,
+			ClassFileConstants.JDK1_8 /*complianceLevel*/, null /*taskTags*/, null /*taskPriorities*/, true /*taskCaseSensitive*/);
+		List<char[]> identifiers = new ArrayList<char[]>();
+		for (int i = 0, l = this.units.length; i < l; i++) {
+			scanner.setSource(this.units[i].getContents());
+			int token;
+			while ((token = scanner.getNextToken()) != TerminalTokens.TokenNameEOF) {
+				if (token == TerminalTokens.TokenNameIdentifier)
+					identifiers.add(scanner.getCurrentTokenSource().clone());
+			}
+		}
+		return identifiers.toArray(new char[identifiers.size()][]);
+	}
+
+	/**
+	 * Writes the compilation units under the given directory and answers their paths.
+	 */
+	public String[] writeTo(File directory) throws IOException {
+		String[] paths = new String[this.units.length];
+		for (int i = 0, l = this.units.length; i < l; i++) {
+			File file = new File(directory, fileName(i));
+			file.getParentFile().mkdirs();
+			Writer writer = new OutputStreamWriter(new FileOutputStream(file), ENCODING);
+			try {
+				writer.write(this.units[i].getContents());
+			} finally {
+				writer.close();
+			}
+			paths[i] = file.getPath();
+		}
+		return paths;
+	}
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import org.summer.sdt.internal.compiler.CompilationResult;
+import org.summer.sdt.internal.compiler.Compiler;
+import org.summer.sdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.summer.sdt.internal.compiler.ICompilerRequestor;
+import org.summer.sdt.internal.compiler.batch.FileSystem;
+import org.summer.sdt.internal.compiler.env.ICompilationUnit;
+import org.summer.sdt.internal.compiler.problem.DefaultProblemFactory;
+
+/**
+ * Measures the diet parse of all the compilation units of the corpus followed by the creation and
+ * completion of their type bindings in the {@link org.summer.sdt.internal.compiler.lookup.LookupEnvironment}.
+ */
+public class TypeCompletionBenchmark extends Benchmark {
+
+	static class LookupCompiler extends Compiler {
+		LookupCompiler(FileSystem environment, Benchmark benchmark) {
+			super(environment, DefaultErrorHandlingPolicies.proceedWithAllProblems(), benchmark.getCompilerOptions(),
+				new ICompilerRequestor() {
+					public void acceptResult(CompilationResult result) {
+						// results are not recorded
+					}
+				},
+				new DefaultProblemFactory());
+		}
+
+		int completeTypeBindings(ICompilationUnit[] sourceUnits) {
+			beginToCompile(sourceUnits);
+			int units = this.totalUnits;
+			reset();
+			return units;
+		}
+	}
+
+	private FileSystem environment;
+	private LookupCompiler compiler;
+
+	public String getName() {
+		return "LookupEnvironment.completeTypeBindings"; //$NON-NLS-1$
+	}
+
+	public void setUp(SyntheticCorpus syntheticCorpus, String[] classpathEntries) throws Exception {
+		super.setUp(syntheticCorpus, classpathEntries);
+		this.environment = new FileSystem(classpathEntries, null, SyntheticCorpus.ENCODING);
+		this.compiler = new LookupCompiler(this.environment, this);
+	}
+
+	public long run() throws Exception {
+		// the compiler clears the units it was given
+		return this.compiler.completeTypeBindings((ICompilationUnit[]) this.corpus.units.clone());
+	}
+
+	public void tearDown() throws Exception {
+		this.environment.cleanup();
+	}
+}
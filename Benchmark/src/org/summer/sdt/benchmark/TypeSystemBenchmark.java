@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.benchmark;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.summer.sdt.core.compiler.CharOperation;
+import org.summer.sdt.internal.compiler.ast.Wildcard;
+import org.summer.sdt.internal.compiler.batch.FileSystem;
+import org.summer.sdt.internal.compiler.lookup.LookupEnvironment;
+import org.summer.sdt.internal.compiler.lookup.ReferenceBinding;
+import org.summer.sdt.internal.compiler.lookup.TypeBinding;
+
+/**
+ * Measures the lookup of parameterized, array, wildcard and raw types in the
+ * {@link org.summer.sdt.internal.compiler.lookup.TypeSystem} of a lookup environment shared by a
+ * number of threads. Each thread asks for the same derived types of a few library types, starting
+ * at a different one so that the threads contend for the same entries.
+ * <p>
+ * The summary gives the share of the lookups answered by the cache and whether all the threads got
+ * the same bindings, as measured on a new lookup environment before the benchmark runs.
+ * </p>
+ */
+public class TypeSystemBenchmark extends Benchmark {
+
+	static final String[] GENERIC_TYPES = {
+		"java.util.List", "java.util.ArrayList", "java.util.Set", "java.util.HashSet", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		"java.util.Collection", "java.util.Iterator", "java.lang.Iterable", "java.lang.Comparable" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	};
+	static final String[] ARGUMENT_TYPES = {
+		"java.lang.Object", "java.lang.String", "java.lang.Integer", "java.lang.Long", "java.lang.Character", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		"java.lang.Number", "java.lang.Thread", "java.lang.Class", "java.lang.StringBuilder", "java.io.File" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	};
+	static final int ROUNDS = 20;
+
+	final int threadCount;
+	private FileSystem environment;
+	private TypeCompletionBenchmark.LookupCompiler compiler;
+	private ReferenceBinding[] genericTypes;
+	private ReferenceBinding[] argumentTypes;
+	private ExecutorService executor;
+	private String summary;
+
+	public TypeSystemBenchmark(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	public String getName() {
+		return "TypeSystem.getParameterizedType (" + this.threadCount + (this.threadCount == 1 ? " thread)" : " threads)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	public void setUp(SyntheticCorpus syntheticCorpus, String[] classpathEntries) throws Exception {
+		super.setUp(syntheticCorpus, classpathEntries);
+		this.environment = new FileSystem(classpathEntries, null, SyntheticCorpus.ENCODING);
+		if (this.threadCount > 1)
+			this.executor = Executors.newFixedThreadPool(this.threadCount);
+		this.summary = measureSharing();
+		// the measured lookups start from the types loaded by a new environment
+		this.compiler = new TypeCompletionBenchmark.LookupCompiler(this.environment, this);
+		loadTypes(this.compiler.lookupEnvironment);
+	}
+
+	private void loadTypes(LookupEnvironment lookupEnvironment) {
+		this.genericTypes = getTypes(lookupEnvironment, GENERIC_TYPES);
+		this.argumentTypes = getTypes(lookupEnvironment, ARGUMENT_TYPES);
+	}
+
+	private static ReferenceBinding[] getTypes(LookupEnvironment lookupEnvironment, String[] names) {
+		ReferenceBinding[] types = new ReferenceBinding[names.length];
+		for (int i = 0, l = names.length; i < l; i++) {
+			types[i] = lookupEnvironment.getType(CharOperation.splitOn('.', names[i].toCharArray()));
+			if (types[i] == null)
+				throw new IllegalStateException("Missing library type " + names[i]); //$NON-NLS-1$
+		}
+		return types;
+	}
+
+	/*
+	 * Asks for the derived types of all the generic types, starting at the given one, and answers them in a
+	 * fixed order whatever the start. A null result array only sums the ids of the types.
+	 */
+	long lookup(LookupEnvironment lookupEnvironment, int start, TypeBinding[] results) {
+		long consumed = 0;
+		int genericCount = this.genericTypes.length, argumentCount = this.argumentTypes.length;
+		int stride = argumentCount * 4 + 1;
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int g = 0; g < genericCount; g++) {
+				int generic = (start + g) % genericCount;
+				ReferenceBinding genericType = this.genericTypes[generic];
+				int slot = (round * genericCount + generic) * stride;
+				for (int a = 0; a < argumentCount; a++) {
+					TypeBinding argumentType = this.argumentTypes[a];
+					TypeBinding parameterizedType = lookupEnvironment.createParameterizedType(genericType, new TypeBinding[] { argumentType }, null);
+					TypeBinding arrayType = lookupEnvironment.createArrayType(parameterizedType, 1 + (a & 1));
+					TypeBinding wildcard = lookupEnvironment.createWildcard(genericType, 0, argumentType, null, Wildcard.EXTENDS);
+					TypeBinding wildcardType = lookupEnvironment.createParameterizedType(genericType, new TypeBinding[] { wildcard }, null);
+					consumed += parameterizedType.id + arrayType.id + wildcardType.id;
+					if (results != null) {
+						results[slot++] = parameterizedType;
+						results[slot++] = arrayType;
+						results[slot++] = wildcard;
+						results[slot++] = wildcardType;
+					}
+				}
+				TypeBinding rawType = lookupEnvironment.createRawType(genericType, null);
+				consumed += rawType.id;
+				if (results != null)
+					results[slot] = rawType;
+			}
+		}
+		return consumed;
+	}
+
+	int lookupCount() {
+		return ROUNDS * this.genericTypes.length * (this.argumentTypes.length * 4 + 1);
+	}
+
+	/*
+	 * Runs the lookups once on a new environment, keeping the results of each thread.
+	 */
+	private String measureSharing() throws Exception {
+		final TypeCompletionBenchmark.LookupCompiler sharingCompiler = new TypeCompletionBenchmark.LookupCompiler(this.environment, this);
+		loadTypes(sharingCompiler.lookupEnvironment);
+		final TypeBinding[][] results = new TypeBinding[this.threadCount][lookupCount()];
+		List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+		for (int t = 0; t < this.threadCount; t++) {
+			final int thread = t;
+			tasks.add(new Callable<Long>() {
+				public Long call() {
+					return Long.valueOf(lookup(sharingCompiler.lookupEnvironment, thread, results[thread]));
+				}
+			});
+		}
+		invoke(tasks);
+
+		IdentityHashMap<TypeBinding, TypeBinding> distinct = new IdentityHashMap<TypeBinding, TypeBinding>();
+		boolean shared = true;
+		for (int t = 0; t < this.threadCount; t++) {
+			for (int i = 0, l = results[t].length; i < l; i++) {
+				distinct.put(results[t][i], results[t][i]);
+				if (results[t][i] != results[0][i])
+					shared = false;
+			}
+		}
+		double lookups = (double) this.threadCount * lookupCount();
+		sharingCompiler.reset();
+		return "hit rate " + BenchmarkRunner.format((1 - distinct.size() / lookups) * 100) + "%, " //$NON-NLS-1$ //$NON-NLS-2$
+			+ (shared ? "same bindings in all threads" : "DIFFERENT BINDINGS ACROSS THREADS"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private long invoke(List<Callable<Long>> tasks) throws Exception {
+		long consumed = 0;
+		if (this.executor == null) {
+			for (int i = 0, l = tasks.size(); i < l; i++)
+				consumed += tasks.get(i).call().longValue();
+			return consumed;
+		}
+		List<Future<Long>> futures = this.executor.invokeAll(tasks);
+		for (int i = 0, l = futures.size(); i < l; i++)
+			consumed += futures.get(i).get().longValue();
+		return consumed;
+	}
+
+	public long run() throws Exception {
+		final LookupEnvironment lookupEnvironment = this.compiler.lookupEnvironment;
+		List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+		for (int t = 0; t < this.threadCount; t++) {
+			final int thread = t;
+			tasks.add(new Callable<Long>() {
+				public Long call() {
+					return Long.valueOf(lookup(lookupEnvironment, thread, null));
+				}
+			});
+		}
+		return invoke(tasks);
+	}
+
+	public String getResultSummary() {
+		return this.summary;
+	}
+
+	public void tearDown() throws Exception {
+		if (this.executor != null)
+			this.executor.shutdown();
+		this.compiler.reset();
+		this.environment.cleanup();
+	}
+}
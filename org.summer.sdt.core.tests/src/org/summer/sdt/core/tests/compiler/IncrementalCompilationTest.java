@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.core.tests.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.sdt.internal.compiler.batch.Main;
+
+/**
+ * Compiles sources twice with the -incremental option of the batch compiler, and checks which units
+ * the changes made in between compile again: the changed units, then the units referencing a type
+ * whose structure changed, until no type changes.
+ */
+public class IncrementalCompilationTest {
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+	private static final String COMPLETED = "[completed  "; //$NON-NLS-1$
+
+	private File directory;
+	private String errors;
+	private int errorCount;
+	private List<String> compiledUnits;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = File.createTempFile("incremental", null); //$NON-NLS-1$
+		this.directory.delete();
+		this.directory.mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		delete(this.directory);
+	}
+
+	@Test
+	public void testNoChange() throws IOException {
+		writeUnits();
+		compile();
+		assertCompiled("A, B, C, D"); //$NON-NLS-1$
+		compile();
+		assertCompiled(""); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testChangedSupertype() throws IOException {
+		writeUnits();
+		compile();
+		write("B", //$NON-NLS-1$
+			"class B extends Object {\n" + //$NON-NLS-1$
+			"	static final int Y = A.X + 1;\n" + //$NON-NLS-1$
+			"}\n"); //$NON-NLS-1$
+		compile();
+		assertEquals(this.errors, 0, this.errorCount);
+		// the structure of B changed, C references B, D is not compiled
+		assertCompiled("B, C"); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testChangedConstant() throws IOException {
+		writeUnits();
+		compile();
+		write("A", //$NON-NLS-1$
+			"class A {\n" + //$NON-NLS-1$
+			"	static final int X = 5;\n" + //$NON-NLS-1$
+			"	int a() { return 1; }\n" + //$NON-NLS-1$
+			"}\n"); //$NON-NLS-1$
+		compile();
+		assertEquals(this.errors, 0, this.errorCount);
+		// B is compiled as it references A, C only once the value of B.Y changed
+		assertCompiled("A, B, C"); //$NON-NLS-1$
+		assertTrue(read(output("B")).indexOf("B.Y = 6;") != -1); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void testRemovedFile() throws IOException {
+		writeUnits();
+		compile();
+		assertTrue(output("A").exists()); //$NON-NLS-1$
+		assertTrue(source("A").delete()); //$NON-NLS-1$
+		compile();
+		// B is compiled as it references A, C as the javascript of B changed
+		assertCompiled("B, C"); //$NON-NLS-1$
+		assertTrue(this.errorCount > 0);
+		assertTrue(this.errors, this.errors.indexOf("A cannot be resolved") != -1); //$NON-NLS-1$
+		assertFalse(output("A").exists()); //$NON-NLS-1$
+		// B has errors, it is compiled again until they are fixed
+		compile();
+		assertCompiled("B"); //$NON-NLS-1$
+	}
+
+	/*
+	 * A defines a constant, B a constant computed from it, C references B, D nothing.
+	 */
+	private void writeUnits() throws IOException {
+		write("A", //$NON-NLS-1$
+			"class A {\n" + //$NON-NLS-1$
+			"	static final int X = 1;\n" + //$NON-NLS-1$
+			"	int a() { return 1; }\n" + //$NON-NLS-1$
+			"}\n"); //$NON-NLS-1$
+		write("B", //$NON-NLS-1$
+			"class B extends A {\n" + //$NON-NLS-1$
+			"	static final int Y = A.X + 1;\n" + //$NON-NLS-1$
+			"}\n"); //$NON-NLS-1$
+		write("C", //$NON-NLS-1$
+			"class C {\n" + //$NON-NLS-1$
+			"	int c() { return B.Y; }\n" + //$NON-NLS-1$
+			"}\n"); //$NON-NLS-1$
+		write("D", //$NON-NLS-1$
+			"class D {\n" + //$NON-NLS-1$
+			"	int d() { return 4; }\n" + //$NON-NLS-1$
+			"}\n"); //$NON-NLS-1$
+	}
+
+	private void assertCompiled(String expected) {
+		List<String> names = new ArrayList<String>();
+		for (int i = 0, size = this.compiledUnits.size(); i < size; i++) {
+			String path = this.compiledUnits.get(i);
+			names.add(path.substring(path.lastIndexOf(File.separatorChar) + 1, path.length() - ".java".length())); //$NON-NLS-1$
+		}
+		Collections.sort(names);
+		StringBuffer buffer = new StringBuffer();
+		for (int i = 0, size = names.size(); i < size; i++) {
+			if (i > 0)
+				buffer.append(", "); //$NON-NLS-1$
+			buffer.append(names.get(i));
+		}
+		assertEquals(expected, buffer.toString());
+	}
+
+	private File source(String typeName) {
+		return new File(this.directory, "src/p/" + typeName + ".java"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private File output(String typeName) {
+		return new File(this.directory, "bin/p/" + typeName + ".js"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/*
+	 * Writes the module of the given type, with a later time stamp if it already exists.
+	 */
+	private void write(String typeName, String type) throws IOException {
+		File file = source(typeName);
+		long lastModified = file.lastModified();
+		write(file,
+			"package p;\n" + //$NON-NLS-1$
+			"module " + typeName + " {\n" + //$NON-NLS-1$ //$NON-NLS-2$
+			type +
+			"}\n"); //$NON-NLS-1$
+		if (lastModified != 0)
+			file.setLastModified(lastModified + 2000);
+	}
+
+	private void compile() {
+		StringWriter out = new StringWriter();
+		StringWriter err = new StringWriter();
+		Main main = new Main(new PrintWriter(out), new PrintWriter(err), false /*systemExit*/, null /*options*/, null /*progress*/);
+		main.compile(new String[] {
+			"-1.8", //$NON-NLS-1$
+			"-javascript", //$NON-NLS-1$
+			"-nowarn", //$NON-NLS-1$
+			"-proceedOnError", //$NON-NLS-1$
+			"-verbose", //$NON-NLS-1$
+			"-encoding", ENCODING, //$NON-NLS-1$
+			"-d", new File(this.directory, "bin").getPath(), //$NON-NLS-1$ //$NON-NLS-2$
+			"-incremental", new File(this.directory, "state").getPath(), //$NON-NLS-1$ //$NON-NLS-2$
+			new File(this.directory, "src").getPath() //$NON-NLS-1$
+		});
+		this.errors = err.toString();
+		this.errorCount = main.globalErrorsCount;
+		this.compiledUnits = new ArrayList<String>();
+		String[] lines = out.toString().split("\n"); //$NON-NLS-1$
+		for (int i = 0, length = lines.length; i < length; i++) {
+			String line = lines[i];
+			if (line.startsWith(COMPLETED))
+				this.compiledUnits.add(line.substring(COMPLETED.length(), line.lastIndexOf(" - #"))); //$NON-NLS-1$
+		}
+	}
+
+	private static String read(File file) throws IOException {
+		InputStream input = new FileInputStream(file);
+		try {
+			byte[] contents = new byte[(int) file.length()];
+			int read = 0;
+			while (read < contents.length) {
+				int count = input.read(contents, read, contents.length - read);
+				if (count < 0) break;
+				read += count;
+			}
+			return new String(contents, 0, read, ENCODING).replace("\r\n", "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			input.close();
+		}
+	}
+
+	private static void write(File file, String contents) throws IOException {
+		file.getParentFile().mkdirs();
+		OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(contents.getBytes(ENCODING));
+		} finally {
+			output.close();
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null)
+			for (int i = 0, l = children.length; i < l; i++)
+				delete(children[i]);
+		file.delete();
+	}
+}
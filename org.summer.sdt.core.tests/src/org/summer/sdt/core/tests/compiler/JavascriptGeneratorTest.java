@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.core.tests.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.sdt.internal.compiler.batch.Main;
+
+/**
+ * Compiles sources with the -javascript option of the batch compiler.
+ * <p>
+ * The sources of workspace/Javascript/src are compared with the expected javascript of
+ * workspace/Javascript/expected, their header comment gives what javac answers for them.
+ * The constructs which cannot be translated must be reported as errors, without writing
+ * the javascript of the unit.
+ * </p>
+ */
+public class JavascriptGeneratorTest {
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+	private static final File WORKSPACE = new File("workspace/Javascript"); //$NON-NLS-1$
+
+	private File directory;
+	private String errors;
+	private int errorCount;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = File.createTempFile("javascript", null); //$NON-NLS-1$
+		this.directory.delete();
+		this.directory.mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		delete(this.directory);
+	}
+
+	@Test
+	public void testSemantics() throws IOException {
+		compile(new File(WORKSPACE, "src")); //$NON-NLS-1$
+		assertEquals(this.errors, 0, this.errorCount);
+		assertEquals(read(new File(WORKSPACE, "expected/p/Sem.js")), read(new File(this.directory, "bin/p/Sem.js"))); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void testLambda() throws IOException {
+		assertUnsupported(
+			"	Runnable run() {\n" + //$NON-NLS-1$
+			"		return () -> {};\n" + //$NON-NLS-1$
+			"	}\n", //$NON-NLS-1$
+			"Lambda expression cannot be translated to javascript"); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testMemberTypeEnclosingInstance() throws IOException {
+		assertUnsupported(
+			"	int field;\n" + //$NON-NLS-1$
+			"	class Inner {\n" + //$NON-NLS-1$
+			"		int read() { return field; }\n" + //$NON-NLS-1$
+			"	}\n", //$NON-NLS-1$
+			"The access to the enclosing instance of a member type cannot be translated to javascript"); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testLongShift() throws IOException {
+		assertUnsupported(
+			"	long shift(long value) {\n" + //$NON-NLS-1$
+			"		return value << 2;\n" + //$NON-NLS-1$
+			"	}\n", //$NON-NLS-1$
+			"The shift or bitwise operation on long values cannot be translated to javascript"); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testIterableForeach() throws IOException {
+		assertUnsupported(
+			"	int count(java.util.List<String> list) {\n" + //$NON-NLS-1$
+			"		int count = 0;\n" + //$NON-NLS-1$
+			"		for (String s : list) count++;\n" + //$NON-NLS-1$
+			"		return count;\n" + //$NON-NLS-1$
+			"	}\n", //$NON-NLS-1$
+			"The enhanced for loop over an Iterable cannot be translated to javascript"); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testTryWithResources() throws IOException {
+		assertUnsupported(
+			"	void read(java.io.InputStream stream) throws java.io.IOException {\n" + //$NON-NLS-1$
+			"		try (java.io.InputStream input = stream) {\n" + //$NON-NLS-1$
+			"			input.read();\n" + //$NON-NLS-1$
+			"		}\n" + //$NON-NLS-1$
+			"	}\n", //$NON-NLS-1$
+			"The try-with-resources statement cannot be translated to javascript"); //$NON-NLS-1$
+	}
+
+	private void assertUnsupported(String members, String message) throws IOException {
+		File source = new File(this.directory, "src/p/X.java"); //$NON-NLS-1$
+		write(source,
+			"package p;\n" + //$NON-NLS-1$
+			"module X {\n" + //$NON-NLS-1$
+			"class X {\n" + //$NON-NLS-1$
+			members +
+			"}\n" + //$NON-NLS-1$
+			"}\n"); //$NON-NLS-1$
+		compile(source.getParentFile().getParentFile());
+		assertTrue(this.errors, this.errors.indexOf(message) != -1);
+		assertFalse(new File(this.directory, "bin/p/X.js").exists()); //$NON-NLS-1$
+	}
+
+	private void compile(File sourceDirectory) {
+		StringWriter err = new StringWriter();
+		Main main = new Main(new PrintWriter(new StringWriter()), new PrintWriter(err), false /*systemExit*/, null /*options*/, null /*progress*/);
+		main.compile(new String[] {
+			"-1.8", //$NON-NLS-1$
+			"-javascript", //$NON-NLS-1$
+			"-nowarn", //$NON-NLS-1$
+			"-proceedOnError", //$NON-NLS-1$
+			"-encoding", ENCODING, //$NON-NLS-1$
+			"-d", new File(this.directory, "bin").getPath(), //$NON-NLS-1$ //$NON-NLS-2$
+			sourceDirectory.getPath()
+		});
+		this.errors = err.toString();
+		this.errorCount = main.globalErrorsCount;
+	}
+
+	private static String read(File file) throws IOException {
+		InputStream input = new FileInputStream(file);
+		try {
+			byte[] contents = new byte[(int) file.length()];
+			int read = 0;
+			while (read < contents.length) {
+				int count = input.read(contents, read, contents.length - read);
+				if (count < 0) break;
+				read += count;
+			}
+			return new String(contents, 0, read, ENCODING).replace("\r\n", "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			input.close();
+		}
+	}
+
+	private static void write(File file, String contents) throws IOException {
+		file.getParentFile().mkdirs();
+		OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(contents.getBytes(ENCODING));
+		} finally {
+			output.close();
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null)
+			for (int i = 0, l = children.length; i < l; i++)
+				delete(children[i]);
+		file.delete();
+	}
+}
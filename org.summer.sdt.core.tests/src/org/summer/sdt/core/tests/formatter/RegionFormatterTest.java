@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.core.tests.formatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.text.edits.TextEdit;
+import org.junit.Test;
+import org.summer.sdt.core.JavaCore;
+import org.summer.sdt.core.formatter.CodeFormatter;
+import org.summer.sdt.core.formatter.DefaultCodeFormatterConstants;
+import org.summer.sdt.internal.formatter.DefaultCodeFormatter;
+
+/**
+ * Formats regions of a source with the methods outside the regions left as is, and checks that
+ * this gives the same result as formatting all the methods and keeping only the edits in the regions.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class RegionFormatterTest {
+
+	private static final int KIND = CodeFormatter.K_CLASS_BODY_DECLARATIONS | CodeFormatter.F_INCLUDE_COMMENTS;
+
+	private static final String MEMBERS =
+		"/* lead */ int first  (String x0,  long b1) {\n" + //$NON-NLS-1$
+		"\n" + //$NON-NLS-1$
+		"	bar = 42;\n" + //$NON-NLS-1$
+		"}\n" + //$NON-NLS-1$
+		"   \n" + //$NON-NLS-1$
+		"	int field=(value(new Object() {\n" + //$NON-NLS-1$
+		"	public String toString()  { return bar; }\n" + //$NON-NLS-1$
+		"}  * 2,1,longerVariableName));// trailing\n" + //$NON-NLS-1$
+		"	/**\n" + //$NON-NLS-1$
+		"	 * Answers the count.\n" + //$NON-NLS-1$
+		"	 * @param x the x\n" + //$NON-NLS-1$
+		"	 */\n" + //$NON-NLS-1$
+		"Object second (long x,  long bar1)  {\n" + //$NON-NLS-1$
+		"			bar  = anotherRatherLongName.count(x.count(new Object() {\n" + //$NON-NLS-1$
+		"public String toString() { return x.count(anotherRatherLongName); }\n" + //$NON-NLS-1$
+		"}));\n" + //$NON-NLS-1$
+		"				value = true;\n" + //$NON-NLS-1$
+		"	count(null, 42, this.x, (\"str\") ?  b:b * count.anotherRatherLongName(anotherRatherLongName), longerVariableName);\n" + //$NON-NLS-1$
+		"	return null;\n" + //$NON-NLS-1$
+		"}\n" + //$NON-NLS-1$
+		"	// line comment\n" + //$NON-NLS-1$
+		"	@Deprecated\n" + //$NON-NLS-1$
+		"String third (String b0, String bar1){\n" + //$NON-NLS-1$
+		"	while (x(this.x, anotherRatherLongName(\"str\", \"str\")) || value(count, foo)) {   count++; }\n" + //$NON-NLS-1$
+		"  return b0;}\n" + //$NON-NLS-1$
+		"	// @formatter:off\n" + //$NON-NLS-1$
+		"	void   off( ) {  count ++ ; }\n" + //$NON-NLS-1$
+		"	// @formatter:on\n" + //$NON-NLS-1$
+		"  static class Member {\n" + //$NON-NLS-1$
+		"int a;\n" + //$NON-NLS-1$
+		"	void inner ( ) {\n" + //$NON-NLS-1$
+		"if (a>0) a--;   else a++;\n" + //$NON-NLS-1$
+		"		}\n" + //$NON-NLS-1$
+		"	/* block */ int other() { return a;  }\n" + //$NON-NLS-1$
+		"  void last() {\n" + //$NON-NLS-1$
+		"  }\n" + //$NON-NLS-1$
+		"}\n" + //$NON-NLS-1$
+		"	int fourth() { switch (count) { case 1: return 2; default: return 3; } }\n" + //$NON-NLS-1$
+		"	void fifth() {\n" + //$NON-NLS-1$
+		"		}\n"; //$NON-NLS-1$
+
+	private static Map options(String[] settings) {
+		Map options = DefaultCodeFormatterConstants.getEclipseDefaultSettings();
+		options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
+		options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
+		options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
+		for (int i = 0; i < settings.length; i += 2)
+			options.put(settings[i], settings[i + 1]);
+		return options;
+	}
+
+	private static String format(Map options, String source, IRegion[] regions, boolean skipMethodsOutsideRegions) throws BadLocationException {
+		DefaultCodeFormatter formatter = new DefaultCodeFormatter(options);
+		formatter.skipMethodsOutsideRegions = skipMethodsOutsideRegions;
+		TextEdit edit = formatter.format(KIND, source, regions, 0, "\n"); //$NON-NLS-1$
+		assertNotNull(edit);
+		Document document = new Document(source);
+		edit.apply(document);
+		return document.get();
+	}
+
+	private static void assertSameFormatting(Map options, String source, IRegion[] regions) throws BadLocationException {
+		assertEquals(regionsToString(regions),
+			format(options, source, regions, false),
+			format(options, source, regions, true));
+	}
+
+	private static String regionsToString(IRegion[] regions) {
+		StringBuffer buffer = new StringBuffer("regions"); //$NON-NLS-1$
+		for (int i = 0; i < regions.length; i++)
+			buffer.append(" [").append(regions[i].getOffset()).append(", ").append(regions[i].getLength()).append(']'); //$NON-NLS-1$
+		return buffer.toString();
+	}
+
+	/*
+	 * Formats each line of the source on its own, then random sets of one or two regions.
+	 */
+	private static void assertSameFormatting(Map options) throws BadLocationException {
+		String source = MEMBERS;
+		for (int start = 0, end; start < source.length(); start = end + 1) {
+			end = source.indexOf('\n', start);
+			assertSameFormatting(options, source, new IRegion[] {new Region(start, end - start)});
+		}
+		Random random = new Random(0);
+		for (int i = 0; i < 200; i++) {
+			int count = 1 + random.nextInt(2);
+			int[] bounds = new int[2 * count];
+			for (int j = 0; j < bounds.length; j++)
+				bounds[j] = random.nextInt(source.length() + 1);
+			Arrays.sort(bounds);
+			List<IRegion> regions = new ArrayList<IRegion>();
+			for (int j = 0; j < count; j++) {
+				if (j > 0 && bounds[2 * j] <= bounds[2 * j - 1])
+					continue;
+				int length = bounds[2 * j + 1] - bounds[2 * j];
+				if (random.nextBoolean())
+					length = Math.min(length, random.nextInt(80));
+				regions.add(new Region(bounds[2 * j], length));
+			}
+			assertSameFormatting(options, source, regions.toArray(new IRegion[regions.size()]));
+		}
+	}
+
+	@Test
+	public void testDefaultSettings() throws BadLocationException {
+		assertSameFormatting(options(new String[0]));
+	}
+
+	@Test
+	public void testTagsAndBlankLines() throws BadLocationException {
+		assertSameFormatting(options(new String[] {
+			DefaultCodeFormatterConstants.FORMATTER_USE_ON_OFF_TAGS, DefaultCodeFormatterConstants.TRUE,
+			DefaultCodeFormatterConstants.FORMATTER_ALIGN_TYPE_MEMBERS_ON_COLUMNS, DefaultCodeFormatterConstants.TRUE,
+			DefaultCodeFormatterConstants.FORMATTER_BLANK_LINES_BEFORE_METHOD, "3", //$NON-NLS-1$
+			DefaultCodeFormatterConstants.FORMATTER_BRACE_POSITION_FOR_METHOD_DECLARATION, DefaultCodeFormatterConstants.NEXT_LINE,
+			DefaultCodeFormatterConstants.FORMATTER_LINE_SPLIT, "40" //$NON-NLS-1$
+		}));
+	}
+
+	@Test
+	public void testNoEmptyLines() throws BadLocationException {
+		assertSameFormatting(options(new String[] {
+			DefaultCodeFormatterConstants.FORMATTER_BLANK_LINES_BEFORE_METHOD, "0", //$NON-NLS-1$
+			DefaultCodeFormatterConstants.FORMATTER_NUMBER_OF_EMPTY_LINES_TO_PRESERVE, "0", //$NON-NLS-1$
+			DefaultCodeFormatterConstants.FORMATTER_COMMENT_FORMAT_JAVADOC_COMMENT, DefaultCodeFormatterConstants.FALSE
+		}));
+	}
+
+	@Test
+	public void testSpaces() throws BadLocationException {
+		assertSameFormatting(options(new String[] {
+			DefaultCodeFormatterConstants.FORMATTER_TAB_CHAR, JavaCore.SPACE,
+			DefaultCodeFormatterConstants.FORMATTER_LINE_SPLIT, "60", //$NON-NLS-1$
+			DefaultCodeFormatterConstants.FORMATTER_COMMENT_LINE_LENGTH, "30", //$NON-NLS-1$
+			DefaultCodeFormatterConstants.FORMATTER_INDENT_STATEMENTS_COMPARE_TO_BODY, DefaultCodeFormatterConstants.FALSE
+		}));
+	}
+
+	@Test
+	public void testRegionOfFormattedSource() throws BadLocationException {
+		// once formatted, formatting the whole of a method again gives the same source as a full format
+		Map options = options(new String[0]);
+		String formatted = format(options, MEMBERS, new IRegion[] {new Region(0, MEMBERS.length())}, true);
+		String method = "int fourth() { switch (count) { case 1: return 2; default: return 3; } }"; //$NON-NLS-1$
+		int start = formatted.indexOf("int fourth()"); //$NON-NLS-1$
+		int end = formatted.indexOf("\n\nvoid fifth()"); //$NON-NLS-1$
+		String source = formatted.substring(0, start) + method + formatted.substring(end);
+		assertEquals(formatted, format(options, source, new IRegion[] {new Region(start, method.length())}, true));
+	}
+
+	@Test
+	public void testRegionStartingInJavadoc() throws BadLocationException {
+		// the javadoc formatting gives several edits where the region starts, the one adapted must not depend
+		// on the count of edits around it, which changes when the other methods are skipped
+		Map options = options(new String[0]);
+		for (int before = 0; before < 4; before++) {
+			for (int after = 0; after < 4; after++) {
+				StringBuffer buffer = new StringBuffer();
+				for (int i = 0; i < before; i++)
+					buffer.append("void before").append(i).append("( ) {  count ( 1,2 ) ;  }\n"); //$NON-NLS-1$ //$NON-NLS-2$
+				buffer.append(
+					"	/**\n" + //$NON-NLS-1$
+					" * doc\n" + //$NON-NLS-1$
+					"    * @param x the x\n" + //$NON-NLS-1$
+					" */\n" + //$NON-NLS-1$
+					"Object count (long value0, String x1, long y2)  {\n" + //$NON-NLS-1$
+					"}\n"); //$NON-NLS-1$
+				for (int i = 0; i < after; i++)
+					buffer.append("void after").append(i).append("( ) {  count ( 1,2 ) ;  }\n"); //$NON-NLS-1$ //$NON-NLS-2$
+				String source = buffer.toString();
+				int start = source.indexOf("the x") + "the x".length(); //$NON-NLS-1$ //$NON-NLS-2$
+				assertSameFormatting(options, source, new IRegion[] {new Region(start, 22)});
+			}
+		}
+	}
+}
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.core.tests.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.sdt.internal.core.index.FileIndexLocation;
+import org.summer.sdt.internal.core.index.JarIndexLocation;
+import org.summer.sdt.internal.core.search.indexing.AddJarFileToIndex;
+import org.summer.sdt.internal.core.search.processing.IJob;
+import org.summer.sdt.internal.core.search.processing.JobManager;
+
+/**
+ * Checks that a concurrent job performed with the {@link IJob#WaitUntilReady} policy waits for
+ * the queued jobs having one of its awaited keys, and for the ones without key, while the other
+ * jobs are executed concurrently by the processing threads.
+ */
+public class JobManagerTest {
+
+	private static final long TIMEOUT = 10000;
+
+	static class KeyedJob implements IJob {
+		final Object key;
+		final List<Object> log;
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		volatile boolean done;
+
+		KeyedJob(Object key, List<Object> log) {
+			this.key = key;
+			this.log = log;
+		}
+		public boolean belongsTo(String jobFamily) {
+			return true;
+		}
+		public void cancel() {
+			this.release.countDown();
+		}
+		public void ensureReadyToRun() {
+			// nothing to prepare
+		}
+		public boolean execute(IProgressMonitor progress) {
+			synchronized (this.log) {
+				this.log.add(this);
+			}
+			this.started.countDown();
+			try {
+				this.release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				// done
+			}
+			this.done = true;
+			return COMPLETE;
+		}
+		public String getJobFamily() {
+			return "test"; //$NON-NLS-1$
+		}
+		public String toString() {
+			return "job " + this.key; //$NON-NLS-1$
+		}
+	}
+
+	static class SearchJob implements IJob {
+		final Object[] keys;
+		final KeyedJob[] jobs;
+		boolean[] doneJobs;
+
+		SearchJob(Object[] keys, KeyedJob[] jobs) {
+			this.keys = keys;
+			this.jobs = jobs;
+		}
+		public boolean belongsTo(String jobFamily) {
+			return false;
+		}
+		public void cancel() {
+			// not cancelled
+		}
+		public void ensureReadyToRun() {
+			// nothing to prepare
+		}
+		public boolean execute(IProgressMonitor progress) {
+			this.doneJobs = new boolean[this.jobs.length];
+			for (int i = 0, length = this.jobs.length; i < length; i++)
+				this.doneJobs[i] = this.jobs[i].done;
+			return COMPLETE;
+		}
+		public String getJobFamily() {
+			return "search"; //$NON-NLS-1$
+		}
+	}
+
+	static class KeyedJobManager extends JobManager {
+		final int threads;
+
+		KeyedJobManager(int threads) {
+			this.threads = threads;
+		}
+		protected Object jobKey(IJob job) {
+			return job instanceof KeyedJob ? ((KeyedJob) job).key : null;
+		}
+		protected Object[] jobKeysAwaitedBy(IJob concurrentJob) {
+			return concurrentJob instanceof SearchJob ? ((SearchJob) concurrentJob).keys : null;
+		}
+		protected int processingThreadsCount() {
+			return this.threads;
+		}
+		public String processName() {
+			return "Test Job Manager"; //$NON-NLS-1$
+		}
+	}
+
+	private KeyedJobManager manager;
+	private List<Object> log = new ArrayList<Object>();
+	private List<KeyedJob> jobs = new ArrayList<KeyedJob>();
+
+	@Before
+	public void setUp() {
+		this.manager = new KeyedJobManager(2);
+		this.manager.reset();
+	}
+
+	@After
+	public void tearDown() {
+		for (int i = 0, size = this.jobs.size(); i < size; i++)
+			this.jobs.get(i).release.countDown();
+		this.manager.shutdown();
+	}
+
+	private KeyedJob request(Object key) {
+		KeyedJob job = new KeyedJob(key, this.log);
+		this.jobs.add(job);
+		this.manager.request(job);
+		return job;
+	}
+
+	private void releaseLater(final KeyedJob job) {
+		new Thread() {
+			public void run() {
+				try {
+					Thread.sleep(300);
+				} catch (InterruptedException e) {
+					// release now
+				}
+				job.release.countDown();
+			}
+		}.start();
+	}
+
+	@Test
+	public void testWaitForAwaitedKey() throws InterruptedException {
+		KeyedJob job = request("a"); //$NON-NLS-1$
+		assertTrue(job.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		releaseLater(job);
+		SearchJob search = new SearchJob(new Object[] {"a"}, new KeyedJob[] {job}); //$NON-NLS-1$
+		assertTrue(this.manager.performConcurrentJob(search, IJob.WaitUntilReady, null));
+		assertTrue("the search ran before the job it waits for", search.doneJobs[0]); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testWaitForJobWithoutKey() throws InterruptedException {
+		KeyedJob job = request(null);
+		assertTrue(job.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		releaseLater(job);
+		SearchJob search = new SearchJob(new Object[] {"a"}, new KeyedJob[] {job}); //$NON-NLS-1$
+		assertTrue(this.manager.performConcurrentJob(search, IJob.WaitUntilReady, null));
+		assertTrue("the search ran before a job without key", search.doneJobs[0]); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testNoWaitForOtherKeys() throws InterruptedException {
+		KeyedJob other = request("b"); //$NON-NLS-1$
+		KeyedJob awaited = request("a"); //$NON-NLS-1$
+		assertTrue(other.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertTrue(awaited.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		releaseLater(awaited);
+		SearchJob search = new SearchJob(new Object[] {"a"}, new KeyedJob[] {awaited, other}); //$NON-NLS-1$
+		assertTrue(this.manager.performConcurrentJob(search, IJob.WaitUntilReady, null));
+		assertTrue(search.doneJobs[0]);
+		assertFalse("the search waited for a job it does not depend on", search.doneJobs[1]); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testAwaitedKeyFirst() throws InterruptedException {
+		// both threads are busy, the queued jobs wait
+		KeyedJob busy1 = request("x"); //$NON-NLS-1$
+		KeyedJob busy2 = request("y"); //$NON-NLS-1$
+		assertTrue(busy1.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertTrue(busy2.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		KeyedJob other = request("b"); //$NON-NLS-1$
+		KeyedJob awaited = request("a"); //$NON-NLS-1$
+		awaited.release.countDown();
+		final SearchJob search = new SearchJob(new Object[] {"a"}, new KeyedJob[] {awaited}); //$NON-NLS-1$
+		Thread searching = new Thread() {
+			public void run() {
+				JobManagerTest.this.manager.performConcurrentJob(search, IJob.WaitUntilReady, null);
+			}
+		};
+		searching.start();
+		Thread.sleep(300); // let the search register the key it awaits
+		busy1.release.countDown();
+		searching.join(TIMEOUT);
+		assertTrue(search.doneJobs[0]);
+		synchronized (this.log) {
+			assertEquals("the awaited job was not executed first", awaited, this.log.get(2)); //$NON-NLS-1$
+		}
+		assertFalse(other.done);
+	}
+
+	@Test
+	public void testJarRequestKey() throws Exception {
+		// a search selects the pre-built index of a jar once it is registered, it must still wait for the
+		// requests queued before, which updated the default index of the jar
+		Path jarPath = new Path("/lib/x.jar"); //$NON-NLS-1$
+		URL indexURL = new URL("jar:file:/lib/x-index.zip!/x.index"); //$NON-NLS-1$
+		AddJarFileToIndex defaultIndexRequest = new AddJarFileToIndex(jarPath, new FileIndexLocation(new File("1.index")), null); //$NON-NLS-1$
+		AddJarFileToIndex prebuiltIndexRequest = new AddJarFileToIndex(jarPath, new JarIndexLocation(indexURL, indexURL), null);
+		assertEquals(defaultIndexRequest.getJobKey(), prebuiltIndexRequest.getJobKey());
+		assertEquals(jarPath, prebuiltIndexRequest.getJobKey());
+	}
+}
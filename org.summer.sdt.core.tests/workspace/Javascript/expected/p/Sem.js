@@ -0,0 +1,197 @@
+(function() {
+	function $module() {
+		function Base(x) {
+			this.x = 0;
+			this.x = x;
+		}
+		Base.prototype.value = function() {
+			return this.x;
+		};
+		function Sem() {
+			this.count = 0;
+			this.flag = false;
+			this.big = 0;
+			this.ch = 0;
+			this.small = 0;
+			this.name = null;
+			this.base = 10;
+			this.log = "";
+		}
+		Sem.shared = 0;
+		Sem.prototype.record = function(entry) {
+			this.log += entry + ";";
+		};
+		Sem.prototype.getBase = function() {
+			return this.base;
+		};
+		Sem.prototype.fields = function() {
+			this.record("" + this.count + this.flag + this.big + this.ch + this.small + this.name);
+			return this.log;
+		};
+		Sem.prototype.arithmetic = function() {
+			var max = 2147483647;
+			var min = -2147483648;
+			var m = 123456789;
+			this.record("" + ((max + 1 | 0)));
+			this.record("" + ((min - 1 | 0)));
+			this.record("" + (Math.imul(max, 3)));
+			this.record("" + (Math.imul(m, m)));
+			this.record("" + (-min | 0));
+			this.record("" + ((min >>> 1 | 0)));
+			this.record("" + (-1));
+			this.record("" + (-3) + (-1));
+			var i = max;
+			i = (i + 1 | 0);
+			this.record("" + i);
+			i = max;
+			i = (i + 1 | 0);
+			this.record("" + i);
+			i = m;
+			i = Math.imul(i, m);
+			this.record("" + i);
+			i = 10;
+			i = (i / 4 | 0);
+			this.record("" + i);
+			i = 10;
+			i = (i + 2.7 | 0);
+			this.record("" + i);
+			var j = max;
+			var k = ((j = (j + 1 | 0)) - 1 | 0);
+			this.record("" + k + "," + j);
+			var a = [max, 5];
+			(function($a, $i, $y) { return $a[$i] = ($a[$i] + $y | 0); })(a, 0, 1);
+			var old = (function($a, $i, $y) { var $v = $a[$i]; $a[$i] = ($v - $y | 0); return $v; })(a, 1, 1);
+			(function($a, $i, $y) { return $a[$i] = ($a[$i] + $y | 0); })(a, 1, max);
+			this.record("" + a[0] + "," + a[1] + "," + old);
+			var l = 7;
+			this.record("" + ($trunc(l / 2)) + "," + (l * 1000000000));
+			return this.log;
+		};
+		Sem.prototype.narrowing = function() {
+			var l = 4294967297;
+			var l2 = 3000000000;
+			var i = 65601;
+			var d = -3.7;
+			var e = 390.5;
+			this.record("" + (l | 0) + "," + (l2 | 0));
+			this.record("" + (i & 0xFFFF) + "," + (i << 24 >> 24) + "," + (((i - 25601 | 0)) << 16 >> 16));
+			this.record("" + 65535 + "," + (d | 0) + "," + $trunc(d) + "," + (e << 24 >> 24));
+			var b = 127;
+			b = ((b + 1) << 24 >> 24);
+			this.record("" + b);
+			b = ((b + 200) << 24 >> 24);
+			this.record("" + b);
+			b = (Math.imul(b, 3) << 24 >> 24);
+			this.record("" + b);
+			var c = 65535;
+			c = ((c + 1) & 0xFFFF);
+			this.record("" + c);
+			c = ((c - 1) & 0xFFFF);
+			this.record("" + c);
+			var s = 32767;
+			s = ((s + 1) << 16 >> 16);
+			this.record("" + s);
+			s = ((s >>> 1) << 16 >> 16);
+			this.record("" + s);
+			var cs = [97];
+			(function($a, $i, $y) { return $a[$i] = (($a[$i] + $y) & 0xFFFF); })(cs, 0, 2);
+			this.record("" + String.fromCharCode(cs[0]));
+			this.record("" + -56 + "," + String.fromCharCode(66));
+			return this.log;
+		};
+		Sem.prototype.types = function() {
+			var local = 5;
+			var r = new ((function($this0, local) {
+				function $Anonymous() {
+				}
+				$Anonymous.prototype.run = function() {
+					$this0.count = ($this0.count + (local + $this0.base | 0) | 0);
+					$this0.record("anonymous" + $this0.getBase() + $this0.count);
+				};
+				return $Anonymous;
+			})(this, local))();
+			r.run();
+			var Local = (function($this0, local) {
+				function Local(v) {
+					this.v = 0;
+					this.v = v;
+				}
+				Local.prototype.value = function() {
+					return ((this.v + $this0.base | 0) + local | 0);
+				};
+				return Local;
+			})(this, local);
+			this.record("local" + new Local(1).value());
+			var runnables = new Array(3);
+			for (var i = 0; i < 3; i = (i + 1 | 0)) {
+				var captured = i;
+				runnables[i] = new ((function($this0, captured) {
+					function $Anonymous() {
+					}
+					$Anonymous.prototype.run = function() {
+						$this0.record("loop" + captured);
+					};
+					return $Anonymous;
+				})(this, captured))();
+			}
+			for (var i = 0; i < 3; i = (i + 1 | 0)) {
+				runnables[i].run();
+			}
+			new ((function($this0) {
+				function $Anonymous() {
+				}
+				$Anonymous.prototype.run = function() {
+					new ((function($this1) {
+						function $Anonymous() {
+						}
+						$Anonymous.prototype.run = function() {
+							$this0.record("nested" + $this0.base + $this0.count);
+						};
+						return $Anonymous;
+					})(this))().run();
+				};
+				return $Anonymous;
+			})(this))().run();
+			var sub = new ((function($this0) {
+				function $Anonymous($anonymous0) {
+					Base.call(this, $anonymous0);
+				}
+				$Anonymous.prototype = Object.create(Base.prototype);
+				$Anonymous.prototype.constructor = $Anonymous;
+				$Anonymous.prototype.value = function() {
+					return (Base.prototype.value.call(this) + $this0.base | 0);
+				};
+				return $Anonymous;
+			})(this))(7);
+			this.record("subclass" + sub.value());
+			new ((function($this0) {
+				function $Anonymous() {
+				}
+				$Anonymous.prototype.run = function() {
+					$this0.record("qualified" + $this0.base);
+				};
+				return $Anonymous;
+			})(this))().run();
+			this.record("member" + new Sem.Member().twice());
+			return this.log;
+		};
+		function Member() {
+		}
+		Member.prototype.twice = function() {
+			return Math.imul(2, Sem.shared);
+		};
+		Sem.Member = Member;
+		function $trunc(x) {
+			return x < 0 ? Math.ceil(x) : Math.floor(x);
+		}
+		return {
+			Base: Base,
+			Sem: Sem
+		};
+	}
+	var lang;
+	define(['org/summer/lang'], function($lang) {
+		lang = $lang;
+		return $module();
+	});
+})();
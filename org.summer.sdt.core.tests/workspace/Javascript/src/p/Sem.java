@@ -0,0 +1,180 @@
+/*
+ * The java semantics the generated javascript keeps. Compiled by javac, the four methods of Sem answer:
+ * 0false000null;
+ * -2147483648;2147483647;2147483645;-1757895751;-2147483648;1073741824;-1;-3-1;-2147483648;-2147483648;-1757895751;2;12;2147483647,-2147483648;-2147483648,-2147483645,5;3,7000000000;
+ * 1,-1294967296;65,65,-25536;65535,-3,-3,-122;-128;72;-40;0;65535;-32768;-16384;c;-56,B;
+ * anonymous1015;local16;loop0;loop1;loop2;nested1015;subclass17;qualified10;member0;
+ */
+package p;
+
+module Sem {
+
+class Base {
+	int x;
+	Base(int x) {
+		this.x = x;
+	}
+	int value() {
+		return this.x;
+	}
+}
+
+class Sem {
+	static int shared;
+	int count;
+	boolean flag;
+	long big;
+	char ch;
+	byte small;
+	String name;
+	int base = 10;
+	String log = "";
+
+	void record(String entry) {
+		this.log += entry + ";";
+	}
+
+	int getBase() {
+		return this.base;
+	}
+
+	String fields() {
+		record("" + this.count + this.flag + this.big + (int) this.ch + this.small + this.name);
+		return this.log;
+	}
+
+	String arithmetic() {
+		int max = 2147483647;
+		int min = -2147483648;
+		int m = 123456789;
+		record("" + (max + 1));
+		record("" + (min - 1));
+		record("" + (max * 3));
+		record("" + (m * m));
+		record("" + -min);
+		record("" + (min >>> 1));
+		record("" + (-1 >>> 0));
+		record("" + (7 / -2) + (-7 % 2));
+		int i = max;
+		i++;
+		record("" + i);
+		i = max;
+		i += 1;
+		record("" + i);
+		i = m;
+		i *= m;
+		record("" + i);
+		i = 10;
+		i /= 4;
+		record("" + i);
+		i = 10;
+		i += 2.7;
+		record("" + i);
+		int j = max;
+		int k = j++;
+		record("" + k + "," + j);
+		int[] a = { max, 5 };
+		a[0]++;
+		int old = a[1]--;
+		a[1] += max;
+		record("" + a[0] + "," + a[1] + "," + old);
+		long l = 7;
+		record("" + (l / 2) + "," + (l * 1000000000));
+		return this.log;
+	}
+
+	String narrowing() {
+		long l = 4294967297L;
+		long l2 = 3000000000L;
+		int i = 65601;
+		double d = -3.7;
+		double e = 390.5;
+		record("" + (int) l + "," + (int) l2);
+		record("" + (int) (char) i + "," + (byte) i + "," + (short) (i - 25601));
+		record("" + (int) (char) -1 + "," + (int) d + "," + (long) d + "," + (byte) e);
+		byte b = 127;
+		b++;
+		record("" + b);
+		b += 200;
+		record("" + b);
+		b *= 3;
+		record("" + b);
+		char c = 65535;
+		c++;
+		record("" + (int) c);
+		c--;
+		record("" + (int) c);
+		short s = 32767;
+		s += 1;
+		record("" + s);
+		s >>>= 1;
+		record("" + s);
+		char[] cs = { 'a' };
+		cs[0] += 2;
+		record("" + cs[0]);
+		record("" + (byte) 200 + "," + (char) 66);
+		return this.log;
+	}
+
+	String types() {
+		final int local = 5;
+		Runnable r = new Runnable() {
+			public void run() {
+				count += local + base;
+				record("anonymous" + getBase() + count);
+			}
+		};
+		r.run();
+		class Local {
+			int v;
+			Local(int v) {
+				this.v = v;
+			}
+			int value() {
+				return this.v + base + local;
+			}
+		}
+		record("local" + new Local(1).value());
+		Runnable[] runnables = new Runnable[3];
+		for (int i = 0; i < 3; i++) {
+			final int captured = i;
+			runnables[i] = new Runnable() {
+				public void run() {
+					record("loop" + captured);
+				}
+			};
+		}
+		for (int i = 0; i < 3; i++)
+			runnables[i].run();
+		new Runnable() {
+			public void run() {
+				new Runnable() {
+					public void run() {
+						record("nested" + base + count);
+					}
+				}.run();
+			}
+		}.run();
+		Base sub = new Base(7) {
+			int value() {
+				return super.value() + base;
+			}
+		};
+		record("subclass" + sub.value());
+		new Runnable() {
+			public void run() {
+				record("qualified" + Sem.this.base);
+			}
+		}.run();
+		record("member" + new Member().twice());
+		return this.log;
+	}
+
+	static class Member {
+		int twice() {
+			return 2 * shared;
+		}
+	}
+}
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.compiler.batch;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import org.summer.sdt.internal.compiler.env.NameEnvironmentAnswer;
+import org.summer.sdt.internal.compiler.util.Util;
+
+/**
+ * The compilation units given to an incremental compilation which are not compiled again, answered by the
+ * types they defined when they were last compiled.
+ * <p>
+ * The compiler only binds the units found this way, see {@link org.summer.sdt.internal.compiler.Compiler#compileFoundUnits}.
+ * </p>
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ClasspathCompilationUnits extends ClasspathLocation {
+
+	HashMap units; // qualified type name 'p1/p2/A' -> CompilationUnit
+	HashSet packageNames; // 'p1/p2' and its enclosing packages
+
+	public ClasspathCompilationUnits(String path) {
+		super(null, null);
+		this.path = path;
+		this.units = new HashMap();
+		this.packageNames = new HashSet();
+		this.packageNames.add(Util.EMPTY_STRING);
+	}
+
+	/**
+	 * Answers the given unit for the given type, formed as 'p1/p2/A'.
+	 */
+	public void add(String qualifiedTypeName, CompilationUnit unit) {
+		this.units.put(qualifiedTypeName, unit);
+		int last = qualifiedTypeName.lastIndexOf('/');
+		while (last > 0 && this.packageNames.add(qualifiedTypeName = qualifiedTypeName.substring(0, last)))
+			last = qualifiedTypeName.lastIndexOf('/');
+	}
+
+	public char[][][] findTypeNames(String qualifiedPackageName) {
+		return null;
+	}
+
+	public NameEnvironmentAnswer findClass(char[] typeName, String qualifiedPackageName, String qualifiedBinaryFileName) {
+		return findClass(typeName, qualifiedPackageName, qualifiedBinaryFileName, false);
+	}
+
+	public NameEnvironmentAnswer findClass(char[] typeName, String qualifiedPackageName, String qualifiedBinaryFileName, boolean asBinaryOnly) {
+		if (asBinaryOnly || this.units.isEmpty())
+			return null;
+		String qualifiedTypeName = qualifiedBinaryFileName.substring(0, qualifiedBinaryFileName.length() - SUFFIX_CLASS.length);
+		if (File.separatorChar != '/')
+			qualifiedTypeName = qualifiedTypeName.replace(File.separatorChar, '/');
+		CompilationUnit unit = (CompilationUnit) this.units.get(qualifiedTypeName);
+		if (unit == null)
+			return null;
+		return new NameEnvironmentAnswer(unit, null);
+	}
+
+	public boolean isPackage(String qualifiedPackageName) {
+		return this.packageNames.contains(File.separatorChar == '/' ? qualifiedPackageName : qualifiedPackageName.replace(File.separatorChar, '/'));
+	}
+
+	public List fetchLinkedJars(FileSystem.ClasspathSectionProblemReporter problemReporter) {
+		return null;
+	}
+
+	public void reset() {
+		// nothing to release
+	}
+
+	public char[] normalizedPath() {
+		if (this.normalizedPath == null)
+			this.normalizedPath = this.path.replace('\\', '/').toCharArray();
+		return this.normalizedPath;
+	}
+
+	public void initialize() {
+		// nothing to open
+	}
+
+	public int getMode() {
+		return SOURCE;
+	}
+
+	public String toString() {
+		return "Unchanged compilation units of " + this.path; //$NON-NLS-1$
+	}
+}
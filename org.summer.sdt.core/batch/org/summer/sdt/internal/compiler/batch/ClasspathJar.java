@@ -22,12 +22,12 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.summer.sdt.core.compiler.CharOperation;
+import org.summer.sdt.internal.compiler.classfmt.BinaryTypeCache;
 import org.summer.sdt.internal.compiler.classfmt.ClassFileReader;
 import org.summer.sdt.internal.compiler.classfmt.ClassFormatException;
 import org.summer.sdt.internal.compiler.env.AccessRuleSet;
 import org.summer.sdt.internal.compiler.env.NameEnvironmentAnswer;
 import org.summer.sdt.internal.compiler.util.ManifestAnalyzer;
-import org.summer.sdt.internal.compiler.util.Util;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class ClasspathJar extends ClasspathLocation {
@@ -36,6 +36,8 @@ protected File file;
 protected ZipFile zipFile;
 protected boolean closeZipFileAtEnd;
 protected Hashtable packageCache;
+protected BinaryTypeCache.JarCache binaryTypes; // class files of the jar cached across compilations, null if there is no shared cache
+ClasspathJarCache.OpenedJar openedJar; // the jar kept open across compilations, null if there is no shared cache
 
 public ClasspathJar(File file, boolean closeZipFileAtEnd,
 		AccessRuleSet accessRuleSet, String destinationPath) {
@@ -95,7 +97,9 @@ public NameEnvironmentAnswer findClass(char[] typeName, String qualifiedPackageN
 		return null; // most common case
 
 	try {
-		ClassFileReader reader = ClassFileReader.read(this.zipFile, qualifiedBinaryFileName);
+		ClassFileReader reader = this.binaryTypes == null
+			? ClassFileReader.read(this.zipFile, qualifiedBinaryFileName)
+			: this.binaryTypes.read(this.zipFile, qualifiedBinaryFileName);
 		if (reader != null)
 			return new NameEnvironmentAnswer(reader, fetchAccessRestriction(qualifiedBinaryFileName));
 	} catch(ClassFormatException e) {
@@ -141,34 +145,37 @@ public char[][][] findTypeNames(String qualifiedPackageName) {
 }
 public void initialize() throws IOException {
 	if (this.zipFile == null) {
-		this.zipFile = new ZipFile(this.file);
+		ClasspathJarCache jarCache = ClasspathJarCache.getShared();
+		if (jarCache != null) {
+			this.openedJar = jarCache.get(this.file);
+			this.zipFile = this.openedJar.zipFile;
+		} else {
+			this.zipFile = new ZipFile(this.file);
+		}
 	}
 }
 public boolean isPackage(String qualifiedPackageName) {
 	if (this.packageCache != null)
 		return this.packageCache.containsKey(qualifiedPackageName);
 
-	this.packageCache = new Hashtable(41);
-	this.packageCache.put(Util.EMPTY_STRING, Util.EMPTY_STRING);
-
-	nextEntry : for (Enumeration e = this.zipFile.entries(); e.hasMoreElements(); ) {
-		String fileName = ((ZipEntry) e.nextElement()).getName();
-
-		// add the package name & all of its parent packages
-		int last = fileName.lastIndexOf('/');
-		while (last > 0) {
-			// extract the package name
-			String packageName = fileName.substring(0, last);
-			if (this.packageCache.containsKey(packageName))
-				continue nextEntry;
-			this.packageCache.put(packageName, packageName);
-			last = packageName.lastIndexOf('/');
-		}
-	}
+	this.packageCache = this.openedJar != null
+		? this.openedJar.getPackageCache()
+		: ClasspathJarCache.computePackageCache(this.zipFile);
+	BinaryTypeCache cache = BinaryTypeCache.getShared();
+	if (cache != null)
+		this.binaryTypes = cache.getJarCache(this.file);
 	return this.packageCache.containsKey(qualifiedPackageName);
 }
 public void reset() {
-	if (this.zipFile != null && this.closeZipFileAtEnd) {
+	if (this.binaryTypes != null) {
+		this.binaryTypes.save();
+		this.binaryTypes = null;
+	}
+	if (this.openedJar != null) {
+		// left open for the following compilations
+		this.openedJar = null;
+		this.zipFile = null;
+	} else if (this.zipFile != null && this.closeZipFileAtEnd) {
 		try {
 			this.zipFile.close();
 		} catch(IOException e) {
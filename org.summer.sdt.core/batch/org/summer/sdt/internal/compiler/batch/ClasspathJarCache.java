@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.compiler.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.summer.sdt.internal.compiler.util.Util;
+
+/**
+ * Jars of the classpath kept open across the compilations run in the same VM, as done by the {@link CompileServer}.
+ * <p>
+ * A jar is known by its path, modification time and size: once it is modified, the next compilation opens it
+ * again. Besides the zip file, the packages of the jar are computed once for all the compilations.
+ * </p>
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ClasspathJarCache {
+
+	private static ClasspathJarCache Shared;
+
+	HashMap jars; // jar path -> OpenedJar
+
+	/**
+	 * A given version of a jar, opened.
+	 */
+	static class OpenedJar {
+		long lastModified;
+		long size;
+		ZipFile zipFile;
+		Hashtable packageCache;
+
+		OpenedJar(File file, long lastModified, long size) throws IOException {
+			this.lastModified = lastModified;
+			this.size = size;
+			this.zipFile = new ZipFile(file);
+		}
+
+		synchronized Hashtable getPackageCache() {
+			if (this.packageCache == null)
+				this.packageCache = computePackageCache(this.zipFile);
+			return this.packageCache;
+		}
+
+		void close() {
+			try {
+				this.zipFile.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	public ClasspathJarCache() {
+		this.jars = new HashMap();
+	}
+
+	/**
+	 * Answers the cache shared by the compilations of this VM, or null if the jars are opened by each compilation.
+	 */
+	public static synchronized ClasspathJarCache getShared() {
+		return Shared;
+	}
+
+	/**
+	 * Sets the cache shared by the compilations of this VM, passing null closes the jars of the current one
+	 * and lets each compilation open its jars.
+	 */
+	public static synchronized void setShared(ClasspathJarCache cache) {
+		if (Shared != null && Shared != cache)
+			Shared.close();
+		Shared = cache;
+	}
+
+	/**
+	 * Answers the given jar opened, opening it again if it was modified since it was opened.
+	 */
+	synchronized OpenedJar get(File file) throws IOException {
+		String path = file.getAbsolutePath();
+		long lastModified = file.lastModified(), size = file.length();
+		OpenedJar jar = (OpenedJar) this.jars.get(path);
+		if (jar != null) {
+			if (jar.lastModified == lastModified && jar.size == size)
+				return jar;
+			this.jars.remove(path);
+			jar.close();
+		}
+		jar = new OpenedJar(file, lastModified, size);
+		this.jars.put(path, jar);
+		return jar;
+	}
+
+	/**
+	 * Closes all the opened jars.
+	 */
+	public synchronized void close() {
+		for (Iterator iterator = this.jars.values().iterator(); iterator.hasNext();)
+			((OpenedJar) iterator.next()).close();
+		this.jars.clear();
+	}
+
+	/**
+	 * Answers the number of opened jars.
+	 */
+	public synchronized int size() {
+		return this.jars.size();
+	}
+
+	static Hashtable computePackageCache(ZipFile zipFile) {
+		Hashtable packageCache = new Hashtable(41);
+		packageCache.put(Util.EMPTY_STRING, Util.EMPTY_STRING);
+
+		nextEntry : for (Enumeration e = zipFile.entries(); e.hasMoreElements(); ) {
+			String fileName = ((ZipEntry) e.nextElement()).getName();
+
+			// add the package name & all of its parent packages
+			int last = fileName.lastIndexOf('/');
+			while (last > 0) {
+				// extract the package name
+				String packageName = fileName.substring(0, last);
+				if (packageCache.containsKey(packageName))
+					continue nextEntry;
+				packageCache.put(packageName, packageName);
+				last = packageName.lastIndexOf('/');
+			}
+		}
+		return packageCache;
+	}
+}
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.compiler.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.MissingResourceException;
+
+/**
+ * Long-lived batch compiler, which runs the compilations requested by local clients in a warm VM.
+ * <p>
+ * A request carries the arguments of {@link Main}, the server answers the exit code of the compilation with
+ * what it printed. Class files are written where the arguments tell, as {@link Main} does. Each request is
+ * compiled by its own {@link Main}, one request at a time, and only shares with the previous ones the jars
+ * of the classpath, kept open by the {@link ClasspathJarCache} until they are modified.
+ * </p>
+ * <p>
+ * The server only accepts connections from the local host. At startup it draws a random token, which it
+ * writes to a file only readable by its owner, see {@link #getTokenFile(int)}. Every request, including
+ * a stop, must carry this token, so that only the user who started the server can use it. Since relative
+ * paths are resolved against the working directory of the server, requests coming from another working
+ * directory are rejected.
+ * </p>
+ * Usage:
+ * <pre>
+ * CompileServer [-port &lt;port&gt;] [-idleTimeout &lt;seconds&gt;]   starts a server, on any free port by default
+ * CompileServer -port &lt;port&gt; -compile &lt;arguments of Main&gt;   compiles through the server, exits as Main
+ * CompileServer -port &lt;port&gt; -stop                           stops the server
+ * </pre>
+ */
+public class CompileServer {
+
+	static final String SIGNATURE = "COMPILE SERVER 2"; //$NON-NLS-1$
+	static final byte COMPILE = 1;
+	static final byte STOP = 2;
+	static final int TOKEN_LENGTH = 32;
+
+	final ServerSocket serverSocket;
+	final File workingDirectory;
+	final byte[] token;
+	final File tokenFile;
+
+	/**
+	 * Listens on the given port of the local host, any free port if 0. The server stops after idleTimeout
+	 * seconds without requests, never if 0.
+	 */
+	public CompileServer(int port, int idleTimeout) throws IOException {
+		this.serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+		this.serverSocket.setSoTimeout(idleTimeout * 1000);
+		this.workingDirectory = new File(System.getProperty("user.dir")).getAbsoluteFile(); //$NON-NLS-1$
+		this.token = new byte[TOKEN_LENGTH];
+		new SecureRandom().nextBytes(this.token);
+		this.tokenFile = getTokenFile(getPort());
+		try {
+			writeToken(this.tokenFile, this.token);
+		} catch (IOException e) {
+			this.serverSocket.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Answers the file holding the token of the server listening on the given port, in the home directory
+	 * of the user.
+	 */
+	public static File getTokenFile(int port) {
+		File directory = new File(System.getProperty("user.home"), ".compileserver"); //$NON-NLS-1$ //$NON-NLS-2$
+		return new File(directory, port + ".token"); //$NON-NLS-1$
+	}
+
+	/*
+	 * Creates the token file, then restricts it to its owner before writing the token to it.
+	 */
+	private static void writeToken(File file, byte[] token) throws IOException {
+		File directory = file.getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException(directory.getPath());
+		restrictToOwner(directory, true);
+		file.delete(); // left by a server which did not stop cleanly
+		if (!file.createNewFile() || !restrictToOwner(file, false))
+			throw new IOException(file.getPath());
+		FileOutputStream output = new FileOutputStream(file);
+		try {
+			output.write(token);
+		} finally {
+			output.close();
+		}
+	}
+
+	private static boolean restrictToOwner(File file, boolean executable) {
+		boolean restricted = file.setReadable(false, false) && file.setReadable(true, true)
+				&& file.setWritable(false, false) && file.setWritable(true, true);
+		if (executable)
+			restricted &= file.setExecutable(false, false) && file.setExecutable(true, true);
+		return restricted;
+	}
+
+	private static byte[] readToken(int port) throws IOException {
+		File file = getTokenFile(port);
+		byte[] token = new byte[TOKEN_LENGTH];
+		DataInputStream input = new DataInputStream(new FileInputStream(file));
+		try {
+			input.readFully(token);
+		} finally {
+			input.close();
+		}
+		return token;
+	}
+
+	public int getPort() {
+		return this.serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Answers the given message of the batch compiler, bound to the given arguments.
+	 */
+	static String bind(String id, String[] arguments) {
+		String message;
+		try {
+			message = Main.ResourceBundleFactory.getBundle(Locale.getDefault()).getString(id);
+		} catch (MissingResourceException e) {
+			return "Missing message: " + id + " in: " + Main.bundleName; //$NON-NLS-2$ //$NON-NLS-1$
+		}
+		return MessageFormat.format(message, (Object[]) arguments);
+	}
+
+	/**
+	 * Compiles with a new {@link Main}, answers whether the compilation succeeded.
+	 */
+	static boolean compile(String[] arguments, StringWriter out, StringWriter err) {
+		PrintWriter outWriter = new PrintWriter(out);
+		PrintWriter errWriter = new PrintWriter(err);
+		try {
+			return new Main(outWriter, errWriter, false /* systemExit */, null /* options */, null /* progress */).compile(arguments);
+		} catch (Error e) {
+			// the failure of this compilation must not stop the server
+			e.printStackTrace(errWriter);
+			return false;
+		} finally {
+			outWriter.flush();
+			errWriter.flush();
+		}
+	}
+
+	/**
+	 * Serves the requests until the server is stopped or has been idle for too long.
+	 */
+	public void serve() throws IOException {
+		ClasspathJarCache.setShared(new ClasspathJarCache());
+		try {
+			while (true) {
+				Socket socket;
+				try {
+					socket = this.serverSocket.accept();
+				} catch (SocketTimeoutException e) {
+					return; // idle
+				}
+				try {
+					if (!handle(socket))
+						return;
+				} catch (IOException e) {
+					// the client went away, serve the next one
+				} finally {
+					socket.close();
+				}
+			}
+		} finally {
+			ClasspathJarCache.setShared(null);
+			this.serverSocket.close();
+			this.tokenFile.delete();
+		}
+	}
+
+	/*
+	 * Answers whether the server should keep serving.
+	 */
+	boolean handle(Socket socket) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		if (!SIGNATURE.equals(readString(input)))
+			return true; // not a client
+		byte[] requestToken = new byte[TOKEN_LENGTH];
+		input.readFully(requestToken);
+		if (!MessageDigest.isEqual(this.token, requestToken)) {
+			writeResult(output, -1, "", bind("server.unauthorized", null) + System.getProperty("line.separator")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			return true;
+		}
+		if (input.readByte() == STOP) {
+			writeResult(output, 0, "", ""); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+		String directory = readString(input);
+		String[] arguments = new String[input.readInt()];
+		for (int i = 0, length = arguments.length; i < length; i++)
+			arguments[i] = readString(input);
+
+		StringWriter out = new StringWriter();
+		StringWriter err = new StringWriter();
+		boolean succeeded;
+		if (!this.workingDirectory.equals(new File(directory))) {
+			err.write(bind("server.workingDirectory", new String[] { this.workingDirectory.getPath(), directory })); //$NON-NLS-1$
+			err.write(System.getProperty("line.separator")); //$NON-NLS-1$
+			succeeded = false;
+		} else {
+			succeeded = compile(arguments, out, err);
+		}
+		writeResult(output, succeeded ? 0 : -1, out.toString(), err.toString());
+		return true;
+	}
+
+	/**
+	 * Has the server listening on the given port of the local host compile with the given arguments of {@link Main},
+	 * then prints what the compilation printed. Answers the exit code of the compilation.
+	 */
+	public static int compile(int port, String[] arguments, PrintWriter outWriter, PrintWriter errWriter) throws IOException {
+		byte[] token = readToken(port);
+		Socket socket = new Socket(InetAddress.getByName(null), port);
+		try {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			writeString(output, SIGNATURE);
+			output.write(token);
+			output.writeByte(COMPILE);
+			writeString(output, new File(System.getProperty("user.dir")).getAbsolutePath()); //$NON-NLS-1$
+			output.writeInt(arguments.length);
+			for (int i = 0, length = arguments.length; i < length; i++)
+				writeString(output, arguments[i]);
+			output.flush();
+			return readResult(socket, outWriter, errWriter);
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * Stops the server listening on the given port of the local host, prints why if it refused.
+	 * Answers 0 if the server stopped.
+	 */
+	public static int stop(int port, PrintWriter errWriter) throws IOException {
+		byte[] token = readToken(port);
+		Socket socket = new Socket(InetAddress.getByName(null), port);
+		try {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			writeString(output, SIGNATURE);
+			output.write(token);
+			output.writeByte(STOP);
+			output.flush();
+			return readResult(socket, null, errWriter);
+		} finally {
+			socket.close();
+		}
+	}
+
+	private static int readResult(Socket socket, PrintWriter outWriter, PrintWriter errWriter) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		int exitCode = input.readInt();
+		String out = readString(input);
+		String err = readString(input);
+		if (outWriter != null) {
+			outWriter.print(out);
+			outWriter.flush();
+		}
+		if (errWriter != null) {
+			errWriter.print(err);
+			errWriter.flush();
+		}
+		return exitCode;
+	}
+
+	private static void writeResult(DataOutputStream output, int exitCode, String out, String err) throws IOException {
+		output.writeInt(exitCode);
+		writeString(output, out);
+		writeString(output, err);
+		output.flush();
+	}
+
+	// unlike writeUTF, not limited to 64K bytes: long classpaths and outputs are expected
+	private static String readString(DataInputStream input) throws IOException {
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+
+	private static void writeString(DataOutputStream output, String string) throws IOException {
+		byte[] bytes = string.getBytes("UTF-8"); //$NON-NLS-1$
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	public static void main(String[] argv) {
+		int port = 0, idleTimeout = 0;
+		boolean stop = false;
+		String[] compileArguments = null;
+		try {
+			for (int i = 0; i < argv.length && compileArguments == null; i++) {
+				String argument = argv[i];
+				if ("-port".equals(argument) && i + 1 < argv.length) { //$NON-NLS-1$
+					port = Integer.parseInt(argv[++i]);
+				} else if ("-idleTimeout".equals(argument) && i + 1 < argv.length) { //$NON-NLS-1$
+					idleTimeout = Integer.parseInt(argv[++i]);
+				} else if ("-stop".equals(argument)) { //$NON-NLS-1$
+					stop = true;
+				} else if ("-compile".equals(argument)) { //$NON-NLS-1$
+					compileArguments = new String[argv.length - i - 1];
+					System.arraycopy(argv, i + 1, compileArguments, 0, compileArguments.length);
+				} else {
+					throw new IllegalArgumentException(argument);
+				}
+			}
+			if ((stop || compileArguments != null) && port == 0)
+				throw new IllegalArgumentException("-port"); //$NON-NLS-1$
+		} catch (IllegalArgumentException e) { // including NumberFormatException
+			System.err.println(bind("server.usage", null)); //$NON-NLS-1$
+			System.exit(-1);
+			return;
+		}
+		try {
+			if (stop) {
+				System.exit(stop(port, new PrintWriter(System.err)));
+			} else if (compileArguments != null) {
+				System.exit(compile(port, compileArguments, new PrintWriter(System.out), new PrintWriter(System.err)));
+			} else {
+				CompileServer server = new CompileServer(port, idleTimeout);
+				System.out.println(bind("server.listening", new String[] { String.valueOf(server.getPort()) })); //$NON-NLS-1$
+				server.serve();
+			}
+		} catch (IOException e) {
+			System.err.println(bind("server.failure", new String[] { String.valueOf(port), e.getMessage() })); //$NON-NLS-1$
+			System.exit(-1);
+		}
+	}
+}
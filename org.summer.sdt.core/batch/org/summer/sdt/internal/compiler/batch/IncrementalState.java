@@ -0,0 +1,742 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.compiler.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.summer.sdt.core.compiler.CharOperation;
+import org.summer.sdt.core.compiler.InvalidInputException;
+import org.summer.sdt.internal.compiler.ClassFile;
+import org.summer.sdt.internal.compiler.CompilationResult;
+import org.summer.sdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.summer.sdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.summer.sdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.summer.sdt.internal.compiler.ast.FieldDeclaration;
+import org.summer.sdt.internal.compiler.ast.Initializer;
+import org.summer.sdt.internal.compiler.ast.TypeDeclaration;
+import org.summer.sdt.internal.compiler.classfmt.ClassFormatException;
+import org.summer.sdt.internal.compiler.classfmt.ClassFileReader;
+import org.summer.sdt.internal.compiler.impl.CompilerOptions;
+import org.summer.sdt.internal.compiler.parser.Parser;
+import org.summer.sdt.internal.compiler.parser.Scanner;
+import org.summer.sdt.internal.compiler.parser.TerminalTokens;
+import org.summer.sdt.internal.compiler.problem.DefaultProblemFactory;
+import org.summer.sdt.internal.compiler.problem.ProblemReporter;
+import org.summer.sdt.internal.compiler.util.SuffixConstants;
+import org.summer.sdt.internal.compiler.util.Util;
+
+/**
+ * The state of the incremental compilations of {@link Main} into a given directory (-incremental option).
+ * <p>
+ * For each source, the state records its time stamp, the types it defines, the names it references as
+ * recorded by the compiler for the builder's reference collections, the files it output and a hash of its
+ * structure, that is of its tokens outside of method bodies and initializers. For each jar of the classpath,
+ * it records its time stamp and packages.
+ * </p>
+ * <p>
+ * The sources compiled again are the new and modified ones, the ones which had errors or lost an output file,
+ * and the ones referencing a type whose structure changed or a package of a modified jar. The other sources are
+ * answered to the compiler by {@link ClasspathCompilationUnits}, which only binds them.
+ * </p>
+ * <p>
+ * As the structure hash ignores what the tokens evaluate to, a source can produce a type of another structure
+ * without changing, e.g. when it inlines a constant of a changed type. Like the builder, the class files of
+ * each compiled source are compared to its previous ones ({@link ClassFileReader#hasStructuralChanges(byte[])}),
+ * or its javascript as a whole for the types of a module, and the dependents of the types which changed are compiled in another pass, see {@link #prepareDependents()},
+ * until no type changes. A change of the options, output directory or classpath compiles everything.
+ * </p>
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class IncrementalState implements SuffixConstants {
+
+	static final String STATE_FILE_NAME = "compile.state"; //$NON-NLS-1$
+	static final byte VERSION = 2;
+
+	static final String[] NO_NAMES = new String[0];
+
+	File stateFile;
+	String configuration;
+	HashMap sources; // canonical path -> SourceState, as recorded by the previous compilation
+	HashMap jars; // path -> JarState, as recorded by the previous compilation
+
+	HashMap newSources; // canonical path -> SourceState, as recorded by this compilation
+	HashMap newJars;
+	HashMap compiledSources; // canonical path -> SourceState, the sources compiled by this compilation
+	HashMap previousOutputs; // canonical path -> String[], the outputs of the compiled sources before this compilation
+	ClasspathCompilationUnits unchangedUnits;
+	boolean fullCompilation;
+	CompilationUnit[] units; // all the units given to prepare
+	HashSet changedQualifiedNames, changedSimpleNames, changedRootNames; // the types which changed in the last pass
+
+	static class SourceState {
+		String path;
+		long lastModified;
+		long length;
+		long structureHash;
+		boolean hasErrors;
+		String[] typeNames = NO_NAMES; // 'p1/p2/A'
+		String[] qualifiedReferences; // 'p1/p2', null if unknown
+		String[] simpleNameReferences;
+		String[] rootReferences;
+		String[] outputs = NO_NAMES;
+
+		SourceState(String path) {
+			this.path = path;
+		}
+
+		/*
+		 * Same rules as the builder's ReferenceCollection: one of the roots must be referenced, then one of the
+		 * simple names in one of the qualified names.
+		 */
+		boolean includes(HashSet qualifiedNames, HashSet simpleNames, HashSet rootNames) {
+			if (this.qualifiedReferences == null)
+				return true;
+			if (!intersects(this.rootReferences, rootNames))
+				return false;
+			if (simpleNames != null && !intersects(this.simpleNameReferences, simpleNames))
+				return false;
+			for (Iterator iterator = qualifiedNames.iterator(); iterator.hasNext();) {
+				String qualifiedName = (String) iterator.next();
+				if (qualifiedName.length() == 0)
+					return true; // default package
+				if (qualifiedName.indexOf('/') < 0
+						? contains(this.simpleNameReferences, qualifiedName)
+						: contains(this.qualifiedReferences, qualifiedName))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	static class JarState {
+		String path;
+		long lastModified;
+		long length;
+		String[] packageNames;
+	}
+
+	/**
+	 * Answers the state of the compilations into the given directory, compiling everything if the previous
+	 * compilation had another configuration.
+	 */
+	public IncrementalState(String stateDirectory, String configuration) {
+		this.stateFile = new File(stateDirectory, STATE_FILE_NAME);
+		this.configuration = configuration;
+		this.sources = new HashMap();
+		this.jars = new HashMap();
+		this.newSources = new HashMap();
+		this.newJars = new HashMap();
+		this.compiledSources = new HashMap();
+		this.previousOutputs = new HashMap();
+		this.changedQualifiedNames = new HashSet();
+		this.changedSimpleNames = new HashSet();
+		this.changedRootNames = new HashSet();
+		this.fullCompilation = true;
+		if (this.stateFile.exists()) {
+			try {
+				this.fullCompilation = !read();
+			} catch (IOException e) {
+				// corrupted state, compile everything
+			}
+			if (this.fullCompilation) {
+				this.sources.clear();
+				this.jars.clear();
+			}
+		}
+		this.unchangedUnits = new ClasspathCompilationUnits(this.stateFile.getPath());
+	}
+
+	/**
+	 * Answers the key of the given configuration: a compilation with another key compiles everything.
+	 */
+	public static String getConfiguration(Map options, String destinationPath, FileSystem.Classpath[] classpaths, boolean proceedOnError) {
+		StringBuffer buffer = new StringBuffer();
+		for (Iterator iterator = new TreeMap(options).entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry entry = (Map.Entry) iterator.next();
+			buffer.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+		}
+		buffer.append("-d ").append(destinationPath).append('\n'); //$NON-NLS-1$
+		for (int i = 0, length = classpaths.length; i < length; i++)
+			buffer.append("-cp ").append(classpaths[i].getPath()).append('\n'); //$NON-NLS-1$
+		if (proceedOnError)
+			buffer.append("-proceedOnError\n"); //$NON-NLS-1$
+		return buffer.toString();
+	}
+
+	/**
+	 * Answers the units to compile among the given ones, from the changes made to them and to the jars of the
+	 * given classpath since the previous compilation. The outputs of the removed sources are deleted.
+	 */
+	public CompilationUnit[] prepare(CompilationUnit[] units, FileSystem.Classpath[] classpaths, CompilerOptions options) {
+		Parser parser = new Parser(
+			new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(), options, new DefaultProblemFactory()),
+			false /* optimizeStringLiterals */);
+		Scanner scanner = new Scanner(false, false, false, options.sourceLevel, options.complianceLevel, null, null, true);
+
+		HashSet qualifiedNames = new HashSet(), simpleNames = new HashSet(), rootNames = new HashSet();
+		HashSet packageNames = new HashSet(), packageRootNames = new HashSet();
+		this.units = units;
+		boolean[] compile = new boolean[units.length];
+		for (int i = 0, length = units.length; i < length; i++) {
+			CompilationUnit unit = units[i];
+			String path = new String(unit.fileName);
+			File file = new File(path);
+			SourceState previous = (SourceState) this.sources.get(path);
+			SourceState state;
+			if (previous != null && previous.lastModified == file.lastModified() && previous.length == file.length()) {
+				state = previous;
+				compile[i] = previous.hasErrors || !outputsExist(previous);
+			} else {
+				state = new SourceState(path);
+				state.lastModified = file.lastModified();
+				state.length = file.length();
+				if (previous != null)
+					state.outputs = previous.outputs; // compared to the new outputs, then deleted if no longer produced
+				computeStructure(state, unit, parser, scanner);
+				compile[i] = true;
+				if (previous == null) {
+					addTypeNames(state.typeNames, qualifiedNames, simpleNames, rootNames);
+				} else if (previous.structureHash != state.structureHash || !Arrays.equals(previous.typeNames, state.typeNames)) {
+					addTypeNames(previous.typeNames, qualifiedNames, simpleNames, rootNames);
+					addTypeNames(state.typeNames, qualifiedNames, simpleNames, rootNames);
+				}
+			}
+			this.newSources.put(path, state);
+		}
+		for (Iterator iterator = this.sources.values().iterator(); iterator.hasNext();) {
+			SourceState removed = (SourceState) iterator.next();
+			if (!this.newSources.containsKey(removed.path)) {
+				addTypeNames(removed.typeNames, qualifiedNames, simpleNames, rootNames);
+				deleteOutputs(removed.outputs, NO_NAMES);
+			}
+		}
+		for (int i = 0, length = classpaths.length; i < length; i++) {
+			if (classpaths[i] instanceof ClasspathJar) {
+				File file = new File(classpaths[i].getPath());
+				JarState previous = (JarState) this.jars.get(file.getPath());
+				if (previous != null && previous.lastModified == file.lastModified() && previous.length == file.length()) {
+					this.newJars.put(previous.path, previous);
+				} else {
+					JarState state = new JarState();
+					state.path = file.getPath();
+					state.lastModified = file.lastModified();
+					state.length = file.length();
+					state.packageNames = computePackageNames(file);
+					this.newJars.put(state.path, state);
+					if (previous != null)
+						addPackageNames(previous.packageNames, packageNames, packageRootNames);
+					if (!this.fullCompilation)
+						addPackageNames(state.packageNames, packageNames, packageRootNames);
+				}
+			}
+		}
+		for (Iterator iterator = this.jars.values().iterator(); iterator.hasNext();) {
+			JarState removed = (JarState) iterator.next();
+			if (!this.newJars.containsKey(removed.path))
+				addPackageNames(removed.packageNames, packageNames, packageRootNames);
+		}
+
+		ArrayList unitsToCompile = new ArrayList(units.length);
+		for (int i = 0, length = units.length; i < length; i++) {
+			SourceState state = (SourceState) this.newSources.get(new String(units[i].fileName));
+			if (!compile[i]) {
+				compile[i] = (!qualifiedNames.isEmpty() && state.includes(qualifiedNames, simpleNames, rootNames))
+					|| (!packageNames.isEmpty() && state.includes(packageNames, null, packageRootNames));
+			}
+			if (compile[i]) {
+				unitsToCompile.add(units[i]);
+				this.compiledSources.put(state.path, state);
+				this.previousOutputs.put(state.path, state.outputs);
+				state.outputs = NO_NAMES; // recorded again as they are written
+			} else {
+				for (int j = 0, typeCount = state.typeNames.length; j < typeCount; j++)
+					this.unchangedUnits.add(state.typeNames[j], units[i]);
+			}
+		}
+		return (CompilationUnit[]) unitsToCompile.toArray(new CompilationUnit[unitsToCompile.size()]);
+	}
+
+	/**
+	 * Answers the units to compile in another pass: the ones not compiled yet which reference a type whose class
+	 * files changed in the last pass. The units of the previous passes are then answered as unchanged units.
+	 */
+	public CompilationUnit[] prepareDependents() {
+		if (this.changedQualifiedNames.isEmpty())
+			return new CompilationUnit[0];
+		ArrayList unitsToCompile = new ArrayList();
+		this.unchangedUnits = new ClasspathCompilationUnits(this.stateFile.getPath());
+		for (int i = 0, length = this.units.length; i < length; i++) {
+			String path = new String(this.units[i].fileName);
+			SourceState state = (SourceState) this.newSources.get(path);
+			if (!this.compiledSources.containsKey(path)
+					&& state.includes(this.changedQualifiedNames, this.changedSimpleNames, this.changedRootNames)) {
+				unitsToCompile.add(this.units[i]);
+				this.compiledSources.put(path, state);
+				this.previousOutputs.put(path, state.outputs);
+				state.outputs = NO_NAMES;
+			} else {
+				for (int j = 0, typeCount = state.typeNames.length; j < typeCount; j++)
+					this.unchangedUnits.add(state.typeNames[j], this.units[i]);
+			}
+		}
+		this.changedQualifiedNames.clear();
+		this.changedSimpleNames.clear();
+		this.changedRootNames.clear();
+		return (CompilationUnit[]) unitsToCompile.toArray(new CompilationUnit[unitsToCompile.size()]);
+	}
+
+	/**
+	 * Answers the units which are not compiled again, to be searched before the classpath.
+	 */
+	public ClasspathCompilationUnits getUnchangedUnits() {
+		return this.unchangedUnits;
+	}
+
+	/**
+	 * Records the result of the compilation of one of the units answered by prepare.
+	 */
+	public void acceptResult(CompilationResult result) {
+		SourceState state = (SourceState) this.compiledSources.get(new String(result.getFileName()));
+		if (state == null)
+			return; // an unchanged unit, which was not compiled
+		state.hasErrors = result.hasErrors();
+		if (result.qualifiedReferences != null) {
+			state.qualifiedReferences = toStrings(result.qualifiedReferences);
+			state.simpleNameReferences = toStrings(result.simpleNameReferences);
+			state.rootReferences = toStrings(result.rootReferences);
+		} else {
+			state.qualifiedReferences = null;
+			state.hasErrors = true; // not resolved, compile it again next time
+		}
+		recordStructuralChanges(state, result);
+	}
+
+	/*
+	 * Compares the class files of a compiled unit to the ones it output before, which are not overwritten yet,
+	 * and records the types which were added, removed or changed. The types of a module only produce javascript,
+	 * which is compared as a whole.
+	 */
+	private void recordStructuralChanges(SourceState state, CompilationResult result) {
+		String[] previousOutputs = (String[]) this.previousOutputs.get(state.path);
+		ClassFile[] classFiles = result.getClassFiles();
+		if (classFiles.length == 0) {
+			char[] javascript = result.getJavascript();
+			if (javascript != null) {
+				int index = indexOfOutput(previousOutputs, new String(result.compilationUnit.getMainTypeName()) + SUFFIX_STRING_js);
+				if (index < 0 || !hasSameContents(previousOutputs[index], javascript))
+					addTypeNames(state.typeNames, this.changedQualifiedNames, this.changedSimpleNames, this.changedRootNames);
+			}
+		}
+		boolean[] found = new boolean[previousOutputs.length];
+		for (int i = 0, length = classFiles.length; i < length; i++) {
+			String typeName = new String(classFiles[i].fileName());
+			int index = indexOfOutput(previousOutputs, typeName.substring(typeName.lastIndexOf('/') + 1) + SUFFIX_STRING_class);
+			boolean changed = true;
+			if (index >= 0) {
+				found[index] = true;
+				try {
+					ClassFileReader reader = ClassFileReader.read(previousOutputs[index]);
+					changed = reader.hasStructuralChanges(classFiles[i].getBytes());
+				} catch (ClassFormatException e) {
+					// unreadable, changed
+				} catch (IOException e) {
+					// deleted, changed
+				}
+			}
+			if (changed)
+				addTypeName(topLevelTypeName(typeName), this.changedQualifiedNames, this.changedSimpleNames, this.changedRootNames);
+		}
+		if (state.typeNames.length == 0)
+			return;
+		String typeName = state.typeNames[0];
+		String packagePrefix = typeName.substring(0, typeName.lastIndexOf('/') + 1);
+		for (int i = 0, length = previousOutputs.length; i < length; i++) {
+			String output = previousOutputs[i];
+			if (!found[i] && output.endsWith(SUFFIX_STRING_class)) {
+				int start = output.lastIndexOf(File.separatorChar) + 1;
+				typeName = packagePrefix + output.substring(start, output.length() - SUFFIX_STRING_class.length());
+				addTypeName(topLevelTypeName(typeName), this.changedQualifiedNames, this.changedSimpleNames, this.changedRootNames);
+			}
+		}
+	}
+
+	private static boolean hasSameContents(String path, char[] contents) {
+		try {
+			return Arrays.equals(Util.getFileCharContent(new File(path), Util.UTF_8), contents);
+		} catch (IOException e) {
+			return false; // deleted
+		}
+	}
+
+	/*
+	 * The dependents of a member, local or anonymous type reference its enclosing type.
+	 */
+	private static String topLevelTypeName(String typeName) {
+		int index = typeName.indexOf('$', typeName.lastIndexOf('/') + 1);
+		return index < 0 ? typeName : typeName.substring(0, index);
+	}
+
+	/*
+	 * Answers the index of the output of the given file name, unique among the outputs of a unit as it defines
+	 * the types of a single package.
+	 */
+	private static int indexOfOutput(String[] outputs, String fileName) {
+		for (int i = 0, length = outputs.length; i < length; i++) {
+			String output = outputs[i];
+			if (output.endsWith(fileName)
+					&& (output.length() == fileName.length() || output.charAt(output.length() - fileName.length() - 1) == File.separatorChar))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Records a file output for the given compiled unit.
+	 */
+	public void recordOutput(char[] fileName, File output) {
+		SourceState state = (SourceState) this.compiledSources.get(new String(fileName));
+		if (state == null)
+			return;
+		String path = output.getAbsolutePath();
+		String[] outputs = state.outputs;
+		if (contains(outputs, path))
+			return;
+		int length = outputs.length;
+		System.arraycopy(outputs, 0, state.outputs = new String[length + 1], 0, length);
+		state.outputs[length] = path;
+	}
+
+	/**
+	 * Answers the number of units compiled since prepare.
+	 */
+	public int compiledCount() {
+		return this.compiledSources.size();
+	}
+
+	/**
+	 * Deletes the outputs that the compiled sources no longer produce, then saves the state for the next compilation.
+	 */
+	public void save() throws IOException {
+		for (Iterator iterator = this.compiledSources.values().iterator(); iterator.hasNext();) {
+			SourceState state = (SourceState) iterator.next();
+			deleteOutputs((String[]) this.previousOutputs.get(state.path), state.outputs);
+		}
+		File directory = this.stateFile.getParentFile();
+		if (directory != null && !directory.exists())
+			directory.mkdirs();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.stateFile)));
+		try {
+			write(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/*
+	 * Hashes the tokens of the unit which are not in a method body or an initializer, and collects its types.
+	 */
+	void computeStructure(SourceState state, CompilationUnit unit, Parser parser, Scanner scanner) {
+		char[] source = unit.getContents();
+		CompilationResult result = new CompilationResult(unit, 0, 0, 1);
+		CompilationUnitDeclaration parsedUnit = parser.dietParse(unit, result);
+
+		ArrayList typeNames = new ArrayList();
+		int[] bodies = new int[16];
+		int bodyCount = 0;
+		char[] packageName = parsedUnit.currentPackage == null
+			? CharOperation.NO_CHAR
+			: CharOperation.concatWith(parsedUnit.currentPackage.tokens, '/');
+		ArrayList types = new ArrayList();
+		if (parsedUnit.types != null)
+			types.addAll(Arrays.asList(parsedUnit.types));
+		if (parsedUnit.module != null) {
+			if (parsedUnit.module.name != null)
+				typeNames.add(qualifiedName(packageName, parsedUnit.module.name));
+			types.addAll(Arrays.asList(parsedUnit.module.types));
+		}
+		for (int i = 0, size = types.size(); i < size; i++) {
+			String typeName = qualifiedName(packageName, ((TypeDeclaration) types.get(i)).name);
+			if (!typeNames.contains(typeName))
+				typeNames.add(typeName);
+		}
+		while (!types.isEmpty()) {
+			TypeDeclaration type = (TypeDeclaration) types.remove(types.size() - 1);
+			if (type.memberTypes != null)
+				types.addAll(Arrays.asList(type.memberTypes));
+			AbstractMethodDeclaration[] methods = type.methods;
+			FieldDeclaration[] fields = type.fields;
+			int count = (methods == null ? 0 : methods.length) + (fields == null ? 0 : fields.length);
+			if (bodyCount + 2 * count > bodies.length)
+				System.arraycopy(bodies, 0, bodies = new int[2 * (bodyCount + 2 * count)], 0, bodyCount);
+			if (methods != null) {
+				for (int i = 0, length = methods.length; i < length; i++) {
+					if (methods[i].bodyEnd >= methods[i].bodyStart) {
+						bodies[bodyCount++] = methods[i].bodyStart;
+						bodies[bodyCount++] = methods[i].bodyEnd;
+					}
+				}
+			}
+			if (fields != null) {
+				for (int i = 0, length = fields.length; i < length; i++) {
+					if (fields[i] instanceof Initializer) {
+						Initializer initializer = (Initializer) fields[i];
+						bodies[bodyCount++] = initializer.bodyStart;
+						bodies[bodyCount++] = initializer.bodyEnd;
+					}
+				}
+			}
+		}
+
+		long hash = 17;
+		scanner.setSource(source);
+		try {
+			int token;
+			while ((token = scanner.getNextToken()) != TerminalTokens.TokenNameEOF) {
+				int start = scanner.startPosition;
+				if (insideBody(start, bodies, bodyCount))
+					continue;
+				hash = 31 * hash + token;
+				for (int i = start, end = scanner.currentPosition; i < end; i++)
+					hash = 31 * hash + source[i];
+			}
+		} catch (InvalidInputException e) {
+			// any change is structural
+			for (int i = 0, length = source.length; i < length; i++)
+				hash = 31 * hash + source[i];
+		}
+		state.structureHash = hash;
+		state.typeNames = (String[]) typeNames.toArray(new String[typeNames.size()]);
+		Arrays.sort(state.typeNames);
+	}
+
+	private static boolean insideBody(int position, int[] bodies, int bodyCount) {
+		for (int i = 0; i < bodyCount; i += 2)
+			if (position >= bodies[i] && position <= bodies[i + 1])
+				return true;
+		return false;
+	}
+
+	private static String qualifiedName(char[] packageName, char[] typeName) {
+		return packageName.length == 0
+			? new String(typeName)
+			: new String(CharOperation.concat(packageName, typeName, '/'));
+	}
+
+	/*
+	 * Same names as recorded by the builder for the dependents of a structurally changed type: its package,
+	 * its simple name and the root of its package, or its own name in the default package.
+	 */
+	private static void addTypeNames(String[] typeNames, HashSet qualifiedNames, HashSet simpleNames, HashSet rootNames) {
+		for (int i = 0, length = typeNames.length; i < length; i++)
+			addTypeName(typeNames[i], qualifiedNames, simpleNames, rootNames);
+	}
+
+	private static void addTypeName(String typeName, HashSet qualifiedNames, HashSet simpleNames, HashSet rootNames) {
+		int last = typeName.lastIndexOf('/');
+		int first = typeName.indexOf('/');
+		qualifiedNames.add(last < 0 ? Util.EMPTY_STRING : typeName.substring(0, last));
+		simpleNames.add(typeName.substring(last + 1));
+		rootNames.add(first < 0 ? typeName : typeName.substring(0, first));
+	}
+
+	private static void addPackageNames(String[] packageNames, HashSet qualifiedNames, HashSet rootNames) {
+		for (int i = 0, length = packageNames.length; i < length; i++) {
+			String packageName = packageNames[i];
+			int first = packageName.indexOf('/');
+			qualifiedNames.add(packageName);
+			rootNames.add(first < 0 ? packageName : packageName.substring(0, first));
+		}
+	}
+
+	/*
+	 * Answers the packages of the jar which contain class files.
+	 */
+	private static String[] computePackageNames(File file) {
+		HashSet packageNames = new HashSet();
+		try {
+			ZipFile zipFile = new ZipFile(file);
+			try {
+				for (Enumeration e = zipFile.entries(); e.hasMoreElements(); ) {
+					String entryName = ((ZipEntry) e.nextElement()).getName();
+					if (entryName.endsWith(SUFFIX_STRING_class)) {
+						int last = entryName.lastIndexOf('/');
+						packageNames.add(last < 0 ? Util.EMPTY_STRING : entryName.substring(0, last));
+					}
+				}
+			} finally {
+				zipFile.close();
+			}
+		} catch (IOException e) {
+			// a missing or invalid jar defines no package
+		}
+		String[] result = (String[]) packageNames.toArray(new String[packageNames.size()]);
+		Arrays.sort(result);
+		return result;
+	}
+
+	private static boolean outputsExist(SourceState state) {
+		for (int i = 0, length = state.outputs.length; i < length; i++)
+			if (!new File(state.outputs[i]).exists())
+				return false;
+		return true;
+	}
+
+	private static void deleteOutputs(String[] outputs, String[] kept) {
+		nextOutput : for (int i = 0, length = outputs.length; i < length; i++) {
+			for (int j = 0, keptCount = kept.length; j < keptCount; j++)
+				if (outputs[i].equals(kept[j]))
+					continue nextOutput;
+			new File(outputs[i]).delete();
+		}
+	}
+
+	private static boolean contains(String[] names, String name) {
+		for (int i = 0, length = names.length; i < length; i++)
+			if (names[i].equals(name))
+				return true;
+		return false;
+	}
+
+	private static boolean intersects(String[] names, HashSet set) {
+		for (int i = 0, length = names.length; i < length; i++)
+			if (set.contains(names[i]))
+				return true;
+		return false;
+	}
+
+	private static String[] toStrings(char[][][] qualifiedNames) {
+		String[] strings = new String[qualifiedNames.length];
+		for (int i = 0, length = qualifiedNames.length; i < length; i++)
+			strings[i] = new String(CharOperation.concatWith(qualifiedNames[i], '/'));
+		return strings;
+	}
+
+	private static String[] toStrings(char[][] names) {
+		if (names == null)
+			return NO_NAMES;
+		String[] strings = new String[names.length];
+		for (int i = 0, length = names.length; i < length; i++)
+			strings[i] = new String(names[i]);
+		return strings;
+	}
+
+	/*
+	 * Answers whether the state of the previous compilation was read, false if it had another configuration.
+	 */
+	private boolean read() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.stateFile)));
+		try {
+			if (in.readByte() != VERSION || !this.configuration.equals(readString(in)))
+				return false;
+			for (int i = 0, length = in.readInt(); i < length; i++) {
+				JarState jar = new JarState();
+				jar.path = in.readUTF();
+				jar.lastModified = in.readLong();
+				jar.length = in.readLong();
+				jar.packageNames = readNames(in);
+				this.jars.put(jar.path, jar);
+			}
+			for (int i = 0, length = in.readInt(); i < length; i++) {
+				SourceState source = new SourceState(in.readUTF());
+				source.lastModified = in.readLong();
+				source.length = in.readLong();
+				source.structureHash = in.readLong();
+				source.hasErrors = in.readBoolean();
+				source.typeNames = readNames(in);
+				if (in.readBoolean()) {
+					source.qualifiedReferences = readNames(in);
+					source.simpleNameReferences = readNames(in);
+					source.rootReferences = readNames(in);
+				}
+				source.outputs = readNames(in);
+				this.sources.put(source.path, source);
+			}
+			return true;
+		} finally {
+			in.close();
+		}
+	}
+
+	private void write(DataOutputStream out) throws IOException {
+		out.writeByte(VERSION);
+		writeString(out, this.configuration); // longer than writeUTF allows with many options and classpath entries
+		out.writeInt(this.newJars.size());
+		for (Iterator iterator = this.newJars.values().iterator(); iterator.hasNext();) {
+			JarState jar = (JarState) iterator.next();
+			out.writeUTF(jar.path);
+			out.writeLong(jar.lastModified);
+			out.writeLong(jar.length);
+			writeNames(out, jar.packageNames);
+		}
+		out.writeInt(this.newSources.size());
+		for (Iterator iterator = this.newSources.values().iterator(); iterator.hasNext();) {
+			SourceState source = (SourceState) iterator.next();
+			out.writeUTF(source.path);
+			out.writeLong(source.lastModified);
+			out.writeLong(source.length);
+			out.writeLong(source.structureHash);
+			out.writeBoolean(source.hasErrors);
+			writeNames(out, source.typeNames);
+			out.writeBoolean(source.qualifiedReferences != null);
+			if (source.qualifiedReferences != null) {
+				writeNames(out, source.qualifiedReferences);
+				writeNames(out, source.simpleNameReferences);
+				writeNames(out, source.rootReferences);
+			}
+			writeNames(out, source.outputs);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes("UTF-8"); //$NON-NLS-1$
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String[] readNames(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == 0)
+			return NO_NAMES;
+		String[] names = new String[length];
+		for (int i = 0; i < length; i++)
+			names[i] = in.readUTF();
+		return names;
+	}
+
+	private static void writeNames(DataOutputStream out, String[] names) throws IOException {
+		out.writeInt(names.length);
+		for (int i = 0, length = names.length; i < length; i++)
+			out.writeUTF(names[i]);
+	}
+}
@@ -676,6 +676,17 @@ public class Main implements ProblemSeverities, SuffixConstants {
 			this.printlnErr(this.main.bind("configure.incorrectVMVersionforAPT")); //$NON-NLS-1$
 		}
 
+		/**
+		 *
+		 */
+		public void logIncrementalStateNotSaved(String stateDirectory, IOException e) {
+			if ((this.tagBits & Logger.XML) != 0) {
+				this.parameters.put(Logger.MESSAGE, this.main.bind("incremental.notSaved", stateDirectory, e.getMessage())); //$NON-NLS-1$
+				printTag(Logger.ERROR_TAG, this.parameters, true, true);
+			}
+			this.printlnErr(this.main.bind("incremental.notSaved", stateDirectory, e.getMessage())); //$NON-NLS-1$
+		}
+
 		/**
 		 *
 		 */
@@ -981,8 +992,33 @@ public class Main implements ProblemSeverities, SuffixConstants {
 								String.valueOf(compilerStats.generateTime),
 								String.valueOf(((int) (compilerStats.generateTime * 1000.0 / time)) / 10.0),
 							}));
+				if (compilerStats.inferenceTime != 0) {
+					long inferenceTime = compilerStats.inferenceTime / 1000000;
+					printlnOut(
+						this.main.bind("compile.inferenceTime", //$NON-NLS-1$
+							new String[] {
+								String.valueOf(inferenceTime),
+								String.valueOf(compilerStats.resolveTime == 0 ? 0 : ((int) (inferenceTime * 1000.0 / compilerStats.resolveTime)) / 10.0),
+							}));
+				}
 			}
 		}
+		/**
+		 * Print the type inference statistics of the given compilation unit, if it took some time.
+		 */
+		public void logInferenceTime(CompilationResult compilationResult) {
+			long inferenceTime = compilationResult.inferenceTime / 1000000;
+			if (inferenceTime == 0)
+				return;
+			printlnOut(
+				this.main.bind("compile.unitInferenceTime", //$NON-NLS-1$
+					new String[] {
+						String.valueOf(inferenceTime),
+						String.valueOf(compilationResult.inferenceCount),
+						String.valueOf(compilationResult.reusedInferenceCount),
+						new String(compilationResult.getFileName()),
+					}));
+		}
 
 		/**
 		 * Print the usage of the compiler
@@ -1316,6 +1352,8 @@ public class Main implements ProblemSeverities, SuffixConstants {
 	public int exportedClassFilesCounter;
 	public String[] filenames;
 	public String[] classNames;
+	public String incrementalStateDirectory; // -incremental, null when compiling all the given units
+	protected IncrementalState incrementalState;
 	// overrides of destinationPath on a directory argument basis
 	public int globalErrorsCount;
 	public int globalProblemsCount;
@@ -1758,6 +1796,7 @@ public void configure(String[] argv) {
 	final int INSIDE_S_start = 19;
 	final int INSIDE_CLASS_NAMES = 20;
 	final int INSIDE_WARNINGS_PROPERTIES = 21;
+	final int INSIDE_INCREMENTAL_STATE = 22;
 
 	final int DEFAULT = 0;
 	ArrayList bootclasspaths = new ArrayList(DEFAULT_SIZE_CLASSPATH);
@@ -1955,6 +1994,13 @@ public void configure(String[] argv) {
 					mode = INSIDE_LOG;
 					continue;
 				}
+				if (currentArg.equals("-incremental")) { //$NON-NLS-1$
+					if (this.incrementalStateDirectory != null)
+						throw new IllegalArgumentException(
+							this.bind("configure.duplicateIncremental", currentArg)); //$NON-NLS-1$
+					mode = INSIDE_INCREMENTAL_STATE;
+					continue;
+				}
 				if (currentArg.equals("-repeat")) { //$NON-NLS-1$
 					if (this.maxRepetition > 0)
 						throw new IllegalArgumentException(
@@ -2193,6 +2239,13 @@ public void configure(String[] argv) {
 							CompilerOptions.ENABLED);
 					continue;
 				}
+				if (currentArg.equals("-javascript")) { //$NON-NLS-1$
+					mode = DEFAULT;
+					this.options.put(
+							CompilerOptions.OPTION_GenerateJavascript,
+							CompilerOptions.ENABLED);
+					continue;
+				}
 				if (currentArg.equals("-parameters")) { //$NON-NLS-1$
 					mode = DEFAULT;
 					this.options.put(
@@ -2482,6 +2535,10 @@ public void configure(String[] argv) {
 				this.log = currentArg;
 				mode = DEFAULT;
 				continue;
+			case INSIDE_INCREMENTAL_STATE :
+				this.incrementalStateDirectory = currentArg;
+				mode = DEFAULT;
+				continue;
 			case INSIDE_REPETITION :
 				try {
 					this.maxRepetition = Integer.parseInt(currentArg);
@@ -2988,6 +3045,11 @@ public ICompilerRequestor getBatchRequestor() {
 			if (compilationResult.hasProblems() || compilationResult.hasTasks()) {
 				Main.this.logger.logProblems(compilationResult.getAllProblems(), compilationResult.compilationUnit.getContents(), Main.this);
 			}
+			if ((Main.this.timing & Main.TIMING_DETAILED) != 0) {
+				Main.this.logger.logInferenceTime(compilationResult);
+			}
+			if (Main.this.incrementalState != null)
+				Main.this.incrementalState.acceptResult(compilationResult);
 			outputClassFiles(compilationResult);
 			Main.this.logger.endLoggingSource();
 		}
@@ -3062,6 +3124,20 @@ public File getJavaHome() {
 public FileSystem getLibraryAccess() {
 	return new FileSystem(this.checkedClasspaths, this.filenames);
 }
+/*
+ * The name environment of an incremental compilation: the given units are the ones to compile, the other units
+ * are found before the classpath.
+ */
+protected FileSystem getLibraryAccess(CompilationUnit[] unitsToCompile) {
+	int length = this.checkedClasspaths.length;
+	FileSystem.Classpath[] classpaths = new FileSystem.Classpath[length + 1];
+	classpaths[0] = this.incrementalState.getUnchangedUnits();
+	System.arraycopy(this.checkedClasspaths, 0, classpaths, 1, length);
+	String[] fileNames = new String[unitsToCompile.length];
+	for (int i = 0; i < unitsToCompile.length; i++)
+		fileNames[i] = new String(unitsToCompile[i].fileName);
+	return new FileSystem(classpaths, fileNames);
+}
 
 /*
  *  Low-level API performing the actual compilation
@@ -4070,6 +4146,7 @@ public void outputClassFiles(CompilationResult unitResult) {
 						currentDestinationPath,
 						relativeStringName,
 						classFile);
+					recordOutput(compilationUnit, generateClasspathStructure, currentDestinationPath, relativeStringName);
 					this.logger.logClassFile(
 						generateClasspathStructure,
 						currentDestinationPath,
@@ -4080,9 +4157,36 @@ public void outputClassFiles(CompilationResult unitResult) {
 				}
 			}
 			this.batchCompiler.lookupEnvironment.releaseClassFiles(classFiles);
+			char[] javascript = unitResult.getJavascript();
+			if (javascript != null) {
+				// one module per unit: <package path>/<main type name>.js
+				char[] mainTypeName = compilationUnit.getMainTypeName();
+				char[] relativeName = CharOperation.concat(mainTypeName, SUFFIX_js);
+				if (generateClasspathStructure && unitResult.packageName != null)
+					relativeName = CharOperation.concat(CharOperation.concatWith(unitResult.packageName, File.separatorChar), relativeName, File.separatorChar);
+				String relativeStringName = new String(relativeName);
+				try {
+					Util.writeToDisk(
+						generateClasspathStructure,
+						currentDestinationPath,
+						relativeStringName,
+						javascript);
+					recordOutput(compilationUnit, generateClasspathStructure, currentDestinationPath, relativeStringName);
+				} catch (IOException e) {
+					this.logger.logNoClassFileCreated(currentDestinationPath, relativeStringName, e);
+				}
+			}
 		}
 	}
 }
+private void recordOutput(CompilationUnit compilationUnit, boolean generateClasspathStructure, String outputPath, String relativeFileName) {
+	if (this.incrementalState == null)
+		return;
+	File output = generateClasspathStructure
+		? new File(outputPath, relativeFileName)
+		: new File(outputPath, relativeFileName.substring(relativeFileName.lastIndexOf(File.separatorChar) + 1));
+	this.incrementalState.recordOutput(compilationUnit.fileName, output);
+}
 /*
  *  Low-level API performing the actual compilation
  */
@@ -4090,7 +4194,19 @@ public void performCompilation() {
 
 	this.startTime = System.currentTimeMillis();
 
-	FileSystem environment = getLibraryAccess();
+	CompilationUnit[] units = getCompilationUnits();
+	FileSystem environment;
+	if (this.incrementalStateDirectory != null) {
+		this.incrementalState = new IncrementalState(this.incrementalStateDirectory,
+			IncrementalState.getConfiguration(this.options, this.destinationPath, this.checkedClasspaths, this.proceedOnError));
+		int unitCount = units.length;
+		units = this.incrementalState.prepare(units, this.checkedClasspaths, new CompilerOptions(this.options));
+		if (this.verbose)
+			this.out.println(this.bind("incremental.units", String.valueOf(units.length), String.valueOf(unitCount))); //$NON-NLS-1$
+		environment = getLibraryAccess(units);
+	} else {
+		environment = getLibraryAccess();
+	}
 	this.compilerOptions = new CompilerOptions(this.options);
 	this.compilerOptions.performMethodsFullRecovery = false;
 	this.compilerOptions.performStatementsRecovery = false;
@@ -4107,6 +4223,8 @@ public void performCompilation() {
 	// temporary code to allow the compiler to revert to a single thread
 	String setting = System.getProperty("jdt.compiler.useSingleThread"); //$NON-NLS-1$
 	this.batchCompiler.useSingleThread = setting != null && setting.equals("true"); //$NON-NLS-1$
+	if (this.incrementalState != null)
+		this.batchCompiler.compileFoundUnits = false; // the unchanged units are only bound
 
 	if (this.compilerOptions.complianceLevel >= ClassFileConstants.JDK1_6
 			&& this.compilerOptions.processAnnotations) {
@@ -4123,13 +4241,33 @@ public void performCompilation() {
 
 	// set the non-externally configurable options.
 	this.compilerOptions.verbose = this.verbose;
-	this.compilerOptions.produceReferenceInfo = this.produceRefInfo;
+	this.compilerOptions.produceReferenceInfo = this.produceRefInfo || this.incrementalState != null;
 	try {
 		this.logger.startLoggingSources();
-		this.batchCompiler.compile(getCompilationUnits());
+		this.batchCompiler.compile(units);
+		if (this.incrementalState != null) {
+			// compile the dependents of the types whose class files changed, until none changes
+			while ((units = this.incrementalState.prepareDependents()).length > 0) {
+				if (this.verbose)
+					this.out.println(this.bind("incremental.dependents", String.valueOf(units.length))); //$NON-NLS-1$
+				environment.cleanup();
+				environment = getLibraryAccess(units);
+				this.batchCompiler.lookupEnvironment.nameEnvironment = environment;
+				this.batchCompiler.annotationProcessorManager = null; // the processors already saw the changed sources
+				this.batchCompiler.compile(units);
+			}
+		}
 	} finally {
 		this.logger.endLoggingSources();
 	}
+	if (this.incrementalState != null) {
+		try {
+			this.incrementalState.save();
+		} catch (IOException e) {
+			this.logger.logIncrementalStateNotSaved(this.incrementalStateDirectory, e);
+		}
+		this.incrementalState = null;
+	}
 
 	if (this.extraProblems != null) {
 		loggingExtraProblems();
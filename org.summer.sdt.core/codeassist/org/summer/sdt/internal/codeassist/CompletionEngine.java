@@ -668,6 +668,7 @@ public final class CompletionEngine
 	ITypeRoot typeRoot;
 	CompletionParser parser;
 	CompletionRequestor requestor;
+	TopProposalsRequestor topProposals; // wraps the requestor when it limits the number of proposals
 	CompletionProblemFactory problemFactory;
 	ProblemReporter problemReporter;
 	private JavaSearchNameEnvironment noCacheNameEnvironment;
@@ -792,6 +793,8 @@ public final class CompletionEngine
 			IProgressMonitor monitor) {
 		super(settings);
 		this.javaProject = javaProject;
+		if (requestor != null && requestor.getMaxProposals() > 0)
+			requestor = this.topProposals = new TopProposalsRequestor(requestor, requestor.getMaxProposals());
 		this.requestor = requestor;
 		this.nameEnvironment = nameEnvironment;
 		this.typeCache = new HashtableOfObject(5);
@@ -4638,6 +4641,14 @@ public final class CompletionEngine
 		}
 	}
 
+	/*
+	 * Answers whether a proposal of the given relevance would not be reported to a requestor
+	 * limiting the number of proposals, in which case it is not worth creating.
+	 */
+	private boolean isOutranked(int relevance) {
+		return this.topProposals != null && this.topProposals.isOutranked(relevance);
+	}
+
 	protected InternalCompletionProposal createProposal(int kind, int completionOffset) {
 		InternalCompletionProposal proposal = (InternalCompletionProposal) CompletionProposal.create(kind, completionOffset - this.offset);
 		proposal.nameLookup = this.nameEnvironment.nameLookup;
@@ -4807,7 +4818,7 @@ public final class CompletionEngine
 	private void createTypeProposal(char[] packageName, char[] typeName, int modifiers, int accessibility, char[] completionName, int relevance) {
 
 		// Create standard type proposal
-		if(!this.requestor.isIgnored(CompletionProposal.TYPE_REF) && (this.assistNodeInJavadoc & CompletionOnJavadoc.ONLY_INLINE_TAG) == 0) {
+		if(!this.requestor.isIgnored(CompletionProposal.TYPE_REF) && (this.assistNodeInJavadoc & CompletionOnJavadoc.ONLY_INLINE_TAG) == 0 && !isOutranked(relevance)) {
 			InternalCompletionProposal proposal = (InternalCompletionProposal) CompletionProposal.create(CompletionProposal.TYPE_REF, this.actualCompletionPosition - this.offset);
 			proposal.nameLookup = this.nameEnvironment.nameLookup;
 			proposal.completionEngine = this;
@@ -4828,7 +4839,7 @@ public final class CompletionEngine
 		}
 
 		// Create javadoc text proposal if necessary
-		if ((this.assistNodeInJavadoc & CompletionOnJavadoc.TEXT) != 0 && !this.requestor.isIgnored(CompletionProposal.JAVADOC_TYPE_REF)) {
+		if ((this.assistNodeInJavadoc & CompletionOnJavadoc.TEXT) != 0 && !this.requestor.isIgnored(CompletionProposal.JAVADOC_TYPE_REF) && !isOutranked(relevance+R_INLINE_TAG)) {
 			char[] javadocCompletion= inlineTagCompletion(completionName, JavadocTagConstants.TAG_LINK);
 			InternalCompletionProposal proposal = (InternalCompletionProposal) CompletionProposal.create(CompletionProposal.JAVADOC_TYPE_REF, this.actualCompletionPosition - this.offset);
 			proposal.nameLookup = this.nameEnvironment.nameLookup;
@@ -4866,7 +4877,7 @@ public final class CompletionEngine
 			boolean missingElementsHaveProblems) {
 
 		// Create standard type proposal
-		if(!this.isIgnored(CompletionProposal.TYPE_REF, missingElements != null) && (this.assistNodeInJavadoc & CompletionOnJavadoc.ONLY_INLINE_TAG) == 0) {
+		if(!this.isIgnored(CompletionProposal.TYPE_REF, missingElements != null) && (this.assistNodeInJavadoc & CompletionOnJavadoc.ONLY_INLINE_TAG) == 0 && !isOutranked(relevance)) {
 			InternalCompletionProposal proposal = (InternalCompletionProposal) CompletionProposal.create(CompletionProposal.TYPE_REF, this.actualCompletionPosition - this.offset);
 			proposal.nameLookup = this.nameEnvironment.nameLookup;
 			proposal.completionEngine = this;
@@ -4898,7 +4909,7 @@ public final class CompletionEngine
 		}
 
 		// Create javadoc text proposal if necessary
-		if ((this.assistNodeInJavadoc & CompletionOnJavadoc.TEXT) != 0 && !this.requestor.isIgnored(CompletionProposal.JAVADOC_TYPE_REF)) {
+		if ((this.assistNodeInJavadoc & CompletionOnJavadoc.TEXT) != 0 && !this.requestor.isIgnored(CompletionProposal.JAVADOC_TYPE_REF) && !isOutranked(relevance+R_INLINE_TAG)) {
 			char[] javadocCompletion= inlineTagCompletion(completionName, JavadocTagConstants.TAG_LINK);
 			InternalCompletionProposal proposal = (InternalCompletionProposal) CompletionProposal.create(CompletionProposal.JAVADOC_TYPE_REF, this.actualCompletionPosition - this.offset);
 			proposal.nameLookup = this.nameEnvironment.nameLookup;
@@ -12656,6 +12667,11 @@ public final class CompletionEngine
 				break;
 		}
 		
+		if (isOutranked(relevance)) {
+			this.noProposal = false;
+			return;
+		}
+		
 		char[] completion;
 		if (this.source != null
 					&& this.source.length > this.endPosition
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.codeassist;
+
+import org.summer.sdt.core.CompletionContext;
+import org.summer.sdt.core.CompletionProposal;
+import org.summer.sdt.core.CompletionRequestor;
+import org.summer.sdt.core.compiler.IProblem;
+
+/**
+ * Keeps the most relevant proposals for a requestor which limits their number, see {@link CompletionRequestor#getMaxProposals()}.
+ * <p>
+ * The proposals are kept in a heap whose root is the least relevant one, the latest found of the least relevant ones.
+ * Once the heap is full, a candidate which is not more relevant than the root is outranked: the engine does not even
+ * create its proposal. The kept proposals are reported by decreasing relevance, in the order they were found for the
+ * same relevance, right before the end of the reporting.
+ * </p>
+ */
+public class TopProposalsRequestor extends CompletionRequestor {
+
+	private final CompletionRequestor requestor;
+	private final int maxProposals;
+
+	private CompletionProposal[] proposals;
+	private int[] sequences; // order in which the proposals were found
+	private int size;
+	private int found;
+
+	public TopProposalsRequestor(CompletionRequestor requestor, int maxProposals) {
+		this.requestor = requestor;
+		this.maxProposals = maxProposals;
+		this.proposals = new CompletionProposal[Math.min(maxProposals, 16)];
+		this.sequences = new int[this.proposals.length];
+	}
+
+	/**
+	 * Answers whether a proposal of the given relevance found now would not be reported.
+	 */
+	public boolean isOutranked(int relevance) {
+		return this.size == this.maxProposals && relevance <= this.proposals[0].getRelevance();
+	}
+
+	public void accept(CompletionProposal proposal) {
+		int sequence = this.found++;
+		if (this.size < this.maxProposals) {
+			if (this.size == this.proposals.length) {
+				int length = Math.min(this.size * 2, this.maxProposals);
+				System.arraycopy(this.proposals, 0, this.proposals = new CompletionProposal[length], 0, this.size);
+				System.arraycopy(this.sequences, 0, this.sequences = new int[length], 0, this.size);
+			}
+			siftUp(this.size++, proposal, sequence);
+		} else if (!isOutranked(proposal.getRelevance())) {
+			siftDown(0, proposal, sequence); // replaces the root
+		}
+	}
+
+	// answers whether the first proposal is less relevant than the second one
+	private static boolean isLower(CompletionProposal proposal, int sequence, CompletionProposal other, int otherSequence) {
+		int relevance = proposal.getRelevance(), otherRelevance = other.getRelevance();
+		return relevance < otherRelevance || (relevance == otherRelevance && sequence > otherSequence);
+	}
+
+	private void siftUp(int index, CompletionProposal proposal, int sequence) {
+		while (index > 0) {
+			int parent = (index - 1) >> 1;
+			if (!isLower(proposal, sequence, this.proposals[parent], this.sequences[parent]))
+				break;
+			this.proposals[index] = this.proposals[parent];
+			this.sequences[index] = this.sequences[parent];
+			index = parent;
+		}
+		this.proposals[index] = proposal;
+		this.sequences[index] = sequence;
+	}
+
+	private void siftDown(int index, CompletionProposal proposal, int sequence) {
+		int half = this.size >> 1;
+		while (index < half) {
+			int child = (index << 1) + 1, right = child + 1;
+			if (right < this.size && isLower(this.proposals[right], this.sequences[right], this.proposals[child], this.sequences[child]))
+				child = right;
+			if (!isLower(this.proposals[child], this.sequences[child], proposal, sequence))
+				break;
+			this.proposals[index] = this.proposals[child];
+			this.sequences[index] = this.sequences[child];
+			index = child;
+		}
+		this.proposals[index] = proposal;
+		this.sequences[index] = sequence;
+	}
+
+	public void acceptContext(CompletionContext context) {
+		this.requestor.acceptContext(context);
+	}
+
+	public void beginReporting() {
+		this.size = 0;
+		this.found = 0;
+		this.requestor.beginReporting();
+	}
+
+	public void completionFailure(IProblem problem) {
+		this.requestor.completionFailure(problem);
+	}
+
+	public void endReporting() {
+		// take the least relevant proposal out of the heap until it is empty
+		CompletionProposal[] sorted = new CompletionProposal[this.size];
+		while (this.size > 0) {
+			sorted[this.size - 1] = this.proposals[0];
+			int last = --this.size;
+			if (last > 0)
+				siftDown(0, this.proposals[last], this.sequences[last]);
+			this.proposals[last] = null;
+		}
+		for (int i = 0, length = sorted.length; i < length; i++)
+			this.requestor.accept(sorted[i]);
+		this.requestor.endReporting();
+	}
+
+	public String[] getFavoriteReferences() {
+		return this.requestor.getFavoriteReferences();
+	}
+
+	public boolean isAllowingRequiredProposals(int proposalKind, int requiredProposalKind) {
+		return this.requestor.isAllowingRequiredProposals(proposalKind, requiredProposalKind);
+	}
+
+	public boolean isExtendedContextRequired() {
+		return this.requestor.isExtendedContextRequired();
+	}
+
+	public boolean isIgnored(int completionProposalKind) {
+		return this.requestor.isIgnored(completionProposalKind);
+	}
+}
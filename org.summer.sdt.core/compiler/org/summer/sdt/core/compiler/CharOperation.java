@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.summer.sdt.core.compiler;
 
+import java.util.Arrays;
+
 import org.summer.sdt.internal.compiler.parser.ScannerHelper;
 
 /**
@@ -1667,11 +1669,8 @@ public static final boolean equals(char[] first, char[] second) {
 		return false;
 	if (first.length != second.length)
 		return false;
-
-	for (int i = first.length; --i >= 0;)
-		if (first[i] != second[i])
-			return false;
-	return true;
+	// intrinsic on recent VMs, which compare several characters at once
+	return Arrays.equals(first, second);
 }
 
 /**
@@ -1791,20 +1790,192 @@ public static final boolean equals(char[] first, char[] second, int secondStart,
 		return true;
 	if (first == null || second == null)
 		return false;
-	if (first.length != secondEnd - secondStart)
+	return equals(first, 0, first.length, second, secondStart, secondEnd, isCaseSensitive);
+}
+
+/**
+ * Answers true if the portion of the first array delimited from position firstStart (inclusive) to
+ * firstEnd (exclusive) is identical character by character to the portion of the second array delimited
+ * from position secondStart (inclusive) to secondEnd (exclusive), otherwise false. The equality could be either
+ * case sensitive or case insensitive according to the value of the <code>isCaseSensitive</code> parameter.
+ * Neither array is copied.
+ * <br>
+ * <br>
+ * For example:
+ * <ol>
+ * <li><pre>
+ *    first = { 'a', 'b', 'c' }
+ *    firstStart = 1
+ *    firstEnd = 3
+ *    second = { 'B', 'C', 'd' }
+ *    secondStart = 0
+ *    secondEnd = 2
+ *    isCaseSensitive = false
+ *    result => true
+ * </pre>
+ * </li>
+ * <li><pre>
+ *    first = { 'a', 'b', 'c' }
+ *    firstStart = 1
+ *    firstEnd = 3
+ *    second = { 'B', 'C', 'd' }
+ *    secondStart = 0
+ *    secondEnd = 2
+ *    isCaseSensitive = true
+ *    result => false
+ * </pre>
+ * </li>
+ * </ol>
+ * @param first the first array
+ * @param firstStart inclusive start position in the first array to compare
+ * @param firstEnd exclusive end position in the first array to compare
+ * @param second the second array
+ * @param secondStart inclusive start position in the second array to compare
+ * @param secondEnd exclusive end position in the second array to compare
+ * @param isCaseSensitive check whether or not the equality should be case sensitive
+ * @return true if the two fragments are identical character by character according to the value
+ * of isCaseSensitive, otherwise false
+ * @throws NullPointerException if first or second is null
+ * @since 3.10
+ */
+public static final boolean equals(char[] first, int firstStart, int firstEnd, char[] second, int secondStart, int secondEnd, boolean isCaseSensitive) {
+	int length = firstEnd - firstStart;
+	if (length != secondEnd - secondStart)
 		return false;
 	if (isCaseSensitive) {
-		for (int i = first.length; --i >= 0;)
-			if (first[i] != second[i+secondStart])
+		for (int i = 0; i < length; i++)
+			if (first[firstStart + i] != second[secondStart + i])
 				return false;
 	} else {
-		for (int i = first.length; --i >= 0;)
-			if (ScannerHelper.toLowerCase(first[i]) != ScannerHelper.toLowerCase(second[i+secondStart]))
+		for (int i = 0; i < length; i++) {
+			char c1 = first[firstStart + i], c2 = second[secondStart + i];
+			if (c1 != c2 && ScannerHelper.toLowerCase(c1) != ScannerHelper.toLowerCase(c2))
 				return false;
+		}
 	}
 	return true;
 }
 
+/**
+ * Answers true if the name is identical character by character to the concatenation of the given array
+ * using the given separator, as answered by {@link #concatWith(char[][], char)}, otherwise false.
+ * The concatenation is not computed. The equality could be either case sensitive or case insensitive
+ * according to the value of the <code>isCaseSensitive</code> parameter.
+ * <br>
+ * <br>
+ * For example:
+ * <ol>
+ * <li><pre>
+ *    name = { 'j', 'a', 'v', 'a', '.', 'l', 'a', 'n', 'g' }
+ *    array = { { 'j', 'a', 'v', 'a' }, { 'l', 'a', 'n', 'g' } }
+ *    separator = '.'
+ *    isCaseSensitive = true
+ *    result => true
+ * </pre>
+ * </li>
+ * <li><pre>
+ *    name = { 'j', 'a', 'v', 'a' }
+ *    array = { { 'j', 'a', 'v', 'a' }, { 'l', 'a', 'n', 'g' } }
+ *    separator = '.'
+ *    isCaseSensitive = true
+ *    result => false
+ * </pre>
+ * </li>
+ * </ol>
+ * @param name the name to compare
+ * @param array the array of segments
+ * @param separator the separator between the segments
+ * @param isCaseSensitive check whether or not the equality should be case sensitive
+ * @return true if the name is identical character by character to the concatenation of the array,
+ * otherwise false
+ * @throws NullPointerException if name is null
+ * @since 3.10
+ */
+public static final boolean equals(char[] name, char[][] array, char separator, boolean isCaseSensitive) {
+	int nameLength = name.length, position = 0;
+	if (array == null)
+		return nameLength == 0;
+	for (int i = 0, length = array.length; i < length; i++) {
+		char[] segment = array[i];
+		int segmentLength = segment.length;
+		if (segmentLength == 0)
+			continue; // skipped by concatWith(char[][], char)
+		if (position > 0) {
+			if (position == nameLength || name[position] != separator)
+				return false;
+			position++;
+		}
+		int end = position + segmentLength;
+		if (end > nameLength || !equals(segment, 0, segmentLength, name, position, end, isCaseSensitive))
+			return false;
+		position = end;
+	}
+	return position == nameLength;
+}
+
+/**
+ * Answers true if the concatenation of the given array using the given separator, as answered by
+ * {@link #concatWith(char[][], char)}, starts with the given prefix, otherwise false.
+ * The concatenation is not computed. The equality could be either case sensitive or case insensitive
+ * according to the value of the <code>isCaseSensitive</code> parameter.
+ * <br>
+ * <br>
+ * For example:
+ * <ol>
+ * <li><pre>
+ *    prefix = { 'j', 'a', 'v', 'a', '.', 'l' }
+ *    array = { { 'j', 'a', 'v', 'a' }, { 'l', 'a', 'n', 'g' } }
+ *    separator = '.'
+ *    isCaseSensitive = true
+ *    result => true
+ * </pre>
+ * </li>
+ * <li><pre>
+ *    prefix = { 'j', 'a', 'v', 'a', '.', 'l', 'a', 'n', 'g', '.' }
+ *    array = { { 'j', 'a', 'v', 'a' }, { 'l', 'a', 'n', 'g' } }
+ *    separator = '.'
+ *    isCaseSensitive = true
+ *    result => false
+ * </pre>
+ * </li>
+ * </ol>
+ * @param prefix the given prefix
+ * @param array the array of segments
+ * @param separator the separator between the segments
+ * @param isCaseSensitive check whether or not the equality should be case sensitive
+ * @return true if the concatenation of the array starts with the given prefix, otherwise false
+ * @throws NullPointerException if prefix is null
+ * @since 3.10
+ */
+public static final boolean prefixEquals(char[] prefix, char[][] array, char separator, boolean isCaseSensitive) {
+	int prefixLength = prefix.length;
+	if (prefixLength == 0)
+		return true;
+	if (array == null)
+		return false;
+	int position = 0;
+	for (int i = 0, length = array.length; i < length; i++) {
+		char[] segment = array[i];
+		int segmentLength = segment.length;
+		if (segmentLength == 0)
+			continue; // skipped by concatWith(char[][], char)
+		if (position > 0) {
+			if (prefix[position] != separator)
+				return false;
+			if (++position == prefixLength)
+				return true;
+		}
+		int end = position + segmentLength;
+		if (end >= prefixLength)
+			return equals(prefix, position, prefixLength, segment, 0, prefixLength - position, isCaseSensitive);
+		if (!equals(prefix, position, end, segment, 0, segmentLength, isCaseSensitive))
+			return false;
+		position = end;
+	}
+	return false;
+}
+
+
 /**
  * If isCaseSensite is true, answers true if the two arrays are identical character
  * by character, otherwise false.
@@ -1865,10 +2036,11 @@ public static final boolean equals(
 	if (first.length != second.length)
 		return false;
 
-	for (int i = first.length; --i >= 0;)
-		if (ScannerHelper.toLowerCase(first[i])
-			!= ScannerHelper.toLowerCase(second[i]))
+	for (int i = 0, length = first.length; i < length; i++) {
+		char c1 = first[i], c2 = second[i];
+		if (c1 != c2 && ScannerHelper.toLowerCase(c1) != ScannerHelper.toLowerCase(c2))
 			return false;
+	}
 	return true;
 }
 
@@ -1939,12 +2111,11 @@ public static final boolean fragmentEquals(
 				return false;
 		return true;
 	}
-	for (int i = max;
-		--i >= 0;
-		) // assumes the prefix is not larger than the name
-		if (ScannerHelper.toLowerCase(fragment[i])
-			!= ScannerHelper.toLowerCase(name[i + startIndex]))
+	for (int i = 0; i < max; i++) { // assumes the prefix is not larger than the name
+		char c1 = fragment[i], c2 = name[i + startIndex];
+		if (c1 != c2 && ScannerHelper.toLowerCase(c1) != ScannerHelper.toLowerCase(c2))
 			return false;
+	}
 	return true;
 }
 
@@ -2151,10 +2322,12 @@ public static final int indexOf(final char[] toBeFound, final char[] array, fina
 			}
 		}
 	} else {
+		char first = ScannerHelper.toLowerCase(toBeFound[0]);
 		arrayLoop: for (int i = start, max = arrayLength - toBeFoundLength + 1; i < max; i++) {
-			if (ScannerHelper.toLowerCase(array[i]) == ScannerHelper.toLowerCase(toBeFound[0])) {
+			if (ScannerHelper.toLowerCase(array[i]) == first) {
 				for (int j = 1; j < toBeFoundLength; j++) {
-					if (ScannerHelper.toLowerCase(array[i + j]) != ScannerHelper.toLowerCase(toBeFound[j])) continue arrayLoop;
+					char c1 = array[i + j], c2 = toBeFound[j];
+					if (c1 != c2 && ScannerHelper.toLowerCase(c1) != ScannerHelper.toLowerCase(c2)) continue arrayLoop;
 				}
 				return i;
 			}
@@ -2420,8 +2593,8 @@ final static public char[] lastSegment(char[] array, char separator) {
  * <p>Answers true if the pattern matches the given name, false otherwise. This char[] pattern matching
  * accepts wild-cards '*' and '?'.</p>
  *
- * <p>When not case sensitive, the pattern is assumed to already be lowercased, the
- * name will be lowercased character per character as comparing.<br>
+ * <p>When not case sensitive, the pattern and the name are lowercased character per
+ * character as comparing, so the pattern does not need to be lowercased first.<br>
  * If name is null, the answer is false.<br>
  * If pattern is null, the answer is true if name is not null.
  * </p>
@@ -2480,8 +2653,8 @@ public static final boolean match(
  * char[] pattern matching, accepting wild-cards '*' and '?'. Can match only subset of name/pattern.
  * end positions are non-inclusive.
  * The subpattern is defined by the patternStart and pattternEnd positions.
- * When not case sensitive, the pattern is assumed to already be lowercased, the
- * name will be lowercased character per character as comparing.
+ * When not case sensitive, the pattern and the name are lowercased character per
+ * character as comparing, so the pattern does not need to be lowercased first.
  * <br>
  * <br>
  * For example:
@@ -2553,10 +2726,8 @@ public static final boolean match(
 		if (iName == nameEnd) {
 			return false; // name has ended but not the pattern
 		}
-		if (patternChar
-			!= (isCaseSensitive
-				? name[iName]
-				: ScannerHelper.toLowerCase(name[iName]))
+		if (patternChar != name[iName]
+			&& (isCaseSensitive || ScannerHelper.toLowerCase(patternChar) != ScannerHelper.toLowerCase(name[iName]))
 			&& patternChar != '?') {
 			return false;
 		}
@@ -2587,8 +2758,8 @@ public static final boolean match(
 			continue checkSegment;
 		}
 		/* check current name character */
-		if ((isCaseSensitive ? name[iName] : ScannerHelper.toLowerCase(name[iName]))
-					!= patternChar
+		if (name[iName] != patternChar
+				&& (isCaseSensitive || ScannerHelper.toLowerCase(name[iName]) != ScannerHelper.toLowerCase(patternChar))
 				&& patternChar != '?') {
 			iPattern = segmentStart; // mismatch - restart current segment
 			iName = ++prefixStart;
@@ -2612,8 +2783,8 @@ public static final boolean match(
  * any folder combination.
  * Special rule:
  * - foo\  is equivalent to foo\**
- * When not case sensitive, the pattern is assumed to already be lowercased, the
- * name will be lowercased character per character as comparing.
+ * When not case sensitive, the pattern and the name are lowercased character per
+ * character as comparing, so the pattern does not need to be lowercased first.
  *
  * @param pattern the given pattern
  * @param filepath the given path
@@ -3027,10 +3198,11 @@ public static final boolean prefixEquals(
 		return true;
 	}
 
-	for (int i = max; --i >= 0;) // assumes the prefix is not larger than the name
-		if (ScannerHelper.toLowerCase(prefix[i])
-			!= ScannerHelper.toLowerCase(name[startIndex + i]))
+	for (int i = 0; i < max; i++) { // assumes the prefix is not larger than the name
+		char c1 = prefix[i], c2 = name[startIndex + i];
+		if (c1 != c2 && ScannerHelper.toLowerCase(c1) != ScannerHelper.toLowerCase(c2))
 			return false;
+	}
 	return true;
 }
 
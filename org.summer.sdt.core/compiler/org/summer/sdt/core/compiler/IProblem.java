@@ -1823,4 +1823,10 @@ void setSourceStart(int sourceStart);
 	
 	/** @since 3.10 */
 	int LambdaShapeComputationError = 1101;
+
+	/** @since 3.10 */
+	int ExcessiveInferenceWork = TypeRelated + 1102;
+
+	/** @since 3.10 */
+	int JavascriptUnsupportedConstruct = Internal + 1103;
 }
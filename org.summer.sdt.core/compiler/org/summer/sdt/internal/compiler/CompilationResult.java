@@ -69,6 +69,7 @@ public class CompilationResult {
 	public int lineSeparatorPositions[];
 	public RecoveryScannerData recoveryScannerData;
 	public Map compiledTypes = new Hashtable(11);
+	public char[] javascript; // javascript code of the whole unit, null if none was generated
 	public int unitIndex, totalUnitsKnown;
 	public boolean hasBeenAccepted = false;
 	public char[] fileName;
@@ -78,6 +79,11 @@ public class CompilationResult {
 	public boolean checkSecondaryTypes = false; // check for secondary types which were created after the initial buildTypeBindings call
 	private int numberOfErrors;
 	private boolean hasMandatoryErrors;
+	// type inference (JLS 18) statistics, the time is in nanoseconds
+	public long inferenceTime;
+	public int inferenceCount;
+	public int reusedInferenceCount;
+	private int inferenceDepth;
 
 	private static final int[] EMPTY_LINE_ENDS = Util.EMPTY_INT_ARRAY;
 	private static final Comparator PROBLEM_COMPARATOR = new Comparator() {
@@ -188,6 +194,13 @@ public class CompilationResult {
 		return classFiles;
 	}
 	
+	/**
+	 * Answer the javascript code generated for the unit, or null if none was generated
+	 */
+	public char[] getJavascript() {
+		return this.javascript;
+	}
+
 	/**
 	 * Answer the initial compilation unit corresponding to the present compilation result
 	 */
@@ -310,6 +323,20 @@ public class CompilationResult {
 		return this.tasks;
 	}
 	
+	/**
+	 * Marks the start of some type inference for this unit and answers the start time to pass to
+	 * {@link #endInference(long)}. Inference nested in another one is accounted by the outermost one.
+	 */
+	public long beginInference() {
+		this.inferenceCount++;
+		return this.inferenceDepth++ == 0 ? System.nanoTime() : 0;
+	}
+	
+	public void endInference(long start) {
+		if (--this.inferenceDepth == 0)
+			this.inferenceTime += System.nanoTime() - start;
+	}
+	
 	public boolean hasErrors() {
 		return this.numberOfErrors != 0;
 	}
@@ -372,7 +399,12 @@ public class CompilationResult {
 		return;
 	}
 	
-	public void record(CategorizedProblem newProblem, ReferenceContext referenceContext, boolean mandatoryError) {
+	/**
+	 * Record a problem. Synchronized: a thread parsing the method bodies of the unit ahead of its
+	 * processing may report problems while the processing thread reports problems found in the
+	 * method headers of the unit, see {@link ParseTaskManager}.
+	 */
+	public synchronized void record(CategorizedProblem newProblem, ReferenceContext referenceContext, boolean mandatoryError) {
 		//new Exception("VERBOSE PROBLEM REPORTING").printStackTrace();
 		if(newProblem.getID() == IProblem.Task) {
 			recordTask(newProblem);
@@ -410,6 +442,10 @@ public class CompilationResult {
 		this.compiledTypes.put(typeName, classFile);
 	}
 	
+	public void recordJavascript(char[] contents) {
+		this.javascript = contents;
+	}
+
 	private void recordTask(CategorizedProblem newProblem) {
 		if (this.taskCount == 0) {
 			this.tasks = new CategorizedProblem[5];
@@ -69,6 +69,9 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 	public int annotationProcessorStartIndex = 0;
 	public ReferenceBinding[] referenceBindings;
 	public boolean useSingleThread = true; // by default the compiler will not use worker threads to read/process/write
+	public int parserThreads = -1; // number of worker threads parsing method bodies when not using a single thread (-1: one per extra processor)
+	ParseTaskManager parseTaskManager;
+	public boolean compileFoundUnits = true; // false: the units found by the name environment are only bound, their results are not requested
 
 	// number of initial units parsed at once (-1: none)
 
@@ -338,14 +341,15 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 			}
 			// diet parsing for large collection of unit
 			CompilationUnitDeclaration parsedUnit;
-			if (this.totalUnits < this.parseThreshold) {
+			if (this.compileFoundUnits && this.totalUnits < this.parseThreshold) {
 				parsedUnit = this.parser.parse(sourceUnit, unitResult);
 			} else {
 				parsedUnit = this.parser.dietParse(sourceUnit, unitResult);
 			}
 			// initial type binding creation
 			this.lookupEnvironment.buildTypeBindings(parsedUnit, accessRestriction);
-			addCompilationUnit(sourceUnit, parsedUnit);
+			if (this.compileFoundUnits)
+				addCompilationUnit(sourceUnit, parsedUnit);
 
 			// binding resolution
 			this.lookupEnvironment.completeTypeBindings(parsedUnit);
@@ -493,6 +497,7 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 
 					reportWorked(1, i);
 					this.stats.lineCount += unit.compilationResult.lineSeparatorPositions.length;
+					this.stats.inferenceTime += unit.compilationResult.inferenceTime;
 					long acceptStart = System.currentTimeMillis();
 					this.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
 					this.stats.generateTime += System.currentTimeMillis() - acceptStart; // record accept time as part of generation
@@ -506,6 +511,7 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 							}));
 				}
 			} else {
+				startParsingMethodBodies();
 				processingTask = new ProcessTaskManager(this);
 				int acceptedCount = 0;
 				// process all units (some more could be injected in the loop by the lookup environment)
@@ -524,6 +530,7 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 					if (unit == null) break;
 					reportWorked(1, acceptedCount++);
 					this.stats.lineCount += unit.compilationResult.lineSeparatorPositions.length;
+					this.stats.inferenceTime += unit.compilationResult.inferenceTime;
 					this.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
 					if (this.options.verbose)
 						this.out.println(
@@ -548,6 +555,7 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 				processingTask.shutdown();
 				processingTask = null;
 			}
+			stopParsingMethodBodies();
 			reset();
 			this.annotationProcessorStartIndex  = 0;
 			this.stats.endTime = System.currentTimeMillis();
@@ -572,6 +580,16 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 		return null;
 	}
 
+	/**
+	 * Answer the unit to process at the given index without releasing it, used by the
+	 * method body parsing threads to work ahead of the processing thread.
+	 */
+	synchronized CompilationUnitDeclaration peekUnitToProcess(int index) {
+		if (this.unitsToProcess != null && index < this.totalUnits)
+			return this.unitsToProcess[index];
+		return null;
+	}
+
 	public void setBinaryTypes(ReferenceBinding[] binaryTypes) {
 		this.referenceBindings = binaryTypes;
 	}
@@ -704,6 +722,34 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 		this.parser = new Parser(this.problemReporter, this.options.parseLiteralExpressionsAsConstants);
 	}
 
+	/**
+	 * Starts the threads parsing the method bodies of the units to process ahead of {@link #process(CompilationUnitDeclaration, int)},
+	 * unless the compiler uses a single thread or there are too few units. Must be called once the units to process are known.
+	 */
+	protected void startParsingMethodBodies() {
+		if (!this.useSingleThread && this.parserThreads != 0 && this.totalUnits >= ParseTaskManager.THRESHOLD)
+			this.parseTaskManager = new ParseTaskManager(this, this.parserThreads);
+	}
+
+	/**
+	 * Stops the threads parsing method bodies, if any. Once it returns, the units left to process are no longer used by these threads.
+	 */
+	protected void stopParsingMethodBodies() {
+		if (this.parseTaskManager != null) {
+			this.parseTaskManager.shutdownAndWait();
+			this.parseTaskManager = null;
+		}
+	}
+
+	/**
+	 * Answer a new parser for a method body parsing thread. Each thread needs its own problem reporter
+	 * since the reporter remembers the reference context of the problem being reported.
+	 */
+	protected Parser newWorkerParser() {
+		ProblemReporter reporter = new ProblemReporter(this.problemReporter.policy, this.options, this.problemReporter.problemFactory);
+		return new Parser(reporter, this.options.parseLiteralExpressionsAsConstants);
+	}
+
 	/**
 	 * Add the initial set of compilation units into the loop
 	 *  ->  build compilation unit declarations, their bindings and record their results.
@@ -770,6 +816,8 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 		this.lookupEnvironment.unitBeingCompleted = unit;
 		long parseStart = System.currentTimeMillis();
 
+		if (this.parseTaskManager != null)
+			this.parseTaskManager.waitForMethodBodies(i); // the bodies may have been parsed by a worker thread
 		this.parser.getMethodBodies(unit);
 
 		long resolveStart = System.currentTimeMillis();
@@ -795,7 +843,10 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 		long generateStart = System.currentTimeMillis();
 		this.stats.analyzeTime += generateStart - analyzeStart;
 	
-		if (!this.options.ignoreMethodBodies) unit.generateCode(); // code generation
+		if (!this.options.ignoreMethodBodies) {
+			unit.generateCode(); // code generation
+			if (this.options.generateJavascript) unit.generateJavascript();
+		}
 		
 		// reference info
 		if (this.options.produceReferenceInfo && unit.scope != null)
@@ -901,6 +952,19 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 	/**
 	 * Internal API used to resolve a given compilation unit. Can run a subset of the compilation process
 	 */
+	/**
+	 * Performs the flow analysis and the code generation of a unit resolved by
+	 * {@link #resolve(CompilationUnitDeclaration, ICompilationUnit, boolean, boolean, boolean)},
+	 * before its problems are finalized.
+	 */
+	protected void analyseAndGenerateCode(CompilationUnitDeclaration unit, boolean analyzeCode, boolean generateCode) {
+		// flow analysis
+		if (analyzeCode) unit.analyseCode();
+
+		// code generation
+		if (generateCode) unit.generateCode();
+	}
+
 	public CompilationUnitDeclaration resolve(
 			CompilationUnitDeclaration unit,
 			ICompilationUnit sourceUnit,
@@ -945,11 +1009,7 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 				// type checking
 				unit.resolve();
 
-				// flow analysis
-				if (analyzeCode) unit.analyseCode();
-
-				// code generation
-				if (generateCode) unit.generateCode();
+				analyseAndGenerateCode(unit, analyzeCode, generateCode);
 
 				// finalize problems (suppressWarnings)
 				unit.finalizeProblems();
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.compiler;
+
+import java.util.Arrays;
+
+import org.summer.sdt.internal.compiler.codegen.JavascriptStream;
+
+public class JavascriptStreamPool {
+	public static final int POOL_SIZE = 4; // javascript is generated for one unit at a time
+	JavascriptStream[] streams;
+
+private JavascriptStreamPool() {
+	// prevent instantiation
+	this.streams = new JavascriptStream[POOL_SIZE];
+}
+
+public static JavascriptStreamPool newInstance() {
+	return new JavascriptStreamPool();
+}
+
+public synchronized JavascriptStream acquire() {
+	for (int i = 0; i < POOL_SIZE; i++) {
+		JavascriptStream stream = this.streams[i];
+		if (stream == null) {
+			JavascriptStream newStream = new JavascriptStream();
+			this.streams[i] = newStream;
+			newStream.isShared = true;
+			return newStream;
+		}
+		if (!stream.isShared) {
+			stream.reset();
+			stream.isShared = true;
+			return stream;
+		}
+	}
+	return new JavascriptStream();
+}
+public synchronized void release(JavascriptStream stream) {
+	stream.isShared = false;
+}
+public void reset() {
+	Arrays.fill(this.streams, null);
+}
+}
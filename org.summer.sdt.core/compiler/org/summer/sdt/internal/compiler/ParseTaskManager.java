@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2008 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.summer.sdt.internal.compiler;
+
+import org.summer.sdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.summer.sdt.internal.compiler.env.ICompilationUnit;
+import org.summer.sdt.internal.compiler.parser.Parser;
+
+/**
+ * Parses the method bodies of the units to process on worker threads, ahead of
+ * the thread which resolves, analyzes and generates code for them.
+ * <p>
+ * Only the parsing of the method bodies is done concurrently. Resolution, flow analysis
+ * and code generation still happen one unit at a time in unit order, since they share the
+ * lookup environment; this keeps the generated class files identical to the serial path.
+ * </p>
+ * <p>
+ * Each worker owns its own {@link Parser} (and problem reporter), and only ever writes
+ * the method bodies of the unit it claimed, which the processing thread does not read before
+ * it reaches the unit. The contents of the units are read ahead by a {@link ReadManager}.
+ * The problems found by a worker are recorded in the {@link CompilationResult} of the unit, in
+ * which the processing thread may record the problems of the method headers at the same time.
+ * </p>
+ * <p>
+ * A worker publishes the bodies it parsed by setting the state of the unit to DONE while
+ * holding the lock of this manager, and {@link #waitForMethodBodies(int)} reads that state
+ * holding the same lock before the processing thread uses the unit. The end of the worker's
+ * synchronized block thus happens-before the processing thread reads the bodies, so it sees
+ * every write of the worker to the AST.
+ * </p>
+ */
+public class ParseTaskManager implements Runnable {
+
+	Compiler compiler;
+	Thread[] parsingThreads;
+	int nextUnitToParse;
+	int lastUnitProcessed;
+	byte[] states;
+	int sleepingThreadCount;
+	ReadManager readManager; // reads the contents of the units to process which were known at start
+	int readUnitCount;
+	private Throwable[] caughtExceptions; // exception caught by the worker which parsed each FAILED unit
+
+	static final byte UNCLAIMED = 0;
+	static final byte PARSING = 1;
+	static final byte DONE = 2; // either parsed by a worker or taken over by the processing thread
+	static final byte FAILED = 3; // the worker parsing the unit caught an exception, rethrown by the processing thread
+
+	static final int START_CUSHION = 1;
+	public static final int THRESHOLD = 10;
+	static final int MAX_THREADS = 8;
+	static final int PARSE_AHEAD = 2 * ProcessTaskManager.PROCESSED_QUEUE_SIZE; // do not keep too many full ASTs in memory
+
+public ParseTaskManager(Compiler compiler, int threadCount) {
+	this.compiler = compiler;
+	if (threadCount < 0)
+		threadCount = Runtime.getRuntime().availableProcessors() - 1; // leave one processor to the processing thread
+	if (threadCount > MAX_THREADS)
+		threadCount = MAX_THREADS;
+	synchronized (this) {
+		this.nextUnitToParse = START_CUSHION; // the processing thread starts with the first unit anyway
+		this.lastUnitProcessed = -1;
+		this.states = new byte[compiler.totalUnits];
+		this.caughtExceptions = new Throwable[compiler.totalUnits];
+		this.sleepingThreadCount = 0;
+		if (threadCount > 0) {
+			// the diet parse read the contents a first time, read them again ahead of the workers
+			this.readUnitCount = compiler.totalUnits;
+			ICompilationUnit[] units = new ICompilationUnit[this.readUnitCount];
+			for (int i = 0; i < this.readUnitCount; i++)
+				units[i] = compiler.unitsToProcess[i].compilationResult.compilationUnit;
+			this.readManager = new ReadManager(units, this.readUnitCount);
+			this.parsingThreads = new Thread[threadCount];
+			for (int i = threadCount; --i >= 0;) {
+				this.parsingThreads[i] = new Thread(this, "Compiler Method Body Parser"); //$NON-NLS-1$
+				this.parsingThreads[i].setDaemon(true);
+				this.parsingThreads[i].start();
+			}
+		}
+	}
+}
+
+/**
+ * Called by the processing thread before it parses the method bodies of the unit at the given index:
+ * waits for a worker which is currently parsing the unit, or tags the unit so that no worker will
+ * start parsing it. The method bodies are then either already available or parsed by the caller.
+ * Since the state of the unit is read while holding the lock the worker released after parsing it,
+ * the caller sees the bodies the worker parsed.
+ */
+public void waitForMethodBodies(int index) throws Error {
+	boolean yield = false;
+	synchronized (this) {
+		if (index > this.lastUnitProcessed)
+			this.lastUnitProcessed = index;
+		ensureCapacity(index);
+		while (this.states[index] == PARSING) {
+			try {
+				wait(250);
+			} catch (InterruptedException ignore) { // ignore
+			}
+		}
+		if (this.states[index] == FAILED) {
+			// rethrow the exception caught while parsing this unit in the processing thread
+			Throwable exception = this.caughtExceptions[index];
+			this.caughtExceptions[index] = null;
+			this.states[index] = DONE;
+			if (exception instanceof Error)
+				throw (Error) exception;
+			throw (RuntimeException) exception;
+		}
+		this.states[index] = DONE;
+		if (this.sleepingThreadCount > 0) {
+			notifyAll(); // the parse ahead window moved, wake up sleeping workers
+			yield = this.parsingThreads != null && this.sleepingThreadCount == this.parsingThreads.length;
+		}
+	}
+	if (yield)
+		Thread.yield(); // ensure other threads get a chance
+}
+
+private void ensureCapacity(int index) {
+	int length = this.states.length;
+	if (index >= length) {
+		int newLength = Math.max(index + 1, length * 2);
+		System.arraycopy(this.states, 0, this.states = new byte[newLength], 0, length);
+		System.arraycopy(this.caughtExceptions, 0, this.caughtExceptions = new Throwable[newLength], 0, length);
+	}
+}
+
+public void run() {
+	Parser parser = this.compiler.newWorkerParser();
+	while (this.parsingThreads != null) {
+		int index = -1;
+		CompilationUnitDeclaration unit = null;
+		synchronized (this) {
+			if (this.parsingThreads == null) return;
+
+			while (this.nextUnitToParse > this.lastUnitProcessed + PARSE_AHEAD) {
+				this.sleepingThreadCount++;
+				try {
+					wait(250); // wait until the processing thread catches up
+				} catch (InterruptedException e) { // ignore
+				}
+				this.sleepingThreadCount--;
+				if (this.parsingThreads == null) return;
+			}
+
+			// units may have been injected by the lookup environment in the meantime
+			int totalUnits = this.compiler.totalUnits;
+			while (this.nextUnitToParse < totalUnits) {
+				index = this.nextUnitToParse++;
+				ensureCapacity(index);
+				if (this.states[index] == UNCLAIMED) {
+					unit = this.compiler.peekUnitToProcess(index);
+					if (unit != null) {
+						this.states[index] = PARSING;
+						break;
+					}
+				}
+			}
+			if (unit == null) {
+				// nothing left to parse - the units injected later on will be parsed by the processing thread
+				return;
+			}
+		}
+
+		try {
+			// the units injected later on are not read ahead
+			parser.readManager = index < this.readUnitCount ? this.readManager : null;
+			parser.getMethodBodies(unit);
+		} catch (Error e) {
+			failed(index, e);
+			return;
+		} catch (RuntimeException e) {
+			failed(index, e);
+			return;
+		} finally {
+			parser.scanner.source = null; // do not hold onto the unit contents
+		}
+		synchronized (this) {
+			this.states[index] = DONE; // publishes the parsed bodies, see waitForMethodBodies(int)
+			notifyAll(); // wake up the processing thread if it is waiting for this unit
+		}
+	}
+}
+
+/*
+ * Records the exception caught while parsing the unit at the given index, the processing thread rethrows it when it
+ * reaches this unit. Other workers may fail on other units in the meantime, each unit keeps its own exception.
+ */
+private synchronized void failed(int index, Throwable exception) {
+	this.caughtExceptions[index] = exception;
+	this.states[index] = FAILED;
+	shutdown(); // the compilation is going to abort, do not parse further units
+}
+
+public synchronized void shutdown() {
+	this.parsingThreads = null; // mark the parse manager as shutting down so that the parsing threads stop
+	if (this.readManager != null)
+		this.readManager.shutdown();
+	notifyAll();
+}
+
+/**
+ * Stops the workers and waits for the ones which are still parsing a unit.
+ */
+public synchronized void shutdownAndWait() {
+	shutdown();
+	for (int i = 0, length = this.states.length; i < length; i++) {
+		while (this.states[i] == PARSING) {
+			try {
+				wait(250);
+			} catch (InterruptedException ignore) { // ignore
+			}
+		}
+	}
+}
+}
@@ -88,12 +88,13 @@ public char[] getContents(ICompilationUnit unit) throws Error {
 	boolean yield = false;
 	char[] result = null;
 	synchronized (this) {
-		if (unit == this.filesRead[this.readyToReadPosition]) {
-			result = this.contentsRead[this.readyToReadPosition];
+		int position = positionOf(unit);
+		if (position != -1) {
+			result = this.contentsRead[position];
 			while (result == this.readInProcessMarker || result == null) {
 				// let the readingThread know we're waiting
 				//System.out.print('|');
-				this.contentsRead[this.readyToReadPosition] = null;
+				this.contentsRead[position] = null;
 				try {
 					wait(250);
 				} catch (InterruptedException ignore) { // ignore
@@ -104,17 +105,26 @@ public char[] getContents(ICompilationUnit unit) throws Error {
 						throw (Error) this.caughtException;
 					throw (RuntimeException) this.caughtException;
 				}
-				result = this.contentsRead[this.readyToReadPosition];
+				if (this.filesRead[position] != unit) {
+					// another caller freed the spot in the meantime
+					result = null;
+					break;
+				}
+				result = this.contentsRead[position];
 			}
-			// free spot for next file
-			this.filesRead[this.readyToReadPosition] = null;
-			this.contentsRead[this.readyToReadPosition] = null;
-			if (++this.readyToReadPosition >= this.contentsRead.length)
-				this.readyToReadPosition = 0;
-			if (this.sleepingThreadCount > 0) {
+			// free the spots up to this file, the files skipped by the callers are read again if asked for
+			while (result != null) {
+				boolean last = this.readyToReadPosition == position;
+				this.filesRead[this.readyToReadPosition] = null;
+				this.contentsRead[this.readyToReadPosition] = null;
+				if (++this.readyToReadPosition >= this.contentsRead.length)
+					this.readyToReadPosition = 0;
+				if (last) break;
+			}
+			if (result != null && this.sleepingThreadCount > 0) {
 				//System.out.print('+');
 				//System.out.print(this.nextFileToRead);
-				notify();
+				notifyAll(); // several callers may be waiting too
 				yield = this.sleepingThreadCount == this.readingThreads.length;
 			}
 		} else {
@@ -145,6 +155,23 @@ public char[] getContents(ICompilationUnit unit) throws Error {
 	return unit.getContents();
 }
 
+/*
+ * Answer the spot of the given file among the files read or being read, -1 if none.
+ * The callers may ask for the files in a slightly different order than they are read,
+ * e.g. the threads parsing the method bodies of consecutive units.
+ */
+private int positionOf(ICompilationUnit unit) {
+	int position = this.readyToReadPosition;
+	for (int i = this.filesRead.length; --i >= 0;) {
+		ICompilationUnit file = this.filesRead[position];
+		if (file == null) break;
+		if (file == unit) return position;
+		if (++position >= this.filesRead.length)
+			position = 0;
+	}
+	return -1;
+}
+
 public void run() {
 	try {
 		while (this.readingThreads != null && this.nextFileToRead < this.units.length) {
@@ -78,6 +78,8 @@ public abstract class AbstractMethodDeclaration
 	public int explicitDeclarations;
 	public MethodBinding binding;
 	public boolean ignoreFurtherInvestigation = false;
+	// set when the problems of the body of a regular method are already known: the body is resolved but neither analysed nor generated
+	public boolean skipBodyAnalysis = false;
 
 	public Javadoc javadoc;
 
@@ -280,6 +282,8 @@ public abstract class AbstractMethodDeclaration
 			classFile.addProblemMethod(this, this.binding, problemsCopy);
 			return;
 		}
+		if (this.skipBodyAnalysis)
+			return;
 		boolean restart = false;
 		boolean abort = false;
 		// regular code generation
@@ -65,6 +65,7 @@ import org.summer.sdt.internal.compiler.lookup.BlockScope;
 import org.summer.sdt.internal.compiler.lookup.ExtraCompilerModifiers;
 import org.summer.sdt.internal.compiler.lookup.ImplicitNullAnnotationVerifier;
 import org.summer.sdt.internal.compiler.lookup.InferenceContext18;
+import org.summer.sdt.internal.compiler.lookup.InferenceMemo;
 import org.summer.sdt.internal.compiler.lookup.LocalTypeBinding;
 import org.summer.sdt.internal.compiler.lookup.LocalVariableBinding;
 import org.summer.sdt.internal.compiler.lookup.MethodBinding;
@@ -104,6 +105,7 @@ public class AllocationExpression extends Expression implements Invocation {
 
 	 // hold on to this context from invocation applicability inference until invocation type inference (per method candidate):
 	private SimpleLookupTable/*<PMB,IC18>*/ inferenceContexts;
+	private InferenceMemo inferenceMemo;
 	protected InnerInferenceHelper innerInferenceHelper;
 
 	/** Record to keep state between different parts of resolution. */
@@ -813,6 +815,11 @@ public class AllocationExpression extends Expression implements Invocation {
 			return null;
 		return (InferenceContext18) this.inferenceContexts.get(method);
 	}
+	public InferenceMemo inferenceMemo() {
+		if (this.inferenceMemo == null)
+			this.inferenceMemo = new InferenceMemo();
+		return this.inferenceMemo;
+	}
 	public boolean innersNeedUpdate() {
 		return this.innerInferenceHelper != null;
 	}
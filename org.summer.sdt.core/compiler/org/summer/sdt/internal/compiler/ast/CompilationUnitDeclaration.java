@@ -21,7 +21,10 @@ import org.summer.sdt.core.compiler.CharOperation;
 import org.summer.sdt.internal.compiler.ASTVisitor;
 import org.summer.sdt.internal.compiler.ClassFile;
 import org.summer.sdt.internal.compiler.CompilationResult;
+import org.summer.sdt.internal.compiler.JavascriptStreamPool;
 import org.summer.sdt.internal.compiler.classfmt.ClassFileConstants;
+import org.summer.sdt.internal.compiler.codegen.JavascriptGenerator;
+import org.summer.sdt.internal.compiler.codegen.JavascriptStream;
 import org.summer.sdt.internal.compiler.impl.CompilerOptions;
 import org.summer.sdt.internal.compiler.impl.Constant;
 import org.summer.sdt.internal.compiler.impl.IrritantSet;
@@ -375,25 +378,23 @@ public class CompilationUnitDeclaration extends ASTNode implements ProblemSeveri
 	
 	/**
 	 * javascript generation
+	 * The whole unit is written as one module into a pooled stream, then recorded
+	 * in the compilation result unless a construct could not be translated.
 	 */
 	public void generateJavascript() {
-		if (this.ignoreFurtherInvestigation) {
-			if (this.types != null) {
-				for (int i = 0, count = this.types.length; i < count; i++) {
-					this.types[i].ignoreFurtherInvestigation = true;
-					// propagate the flag to request problem type creation
-					this.types[i].generateCode(this.scope);
-				}
-			}
-			return;
+		if (this.ignoreFurtherInvestigation || this.scope == null) {
+			return; // no javascript for a unit with errors
 		}
+		JavascriptStreamPool pool = this.scope.environment().javascriptStreamPool;
+		JavascriptStream stream = pool.acquire();
 		try {
-			if (this.types != null) {
-				for (int i = 0, count = this.types.length; i < count; i++)
-					this.types[i].generateCode(this.scope);
-			}
+			new JavascriptGenerator(stream).generate(this);
+			if (!this.ignoreFurtherInvestigation) // the constructs which cannot be translated are reported as errors
+				this.compilationResult.recordJavascript(stream.getContents());
 		} catch (AbortCompilationUnit e) {
 			// ignore
+		} finally {
+			pool.release(stream);
 		}
 	}
 	
@@ -41,6 +41,7 @@ import org.summer.sdt.internal.compiler.lookup.Binding;
 import org.summer.sdt.internal.compiler.lookup.BlockScope;
 import org.summer.sdt.internal.compiler.lookup.ExtraCompilerModifiers;
 import org.summer.sdt.internal.compiler.lookup.InferenceContext18;
+import org.summer.sdt.internal.compiler.lookup.InferenceMemo;
 import org.summer.sdt.internal.compiler.lookup.LocalTypeBinding;
 import org.summer.sdt.internal.compiler.lookup.MethodBinding;
 import org.summer.sdt.internal.compiler.lookup.MethodScope;
@@ -79,6 +80,7 @@ public class ExplicitConstructorCall extends Statement implements Invocation {
 
 	 // hold on to this context from invocation applicability inference until invocation type inference (per method candidate):
 	private SimpleLookupTable/*<PGMB,InferenceContext18>*/ inferenceContexts;
+	private InferenceMemo inferenceMemo;
 	private InnerInferenceHelper innerInferenceHelper;
 
 	public ExplicitConstructorCall(int accessMode) {
@@ -534,6 +536,11 @@ public class ExplicitConstructorCall extends Statement implements Invocation {
 			return null;
 		return (InferenceContext18) this.inferenceContexts.get(method);
 	}
+	public InferenceMemo inferenceMemo() {
+		if (this.inferenceMemo == null)
+			this.inferenceMemo = new InferenceMemo();
+		return this.inferenceMemo;
+	}
 	public boolean usesInference() {
 		return (this.binding instanceof ParameterizedGenericMethodBinding) 
 				&& getInferenceContext((ParameterizedGenericMethodBinding) this.binding) != null;
@@ -11,6 +11,7 @@
 package org.summer.sdt.internal.compiler.ast;
 
 import org.summer.sdt.internal.compiler.lookup.InferenceContext18;
+import org.summer.sdt.internal.compiler.lookup.InferenceMemo;
 import org.summer.sdt.internal.compiler.lookup.InvocationSite;
 import org.summer.sdt.internal.compiler.lookup.MethodBinding;
 import org.summer.sdt.internal.compiler.lookup.ParameterizedGenericMethodBinding;
@@ -55,6 +56,13 @@ public interface Invocation extends InvocationSite {
 	 */
 	InferenceContext18 getInferenceContext(ParameterizedMethodBinding method);
 
+	/**
+	 * Answer the outcomes of the Invocation Applicability Inferences already performed for this invocation,
+	 * which overload resolution consults before inferring a candidate method again.
+	 * The memo is created on first request.
+	 */
+	InferenceMemo inferenceMemo();
+
 	/**
 	 * Answer true if this invocation has determined its binding using inference.
 	 */
@@ -76,6 +76,7 @@ import org.summer.sdt.internal.compiler.lookup.ExtraCompilerModifiers;
 import org.summer.sdt.internal.compiler.lookup.FieldBinding;
 import org.summer.sdt.internal.compiler.lookup.ImplicitNullAnnotationVerifier;
 import org.summer.sdt.internal.compiler.lookup.InferenceContext18;
+import org.summer.sdt.internal.compiler.lookup.InferenceMemo;
 import org.summer.sdt.internal.compiler.lookup.LocalVariableBinding;
 import org.summer.sdt.internal.compiler.lookup.MethodBinding;
 import org.summer.sdt.internal.compiler.lookup.MissingTypeBinding;
@@ -116,6 +117,7 @@ public class MessageSend extends Expression implements Invocation {
 
 	 // hold on to this context from invocation applicability inference until invocation type inference (per method candidate):
 	private SimpleLookupTable/*<PGMB,InferenceContext18>*/ inferenceContexts;
+	private InferenceMemo inferenceMemo;
 	protected InnerInferenceHelper innerInferenceHelper;
 
 	public FlowInfo analyseCode(BlockScope currentScope, FlowContext flowContext, FlowInfo flowInfo) {
@@ -1051,6 +1053,11 @@ public class MessageSend extends Expression implements Invocation {
 			return null;
 		return (InferenceContext18) this.inferenceContexts.get(method);
 	}
+	public InferenceMemo inferenceMemo() {
+		if (this.inferenceMemo == null)
+			this.inferenceMemo = new InferenceMemo();
+		return this.inferenceMemo;
+	}
 	public boolean usesInference() {
 		return (this.binding instanceof ParameterizedGenericMethodBinding) 
 				&& getInferenceContext((ParameterizedGenericMethodBinding) this.binding) != null;
@@ -95,6 +95,8 @@ public class MethodDeclaration extends AbstractMethodDeclaration {
 					}
 				}
 			}
+			if (this.skipBodyAnalysis)
+				return;
 			ExceptionHandlingFlowContext methodContext =
 				new ExceptionHandlingFlowContext(
 					flowContext,
@@ -0,0 +1,481 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.compiler.classfmt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.summer.sdt.internal.compiler.util.Util;
+
+/**
+ * Persistent cache of the class files read from jars, shared by the batch compiler, the builder
+ * and the Java model.
+ * <p>
+ * The class files which have been read from a jar are stored uncompressed in a cache file whose name
+ * is computed from the path, size and modification time of the jar, so that a modified jar gets a new
+ * cache file. Cache files are memory-mapped: reading a class file again, in the same or in a following
+ * session, only copies its bytes instead of looking up and inflating the zip entry.
+ * </p>
+ * <p>
+ * The class files read for the first time are recorded and appended to the cache file when the jar
+ * {@link JarCache#save() is saved}, usually when the classpath is cleaned up at the end of a build.
+ * A cache file is never rewritten: it starts with a header identifying the jar, followed by the
+ * class files, each one preceded by its entry name and length. Appending is done under a file lock,
+ * since other VMs may share the cache directory.
+ * </p>
+ * <p>
+ * Once the cache files exceed {@link #MAX_SIZE_PROPERTY the maximum size of the cache}, the least
+ * recently used ones are deleted.
+ * </p>
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class BinaryTypeCache {
+
+	/**
+	 * System property naming the directory of the shared cache, used when it is not set by
+	 * {@link #setSharedDirectory(File)}.
+	 */
+	public static final String DIRECTORY_PROPERTY = "jdt.compiler.binaryTypeCache"; //$NON-NLS-1$
+	/**
+	 * System property setting the maximum size of the cache files in megabytes, 256 by default.
+	 */
+	public static final String MAX_SIZE_PROPERTY = "jdt.compiler.binaryTypeCache.maxSize"; //$NON-NLS-1$
+	static final String SIGNATURE = "BINARY TYPE CACHE 2"; //$NON-NLS-1$
+	static final String CACHE_FILE_EXTENSION = ".cache"; //$NON-NLS-1$
+	static final long DEFAULT_MAX_SIZE = 256;
+
+	private static BinaryTypeCache Shared;
+	private static boolean SharedInitialized = false;
+
+	File directory;
+	long maxSize; // in bytes
+	HashMap jars; // jar path -> JarCache
+
+	/**
+	 * Class files read from a given version of a jar.
+	 */
+	public class JarCache {
+		String jarPath;
+		long lastModified;
+		long size;
+		String cacheFileName;
+		ByteBuffer contents; // mapped cache file
+		HashMap entries; // entry name -> long (offset << 32 | length)
+		HashSet newEntries; // entry names read from the jar since the cache file was loaded
+
+		JarCache(String jarPath, long lastModified, long size) {
+			this.jarPath = jarPath;
+			this.lastModified = lastModified;
+			this.size = size;
+			this.cacheFileName = cacheFileName(jarPath, lastModified, size);
+			this.entries = new HashMap();
+			this.newEntries = new HashSet();
+			load();
+		}
+
+		/**
+		 * Answers the bytes of the given class file, read from the cache or from the given jar.
+		 * Answers null if the jar does not contain the class file.
+		 */
+		public byte[] getClassFileBytes(ZipFile zip, String entryName) throws IOException {
+			synchronized (this) {
+				Long location = (Long) this.entries.get(entryName);
+				if (location != null) {
+					long value = location.longValue();
+					byte[] bytes = new byte[(int) value];
+					ByteBuffer buffer = this.contents.duplicate();
+					buffer.position((int) (value >>> 32));
+					buffer.get(bytes);
+					return bytes;
+				}
+			}
+			ZipEntry ze = zip.getEntry(entryName);
+			if (ze == null)
+				return null;
+			byte[] bytes = Util.getZipEntryByteContent(ze, zip);
+			synchronized (this) {
+				this.newEntries.add(entryName);
+			}
+			return bytes;
+		}
+
+		/**
+		 * Answers the reader of the given class file, or null if the jar does not contain it.
+		 */
+		public ClassFileReader read(ZipFile zip, String entryName) throws ClassFormatException, IOException {
+			byte[] bytes = getClassFileBytes(zip, entryName);
+			if (bytes == null)
+				return null;
+			return new ClassFileReader(bytes, entryName.toCharArray());
+		}
+
+		boolean isValid(long modified, long length) {
+			return this.lastModified == modified && this.size == length;
+		}
+
+		private void load() {
+			File file = new File(BinaryTypeCache.this.directory, this.cacheFileName);
+			if (!file.exists()) return;
+			RandomAccessFile randomAccessFile = null;
+			try {
+				randomAccessFile = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+				FileChannel channel = randomAccessFile.getChannel();
+				ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				HashMap table = new HashMap();
+				if (readEntries(buffer, table) < 0) {
+					Util.unmap(buffer);
+					return; // stale or colliding cache file, will be replaced when saved
+				}
+				this.entries = table;
+				this.contents = buffer;
+				file.setLastModified(System.currentTimeMillis()); // the least recently used cache files are pruned first
+			} catch (IOException e) {
+				// ignore the cache file, it will be replaced when saved
+			} catch (RuntimeException e) {
+				// truncated cache file
+			} finally {
+				if (randomAccessFile != null) {
+					try {
+						randomAccessFile.close(); // the mapping stays valid
+					} catch (IOException e) {
+						// ignore
+					}
+				}
+			}
+		}
+
+		/*
+		 * Reads the entries of the given cache file contents into the given table. Answers the end of the
+		 * last complete entry, or -1 if the cache file belongs to another jar or to another version of the jar.
+		 * An entry being appended by another VM, or left incomplete by a crash, is ignored.
+		 */
+		private int readEntries(ByteBuffer buffer, HashMap table) throws IOException {
+			int limit = buffer.limit();
+			if (limit < 4)
+				return -1;
+			int headerLength = buffer.getInt(0);
+			if (headerLength < 0 || 4L + headerLength > limit)
+				return -1;
+			byte[] header = new byte[headerLength];
+			buffer.position(4);
+			buffer.get(header);
+			DataInputStream stream = new DataInputStream(new ByteArrayInputStream(header));
+			if (!SIGNATURE.equals(stream.readUTF())
+					|| !this.jarPath.equals(stream.readUTF())
+					|| stream.readLong() != this.lastModified
+					|| stream.readLong() != this.size)
+				return -1;
+			int position = 4 + headerLength;
+			while (position + 4 <= limit) {
+				int nameLength = buffer.getInt(position);
+				long dataStart = position + 8L + nameLength;
+				if (nameLength < 0 || dataStart > limit)
+					break;
+				int length = buffer.getInt((int) dataStart - 4);
+				if (length < 0 || dataStart + length > limit)
+					break;
+				byte[] name = new byte[nameLength];
+				buffer.position(position + 4);
+				buffer.get(name);
+				table.put(new String(name, "UTF-8"), new Long(dataStart << 32 | length)); //$NON-NLS-1$
+				position = (int) dataStart + length;
+			}
+			return position;
+		}
+
+		/*
+		 * Releases the mapped cache file, which some platforms do not truncate or delete while it is mapped.
+		 * All the readers of the mapping synchronize on this jar cache, as the callers of this method do.
+		 */
+		private void unmapContents() {
+			if (this.contents != null) {
+				Util.unmap(this.contents);
+				this.contents = null;
+				this.entries = new HashMap();
+			}
+		}
+
+		/**
+		 * Appends to the cache file of the jar the class files read from the jar since the cache file
+		 * was loaded. The jar is read again to fetch these class files.
+		 */
+		public synchronized void save() {
+			if (this.newEntries.isEmpty()) return;
+			File jarFile = new File(this.jarPath);
+			if (!isValid(jarFile.lastModified(), jarFile.length())) {
+				this.newEntries.clear(); // the jar changed, its next version has its own cache file
+				return;
+			}
+			ZipFile zip = null;
+			RandomAccessFile randomAccessFile = null;
+			File directory = BinaryTypeCache.this.directory;
+			try {
+				directory.mkdirs();
+				randomAccessFile = new RandomAccessFile(new File(directory, this.cacheFileName), "rw"); //$NON-NLS-1$
+				FileChannel channel = randomAccessFile.getChannel();
+				FileLock lock = channel.lock(); // other VMs may append to the same cache file
+				try {
+					// read the entries again, other VMs may have appended some since the cache file was loaded
+					HashMap table = new HashMap();
+					long fileSize = channel.size();
+					int end = -1;
+					if (fileSize > 0) {
+						ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+						try {
+							end = readEntries(buffer, table);
+						} catch (IOException e) {
+							// not a cache file, replaced below
+						} catch (RuntimeException e) {
+							// not a cache file, replaced below
+						} finally {
+							Util.unmap(buffer);
+						}
+					}
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					DataOutputStream output = new DataOutputStream(bytes);
+					if (end < 0) {
+						// new, stale or colliding cache file
+						ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+						DataOutputStream header = new DataOutputStream(headerBytes);
+						header.writeUTF(SIGNATURE);
+						header.writeUTF(this.jarPath);
+						header.writeLong(this.lastModified);
+						header.writeLong(this.size);
+						header.flush();
+						output.writeInt(headerBytes.size());
+						headerBytes.writeTo(output);
+						end = 0;
+					}
+					zip = new ZipFile(jarFile);
+					for (Iterator iterator = this.newEntries.iterator(); iterator.hasNext();) {
+						String entryName = (String) iterator.next();
+						if (table.containsKey(entryName)) continue;
+						ZipEntry ze = zip.getEntry(entryName);
+						if (ze == null) continue;
+						byte[] name = entryName.getBytes("UTF-8"); //$NON-NLS-1$
+						byte[] classFileBytes = Util.getZipEntryByteContent(ze, zip);
+						output.writeInt(name.length);
+						output.write(name);
+						output.writeInt(classFileBytes.length);
+						output.write(classFileBytes);
+					}
+					output.flush();
+					if (end + (long) bytes.size() > Integer.MAX_VALUE)
+						return; // entries are located by int offsets
+					if (fileSize > end) {
+						// drop an incomplete entry or a replaced cache file
+						unmapContents();
+						channel.truncate(end);
+					}
+					ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+					for (long position = end; buffer.hasRemaining();)
+						position += channel.write(buffer, position);
+
+					// map the cache file again, so that the appended entries are read from it
+					unmapContents();
+					buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+					table = new HashMap();
+					readEntries(buffer, table);
+					this.entries = table;
+					this.contents = buffer;
+				} finally {
+					lock.release();
+				}
+			} catch (IOException e) {
+				// the class files will be cached in a following session
+			} catch (OverlappingFileLockException e) {
+				// the cache file is being saved by another cache of this VM
+			} finally {
+				this.newEntries.clear();
+				if (randomAccessFile != null) {
+					try {
+						randomAccessFile.close(); // the mapping stays valid
+					} catch (IOException e) {
+						// ignore
+					}
+				}
+				if (zip != null) {
+					try {
+						zip.close();
+					} catch (IOException e) {
+						// ignore
+					}
+				}
+			}
+			deleteObsoleteCacheFiles();
+		}
+
+		/*
+		 * Releases the cache file of a jar which has been modified, so that it can be deleted.
+		 */
+		synchronized void dispose() {
+			unmapContents();
+			this.newEntries.clear();
+		}
+
+		/*
+		 * Delete the cache files of the previous versions of the jar.
+		 */
+		private void deleteObsoleteCacheFiles() {
+			String prefix = this.cacheFileName.substring(0, this.cacheFileName.indexOf('-') + 1);
+			File[] files = BinaryTypeCache.this.directory.listFiles();
+			if (files == null) return;
+			for (int i = 0, length = files.length; i < length; i++) {
+				String name = files[i].getName();
+				if (name.startsWith(prefix) && name.endsWith(CACHE_FILE_EXTENSION) && !name.equals(this.cacheFileName))
+					files[i].delete(); // may fail if another VM maps it, it is then deleted in a following session
+			}
+		}
+	}
+
+	public BinaryTypeCache(File directory) {
+		this.directory = directory;
+		this.jars = new HashMap();
+		long megabytes = DEFAULT_MAX_SIZE;
+		String maxSizeProperty = System.getProperty(MAX_SIZE_PROPERTY);
+		if (maxSizeProperty != null) {
+			try {
+				megabytes = Long.parseLong(maxSizeProperty);
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		this.maxSize = megabytes * 1024 * 1024;
+	}
+
+	/**
+	 * Answers the cache shared in this VM, or null if no cache directory has been set
+	 * either through {@link #setSharedDirectory(File)} or through the {@link #DIRECTORY_PROPERTY} system property.
+	 */
+	public static synchronized BinaryTypeCache getShared() {
+		if (!SharedInitialized) {
+			SharedInitialized = true;
+			String directory = System.getProperty(DIRECTORY_PROPERTY);
+			if (directory != null && directory.length() > 0)
+				Shared = new BinaryTypeCache(new File(directory));
+		}
+		return Shared;
+	}
+
+	/**
+	 * Sets the directory of the cache shared in this VM, passing null disables the shared cache.
+	 */
+	public static synchronized void setSharedDirectory(File directory) {
+		SharedInitialized = true;
+		if (Shared != null)
+			Shared.save();
+		Shared = directory == null ? null : new BinaryTypeCache(directory);
+	}
+
+	static String cacheFileName(String jarPath, long lastModified, long size) {
+		CRC32 checksum = new CRC32();
+		checksum.update(jarPath.getBytes());
+		String pathKey = Long.toHexString(checksum.getValue());
+		checksum.reset();
+		for (int i = 0; i < 8; i++)
+			checksum.update((int) (lastModified >>> (i * 8)));
+		for (int i = 0; i < 8; i++)
+			checksum.update((int) (size >>> (i * 8)));
+		return pathKey + '-' + Long.toHexString(checksum.getValue()) + CACHE_FILE_EXTENSION;
+	}
+
+	/**
+	 * Answers the cache of the given jar, a new one if the jar was modified since its cache was created.
+	 */
+	public synchronized JarCache getJarCache(String jarPath, long lastModified, long size) {
+		JarCache jarCache = (JarCache) this.jars.get(jarPath);
+		if (jarCache == null || !jarCache.isValid(lastModified, size)) {
+			if (jarCache != null)
+				jarCache.dispose();
+			jarCache = new JarCache(jarPath, lastModified, size);
+			this.jars.put(jarPath, jarCache);
+		}
+		return jarCache;
+	}
+
+	/**
+	 * Answers the cache of the given jar file.
+	 */
+	public JarCache getJarCache(File jarFile) {
+		return getJarCache(jarFile.getPath(), jarFile.lastModified(), jarFile.length());
+	}
+
+	/**
+	 * Saves the class files read from all jars since their cache files were loaded.
+	 */
+	public void save() {
+		Object[] jarCaches;
+		synchronized (this) {
+			jarCaches = this.jars.values().toArray();
+		}
+		for (int i = 0, length = jarCaches.length; i < length; i++)
+			((JarCache) jarCaches[i]).save();
+		prune();
+	}
+
+	/**
+	 * Deletes the least recently used cache files until the cache fits in its maximum size.
+	 * The cache files of the jars read by this cache are kept.
+	 */
+	public void prune() {
+		File[] files = this.directory.listFiles();
+		if (files == null) return;
+		HashSet used = new HashSet();
+		synchronized (this) {
+			for (Iterator iterator = this.jars.values().iterator(); iterator.hasNext();)
+				used.add(((JarCache) iterator.next()).cacheFileName);
+		}
+		long total = 0;
+		ArrayList candidates = new ArrayList();
+		for (int i = 0, length = files.length; i < length; i++) {
+			String name = files[i].getName();
+			if (!name.endsWith(CACHE_FILE_EXTENSION)) continue;
+			total += files[i].length();
+			if (!used.contains(name))
+				candidates.add(files[i]);
+		}
+		if (total <= this.maxSize) return;
+		File[] oldest = (File[]) candidates.toArray(new File[candidates.size()]);
+		final HashMap times = new HashMap(); // file -> last modified, which may change while sorting
+		for (int i = 0, length = oldest.length; i < length; i++)
+			times.put(oldest[i], new Long(oldest[i].lastModified()));
+		Arrays.sort(oldest, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				long time1 = ((Long) times.get(o1)).longValue();
+				long time2 = ((Long) times.get(o2)).longValue();
+				return time1 < time2 ? -1 : time1 == time2 ? 0 : 1;
+			}
+		});
+		for (int i = 0, length = oldest.length; i < length && total > this.maxSize; i++) {
+			long fileSize = oldest[i].length();
+			if (oldest[i].delete()) // may fail if another VM maps it
+				total -= fileSize;
+		}
+	}
+}
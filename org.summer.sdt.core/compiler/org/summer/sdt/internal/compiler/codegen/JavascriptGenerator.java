@@ -0,0 +1,1592 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.compiler.codegen;
+
+import org.summer.sdt.core.compiler.CharOperation;
+import org.summer.sdt.internal.compiler.ASTVisitor;
+import org.summer.sdt.internal.compiler.ast.ASTNode;
+import org.summer.sdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.summer.sdt.internal.compiler.ast.AllocationExpression;
+import org.summer.sdt.internal.compiler.ast.Argument;
+import org.summer.sdt.internal.compiler.ast.ArrayAllocationExpression;
+import org.summer.sdt.internal.compiler.ast.ArrayInitializer;
+import org.summer.sdt.internal.compiler.ast.ArrayLiteral;
+import org.summer.sdt.internal.compiler.ast.ArrayReference;
+import org.summer.sdt.internal.compiler.ast.Assignment;
+import org.summer.sdt.internal.compiler.ast.BinaryExpression;
+import org.summer.sdt.internal.compiler.ast.Block;
+import org.summer.sdt.internal.compiler.ast.BreakStatement;
+import org.summer.sdt.internal.compiler.ast.CaseStatement;
+import org.summer.sdt.internal.compiler.ast.CastExpression;
+import org.summer.sdt.internal.compiler.ast.CharLiteral;
+import org.summer.sdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.summer.sdt.internal.compiler.ast.CompoundAssignment;
+import org.summer.sdt.internal.compiler.ast.ConditionalExpression;
+import org.summer.sdt.internal.compiler.ast.ConstructorDeclaration;
+import org.summer.sdt.internal.compiler.ast.ContinueStatement;
+import org.summer.sdt.internal.compiler.ast.DoStatement;
+import org.summer.sdt.internal.compiler.ast.DoubleLiteral;
+import org.summer.sdt.internal.compiler.ast.EmptyStatement;
+import org.summer.sdt.internal.compiler.ast.ExplicitConstructorCall;
+import org.summer.sdt.internal.compiler.ast.Expression;
+import org.summer.sdt.internal.compiler.ast.FieldDeclaration;
+import org.summer.sdt.internal.compiler.ast.FieldReference;
+import org.summer.sdt.internal.compiler.ast.FloatLiteral;
+import org.summer.sdt.internal.compiler.ast.ForStatement;
+import org.summer.sdt.internal.compiler.ast.ForeachStatement;
+import org.summer.sdt.internal.compiler.ast.FunctionDeclaration;
+import org.summer.sdt.internal.compiler.ast.IfStatement;
+import org.summer.sdt.internal.compiler.ast.Initializer;
+import org.summer.sdt.internal.compiler.ast.InstanceOfExpression;
+import org.summer.sdt.internal.compiler.ast.LabeledStatement;
+import org.summer.sdt.internal.compiler.ast.Literal;
+import org.summer.sdt.internal.compiler.ast.LocalDeclaration;
+import org.summer.sdt.internal.compiler.ast.IntLiteral;
+import org.summer.sdt.internal.compiler.ast.LongLiteral;
+import org.summer.sdt.internal.compiler.ast.MessageSend;
+import org.summer.sdt.internal.compiler.ast.ModuleDeclaration;
+import org.summer.sdt.internal.compiler.ast.NameReference;
+import org.summer.sdt.internal.compiler.ast.NumberLiteral;
+import org.summer.sdt.internal.compiler.ast.ObjectLiteral;
+import org.summer.sdt.internal.compiler.ast.OperatorIds;
+import org.summer.sdt.internal.compiler.ast.PostfixExpression;
+import org.summer.sdt.internal.compiler.ast.PrefixExpression;
+import org.summer.sdt.internal.compiler.ast.QualifiedAllocationExpression;
+import org.summer.sdt.internal.compiler.ast.QualifiedNameReference;
+import org.summer.sdt.internal.compiler.ast.QualifiedSuperReference;
+import org.summer.sdt.internal.compiler.ast.QualifiedThisReference;
+import org.summer.sdt.internal.compiler.ast.ReturnStatement;
+import org.summer.sdt.internal.compiler.ast.SingleNameReference;
+import org.summer.sdt.internal.compiler.ast.Statement;
+import org.summer.sdt.internal.compiler.ast.StringLiteral;
+import org.summer.sdt.internal.compiler.ast.SuperReference;
+import org.summer.sdt.internal.compiler.ast.SwitchStatement;
+import org.summer.sdt.internal.compiler.ast.ThisReference;
+import org.summer.sdt.internal.compiler.ast.ThrowStatement;
+import org.summer.sdt.internal.compiler.ast.TryStatement;
+import org.summer.sdt.internal.compiler.ast.TypeDeclaration;
+import org.summer.sdt.internal.compiler.ast.TypeReference;
+import org.summer.sdt.internal.compiler.ast.UnaryExpression;
+import org.summer.sdt.internal.compiler.ast.UnionTypeReference;
+import org.summer.sdt.internal.compiler.ast.WhileStatement;
+import org.summer.sdt.internal.compiler.classfmt.ClassFileConstants;
+import org.summer.sdt.internal.compiler.impl.Constant;
+import org.summer.sdt.internal.compiler.lookup.Binding;
+import org.summer.sdt.internal.compiler.lookup.BlockScope;
+import org.summer.sdt.internal.compiler.lookup.ClassScope;
+import org.summer.sdt.internal.compiler.lookup.FieldBinding;
+import org.summer.sdt.internal.compiler.lookup.LocalVariableBinding;
+import org.summer.sdt.internal.compiler.lookup.MethodBinding;
+import org.summer.sdt.internal.compiler.lookup.ReferenceBinding;
+import org.summer.sdt.internal.compiler.lookup.Scope;
+import org.summer.sdt.internal.compiler.lookup.SourceTypeBinding;
+import org.summer.sdt.internal.compiler.lookup.TypeBinding;
+import org.summer.sdt.internal.compiler.lookup.TypeConstants;
+import org.summer.sdt.internal.compiler.lookup.TypeIds;
+import org.summer.sdt.internal.compiler.util.HashtableOfObject;
+
+/**
+ * Walks the resolved AST of a compilation unit and writes the corresponding javascript
+ * code into a {@link JavascriptStream}.
+ * <p>
+ * Each unit is generated as a standalone AMD module: the modules of the units defining the
+ * types it references are its dependencies and its top level types are exported, so that a
+ * unit can be regenerated without touching the units depending on it. The types of the
+ * <code>java</code> packages are expected from the javascript runtime.
+ * </p>
+ * <p>
+ * As javascript has no overloading, the constructors of a type declaring several ones are
+ * generated as <code>$init</code> functions of its prototype named after their parameter
+ * types, which initialize the instance created by the empty constructor function.
+ * </p>
+ * <p>
+ * Local and anonymous types are generated in a function called where they are declared, which
+ * captures the enclosing instance and the local variables they use. Member types have no access
+ * to an enclosing instance.
+ * </p>
+ * <p>
+ * The int, short, char and byte values are javascript numbers kept in the range of their type:
+ * the operations which could leave it, e.g. an addition, are followed by a conversion, e.g.
+ * <code>(a + b | 0)</code>. The long values are javascript numbers too, their operations are
+ * exact up to 2<sup>53</sup> and their shift and bitwise operations are not supported.
+ * </p>
+ * <p>
+ * The constructs which cannot be translated are reported as errors of the unit, whose generated
+ * code must then be discarded.
+ * </p>
+ */
+public class JavascriptGenerator implements OperatorIds {
+
+	public static final char[] LANG_MODULE = "org/summer/lang".toCharArray(); //$NON-NLS-1$
+	public static final char[] LANG = "lang".toCharArray(); //$NON-NLS-1$
+	static final char[] PROTOTYPE = ".prototype.".toCharArray(); //$NON-NLS-1$
+	static final char[] THIS = "this".toCharArray(); //$NON-NLS-1$
+	static final char[] INIT = "$init".toCharArray(); //$NON-NLS-1$
+	static final char[] OUTER_THIS = "$this".toCharArray(); //$NON-NLS-1$
+	static final char[] ANONYMOUS = "$Anonymous".toCharArray(); //$NON-NLS-1$
+
+	JavascriptStream output;
+	CompilationUnitDeclaration unit;
+	TypeDeclaration currentType;
+	int loopDepth;
+	int catchDepth;
+	boolean usesTruncation; // $trunc(x) is needed by a long division or conversion
+
+	// exported top level declarations
+	char[][] exports;
+	int exportsCount;
+
+	// modules of the referenced types, in the order of their first reference
+	char[][] dependencies;
+	char[][][] dependencyTypes; // the top level types referenced in each module
+	int dependenciesCount;
+	HashtableOfObject dependencyIndexes; // module -> Integer
+
+public JavascriptGenerator(JavascriptStream output) {
+	this.output = output;
+}
+
+public void generate(CompilationUnitDeclaration compilationUnit) {
+	JavascriptStream out = this.output;
+	this.unit = compilationUnit;
+	this.exports = new char[5][];
+	this.exportsCount = 0;
+	this.dependencies = new char[5][];
+	this.dependencyTypes = new char[5][][];
+	this.dependenciesCount = 0;
+	this.dependencyIndexes = new HashtableOfObject();
+	this.usesTruncation = false;
+
+	// the dependencies are only known once the code is written: the code is the body of a function
+	// which the define callback written after it calls, once the referenced types are bound
+	out.append("(function() {").newLine().increaseIndentation(); //$NON-NLS-1$
+	out.append("function $module() {").newLine().increaseIndentation(); //$NON-NLS-1$
+	ModuleDeclaration module = compilationUnit.module;
+	if (module != null) {
+		Statement[] statements = module.statements;
+		if (statements != null) {
+			for (int i = 0, length = statements.length; i < length; i++) {
+				Statement statement = statements[i];
+				if (statement instanceof TypeDeclaration) {
+					generateType((TypeDeclaration) statement);
+					recordExport(((TypeDeclaration) statement).name);
+					continue;
+				}
+				generateStatement(statement);
+				if (statement instanceof FunctionDeclaration) {
+					FunctionDeclaration functionDeclaration = (FunctionDeclaration) statement;
+					if ((functionDeclaration.modifiers & ClassFileConstants.AccPublic) != 0)
+						recordExport(functionDeclaration.selector);
+				}
+			}
+		}
+	} else if (compilationUnit.types != null) {
+		for (int i = 0, length = compilationUnit.types.length; i < length; i++) {
+			TypeDeclaration typeDeclaration = compilationUnit.types[i];
+			generateType(typeDeclaration);
+			recordExport(typeDeclaration.name);
+		}
+	}
+	if (this.usesTruncation) {
+		// hoisted, java integer conversions truncate toward zero
+		out.append("function $trunc(x) {").newLine().increaseIndentation(); //$NON-NLS-1$
+		out.append("return x < 0 ? Math.ceil(x) : Math.floor(x);").newLine(); //$NON-NLS-1$
+		out.decreaseIndentation().append('}').newLine();
+	}
+
+	// return { A: A, f: f };
+	out.append("return {"); //$NON-NLS-1$
+	out.increaseIndentation();
+	for (int i = 0; i < this.exportsCount; i++) {
+		if (i > 0) out.append(',');
+		out.newLine().append(this.exports[i]).append(": ").append(this.exports[i]); //$NON-NLS-1$
+	}
+	out.decreaseIndentation();
+	if (this.exportsCount > 0) out.newLine();
+	out.append("};").newLine(); //$NON-NLS-1$
+	out.decreaseIndentation().append('}').newLine();
+	generateDefine();
+	out.decreaseIndentation().append("})();").newLine(); //$NON-NLS-1$
+}
+
+/*
+ * var lang, A, B;
+ * define(['org/summer/lang', 'p/A', ...], function($lang, $0, ...) {
+ * 	lang = $lang;
+ * 	A = $0.A, B = $0.B;
+ * 	return $module();
+ * });
+ * The variables are hoisted, the code of the module written before sees them.
+ */
+private void generateDefine() {
+	JavascriptStream out = this.output;
+	out.append("var ").append(LANG); //$NON-NLS-1$
+	for (int i = 0; i < this.dependenciesCount; i++) {
+		char[][] typeNames = this.dependencyTypes[i];
+		for (int j = 0, length = typeNames.length; j < length; j++)
+			out.append(", ").append(typeNames[j]); //$NON-NLS-1$
+	}
+	out.append(';').newLine();
+	out.append("define(['").append(LANG_MODULE); //$NON-NLS-1$
+	for (int i = 0; i < this.dependenciesCount; i++)
+		out.append("', '").append(this.dependencies[i]); //$NON-NLS-1$
+	out.append("'], function($").append(LANG); //$NON-NLS-1$
+	for (int i = 0; i < this.dependenciesCount; i++)
+		out.append(", $").append(i); //$NON-NLS-1$
+	out.append(") {").newLine().increaseIndentation(); //$NON-NLS-1$
+	out.append(LANG).append(" = $").append(LANG).append(';').newLine(); //$NON-NLS-1$
+	for (int i = 0; i < this.dependenciesCount; i++) {
+		char[][] typeNames = this.dependencyTypes[i];
+		for (int j = 0, length = typeNames.length; j < length; j++) {
+			if (j > 0) out.append(", "); //$NON-NLS-1$
+			out.append(typeNames[j]).append(" = $").append(i).append('.').append(typeNames[j]); //$NON-NLS-1$
+		}
+		out.append(';').newLine();
+	}
+	out.append("return $module();").newLine(); //$NON-NLS-1$
+	out.decreaseIndentation().append("});").newLine(); //$NON-NLS-1$
+}
+
+private void recordExport(char[] name) {
+	if (name == null) return;
+	if (this.exportsCount == this.exports.length)
+		System.arraycopy(this.exports, 0, this.exports = new char[this.exportsCount * 2][], 0, this.exportsCount);
+	this.exports[this.exportsCount++] = name;
+}
+
+/*
+ * A, or A.B for a member type. The types of other units are recorded as dependencies.
+ */
+private void generateTypeReference(TypeBinding type) {
+	JavascriptStream out = this.output;
+	if (type == null) return;
+	type = type.erasure();
+	if (type.isArrayType()) {
+		out.append("Array"); //$NON-NLS-1$
+	} else if (type instanceof ReferenceBinding && type.isMemberType()) {
+		generateTypeReference(type.enclosingType());
+		out.append('.').append(type.sourceName());
+	} else {
+		if (type instanceof ReferenceBinding && !type.isLocalType())
+			recordDependency((ReferenceBinding) type);
+		out.append(type.sourceName());
+	}
+}
+
+/*
+ * Records the module of the given top level type: <package path>/<main type name of its unit>
+ */
+private void recordDependency(ReferenceBinding type) {
+	char[][] packageName = type.fPackage == null ? CharOperation.NO_CHAR_CHAR : type.fPackage.compoundName;
+	if (packageName.length > 0
+			&& (CharOperation.equals(packageName[0], TypeConstants.JAVA) || CharOperation.equals(packageName[0], TypeConstants.JAVAX)))
+		return; // provided by the javascript runtime
+	char[] unitName;
+	if (type.isBinaryBinding()) {
+		unitName = type.sourceName();
+	} else {
+		char[] fileName = type.getFileName();
+		if (fileName == null || CharOperation.equals(fileName, this.unit.getFileName()))
+			return; // a type of the generated unit
+		int start = Math.max(CharOperation.lastIndexOf('/', fileName), CharOperation.lastIndexOf('\\', fileName)) + 1;
+		int end = CharOperation.lastIndexOf('.', fileName);
+		unitName = CharOperation.subarray(fileName, start, end < start ? fileName.length : end);
+	}
+	char[] module = packageName.length == 0 ? unitName : CharOperation.concat(CharOperation.concatWith(packageName, '/'), unitName, '/');
+	Integer index = (Integer) this.dependencyIndexes.get(module);
+	if (index == null) {
+		if (this.dependenciesCount == this.dependencies.length) {
+			System.arraycopy(this.dependencies, 0, this.dependencies = new char[this.dependenciesCount * 2][], 0, this.dependenciesCount);
+			System.arraycopy(this.dependencyTypes, 0, this.dependencyTypes = new char[this.dependenciesCount * 2][][], 0, this.dependenciesCount);
+		}
+		this.dependencies[this.dependenciesCount] = module;
+		this.dependencyTypes[this.dependenciesCount] = CharOperation.NO_CHAR_CHAR;
+		this.dependencyIndexes.put(module, index = new Integer(this.dependenciesCount++));
+	}
+	char[][] typeNames = this.dependencyTypes[index.intValue()];
+	for (int i = 0, length = typeNames.length; i < length; i++)
+		if (CharOperation.equals(typeNames[i], type.sourceName()))
+			return;
+	this.dependencyTypes[index.intValue()] = CharOperation.arrayConcat(typeNames, type.sourceName());
+}
+
+/*
+ * function A(args) { <super constructor call> <instance field initializers> <constructor statements> }
+ * A.prototype.m = function(args) { ... };
+ * A.s = function(args) { ... };
+ *
+ * or, when A declares several constructors:
+ * function A() { }
+ * A.prototype.$init$I = function(args) { ... return this; };
+ */
+public void generateType(TypeDeclaration typeDeclaration) {
+	JavascriptStream out = this.output;
+	TypeDeclaration previousType = this.currentType;
+	this.currentType = typeDeclaration;
+	try {
+		char[] typeName = typeName(typeDeclaration);
+		ReferenceBinding superclass = superclass(typeDeclaration);
+		AbstractMethodDeclaration[] methods = typeDeclaration.methods;
+		ConstructorDeclaration constructor = null; // the only explicit constructor, or the default one
+		int constructorCount = 0;
+		if (methods != null) {
+			for (int i = 0, length = methods.length; i < length; i++) {
+				if (!methods[i].isConstructor()) continue;
+				if (methods[i].isDefaultConstructor()) {
+					if (constructorCount == 0)
+						constructor = (ConstructorDeclaration) methods[i];
+				} else if (constructorCount++ == 0) {
+					constructor = (ConstructorDeclaration) methods[i];
+				}
+			}
+		}
+		out.append("function ").append(typeName); //$NON-NLS-1$
+		if (constructorCount > 1) {
+			out.append("() {").newLine().append('}').newLine(); //$NON-NLS-1$
+		} else {
+			generateArguments(constructor == null ? null : constructor.arguments);
+			out.append(" {").newLine().increaseIndentation(); //$NON-NLS-1$
+			generateConstructorBody(typeDeclaration, constructor);
+			out.decreaseIndentation().append('}').newLine();
+		}
+
+		if (superclass != null) {
+			out.append(typeName).append(".prototype = Object.create("); //$NON-NLS-1$
+			generateTypeReference(superclass);
+			out.append(".prototype);").newLine(); //$NON-NLS-1$
+			out.append(typeName).append(".prototype.constructor = ").append(typeName).append(';').newLine(); //$NON-NLS-1$
+		}
+		if (constructorCount > 1) {
+			for (int i = 0, length = methods.length; i < length; i++) {
+				if (!methods[i].isConstructor() || methods[i].isDefaultConstructor()) continue;
+				ConstructorDeclaration declaration = (ConstructorDeclaration) methods[i];
+				char[] name = constructorName(declaration.binding);
+				out.append(typeName).append(PROTOTYPE).append(name == null ? INIT : name).append(" = function"); //$NON-NLS-1$
+				generateArguments(declaration.arguments);
+				out.append(" {").newLine().increaseIndentation(); //$NON-NLS-1$
+				generateConstructorBody(typeDeclaration, declaration);
+				out.append("return this;").newLine(); //$NON-NLS-1$
+				out.decreaseIndentation().append("};").newLine(); //$NON-NLS-1$
+			}
+		}
+		generateFields(typeDeclaration.fields, true);
+		if (methods != null) {
+			for (int i = 0, length = methods.length; i < length; i++) {
+				AbstractMethodDeclaration method = methods[i];
+				if (!method.isMethod() || method.isAbstract() || method.isNative()) continue;
+				out.append(typeName);
+				if (method.isStatic())
+					out.append('.');
+				else
+					out.append(PROTOTYPE);
+				out.append(method.selector).append(" = function"); //$NON-NLS-1$
+				generateArguments(method.arguments);
+				generateBody(method.statements);
+				out.append(';').newLine();
+			}
+		}
+		if (typeDeclaration.memberTypes != null) {
+			for (int i = 0, length = typeDeclaration.memberTypes.length; i < length; i++) {
+				TypeDeclaration memberType = typeDeclaration.memberTypes[i];
+				generateType(memberType);
+				out.append(typeName).append('.').append(memberType.name).append(" = ").append(memberType.name).append(';').newLine(); //$NON-NLS-1$
+			}
+		}
+	} finally {
+		this.currentType = previousType;
+	}
+}
+
+/*
+ * A local or anonymous type is generated in a function called where the type is declared, which answers its
+ * constructor. The function captures the enclosing instance, which the code of the type reads as $this<n>, n
+ * being the nesting level of the enclosing type, and the values of the local variables used by the type,
+ * which are copied like the java compiler does:
+ * (function($this0, x) { function L() { ... } ... return L; })(this, x)
+ */
+private void generateLocalType(TypeDeclaration typeDeclaration) {
+	JavascriptStream out = this.output;
+	SourceTypeBinding binding = typeDeclaration.binding;
+	ReferenceBinding enclosingType = binding == null ? null : binding.enclosingType();
+	CapturedLocalsCollector collector = new CapturedLocalsCollector(typeDeclaration.scope);
+	typeDeclaration.traverse(collector, (BlockScope) null);
+	out.append("(function("); //$NON-NLS-1$
+	if (enclosingType != null)
+		out.append(OUTER_THIS).append(nestingLevel(enclosingType));
+	for (int i = 0; i < collector.localsCount; i++) {
+		if (i > 0 || enclosingType != null) out.append(", "); //$NON-NLS-1$
+		out.append(collector.locals[i].name);
+	}
+	out.append(") {").newLine().increaseIndentation(); //$NON-NLS-1$
+	generateType(typeDeclaration);
+	out.append("return ").append(typeName(typeDeclaration)).append(';').newLine(); //$NON-NLS-1$
+	out.decreaseIndentation().append("})("); //$NON-NLS-1$
+	if (enclosingType != null)
+		out.append(THIS);
+	for (int i = 0; i < collector.localsCount; i++) {
+		if (i > 0 || enclosingType != null) out.append(", "); //$NON-NLS-1$
+		out.append(collector.locals[i].name);
+	}
+	out.append(')');
+}
+
+private static char[] typeName(TypeDeclaration typeDeclaration) {
+	return (typeDeclaration.bits & ASTNode.IsAnonymousType) != 0 ? ANONYMOUS : typeDeclaration.name;
+}
+
+/*
+ * The superclass whose constructor and prototype the given type extends, null for Object.
+ * The superclass of an anonymous type is only known by its binding.
+ */
+private static ReferenceBinding superclass(TypeDeclaration typeDeclaration) {
+	SourceTypeBinding binding = typeDeclaration.binding;
+	ReferenceBinding superclass = binding == null ? null : binding.superclass;
+	if (superclass == null && typeDeclaration.superclass != null && typeDeclaration.superclass.resolvedType instanceof ReferenceBinding)
+		superclass = (ReferenceBinding) typeDeclaration.superclass.resolvedType;
+	if (superclass == null || superclass.id == TypeIds.T_JavaLangObject || (binding != null && binding.isInterface()))
+		return null;
+	return superclass;
+}
+
+private static int nestingLevel(ReferenceBinding type) {
+	int level = 0;
+	while ((type = type.enclosingType()) != null)
+		level++;
+	return level;
+}
+
+/*
+ * The instance of the type enclosing the current one at the given depth: this, or the enclosing instance
+ * captured by the local type which that type encloses.
+ */
+private void generateEnclosingInstance(ASTNode location, int depth) {
+	JavascriptStream out = this.output;
+	SourceTypeBinding type = this.currentType == null ? null : this.currentType.binding;
+	if (depth == 0 || type == null) {
+		out.append(THIS);
+	} else if (type.enclosingTypeAt(depth - 1).isLocalType()) {
+		out.append(OUTER_THIS).append(nestingLevel(type.enclosingTypeAt(depth)));
+	} else {
+		reportUnsupported(location, "The access to the enclosing instance of a member type"); //$NON-NLS-1$
+		out.append(THIS);
+	}
+}
+
+/*
+ * The instance fields are initialized after the super constructor call, by the constructor which
+ * does not call another constructor of its type.
+ */
+private void generateConstructorBody(TypeDeclaration typeDeclaration, ConstructorDeclaration constructor) {
+	ExplicitConstructorCall constructorCall = constructor == null ? null : constructor.constructorCall;
+	if (constructorCall != null && constructorCall.accessMode == ExplicitConstructorCall.This) {
+		generateConstructorCall(constructorCall);
+	} else {
+		ReferenceBinding superclass = superclass(typeDeclaration);
+		if (superclass != null) {
+			if (constructorCall != null) {
+				generateConstructorCall(constructorCall);
+			} else {
+				generateTypeReference(superclass);
+				this.output.append(".call(this);").newLine(); //$NON-NLS-1$
+			}
+		}
+		generateFields(typeDeclaration.fields, false);
+	}
+	if (constructor != null)
+		generateStatements(constructor.statements);
+}
+
+/*
+ * this(args) -> this.$init$I(args);
+ * super(args) -> S.call(this, args); or S.prototype.$init$I.call(this, args);
+ */
+private void generateConstructorCall(ExplicitConstructorCall constructorCall) {
+	JavascriptStream out = this.output;
+	char[] name = constructorName(constructorCall.binding);
+	if (constructorCall.accessMode == ExplicitConstructorCall.This) {
+		if (name == null) {
+			generateUnsupported(constructorCall);
+			return;
+		}
+		out.append(THIS).append('.').append(name);
+		generateArguments(constructorCall.arguments);
+	} else {
+		ReferenceBinding superclass = this.currentType == null ? null : superclass(this.currentType);
+		if (superclass == null)
+			return; // Object has nothing to initialize
+		generateTypeReference(superclass);
+		if (name != null)
+			out.append(PROTOTYPE).append(name);
+		out.append(".call(this"); //$NON-NLS-1$
+		if (constructorCall.arguments != null) {
+			for (int i = 0, length = constructorCall.arguments.length; i < length; i++) {
+				out.append(", "); //$NON-NLS-1$
+				generateExpression(constructorCall.arguments[i]);
+			}
+		}
+		out.append(')');
+	}
+	out.append(';').newLine();
+}
+
+/*
+ * Answers the name of the $init function of the given constructor, null when its type declares
+ * a single constructor: $init, then the erased signature of each parameter, e.g. $init$I$Lp_A
+ */
+private char[] constructorName(MethodBinding constructor) {
+	if (constructor == null || !constructor.isValidBinding())
+		return null;
+	constructor = constructor.original();
+	if (constructor.declaringClass == null || constructor.declaringClass.getMethods(TypeConstants.INIT).length <= 1)
+		return null;
+	StringBuffer name = new StringBuffer().append(INIT);
+	TypeBinding[] parameters = constructor.parameters;
+	for (int i = 0, length = parameters.length; i < length; i++) {
+		name.append('$');
+		char[] signature = parameters[i].erasure().signature();
+		for (int j = 0, signatureLength = signature.length; j < signatureLength; j++) {
+			char c = signature[j];
+			if (c == '/' || c == '[')
+				name.append('_');
+			else if (c != ';')
+				name.append(c);
+		}
+	}
+	char[] result = new char[name.length()];
+	name.getChars(0, result.length, result, 0);
+	return result;
+}
+
+/*
+ * Instance fields are initialized in the constructor function, static fields and static
+ * initializers right after the type.
+ */
+private void generateFields(FieldDeclaration[] fields, boolean isStatic) {
+	if (fields == null) return;
+	JavascriptStream out = this.output;
+	for (int i = 0, length = fields.length; i < length; i++) {
+		FieldDeclaration field = fields[i];
+		if (field.isStatic() != isStatic) continue;
+		if (field instanceof Initializer) {
+			generateStatement(((Initializer) field).block);
+			continue;
+		}
+		out.append(isStatic ? typeName(this.currentType) : THIS).append('.').append(field.name).append(" = "); //$NON-NLS-1$
+		if (field.initialization != null) {
+			generateExpression(field.initialization);
+		} else {
+			TypeBinding type = field.binding != null ? field.binding.type : field.type.resolvedType;
+			if (type == null && field.type != null && field.type.dimensions() == 0)
+				type = Scope.getBaseType(field.type.getLastToken()); // null for a reference type
+			out.append(defaultValue(type));
+		}
+		out.append(';').newLine();
+	}
+}
+
+private String defaultValue(TypeBinding type) {
+	if (type != null && type.isBaseType()) {
+		if (type.id == TypeIds.T_boolean)
+			return "false"; //$NON-NLS-1$
+		return "0"; //$NON-NLS-1$
+	}
+	return "null"; //$NON-NLS-1$
+}
+
+private void generateArguments(Argument[] arguments) {
+	JavascriptStream out = this.output;
+	out.append('(');
+	if (arguments != null) {
+		for (int i = 0, length = arguments.length; i < length; i++) {
+			if (i > 0) out.append(", "); //$NON-NLS-1$
+			out.append(arguments[i].name);
+		}
+	}
+	out.append(')');
+}
+
+private void generateBody(Statement[] statements) {
+	JavascriptStream out = this.output;
+	out.append(" {").newLine().increaseIndentation(); //$NON-NLS-1$
+	generateStatements(statements);
+	out.decreaseIndentation().append('}');
+}
+
+private void generateStatements(Statement[] statements) {
+	if (statements == null) return;
+	for (int i = 0, length = statements.length; i < length; i++)
+		generateStatement(statements[i]);
+}
+
+public void generateStatement(Statement statement) {
+	JavascriptStream out = this.output;
+	if (statement == null) return;
+	if (statement instanceof Expression) {
+		generateStatementExpression((Expression) statement);
+		out.append(';').newLine();
+	} else if (statement instanceof LocalDeclaration) {
+		generateLocalDeclaration((LocalDeclaration) statement);
+		out.append(';').newLine();
+	} else if (statement instanceof Block) {
+		out.append('{').newLine().increaseIndentation();
+		generateStatements(((Block) statement).statements);
+		out.decreaseIndentation().append('}').newLine();
+	} else if (statement instanceof TypeDeclaration) {
+		TypeDeclaration typeDeclaration = (TypeDeclaration) statement;
+		if ((typeDeclaration.bits & ASTNode.IsLocalType) != 0) {
+			out.append("var ").append(typeDeclaration.name).append(" = "); //$NON-NLS-1$ //$NON-NLS-2$
+			generateLocalType(typeDeclaration);
+			out.append(';').newLine();
+		} else {
+			generateType(typeDeclaration);
+		}
+	} else if (statement instanceof FunctionDeclaration) {
+		FunctionDeclaration function = (FunctionDeclaration) statement;
+		out.append("function ").append(function.selector); //$NON-NLS-1$
+		generateArguments(function.arguments);
+		generateBody(function.statements);
+		out.newLine();
+	} else if (statement instanceof ReturnStatement) {
+		Expression expression = ((ReturnStatement) statement).expression;
+		out.append("return"); //$NON-NLS-1$
+		if (expression != null) {
+			out.append(' ');
+			generateExpression(expression);
+		}
+		out.append(';').newLine();
+	} else if (statement instanceof IfStatement) {
+		IfStatement ifStatement = (IfStatement) statement;
+		out.append("if ("); //$NON-NLS-1$
+		generateExpression(ifStatement.condition);
+		out.append(") "); //$NON-NLS-1$
+		generateNestedStatement(ifStatement.thenStatement);
+		if (ifStatement.elseStatement != null) {
+			out.append("else "); //$NON-NLS-1$
+			generateNestedStatement(ifStatement.elseStatement);
+		}
+	} else if (statement instanceof WhileStatement) {
+		WhileStatement whileStatement = (WhileStatement) statement;
+		out.append("while ("); //$NON-NLS-1$
+		generateExpression(whileStatement.condition);
+		out.append(") "); //$NON-NLS-1$
+		generateNestedStatement(whileStatement.action);
+	} else if (statement instanceof DoStatement) {
+		DoStatement doStatement = (DoStatement) statement;
+		out.append("do "); //$NON-NLS-1$
+		generateNestedStatement(doStatement.action);
+		out.append("while ("); //$NON-NLS-1$
+		generateExpression(doStatement.condition);
+		out.append(");").newLine(); //$NON-NLS-1$
+	} else if (statement instanceof ForStatement) {
+		generateFor((ForStatement) statement);
+	} else if (statement instanceof ForeachStatement) {
+		generateForeach((ForeachStatement) statement);
+	} else if (statement instanceof SwitchStatement) {
+		SwitchStatement switchStatement = (SwitchStatement) statement;
+		out.append("switch ("); //$NON-NLS-1$
+		generateExpression(switchStatement.expression);
+		out.append(") {").newLine(); //$NON-NLS-1$
+		Statement[] statements = switchStatement.statements;
+		if (statements != null) {
+			for (int i = 0, length = statements.length; i < length; i++) {
+				Statement caseBody = statements[i];
+				if (caseBody instanceof CaseStatement) {
+					CaseStatement caseStatement = (CaseStatement) caseBody;
+					if (caseStatement.constantExpression == null) {
+						out.append("default:"); //$NON-NLS-1$
+					} else {
+						out.append("case "); //$NON-NLS-1$
+						generateExpression(caseStatement.constantExpression);
+						out.append(':');
+					}
+					out.newLine();
+				} else {
+					out.increaseIndentation();
+					generateStatement(caseBody);
+					out.decreaseIndentation();
+				}
+			}
+		}
+		out.append('}').newLine();
+	} else if (statement instanceof BreakStatement) {
+		out.append("break"); //$NON-NLS-1$
+		if (((BreakStatement) statement).label != null)
+			out.append(' ').append(((BreakStatement) statement).label);
+		out.append(';').newLine();
+	} else if (statement instanceof ContinueStatement) {
+		out.append("continue"); //$NON-NLS-1$
+		if (((ContinueStatement) statement).label != null)
+			out.append(' ').append(((ContinueStatement) statement).label);
+		out.append(';').newLine();
+	} else if (statement instanceof LabeledStatement) {
+		out.append(((LabeledStatement) statement).label).append(": "); //$NON-NLS-1$
+		generateNestedStatement(((LabeledStatement) statement).statement);
+	} else if (statement instanceof ThrowStatement) {
+		out.append("throw "); //$NON-NLS-1$
+		generateExpression(((ThrowStatement) statement).exception);
+		out.append(';').newLine();
+	} else if (statement instanceof TryStatement) {
+		generateTry((TryStatement) statement);
+	} else if (statement instanceof ExplicitConstructorCall) {
+		generateConstructorCall((ExplicitConstructorCall) statement);
+	} else if (statement instanceof EmptyStatement) {
+		out.append(';').newLine();
+	} else {
+		generateUnsupported(statement);
+	}
+}
+
+private void generateNestedStatement(Statement statement) {
+	if (statement instanceof Block) {
+		generateStatement(statement);
+	} else {
+		JavascriptStream out = this.output;
+		out.append('{').newLine().increaseIndentation();
+		generateStatement(statement);
+		out.decreaseIndentation().append('}').newLine();
+	}
+}
+
+private void generateLocalDeclaration(LocalDeclaration localDeclaration) {
+	JavascriptStream out = this.output;
+	out.append("var ").append(localDeclaration.name); //$NON-NLS-1$
+	if (localDeclaration.initialization != null) {
+		out.append(" = "); //$NON-NLS-1$
+		generateExpression(localDeclaration.initialization);
+	}
+}
+
+private void generateFor(ForStatement forStatement) {
+	JavascriptStream out = this.output;
+	out.append("for ("); //$NON-NLS-1$
+	Statement[] initializations = forStatement.initializations;
+	if (initializations != null) {
+		for (int i = 0, length = initializations.length; i < length; i++) {
+			Statement initialization = initializations[i];
+			if (i > 0) {
+				out.append(", "); //$NON-NLS-1$
+				if (initialization instanceof LocalDeclaration) {
+					// for (int i = 0, j = 1; ...) : only one var keyword
+					LocalDeclaration local = (LocalDeclaration) initialization;
+					out.append(local.name);
+					if (local.initialization != null) {
+						out.append(" = "); //$NON-NLS-1$
+						generateExpression(local.initialization);
+					}
+					continue;
+				}
+			}
+			if (initialization instanceof LocalDeclaration)
+				generateLocalDeclaration((LocalDeclaration) initialization);
+			else if (initialization instanceof Expression)
+				generateStatementExpression((Expression) initialization);
+		}
+	}
+	out.append("; "); //$NON-NLS-1$
+	if (forStatement.condition != null)
+		generateExpression(forStatement.condition);
+	out.append("; "); //$NON-NLS-1$
+	Statement[] increments = forStatement.increments;
+	if (increments != null) {
+		for (int i = 0, length = increments.length; i < length; i++) {
+			if (i > 0) out.append(", "); //$NON-NLS-1$
+			if (increments[i] instanceof Expression)
+				generateStatementExpression((Expression) increments[i]);
+		}
+	}
+	out.append(") "); //$NON-NLS-1$
+	generateNestedStatement(forStatement.action);
+}
+
+/*
+ * for (var $i0 = 0, $a0 = collection; $i0 < $a0.length; $i0++) { var e = $a0[$i0]; ... }
+ */
+private void generateForeach(ForeachStatement foreach) {
+	JavascriptStream out = this.output;
+	TypeBinding collectionType = foreach.collection.resolvedType;
+	if (collectionType == null || !collectionType.isArrayType()) {
+		reportUnsupported(foreach, "The enhanced for loop over an Iterable"); //$NON-NLS-1$
+		return;
+	}
+	int depth = this.loopDepth++;
+	try {
+		out.append("for (var $i").append(depth).append(" = 0, $a").append(depth).append(" = "); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		generateExpression(foreach.collection);
+		out.append("; $i").append(depth).append(" < $a").append(depth).append(".length; $i").append(depth).append("++) {").newLine(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		out.increaseIndentation();
+		out.append("var ").append(foreach.elementVariable.name).append(" = $a").append(depth).append("[$i").append(depth).append("];").newLine(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		if (foreach.action instanceof Block)
+			generateStatements(((Block) foreach.action).statements);
+		else
+			generateStatement(foreach.action);
+		out.decreaseIndentation().append('}').newLine();
+	} finally {
+		this.loopDepth--;
+	}
+}
+
+/*
+ * Javascript has a single untyped catch clause, which dispatches to the catch blocks on the type of
+ * the exception and throws it again when none catches it:
+ * catch ($e0) { if ($e0 instanceof E1 || $e0 instanceof E2) { var e = $e0; ... } else throw $e0; }
+ */
+private void generateTry(TryStatement tryStatement) {
+	JavascriptStream out = this.output;
+	if (tryStatement.resources != null && tryStatement.resources.length > 0) {
+		reportUnsupported(tryStatement, "The try-with-resources statement"); //$NON-NLS-1$
+		return;
+	}
+	out.append("try "); //$NON-NLS-1$
+	generateStatement(tryStatement.tryBlock);
+	Block[] catchBlocks = tryStatement.catchBlocks;
+	if (catchBlocks != null && catchBlocks.length > 0) {
+		int depth = this.catchDepth++;
+		try {
+			out.append("catch ($e").append(depth).append(") {").newLine().increaseIndentation(); //$NON-NLS-1$ //$NON-NLS-2$
+			boolean caught = false;
+			for (int i = 0, length = catchBlocks.length; i < length && !caught; i++) {
+				Argument argument = tryStatement.catchArguments[i];
+				TypeReference[] types = argument.type instanceof UnionTypeReference
+					? ((UnionTypeReference) argument.type).typeReferences
+					: new TypeReference[] { argument.type };
+				for (int j = 0; j < types.length; j++) {
+					if (types[j].resolvedType != null && types[j].resolvedType.id == TypeIds.T_JavaLangThrowable)
+						caught = true; // catches everything
+				}
+				if (i > 0)
+					out.append("else "); //$NON-NLS-1$
+				if (!caught) {
+					out.append("if ("); //$NON-NLS-1$
+					for (int j = 0; j < types.length; j++) {
+						if (j > 0) out.append(" || "); //$NON-NLS-1$
+						out.append("$e").append(depth).append(" instanceof "); //$NON-NLS-1$ //$NON-NLS-2$
+						generateTypeReference(types[j].resolvedType);
+					}
+					out.append(") "); //$NON-NLS-1$
+				}
+				out.append('{').newLine().increaseIndentation();
+				out.append("var ").append(argument.name).append(" = $e").append(depth).append(';').newLine(); //$NON-NLS-1$ //$NON-NLS-2$
+				generateStatements(catchBlocks[i].statements);
+				out.decreaseIndentation().append('}').newLine();
+			}
+			if (!caught)
+				out.append("else throw $e").append(depth).append(';').newLine(); //$NON-NLS-1$
+			out.decreaseIndentation().append('}').newLine();
+		} finally {
+			this.catchDepth--;
+		}
+	}
+	if (tryStatement.finallyBlock != null) {
+		out.append("finally "); //$NON-NLS-1$
+		generateStatement(tryStatement.finallyBlock);
+	}
+}
+
+/*
+ * Reports a construct which has no javascript counterpart as an error of the unit, so that its code is discarded.
+ */
+private void reportUnsupported(ASTNode node, String construct) {
+	this.unit.scope.problemReporter().javascriptUnsupportedConstruct(node, construct);
+}
+
+/*
+ * Reports the given node by the name of its class: a LambdaExpression is a "Lambda expression".
+ */
+private void generateUnsupported(ASTNode node) {
+	String className = node.getClass().getName();
+	StringBuffer construct = new StringBuffer();
+	for (int i = className.lastIndexOf('.') + 1, length = className.length(); i < length; i++) {
+		char c = className.charAt(i);
+		if (Character.isUpperCase(c) && construct.length() > 0)
+			construct.append(' ').append(Character.toLowerCase(c));
+		else
+			construct.append(c);
+	}
+	reportUnsupported(node, construct.toString());
+}
+
+/*
+ * An expression whose value is not used: x++ is generated as ++x, which is simpler when the value is converted.
+ */
+private void generateStatementExpression(Expression expression) {
+	if (expression instanceof PostfixExpression)
+		generateIncrement((CompoundAssignment) expression, false);
+	else
+		generateExpression(expression);
+}
+
+public void generateExpression(Expression expression) {
+	JavascriptStream out = this.output;
+	int parenthesesCount = (expression.bits & ASTNode.ParenthesizedMASK) >> ASTNode.ParenthesizedSHIFT;
+	for (int i = 0; i < parenthesesCount; i++) out.append('(');
+
+	if (expression instanceof Literal) {
+		generateLiteral((Literal) expression);
+	} else if (expression.constant != Constant.NotAConstant && isIntegral(expression.resolvedType)
+			&& baseTypeId(expression.resolvedType) != TypeIds.T_long
+			&& (expression instanceof BinaryExpression || expression instanceof UnaryExpression || expression instanceof CastExpression)) {
+		out.append(expression.constant.intValue()); // folded in the range of its type, e.g. (byte) 200 is -56
+	} else if (expression instanceof NameReference && (expression.bits & ASTNode.RestrictiveFlagMASK) == Binding.TYPE) {
+		generateTypeReference(expression.resolvedType);
+	} else if (expression instanceof SingleNameReference) {
+		SingleNameReference nameReference = (SingleNameReference) expression;
+		if ((nameReference.bits & ASTNode.RestrictiveFlagMASK) == Binding.FIELD)
+			generateFieldQualification(nameReference, nameReference.binding);
+		out.append(nameReference.token);
+	} else if (expression instanceof QualifiedNameReference) {
+		QualifiedNameReference nameReference = (QualifiedNameReference) expression;
+		char[][] tokens = nameReference.tokens;
+		if ((nameReference.bits & ASTNode.RestrictiveFlagMASK) == Binding.FIELD && nameReference.indexOfFirstFieldBinding > 1) {
+			// T.f or p.T.f: a static field qualified by its type
+			generateTypeReference(((FieldBinding) nameReference.binding).declaringClass);
+			for (int i = nameReference.indexOfFirstFieldBinding - 1, length = tokens.length; i < length; i++)
+				out.append('.').append(tokens[i]);
+		} else {
+			if ((nameReference.bits & ASTNode.RestrictiveFlagMASK) == Binding.FIELD)
+				generateFieldQualification(nameReference, nameReference.binding);
+			out.append(tokens, '.');
+		}
+	} else if (expression instanceof SuperReference) {
+		ReferenceBinding superclass = this.currentType == null ? null : superclass(this.currentType);
+		if (superclass != null) {
+			generateTypeReference(superclass);
+			out.append(".prototype"); //$NON-NLS-1$
+		} else {
+			out.append("Object.prototype"); //$NON-NLS-1$
+		}
+	} else if (expression instanceof QualifiedSuperReference) {
+		reportUnsupported(expression, "The qualified super reference"); //$NON-NLS-1$
+	} else if (expression instanceof QualifiedThisReference) {
+		generateEnclosingInstance(expression, (expression.bits & ASTNode.DepthMASK) >> ASTNode.DepthSHIFT);
+	} else if (expression instanceof ThisReference) {
+		out.append(THIS);
+	} else if (expression instanceof FieldReference) {
+		FieldReference fieldReference = (FieldReference) expression;
+		generateReceiver(fieldReference.receiver);
+		out.append(fieldReference.token);
+	} else if (expression instanceof MessageSend) {
+		generateMessageSend((MessageSend) expression);
+	} else if (expression instanceof QualifiedAllocationExpression && ((QualifiedAllocationExpression) expression).anonymousType != null) {
+		// new (<function answering the constructor of the anonymous type>)(args), which calls the super constructor
+		QualifiedAllocationExpression allocation = (QualifiedAllocationExpression) expression;
+		if (allocation.enclosingInstance != null)
+			reportUnsupported(allocation.enclosingInstance, "The enclosing instance of an allocation"); //$NON-NLS-1$
+		out.append("new ("); //$NON-NLS-1$
+		generateLocalType(allocation.anonymousType);
+		out.append(')');
+		generateArguments(allocation.arguments);
+	} else if (expression instanceof AllocationExpression) {
+		AllocationExpression allocation = (AllocationExpression) expression;
+		if (expression instanceof QualifiedAllocationExpression && ((QualifiedAllocationExpression) expression).enclosingInstance != null)
+			reportUnsupported(((QualifiedAllocationExpression) expression).enclosingInstance, "The enclosing instance of an allocation"); //$NON-NLS-1$
+		out.append("new "); //$NON-NLS-1$
+		generateTypeReference(allocation.resolvedType);
+		char[] constructorName = constructorName(allocation.binding);
+		if (constructorName != null)
+			out.append("().").append(constructorName); //$NON-NLS-1$
+		generateArguments(allocation.arguments);
+	} else if (expression instanceof ArrayAllocationExpression) {
+		ArrayAllocationExpression allocation = (ArrayAllocationExpression) expression;
+		if (allocation.initializer != null) {
+			generateExpression(allocation.initializer);
+		} else if (allocation.dimensions != null && allocation.dimensions.length > 0 && allocation.dimensions[0] != null) {
+			out.append("new Array("); //$NON-NLS-1$
+			generateExpression(allocation.dimensions[0]);
+			out.append(')');
+		} else {
+			out.append("[]"); //$NON-NLS-1$
+		}
+	} else if (expression instanceof ArrayInitializer) {
+		generateArray(((ArrayInitializer) expression).expressions);
+	} else if (expression instanceof ArrayReference) {
+		ArrayReference arrayReference = (ArrayReference) expression;
+		generateExpression(arrayReference.receiver);
+		out.append('[');
+		generateExpression(arrayReference.position);
+		out.append(']');
+	} else if (expression instanceof PostfixExpression || expression instanceof PrefixExpression) {
+		generateIncrement((CompoundAssignment) expression, expression instanceof PostfixExpression);
+	} else if (expression instanceof CompoundAssignment) {
+		CompoundAssignment assignment = (CompoundAssignment) expression;
+		TypeBinding type = assignment.resolvedType;
+		TypeBinding expressionType = assignment.expression.resolvedType;
+		boolean isIntegralOperation = isIntegral(type) && isIntegral(expressionType);
+		if (type != null && baseTypeId(type) == TypeIds.T_long && isBitOperation(assignment.operator)) {
+			reportUnsupported(assignment, "The shift or bitwise operation on long values"); //$NON-NLS-1$
+		} else if (needsConversion(assignment.operator, type, isIntegralOperation)
+				|| (assignment.operator == MULTIPLY && isIntegralOperation && baseTypeId(type) != TypeIds.T_long)) {
+			generateConvertedAssignment(assignment, isIntegralOperation, false);
+		} else {
+			generateExpression(assignment.lhs);
+			out.append(' ').append(assignment.operatorToString()).append(' ');
+			if (assignment.operator == PLUS)
+				generateConcatenationOperand(assignment.expression, assignment.resolvedType);
+			else
+				generateExpression(assignment.expression);
+		}
+	} else if (expression instanceof Assignment) {
+		Assignment assignment = (Assignment) expression;
+		generateExpression(assignment.lhs);
+		out.append(" = "); //$NON-NLS-1$
+		generateExpression(assignment.expression);
+	} else if (expression instanceof BinaryExpression) {
+		BinaryExpression binary = (BinaryExpression) expression;
+		int operator = (binary.bits & ASTNode.OperatorMASK) >> ASTNode.OperatorSHIFT;
+		if (isIntegral(binary.resolvedType)) {
+			// int or long, the narrower types are promoted
+			if (binary.resolvedType.id == TypeIds.T_long && isBitOperation(operator))
+				reportUnsupported(binary, "The shift or bitwise operation on long values"); //$NON-NLS-1$
+			else
+				generateOperation(operator, binary.resolvedType, true, binary.left, null, binary.right, null);
+		} else if (operator == PLUS) {
+			generateConcatenationOperand(binary.left, binary.resolvedType);
+			out.append(" + "); //$NON-NLS-1$
+			generateConcatenationOperand(binary.right, binary.resolvedType);
+		} else {
+			generateExpression(binary.left);
+			out.append(' ').append(binaryOperator(binary)).append(' ');
+			generateExpression(binary.right);
+		}
+	} else if (expression instanceof InstanceOfExpression) {
+		InstanceOfExpression instanceOf = (InstanceOfExpression) expression;
+		generateExpression(instanceOf.expression);
+		out.append(" instanceof "); //$NON-NLS-1$
+		generateTypeReference(instanceOf.type.resolvedType);
+	} else if (expression instanceof UnaryExpression) {
+		UnaryExpression unary = (UnaryExpression) expression;
+		int operator = (unary.bits & ASTNode.OperatorMASK) >> ASTNode.OperatorSHIFT;
+		if (operator == MINUS && unary.resolvedType != null && unary.resolvedType.id == TypeIds.T_int) {
+			// -MIN_VALUE is MIN_VALUE
+			beginConversion(unary.resolvedType);
+			out.append('-');
+			generateExpression(unary.expression);
+			endConversion(unary.resolvedType);
+		} else if (operator == TWIDDLE && unary.resolvedType != null && unary.resolvedType.id == TypeIds.T_long) {
+			reportUnsupported(unary, "The shift or bitwise operation on long values"); //$NON-NLS-1$
+		} else {
+			out.append(unary.operatorToString());
+			generateExpression(unary.expression);
+		}
+	} else if (expression instanceof ConditionalExpression) {
+		ConditionalExpression conditional = (ConditionalExpression) expression;
+		generateExpression(conditional.condition);
+		out.append(" ? "); //$NON-NLS-1$
+		generateExpression(conditional.valueIfTrue);
+		out.append(" : "); //$NON-NLS-1$
+		generateExpression(conditional.valueIfFalse);
+	} else if (expression instanceof CastExpression) {
+		CastExpression cast = (CastExpression) expression; // no casts in javascript, but the conversions to integers
+		if (isNarrowing(cast.expression.resolvedType, cast.resolvedType)) {
+			beginConversion(cast.resolvedType);
+			generateExpression(cast.expression);
+			endConversion(cast.resolvedType);
+		} else {
+			generateExpression(cast.expression);
+		}
+	} else {
+		generateUnsupported(expression);
+	}
+
+	for (int i = 0; i < parenthesesCount; i++) out.append(')');
+}
+
+private static boolean isIntegral(TypeBinding type) {
+	if (type == null) return false;
+	switch (baseTypeId(type)) {
+		case TypeIds.T_int :
+		case TypeIds.T_long :
+		case TypeIds.T_short :
+		case TypeIds.T_byte :
+		case TypeIds.T_char :
+			return true;
+	}
+	return false;
+}
+
+/*
+ * The id of the given type, or of the base type it unboxes to.
+ */
+private static int baseTypeId(TypeBinding type) {
+	switch (type.id) {
+		case TypeIds.T_JavaLangInteger :
+			return TypeIds.T_int;
+		case TypeIds.T_JavaLangLong :
+			return TypeIds.T_long;
+		case TypeIds.T_JavaLangShort :
+			return TypeIds.T_short;
+		case TypeIds.T_JavaLangByte :
+			return TypeIds.T_byte;
+		case TypeIds.T_JavaLangCharacter :
+			return TypeIds.T_char;
+		case TypeIds.T_JavaLangFloat :
+			return TypeIds.T_float;
+		case TypeIds.T_JavaLangDouble :
+			return TypeIds.T_double;
+	}
+	return type.id;
+}
+
+private static boolean isBitOperation(int operator) {
+	switch (operator) {
+		case LEFT_SHIFT :
+		case RIGHT_SHIFT :
+		case UNSIGNED_RIGHT_SHIFT :
+		case AND :
+		case OR :
+		case XOR :
+			return true;
+	}
+	return false;
+}
+
+/*
+ * Whether the result of the given operation must be converted to the given type, the operation being computed
+ * on the type of its integral operands or on doubles.
+ */
+private static boolean needsConversion(int operator, TypeBinding type, boolean isIntegralOperation) {
+	if (!isIntegral(type)) return false;
+	switch (baseTypeId(type)) {
+		case TypeIds.T_long :
+			return operator == DIVIDE || !isIntegralOperation;
+		case TypeIds.T_int :
+			if (!isIntegralOperation) return true;
+			switch (operator) {
+				case PLUS :
+				case MINUS :
+				case DIVIDE :
+				case UNSIGNED_RIGHT_SHIFT : // 32 bits unsigned in javascript
+					return true;
+			}
+			return false; // a multiplication is computed by Math.imul
+	}
+	return true;
+}
+
+/*
+ * Whether the cast of a value of the given type to the other one must convert it.
+ */
+private static boolean isNarrowing(TypeBinding fromType, TypeBinding toType) {
+	if (fromType == null || toType == null) return false;
+	int from = baseTypeId(fromType);
+	if (from < TypeIds.T_char || from > TypeIds.T_int || from == TypeIds.T_boolean || from == TypeIds.T_void)
+		return false; // not a numeric type
+	switch (baseTypeId(toType)) {
+		case TypeIds.T_int :
+			return from == TypeIds.T_long || from == TypeIds.T_float || from == TypeIds.T_double;
+		case TypeIds.T_long :
+			return from == TypeIds.T_float || from == TypeIds.T_double;
+		case TypeIds.T_char :
+			return from != TypeIds.T_char;
+		case TypeIds.T_short :
+			return from != TypeIds.T_short && from != TypeIds.T_byte;
+		case TypeIds.T_byte :
+			return from != TypeIds.T_byte;
+	}
+	return false;
+}
+
+/*
+ * Converts a number to the given integral type: (x | 0) to an int, (x & 0xFFFF) to a char, (x << 16 >> 16) to a short,
+ * (x << 24 >> 24) to a byte. The conversion to a long only truncates: $trunc(x).
+ */
+private void beginConversion(TypeBinding integralType) {
+	if (baseTypeId(integralType) == TypeIds.T_long) {
+		this.usesTruncation = true;
+		this.output.append("$trunc("); //$NON-NLS-1$
+	} else {
+		this.output.append('(');
+	}
+}
+
+private void endConversion(TypeBinding integralType) {
+	switch (baseTypeId(integralType)) {
+		case TypeIds.T_long :
+			this.output.append(')');
+			break;
+		case TypeIds.T_char :
+			this.output.append(" & 0xFFFF)"); //$NON-NLS-1$
+			break;
+		case TypeIds.T_short :
+			this.output.append(" << 16 >> 16)"); //$NON-NLS-1$
+			break;
+		case TypeIds.T_byte :
+			this.output.append(" << 24 >> 24)"); //$NON-NLS-1$
+			break;
+		default :
+			this.output.append(" | 0)"); //$NON-NLS-1$
+	}
+}
+
+/*
+ * left op right, whose result is converted to the given integral type when it could be out of its range:
+ * (a + b | 0), Math.imul(a, b), ((a ^ b) & 0xFFFF). Each operand is an expression or some code.
+ */
+private void generateOperation(int operator, TypeBinding type, boolean isIntegralOperation, Expression left, String leftCode, Expression right, String rightCode) {
+	JavascriptStream out = this.output;
+	int typeId = baseTypeId(type);
+	boolean converted = needsConversion(operator, type, isIntegralOperation);
+	boolean multiplied = operator == MULTIPLY && isIntegralOperation && typeId != TypeIds.T_long;
+	boolean grouped = converted && !multiplied && typeId != TypeIds.T_int && typeId != TypeIds.T_long; // & and << have a lower precedence
+	if (converted)
+		beginConversion(type);
+	if (multiplied) {
+		out.append("Math.imul("); //$NON-NLS-1$
+		generateOperand(left, leftCode);
+		out.append(", "); //$NON-NLS-1$
+		generateOperand(right, rightCode);
+		out.append(')');
+	} else {
+		if (grouped) out.append('(');
+		generateOperand(left, leftCode);
+		out.append(' ').append(operatorToString(operator)).append(' ');
+		generateOperand(right, rightCode);
+		if (grouped) out.append(')');
+	}
+	if (converted)
+		endConversion(type);
+}
+
+private void generateOperand(Expression operand, String code) {
+	if (operand != null)
+		generateExpression(operand);
+	else
+		this.output.append(code);
+}
+
+private static String operatorToString(int operator) {
+	switch (operator) {
+		case PLUS :
+			return "+"; //$NON-NLS-1$
+		case MINUS :
+			return "-"; //$NON-NLS-1$
+		case MULTIPLY :
+			return "*"; //$NON-NLS-1$
+		case DIVIDE :
+			return "/"; //$NON-NLS-1$
+		case REMAINDER :
+			return "%"; //$NON-NLS-1$
+		case AND :
+			return "&"; //$NON-NLS-1$
+		case OR :
+			return "|"; //$NON-NLS-1$
+		case XOR :
+			return "^"; //$NON-NLS-1$
+		case LEFT_SHIFT :
+			return "<<"; //$NON-NLS-1$
+		case RIGHT_SHIFT :
+			return ">>"; //$NON-NLS-1$
+		case UNSIGNED_RIGHT_SHIFT :
+			return ">>>"; //$NON-NLS-1$
+	}
+	return "unknown operator"; //$NON-NLS-1$
+}
+
+/*
+ * x++, ++x, x-- or --x, whose value is only needed when valueRequired is set.
+ */
+private void generateIncrement(CompoundAssignment increment, boolean valueRequired) {
+	JavascriptStream out = this.output;
+	boolean isPostfix = increment instanceof PostfixExpression;
+	if (needsConversion(increment.operator, increment.resolvedType, true)) {
+		generateConvertedAssignment(increment, true, isPostfix && valueRequired);
+	} else if (isPostfix) {
+		generateExpression(increment.lhs);
+		out.append(increment.operatorToString());
+	} else {
+		out.append(increment.operatorToString());
+		generateExpression(increment.lhs);
+	}
+}
+
+/*
+ * x op= y, whose result is converted to the type of x, evaluating the receiver and the index of x once:
+ * x += y -> x = (x + y | 0)
+ * a[i] += y -> (function($a, $i, $y) { return $a[$i] = ($a[$i] + $y | 0); })(a, i, y)
+ * o.f += y -> (function($o, $y) { return $o.f = ($o.f + $y | 0); })(o, y)
+ * The value of x++ is the previous value of x, when it is used:
+ * x++ -> ((x = (x + 1 | 0)) - 1 | 0)
+ * a[i]++ -> (function($a, $i, $y) { var $v = $a[$i]; $a[$i] = ($v + $y | 0); return $v; })(a, i, 1)
+ */
+private void generateConvertedAssignment(CompoundAssignment assignment, boolean isIntegralOperation, boolean postfixValue) {
+	JavascriptStream out = this.output;
+	Expression lhs = assignment.lhs;
+	TypeBinding type = assignment.resolvedType;
+	int operator = assignment.operator;
+	if (lhs instanceof ArrayReference
+			|| (lhs instanceof FieldReference && !(((FieldReference) lhs).receiver instanceof ThisReference)
+				&& !(((FieldReference) lhs).receiver instanceof NameReference))) {
+		String variable;
+		if (lhs instanceof ArrayReference) {
+			out.append("(function($a, $i, $y) { "); //$NON-NLS-1$
+			variable = "$a[$i]"; //$NON-NLS-1$
+		} else {
+			out.append("(function($o, $y) { "); //$NON-NLS-1$
+			variable = "$o." + String.valueOf(((FieldReference) lhs).token); //$NON-NLS-1$
+		}
+		if (postfixValue) {
+			out.append("var $v = ").append(variable).append("; ").append(variable).append(" = "); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			generateOperation(operator, type, isIntegralOperation, null, "$v", null, "$y"); //$NON-NLS-1$ //$NON-NLS-2$
+			out.append("; return $v; })("); //$NON-NLS-1$
+		} else {
+			out.append("return ").append(variable).append(" = "); //$NON-NLS-1$ //$NON-NLS-2$
+			generateOperation(operator, type, isIntegralOperation, null, variable, null, "$y"); //$NON-NLS-1$
+			out.append("; })("); //$NON-NLS-1$
+		}
+		if (lhs instanceof ArrayReference) {
+			generateExpression(((ArrayReference) lhs).receiver);
+			out.append(", "); //$NON-NLS-1$
+			generateExpression(((ArrayReference) lhs).position);
+		} else {
+			generateExpression(((FieldReference) lhs).receiver);
+		}
+		out.append(", "); //$NON-NLS-1$
+		generateExpression(assignment.expression);
+		out.append(')');
+	} else {
+		// a name or a field of this or of a name, evaluated twice without side effects
+		if (postfixValue) {
+			beginConversion(type);
+			out.append('(');
+		}
+		generateExpression(lhs);
+		out.append(" = "); //$NON-NLS-1$
+		generateOperation(operator, type, isIntegralOperation, lhs, null, assignment.expression, null);
+		if (postfixValue) {
+			out.append(')').append(operator == PLUS ? " - 1" : " + 1"); //$NON-NLS-1$ //$NON-NLS-2$
+			endConversion(type);
+		}
+	}
+}
+
+/*
+ * A char is a number in javascript, converted to a string when concatenated.
+ */
+private void generateConcatenationOperand(Expression operand, TypeBinding resultType) {
+	if (resultType != null && resultType.id == TypeIds.T_JavaLangString
+			&& operand.resolvedType != null && operand.resolvedType.id == TypeIds.T_char) {
+		this.output.append("String.fromCharCode("); //$NON-NLS-1$
+		generateExpression(operand);
+		this.output.append(')');
+	} else {
+		generateExpression(operand);
+	}
+}
+
+private void generateReceiver(Expression receiver) {
+	if (receiver == null) return;
+	generateExpression(receiver);
+	this.output.append('.');
+}
+
+/*
+ * Unqualified field access: this.f, $this0.f for a field of an enclosing instance or T.f for a static field
+ */
+private void generateFieldQualification(NameReference reference, Binding binding) {
+	if (!(binding instanceof FieldBinding)) return;
+	FieldBinding field = (FieldBinding) binding;
+	if (field.isStatic()) {
+		if (field.declaringClass != null) {
+			generateTypeReference(field.declaringClass);
+			this.output.append('.');
+		}
+	} else {
+		generateEnclosingInstance(reference, (reference.bits & ASTNode.DepthMASK) >> ASTNode.DepthSHIFT);
+		this.output.append('.');
+	}
+}
+
+private void generateMessageSend(MessageSend messageSend) {
+	JavascriptStream out = this.output;
+	Expression receiver = messageSend.receiver;
+	if (receiver instanceof SuperReference) {
+		// super.m(args) -> Super.prototype.m.call(this, args)
+		generateExpression(receiver);
+		out.append('.').append(messageSend.selector).append(".call(this"); //$NON-NLS-1$
+		if (messageSend.arguments != null) {
+			for (int i = 0, length = messageSend.arguments.length; i < length; i++) {
+				out.append(", "); //$NON-NLS-1$
+				generateExpression(messageSend.arguments[i]);
+			}
+		}
+		out.append(')');
+		return;
+	}
+	MethodBinding method = messageSend.binding;
+	if (receiver != null && receiver.isImplicitThis()) {
+		// unqualified call: a method of the current type (this.m() or T.m()) or a module level function
+		if (method != null && method.isValidBinding() && method.declaringClass != null) {
+			if (method.isStatic()) {
+				generateTypeReference(method.declaringClass);
+				out.append('.');
+			} else {
+				generateEnclosingInstance(messageSend, (messageSend.bits & ASTNode.DepthMASK) >> ASTNode.DepthSHIFT);
+				out.append('.');
+			}
+		}
+	} else if (receiver != null && receiver.isTypeReference() && method != null && method.isValidBinding()
+			&& method.isStatic() && method.declaringClass != null) {
+		// T.m(): the static functions are only defined on the declaring type
+		generateTypeReference(method.declaringClass);
+		out.append('.');
+	} else {
+		generateReceiver(receiver);
+	}
+	out.append(messageSend.selector);
+	out.append('(');
+	if (messageSend.arguments != null) {
+		for (int i = 0, length = messageSend.arguments.length; i < length; i++) {
+			if (i > 0) out.append(", "); //$NON-NLS-1$
+			generateExpression(messageSend.arguments[i]);
+		}
+	}
+	out.append(')');
+}
+
+private String binaryOperator(BinaryExpression binary) {
+	switch ((binary.bits & ASTNode.OperatorMASK) >> ASTNode.OperatorSHIFT) {
+		case EQUAL_EQUAL :
+			return "==="; //$NON-NLS-1$ - reference equality, no conversions
+		case NOT_EQUAL :
+			return "!=="; //$NON-NLS-1$
+	}
+	return binary.operatorToString();
+}
+
+private void generateArguments(Expression[] arguments) {
+	JavascriptStream out = this.output;
+	out.append('(');
+	if (arguments != null) {
+		for (int i = 0, length = arguments.length; i < length; i++) {
+			if (i > 0) out.append(", "); //$NON-NLS-1$
+			generateExpression(arguments[i]);
+		}
+	}
+	out.append(')');
+}
+
+private void generateArray(Expression[] expressions) {
+	JavascriptStream out = this.output;
+	out.append('[');
+	if (expressions != null) {
+		for (int i = 0, length = expressions.length; i < length; i++) {
+			if (i > 0) out.append(", "); //$NON-NLS-1$
+			generateExpression(expressions[i]);
+		}
+	}
+	out.append(']');
+}
+
+private void generateLiteral(Literal literal) {
+	JavascriptStream out = this.output;
+	if (literal instanceof StringLiteral) {
+		out.appendStringLiteral(literal.source());
+	} else if (literal instanceof CharLiteral) {
+		out.append(charValue(literal.source())); // a char is a number, 'a' + 1 is 98
+	} else if (literal instanceof ObjectLiteral) {
+		out.append("{}"); //$NON-NLS-1$
+	} else if (literal instanceof ArrayLiteral) {
+		out.append("[]"); //$NON-NLS-1$
+	} else if (literal instanceof IntLiteral || literal instanceof LongLiteral) {
+		// the value and not the source: java octal literals and the negated minimal values
+		if (literal instanceof IntLiteral)
+			out.append(String.valueOf(literal.constant.intValue()));
+		else
+			out.append(String.valueOf(literal.constant.longValue()));
+	} else if (literal instanceof NumberLiteral) {
+		char[] source = literal.source();
+		int length = source.length;
+		boolean isHexa = length > 1 && source[0] == '0' && (source[1] == 'x' || source[1] == 'X');
+		if (length > 0) {
+			// drop the java type suffixes: 1.0f, 1.0d
+			char last = source[length - 1];
+			if (!isHexa && (literal instanceof FloatLiteral || literal instanceof DoubleLiteral)
+					&& (last == 'f' || last == 'F' || last == 'd' || last == 'D'))
+				length--;
+		}
+		for (int i = 0; i < length; i++) {
+			char c = source[i];
+			if (c != '_') out.append(c); // underscores in literals are not valid javascript
+		}
+	} else {
+		out.append(literal.source()); // true, false, null
+	}
+}
+
+/*
+ * The value of a char literal: 'a', '\n' or '\101', its unicode escapes are already translated by the scanner.
+ */
+private static int charValue(char[] source) {
+	if (source.length < 3)
+		return 0;
+	if (source[1] != '\\')
+		return source[1];
+	switch (source[2]) {
+		case 'b' :
+			return '\b';
+		case 't' :
+			return '\t';
+		case 'n' :
+			return '\n';
+		case 'f' :
+			return '\f';
+		case 'r' :
+			return '\r';
+	}
+	if (source[2] < '0' || source[2] > '7')
+		return source[2]; // \', \" or \\
+	int value = 0;
+	for (int i = 2, length = source.length; i < length && source[i] >= '0' && source[i] <= '7'; i++)
+		value = value * 8 + source[i] - '0';
+	return value;
+}
+
+/*
+ * Collects the local variables of the enclosing methods used by a local type, which java requires to be
+ * effectively final. They are copied like java does: the javascript closures would otherwise share the
+ * variables declared in a loop between the instances of the type.
+ */
+static class CapturedLocalsCollector extends ASTVisitor {
+
+	ClassScope typeScope;
+	LocalVariableBinding[] locals = new LocalVariableBinding[5];
+	int localsCount;
+
+	CapturedLocalsCollector(ClassScope typeScope) {
+		this.typeScope = typeScope;
+	}
+
+	public boolean visit(SingleNameReference reference, BlockScope scope) {
+		capture(reference.binding);
+		return true;
+	}
+
+	public boolean visit(QualifiedNameReference reference, BlockScope scope) {
+		capture(reference.binding);
+		return true;
+	}
+
+	private void capture(Binding binding) {
+		if (!(binding instanceof LocalVariableBinding)) return;
+		LocalVariableBinding local = (LocalVariableBinding) binding;
+		if (local.declaringScope == null || local.declaringScope.methodScope() == null)
+			return; // a variable of the module
+		for (Scope scope = local.declaringScope; scope != null; scope = scope.parent)
+			if (scope == this.typeScope)
+				return; // declared by the type
+		for (int i = 0; i < this.localsCount; i++)
+			if (this.locals[i] == local)
+				return;
+		if (this.localsCount == this.locals.length)
+			System.arraycopy(this.locals, 0, this.locals = new LocalVariableBinding[this.localsCount * 2], 0, this.localsCount);
+		this.locals[this.localsCount++] = local;
+	}
+}
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.compiler.codegen;
+
+/**
+ * Growable character buffer the javascript code of a compilation unit is written into.
+ * Instances are reused through the {@link org.summer.sdt.internal.compiler.JavascriptStreamPool}
+ * so that the buffer allocated for a large unit serves the following ones.
+ */
+public class JavascriptStream {
+
+	public static final int INITIAL_CONTENTS_SIZE = 4000;
+	public static final int INDENTATION_SIZE = 1;
+
+	public char[] contents;
+	public int position;
+	public int indentationLevel;
+	public boolean isShared = false;
+	private boolean atLineStart;
+
+public JavascriptStream() {
+	this.contents = new char[INITIAL_CONTENTS_SIZE];
+	this.position = 0;
+	this.indentationLevel = 0;
+	this.atLineStart = true;
+}
+
+public JavascriptStream append(char c) {
+	if (this.atLineStart) indent();
+	if (this.position == this.contents.length) grow(1);
+	this.contents[this.position++] = c;
+	return this;
+}
+
+public JavascriptStream append(char[] source) {
+	return append(source, 0, source.length);
+}
+
+public JavascriptStream append(char[] source, int start, int length) {
+	if (this.atLineStart) indent();
+	if (this.position + length > this.contents.length) grow(length);
+	System.arraycopy(source, start, this.contents, this.position, length);
+	this.position += length;
+	return this;
+}
+
+/**
+ * Appends the given string, meant to be used with constant strings (keywords, operators...).
+ */
+public JavascriptStream append(String source) {
+	int length = source.length();
+	if (this.atLineStart) indent();
+	if (this.position + length > this.contents.length) grow(length);
+	source.getChars(0, length, this.contents, this.position);
+	this.position += length;
+	return this;
+}
+
+public JavascriptStream append(int value) {
+	if (value < 0) {
+		// the digits of a negative value are written from its negated quotient, which cannot overflow
+		append('-');
+		if (value <= -10)
+			append(-(value / 10));
+		return append((char) ('0' - value % 10));
+	}
+	if (value >= 10)
+		append(value / 10);
+	return append((char) ('0' + value % 10));
+}
+
+/**
+ * Appends the given name qualified by dots, e.g. <code>a.b.C</code>.
+ */
+public JavascriptStream append(char[][] qualifiedName, char separator) {
+	for (int i = 0, length = qualifiedName.length; i < length; i++) {
+		if (i > 0) append(separator);
+		append(qualifiedName[i]);
+	}
+	return this;
+}
+
+/**
+ * Appends the given value as a double quoted javascript string literal.
+ */
+public JavascriptStream appendStringLiteral(char[] value) {
+	append('"');
+	for (int i = 0, length = value.length; i < length; i++) {
+		char c = value[i];
+		switch (c) {
+			case '\b' :
+				append('\\').append('b');
+				break;
+			case '\t' :
+				append('\\').append('t');
+				break;
+			case '\n' :
+				append('\\').append('n');
+				break;
+			case '\f' :
+				append('\\').append('f');
+				break;
+			case '\r' :
+				append('\\').append('r');
+				break;
+			case '\"' :
+				append('\\').append('"');
+				break;
+			case '\\' :
+				append('\\').append('\\');
+				break;
+			case '\u2028' : // line terminators in javascript, not in java
+				append("\\u2028"); //$NON-NLS-1$
+				break;
+			case '\u2029' :
+				append("\\u2029"); //$NON-NLS-1$
+				break;
+			default :
+				append(c);
+		}
+	}
+	return append('"');
+}
+
+public JavascriptStream newLine() {
+	if (this.position == this.contents.length) grow(1);
+	this.contents[this.position++] = '\n';
+	this.atLineStart = true;
+	return this;
+}
+
+public JavascriptStream increaseIndentation() {
+	this.indentationLevel++;
+	return this;
+}
+
+public JavascriptStream decreaseIndentation() {
+	if (this.indentationLevel > 0)
+		this.indentationLevel--;
+	return this;
+}
+
+private void indent() {
+	this.atLineStart = false;
+	int length = this.indentationLevel * INDENTATION_SIZE;
+	if (this.position + length > this.contents.length) grow(length);
+	for (int i = 0; i < length; i++)
+		this.contents[this.position++] = '\t';
+}
+
+private void grow(int minimalIncrement) {
+	int length = this.contents.length;
+	int newLength = length + Math.max(length, minimalIncrement);
+	System.arraycopy(this.contents, 0, this.contents = new char[newLength], 0, this.position);
+}
+
+/**
+ * Answer a copy of the generated code, the stream can be released afterwards.
+ */
+public char[] getContents() {
+	char[] result = new char[this.position];
+	System.arraycopy(this.contents, 0, result, 0, this.position);
+	return result;
+}
+
+public void reset() {
+	this.position = 0;
+	this.indentationLevel = 0;
+	this.atLineStart = true;
+}
+}
@@ -142,6 +142,7 @@ public class CompilerOptions {
 	public static final String OPTION_ReportFallthroughCase =  "org.summer.sdt.core.compiler.problem.fallthroughCase"; //$NON-NLS-1$
 	public static final String OPTION_ReportOverridingMethodWithoutSuperInvocation =  "org.summer.sdt.core.compiler.problem.overridingMethodWithoutSuperInvocation"; //$NON-NLS-1$
 	public static final String OPTION_GenerateClassFiles = "org.summer.sdt.core.compiler.generateClassFiles"; //$NON-NLS-1$
+	public static final String OPTION_GenerateJavascript = "org.summer.sdt.core.compiler.generateJavascript"; //$NON-NLS-1$
 	public static final String OPTION_Process_Annotations = "org.summer.sdt.core.compiler.processAnnotations"; //$NON-NLS-1$
 	// OPTION_Store_Annotations: undocumented option for testing purposes
 	public static final String OPTION_Store_Annotations = "org.summer.sdt.core.compiler.storeAnnotations"; //$NON-NLS-1$
@@ -415,6 +416,8 @@ public class CompilerOptions {
 	public boolean reportMissingOverrideAnnotationForInterfaceMethodImplementation;
 	/** Indicate if annotation processing generates classfiles */
 	public boolean generateClassFiles;
+	/** Indicate if javascript code is generated along with the class files */
+	public boolean generateJavascript;
 	/** Indicate if method bodies should be ignored */
 	public boolean ignoreMethodBodies;
 	/** Raise null related warnings for variables tainted inside an assert statement (java 1.4 and above)*/
@@ -1133,6 +1136,7 @@ public class CompilerOptions {
 		optionsMap.put(OPTION_ReportFallthroughCase, getSeverityString(FallthroughCase));
 		optionsMap.put(OPTION_ReportOverridingMethodWithoutSuperInvocation, getSeverityString(OverridingMethodWithoutSuperInvocation));
 		optionsMap.put(OPTION_GenerateClassFiles, this.generateClassFiles ? ENABLED : DISABLED);
+		optionsMap.put(OPTION_GenerateJavascript, this.generateJavascript ? ENABLED : DISABLED);
 		optionsMap.put(OPTION_Process_Annotations, this.processAnnotations ? ENABLED : DISABLED);
 		optionsMap.put(OPTION_Store_Annotations, this.storeAnnotations ? ENABLED : DISABLED);
 		optionsMap.put(OPTION_EmulateJavacBug8031744, this.emulateJavacBug8031744 ? ENABLED : DISABLED);
@@ -1305,6 +1309,9 @@ public class CompilerOptions {
 		// annotation processing
 		this.generateClassFiles = true;
 
+		// javascript generation
+		this.generateJavascript = false;
+
 		// enable annotation processing by default only in batch mode
 		this.processAnnotations = false;
 		
@@ -1787,6 +1794,13 @@ public class CompilerOptions {
 				this.generateClassFiles = false;
 			}
 		}
+		if ((optionValue = optionsMap.get(OPTION_GenerateJavascript)) != null) {
+			if (ENABLED.equals(optionValue)) {
+				this.generateJavascript = true;
+			} else if (DISABLED.equals(optionValue)) {
+				this.generateJavascript = false;
+			}
+		}
 		if ((optionValue = optionsMap.get(OPTION_Process_Annotations)) != null) {
 			if (ENABLED.equals(optionValue)) {
 				this.processAnnotations = true;
@@ -1918,6 +1932,7 @@ public class CompilerOptions {
 		buf.append("\n\t- treat optional error as fatal: ").append(this.treatOptionalErrorAsFatal ? ENABLED : DISABLED); //$NON-NLS-1$
 		buf.append("\n\t- parameter assignment: ").append(getSeverityString(ParameterAssignment)); //$NON-NLS-1$
 		buf.append("\n\t- generate class files: ").append(this.generateClassFiles ? ENABLED : DISABLED); //$NON-NLS-1$
+		buf.append("\n\t- generate javascript: ").append(this.generateJavascript ? ENABLED : DISABLED); //$NON-NLS-1$
 		buf.append("\n\t- process annotations: ").append(this.processAnnotations ? ENABLED : DISABLED); //$NON-NLS-1$
 		buf.append("\n\t- unused type arguments for method/constructor invocation: ").append(getSeverityString(UnusedTypeArguments)); //$NON-NLS-1$
 		buf.append("\n\t- redundant superinterface: ").append(getSeverityString(RedundantSuperinterface)); //$NON-NLS-1$
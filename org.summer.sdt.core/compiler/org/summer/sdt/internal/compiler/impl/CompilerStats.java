@@ -24,6 +24,9 @@ public class CompilerStats implements Comparable {
 	public long analyzeTime;
 	public long generateTime;
 
+	// type inference, part of the resolve time, in nanoseconds
+	public long inferenceTime;
+
 /**
  * Returns the total elapsed time (between start and end)
  * @return the time spent between start and end
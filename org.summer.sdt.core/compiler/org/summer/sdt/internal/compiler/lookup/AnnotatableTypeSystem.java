@@ -22,7 +22,8 @@ import org.summer.sdt.internal.compiler.util.Util;
  	
    ATS is AnnotatableTypeSystem and not AnnotatedTypeSystem, various methods may actually return unannotated types if the input arguments do not specify any annotations 
    and component types of the composite type being constructed are themselves also unannotated. We rely on the master type table maintained by TypeSystem and use 
-   getDerivedTypes() and cacheDerivedType() to get/put.
+   getDerivedTypes() and cacheDerivedType() to get/put. The lookups of annotated types do not lock, so threads racing for the same annotated type may each
+   create one: both carry the id of the naked type, which TypeSystem keeps unique.
 */
 
 public class AnnotatableTypeSystem extends TypeSystem {
@@ -432,6 +432,12 @@ class BoundSet {
 			int boundsCount = bounds.length;
 			if (boundsCount < 2)
 				return true;
+			// warn about pathological cases, which can keep the compiler busy for minutes, but still finish them:
+			if (context.incorporationWork <= InferenceContext18.MAX_INCORPORATION_WORK) {
+				context.incorporationWork += boundsCount * (long) (boundsCount - 1) / 2;
+				if (context.incorporationWork > InferenceContext18.MAX_INCORPORATION_WORK)
+					context.reportExcessiveIncorporationWork();
+			}
 			// check each pair:
 			for (int i = 0; i < boundsCount; i++) {
 				TypeBound boundI = bounds[i];
@@ -516,6 +516,8 @@ public class CompilationUnitScope extends Scope {
 	
 		for (int i = 0, length = this.topLevelTypes.length; i < length; i++)
 			this.topLevelTypes[i].faultInTypesForFieldsAndMethods();
+		if (this.moduleBinding != null)
+			this.moduleBinding.scope.faultInTypes();
 	}
 	// this API is for code assist purpose
 	public Binding findImport(char[][] compoundName, boolean findStaticImports, boolean onDemand) {
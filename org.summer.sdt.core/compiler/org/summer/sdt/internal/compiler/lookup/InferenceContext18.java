@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.summer.sdt.core.compiler.CharOperation;
+import org.summer.sdt.internal.compiler.CompilationResult;
 import org.summer.sdt.internal.compiler.ast.ASTNode;
 import org.summer.sdt.internal.compiler.ast.ConditionalExpression;
 import org.summer.sdt.internal.compiler.ast.Expression;
@@ -171,6 +172,14 @@ public class InferenceContext18 {
 	/** For each candidate target type imposed from the outside store the solution of invocation type inference. */
 	Map<TypeBinding,Solution> solutionsPerTargetType = new HashMap<TypeBinding, Solution>();
 
+	/** Number of pairs of bounds checked by incorporation so far, see {@link #MAX_INCORPORATION_WORK}. */
+	long incorporationWork;
+	/**
+	 * Number of pairs of bounds incorporation may check for one inference context, beyond which a warning
+	 * suggests explicit type arguments. The inference itself proceeds to its normal outcome.
+	 */
+	static final long MAX_INCORPORATION_WORK = 20000000L;
+
 	/** One of CHECK_STRICT, CHECK_LOOSE, or CHECK_VARARGS. */
 	int inferenceKind;
 	/** Marks how much work has been done so far? Used to avoid performing any of these tasks more than once. */
@@ -507,7 +516,31 @@ public class InferenceContext18 {
 	 * @return a valid method binding with updated type parameters,
 	 * 	or a problem method binding signaling either inference failure or a bound mismatch.
 	 */
+	/**
+	 * Warn that incorporation went past {@link #MAX_INCORPORATION_WORK} for the current invocation,
+	 * once per invocation even if several candidates or target types are inferred for it.
+	 */
+	void reportExcessiveIncorporationWork() {
+		if (this.currentInvocation instanceof Invocation) {
+			InferenceMemo memo = ((Invocation) this.currentInvocation).inferenceMemo();
+			if (memo.excessiveWorkReported)
+				return;
+			memo.excessiveWorkReported = true;
+		}
+		this.scope.problemReporter().excessiveInferenceWork(this.currentInvocation);
+	}
+
 	/*@NonNull*/ MethodBinding inferInvocationType(Invocation invocation, TypeBinding[] argumentTypes, ParameterizedGenericMethodBinding method) {
+		CompilationResult unitResult = this.scope.compilationUnitScope().referenceContext.compilationResult;
+		long inferenceStart = unitResult.beginInference();
+		try {
+			return internalInferInvocationType(invocation, argumentTypes, method);
+		} finally {
+			unitResult.endInference(inferenceStart);
+		}
+	}
+
+	private MethodBinding internalInferInvocationType(Invocation invocation, TypeBinding[] argumentTypes, ParameterizedGenericMethodBinding method) {
 		// TODO optimize: if outerContext exists and is resolved, we probably don't need to infer again.
 		TypeBinding targetType = invocation.invocationTargetType();
 		ParameterizedGenericMethodBinding finalMethod = null;
@@ -674,6 +707,16 @@ public class InferenceContext18 {
 	 * 18.5.4 More Specific Method Inference
 	 */
 	public boolean isMoreSpecificThan(MethodBinding m1, MethodBinding m2, boolean isVarArgs, boolean isVarArgs2) {
+		CompilationResult unitResult = this.scope.compilationUnitScope().referenceContext.compilationResult;
+		long inferenceStart = unitResult.beginInference();
+		try {
+			return internalIsMoreSpecificThan(m1, m2, isVarArgs, isVarArgs2);
+		} finally {
+			unitResult.endInference(inferenceStart);
+		}
+	}
+
+	private boolean internalIsMoreSpecificThan(MethodBinding m1, MethodBinding m2, boolean isVarArgs, boolean isVarArgs2) {
 		// TODO: we don't yet distinguish vararg-with-passthrough from vararg-with-exactly-one-vararg-arg
 		if (isVarArgs != isVarArgs2) {
 			return isVarArgs2;
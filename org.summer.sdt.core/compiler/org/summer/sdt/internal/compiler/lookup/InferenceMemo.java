@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.compiler.lookup;
+
+import org.summer.sdt.internal.compiler.ast.ExpressionContext;
+
+/**
+ * The outcomes of the Invocation Applicability Inferences (JLS 18.5.1) performed for one invocation.
+ * <p>
+ * Overload resolution may ask several times whether the same candidate method is applicable to the
+ * same invocation, e.g. when a method is inherited through several super interfaces, or when a diamond
+ * allocation looks up its static factories again for each new target type. The outcome only depends on
+ * the candidate method, the argument types, the target type and the expression context of the invocation,
+ * so it is remembered here under these keys. A successful outcome is only reused as long as its inference
+ * context is still registered with the invocation and has not proceeded to Invocation Type Inference.
+ * </p>
+ */
+public class InferenceMemo {
+
+	static class Entry {
+		MethodBinding method;
+		TypeBinding[] arguments;
+		TypeBinding targetType;
+		ExpressionContext expressionContext;
+		/** The parameterized candidate, or null if the candidate is not applicable. */
+		MethodBinding result;
+		/** The inference context which produced the result, if any. */
+		InferenceContext18 context;
+		Entry next;
+	}
+
+	private Entry entries;
+	/** Whether the warning about the cost of the inference has been reported for this invocation. */
+	boolean excessiveWorkReported;
+
+	/**
+	 * Answer the remembered outcome of the applicability inference of the given candidate, or null if none.
+	 */
+	Entry get(MethodBinding method, TypeBinding[] arguments, TypeBinding targetType, ExpressionContext expressionContext) {
+		for (Entry entry = this.entries; entry != null; entry = entry.next) {
+			if (entry.method == method //$IDENTITY-COMPARISON$
+					&& entry.targetType == targetType //$IDENTITY-COMPARISON$
+					&& entry.expressionContext == expressionContext
+					&& sameTypes(entry.arguments, arguments))
+				return entry;
+		}
+		return null;
+	}
+
+	/**
+	 * Remember the outcome of the applicability inference of the given candidate, replacing any previous one.
+	 */
+	void put(MethodBinding method, TypeBinding[] arguments, TypeBinding targetType, ExpressionContext expressionContext,
+			MethodBinding result, InferenceContext18 context) {
+		Entry entry = get(method, arguments, targetType, expressionContext);
+		if (entry == null) {
+			entry = new Entry();
+			entry.method = method;
+			entry.arguments = arguments.clone(); // callers may reuse their array
+			entry.targetType = targetType;
+			entry.expressionContext = expressionContext;
+			entry.next = this.entries;
+			this.entries = entry;
+		}
+		entry.result = result;
+		entry.context = context;
+	}
+
+	private static boolean sameTypes(TypeBinding[] types, TypeBinding[] otherTypes) {
+		int length = types.length;
+		if (otherTypes.length != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (types[i] != otherTypes[i]) //$IDENTITY-COMPARISON$
+				return false;
+		}
+		return true;
+	}
+}
@@ -35,6 +35,7 @@ import java.util.Set;
 
 import org.summer.sdt.core.compiler.CharOperation;
 import org.summer.sdt.internal.compiler.ClassFilePool;
+import org.summer.sdt.internal.compiler.JavascriptStreamPool;
 import org.summer.sdt.internal.compiler.ast.CompilationUnitDeclaration;
 import org.summer.sdt.internal.compiler.ast.Wildcard;
 import org.summer.sdt.internal.compiler.classfmt.ClassFileConstants;
@@ -67,6 +68,7 @@ public class LookupEnvironment implements ProblemReasons, TypeConstants {
 
 	public ProblemReporter problemReporter;
 	public ClassFilePool classFilePool;
+	public JavascriptStreamPool javascriptStreamPool;
 	// indicate in which step on the compilation we are.
 	// step 1 : build the reference binding
 	// step 2 : conect the hierarchy (connect bindings)
@@ -121,6 +123,7 @@ public class LookupEnvironment implements ProblemReasons, TypeConstants {
 		this.missingTypes = null;
 		this.accessRestrictions = new HashMap(3);
 		this.classFilePool = ClassFilePool.newInstance();
+		this.javascriptStreamPool = JavascriptStreamPool.newInstance();
 		this.typesBeingConnected = new HashSet();
 		this.typeSystem = this.globalOptions.sourceLevel >= ClassFileConstants.JDK1_8 && this.globalOptions.storeAnnotations ? new AnnotatableTypeSystem(this) : new TypeSystem(this);
 	}
@@ -1563,6 +1566,7 @@ public class LookupEnvironment implements ProblemReasons, TypeConstants {
 		this.unitBeingCompleted = null; // in case AbortException occurred
 	
 		this.classFilePool.reset();
+		this.javascriptStreamPool.reset();
 		this.typeSystem.reset();
 		// name environment has a longer life cycle, and must be reset in
 		// the code which created it.
@@ -105,4 +105,9 @@ public class ModuleScope extends BlockScope {
 			this.topLevelTypes[i].scope.buildFieldsAndMethods();
 	}
 
+	void faultInTypes() {
+		for (int i = 0, length = this.topLevelTypes.length; i < length; i++)
+			this.topLevelTypes[i].faultInTypesForFieldsAndMethods();
+	}
+
 }
@@ -22,6 +22,7 @@
  *******************************************************************************/
 package org.summer.sdt.internal.compiler.lookup;
 
+import org.summer.sdt.internal.compiler.CompilationResult;
 import org.summer.sdt.internal.compiler.ast.Expression;
 import org.summer.sdt.internal.compiler.ast.Invocation;
 import org.summer.sdt.internal.compiler.ast.NullAnnotationMatching;
@@ -94,14 +95,30 @@ public class ParameterizedGenericMethodBinding extends ParameterizedMethodBindin
 
 // ==== 1.8: The main driver for inference of generic methods: ====
 			InferenceContext18 infCtx18 = null;
+			InferenceMemo memo = null;
 			CompilerOptions compilerOptions = scope.compilerOptions();
+			CompilationResult unitResult = scope.compilationUnitScope().referenceContext.compilationResult;
 			if (compilerOptions.sourceLevel >= ClassFileConstants.JDK1_8) {
-				if ((inferenceLevel & Scope.APPLICABILITY) != 0)
+				if ((inferenceLevel & Scope.APPLICABILITY) != 0) {
+					if (inferenceLevel == Scope.APPLICABILITY && invocationSite instanceof Invocation) {
+						// the same candidate may be checked again for the same arguments during overload resolution
+						Invocation invocation = (Invocation) invocationSite;
+						memo = invocation.inferenceMemo();
+						InferenceMemo.Entry known = memo.get(originalMethod, arguments, invocationSite.invocationTargetType(), invocationSite.getExpressionContext());
+						if (known != null
+								&& (known.context == null
+									|| (known.context.stepCompleted < InferenceContext18.TYPE_INFERRED
+										&& invocation.getInferenceContext((ParameterizedGenericMethodBinding) known.result) == known.context))) {
+							unitResult.reusedInferenceCount++;
+							return known.result;
+						}
+					}
 					infCtx18 = invocationSite.freshInferenceContext(scope);
-				else if (invocationSite instanceof Invocation && originalMethod instanceof ParameterizedGenericMethodBinding)
+				} else if (invocationSite instanceof Invocation && originalMethod instanceof ParameterizedGenericMethodBinding)
 					infCtx18 = ((Invocation) invocationSite).getInferenceContext((ParameterizedGenericMethodBinding) originalMethod);
 			}
 			if (infCtx18 != null) {
+				long inferenceStart = unitResult.beginInference();
 				try {
 					BoundSet provisionalResult = null;
 					BoundSet result = null;
@@ -168,15 +185,21 @@ public class ParameterizedGenericMethodBinding extends ParameterizedMethodBindin
 							} else {
 								if (invocationSite instanceof Invocation)
 									((Invocation) invocationSite).registerInferenceContext(methodSubstitute, infCtx18); // keep context so we can finish later
+								if (memo != null)
+									memo.put(originalMethod, arguments, expectedType, invocationSite.getExpressionContext(), methodSubstitute, infCtx18);
 								return methodSubstitute;
 							}
 						}
 					}
+					if (memo != null)
+						memo.put(originalMethod, arguments, expectedType, invocationSite.getExpressionContext(), null, null);
 					return null;
 				} catch (InferenceFailureException e) {
 					// FIXME stop-gap measure
 					scope.problemReporter().genericInferenceError(e.getMessage(), invocationSite);
 					return null;
+				} finally {
+					unitResult.endInference(inferenceStart);
 				}
 			} else {
 // ==== 1.8 ====
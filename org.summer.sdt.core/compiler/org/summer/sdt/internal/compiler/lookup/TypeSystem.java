@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.summer.sdt.internal.compiler.lookup;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 import org.summer.sdt.core.compiler.CharOperation;
 import org.summer.sdt.internal.compiler.util.SimpleLookupTable;
 import org.summer.sdt.internal.compiler.util.Util;
@@ -52,42 +55,113 @@ import org.summer.sdt.internal.compiler.util.Util;
    would be different unless they are identically annotated.
    
    Thus subsystems that are annotation agnostic could quickly ascertain binding equality by comparing the id field.
+   
+   Thread safety: several threads may derive types concurrently. The derived types of an id are kept in an array that is replaced, never
+   modified, when a type is added to it, so lookups that find an existing type take no lock. A miss takes the lock of the stripe the key
+   type id falls in, looks again and only then creates the derived type, hence naked derived types stay unique. Ids are drawn atomically
+   and the arrays are stored in fixed size chunks that never move, so that the table grows without losing concurrent updates.
 */
 public class TypeSystem {
 	
-	private int typeid = TypeIds.T_LastWellKnownTypeId;
-	private TypeBinding [][] types; 
+	private static final int CHUNK_SHIFT = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int LOCK_COUNT = 64; // power of 2
+
+	private final AtomicInteger typeid = new AtomicInteger(TypeIds.T_LastWellKnownTypeId);
+	private volatile AtomicReferenceArray<TypeBinding[]>[] chunks; // the derived types of an id, the type of that id being first
+	private final Object[] locks; // the derived types of an id only change while holding locks[id & (LOCK_COUNT - 1)]
 	private SimpleLookupTable annotationTypes; // cannot store in types, since AnnotationBinding is not a TypeBinding and we don't want types to operate at Binding level.
 	private LookupEnvironment environment;
 	
 	public TypeSystem(LookupEnvironment environment) {
 		this.environment = environment;
 		this.annotationTypes = new SimpleLookupTable(16);
-		this.typeid = TypeIds.T_LastWellKnownTypeId;
-		this.types = new TypeBinding[TypeIds.T_LastWellKnownTypeId * 2][]; 
+		this.chunks = newChunks(0, TypeIds.T_LastWellKnownTypeId * 2);
+		this.locks = new Object[LOCK_COUNT];
+		for (int i = 0; i < LOCK_COUNT; i++)
+			this.locks[i] = new Object();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static AtomicReferenceArray<TypeBinding[]>[] newChunks(int start, int length) {
+		AtomicReferenceArray<TypeBinding[]>[] newChunks = new AtomicReferenceArray[(length + CHUNK_MASK) >>> CHUNK_SHIFT];
+		for (int i = start; i < newChunks.length; i++)
+			newChunks[i] = new AtomicReferenceArray<TypeBinding[]>(CHUNK_SIZE);
+		return newChunks;
+	}
+
+	// Answer the derived types of the given id, null if it is not known.
+	private TypeBinding[] derivedTypes(int id) {
+		AtomicReferenceArray<TypeBinding[]>[] currentChunks = this.chunks;
+		int chunk = id >>> CHUNK_SHIFT;
+		return chunk < currentChunks.length ? currentChunks[chunk].get(id & CHUNK_MASK) : null;
+	}
+
+	private void setDerivedTypes(int id, TypeBinding[] derivedTypes) {
+		AtomicReferenceArray<TypeBinding[]>[] currentChunks = this.chunks;
+		int chunk = id >>> CHUNK_SHIFT;
+		if (chunk >= currentChunks.length)
+			currentChunks = growChunks(id);
+		currentChunks[chunk].set(id & CHUNK_MASK, derivedTypes);
+	}
+
+	private synchronized AtomicReferenceArray<TypeBinding[]>[] growChunks(int id) {
+		AtomicReferenceArray<TypeBinding[]>[] currentChunks = this.chunks;
+		int length = currentChunks.length;
+		if ((id >>> CHUNK_SHIFT) >= length) {
+			AtomicReferenceArray<TypeBinding[]>[] newChunks = newChunks(length, Math.max(length * 2, (id >>> CHUNK_SHIFT) + 1) << CHUNK_SHIFT);
+			System.arraycopy(currentChunks, 0, newChunks, 0, length); // chunks are shared, so that no update is lost
+			this.chunks = currentChunks = newChunks;
+		}
+		return currentChunks;
+	}
+
+	private Object lock(int id) {
+		return this.locks[id & (LOCK_COUNT - 1)];
+	}
+
+	// Stamp a new id on the given type, making it the first of its derived types.
+	private TypeBinding newType(TypeBinding type) {
+		int id = this.typeid.getAndIncrement();
+		setDerivedTypes(id, new TypeBinding[] { type });
+		type.id = id;
+		return type;
+	}
+
+	// Add a derived type to the ones of the given id, the caller holds the lock of the id.
+	private TypeBinding addDerivedType(int id, TypeBinding derivedType) {
+		TypeBinding[] derivedTypes = derivedTypes(id);
+		int length = derivedTypes.length;
+		System.arraycopy(derivedTypes, 0, derivedTypes = new TypeBinding[length + 1], 0, length);
+		derivedTypes[length] = derivedType;
+		setDerivedTypes(id, derivedTypes);
+		return derivedType;
 	}
 
 	// Given a type, answer its unannotated aka naked prototype. This is also a convenient way to "register" a type with TypeSystem and have it id stamped.
 	public final TypeBinding getUnannotatedType(TypeBinding type) {
 		if (type.isUnresolvedType() && CharOperation.indexOf('$', type.sourceName()) > 0)
 			type = BinaryTypeBinding.resolveType(type, this.environment, true); // to ensure unique id assignment (when enclosing type is parameterized, inner type is also) 
-		if (type.id == TypeIds.NoId) {
-			if (type.hasTypeAnnotations())
-				throw new IllegalStateException();
-			int typesLength = this.types.length;
-			if (this.typeid == typesLength)
-				System.arraycopy(this.types, 0, this.types = new TypeBinding[typesLength * 2][], 0, typesLength);
-			this.types[type.id = this.typeid++] = new TypeBinding[4];
-		} else {
-			TypeBinding nakedType = this.types[type.id] == null ? null : this.types[type.id][0];
-			if (type.hasTypeAnnotations() && nakedType == null)
+		if (type.id != TypeIds.NoId) {
+			TypeBinding[] derivedTypes = derivedTypes(type.id);
+			if (derivedTypes != null)
+				return derivedTypes[0];
+		}
+		synchronized (this) {
+			if (type.id == TypeIds.NoId) {
+				if (type.hasTypeAnnotations())
+					throw new IllegalStateException();
+				return newType(type);
+			}
+			TypeBinding[] derivedTypes = derivedTypes(type.id);
+			if (type.hasTypeAnnotations() && derivedTypes == null)
 				throw new IllegalStateException();
-			if (nakedType != null)
-				return nakedType;
-			this.types[type.id] = new TypeBinding[4];  // well known type, assigned id elsewhere.
+			if (derivedTypes != null)
+				return derivedTypes[0];
+			setDerivedTypes(type.id, new TypeBinding[] { type });  // well known type, assigned id elsewhere.
+			return type;
 		}
-	
-		return this.types[type.id][0] = type;
 	}
 	
 	// Given a type, return all its variously annotated versions.
@@ -100,27 +174,27 @@ public class TypeSystem {
 	*/ 
 	public ArrayBinding getArrayType(TypeBinding leafType, int dimensions) {
 		TypeBinding unannotatedLeafType = getUnannotatedType(leafType);
-		TypeBinding[] derivedTypes = this.types[unannotatedLeafType.id];
-		int i, length = derivedTypes.length;
-		for (i = 0; i < length; i++) {
+		int id = unannotatedLeafType.id;
+		ArrayBinding arrayType = findArrayType(derivedTypes(id), unannotatedLeafType, dimensions);
+		if (arrayType != null)
+			return arrayType;
+		synchronized (lock(id)) {
+			arrayType = findArrayType(derivedTypes(id), unannotatedLeafType, dimensions);
+			if (arrayType == null)
+				addDerivedType(id, newType(arrayType = new ArrayBinding(unannotatedLeafType, dimensions, this.environment)));
+			return arrayType;
+		}
+	}
+
+	private ArrayBinding findArrayType(TypeBinding[] derivedTypes, TypeBinding unannotatedLeafType, int dimensions) {
+		for (int i = 0, length = derivedTypes.length; i < length; i++) {
 			TypeBinding derivedType = derivedTypes[i];
-			if (derivedType == null) 
-				break;
 			if (!derivedType.isArrayType() || derivedType.hasTypeAnnotations())
 				continue;
 			if (derivedType.leafComponentType() == unannotatedLeafType && derivedType.dimensions() == dimensions) //$IDENTITY-COMPARISON$
 				return (ArrayBinding) derivedType;
 		}
-		if (i == length) {
-			System.arraycopy(derivedTypes, 0, derivedTypes = new TypeBinding[length * 2], 0, length);
-			this.types[unannotatedLeafType.id] = derivedTypes;
-		}
-		TypeBinding arrayType = derivedTypes[i] = new ArrayBinding(unannotatedLeafType, dimensions, this.environment);
-		int typesLength = this.types.length;
-		if (this.typeid == typesLength)
-			System.arraycopy(this.types, 0, this.types = new TypeBinding[typesLength * 2][], 0, typesLength);
-		this.types[this.typeid] = new TypeBinding[1];
-		return (ArrayBinding) (this.types[arrayType.id = this.typeid++][0] = arrayType);
+		return null;
 	}
 	
 	public ArrayBinding getArrayType(TypeBinding leafComponentType, int dimensions, AnnotationBinding[] annotations) {
@@ -143,29 +217,27 @@ public class TypeSystem {
 		}
 		ReferenceBinding unannotatedEnclosingType = enclosingType == null ? null : (ReferenceBinding) getUnannotatedType(enclosingType);
 		
-		TypeBinding[] derivedTypes = this.types[unannotatedGenericType.id];
-		int i, length = derivedTypes.length;
-		for (i = 0 ; i < length; i++) {
+		int id = unannotatedGenericType.id;
+		ParameterizedTypeBinding parameterizedType = findParameterizedType(derivedTypes(id), unannotatedGenericType, unannotatedTypeArguments, unannotatedEnclosingType);
+		if (parameterizedType != null)
+			return parameterizedType;
+		synchronized (lock(id)) {
+			parameterizedType = findParameterizedType(derivedTypes(id), unannotatedGenericType, unannotatedTypeArguments, unannotatedEnclosingType);
+			if (parameterizedType == null)
+				addDerivedType(id, newType(parameterizedType = new ParameterizedTypeBinding(unannotatedGenericType, unannotatedTypeArguments, unannotatedEnclosingType, this.environment)));
+			return parameterizedType;
+		}
+	}
+
+	private ParameterizedTypeBinding findParameterizedType(TypeBinding[] derivedTypes, ReferenceBinding unannotatedGenericType, TypeBinding[] unannotatedTypeArguments, ReferenceBinding unannotatedEnclosingType) {
+		for (int i = 0, length = derivedTypes.length; i < length; i++) {
 			TypeBinding derivedType = derivedTypes[i];
-			if (derivedType == null) 
-				break;
 			if (!derivedType.isParameterizedType() || derivedType.actualType() != unannotatedGenericType || derivedType.hasTypeAnnotations()) //$IDENTITY-COMPARISON$
 				continue;
 			if (derivedType.enclosingType() == unannotatedEnclosingType && Util.effectivelyEqual(derivedType.typeArguments(), unannotatedTypeArguments)) //$IDENTITY-COMPARISON$
 				return (ParameterizedTypeBinding) derivedType;
 		}
-
-		if (i == length) {
-			System.arraycopy(derivedTypes, 0, derivedTypes = new TypeBinding[length * 2], 0, length);
-			this.types[unannotatedGenericType.id] = derivedTypes;
-		}
-		TypeBinding parameterizedType = derivedTypes[i] = new ParameterizedTypeBinding(unannotatedGenericType, unannotatedTypeArguments, unannotatedEnclosingType, this.environment);
-	
-		int typesLength = this.types.length;
-		if (this.typeid == typesLength)
-			System.arraycopy(this.types, 0, this.types = new TypeBinding[typesLength * 2][], 0, typesLength);
-		this.types[this.typeid] = new TypeBinding[1];
-		return (ParameterizedTypeBinding) (this.types[parameterizedType.id = this.typeid++][0] = parameterizedType);
+		return null;
 	}
 	
 	public ParameterizedTypeBinding getParameterizedType(ReferenceBinding genericType, TypeBinding[] typeArguments, ReferenceBinding enclosingType, AnnotationBinding[] annotations) {
@@ -179,29 +251,27 @@ public class TypeSystem {
 		ReferenceBinding unannotatedGenericType = (ReferenceBinding) getUnannotatedType(genericType);
 		ReferenceBinding unannotatedEnclosingType = enclosingType == null ? null : (ReferenceBinding) getUnannotatedType(enclosingType);
 	
-		TypeBinding[] derivedTypes = this.types[unannotatedGenericType.id];
-		int i, length = derivedTypes.length;
-		for (i = 0; i < length; i++) {
+		int id = unannotatedGenericType.id;
+		RawTypeBinding rawType = findRawType(derivedTypes(id), unannotatedGenericType, unannotatedEnclosingType);
+		if (rawType != null)
+			return rawType;
+		synchronized (lock(id)) {
+			rawType = findRawType(derivedTypes(id), unannotatedGenericType, unannotatedEnclosingType);
+			if (rawType == null)
+				addDerivedType(id, newType(rawType = new RawTypeBinding(unannotatedGenericType, unannotatedEnclosingType, this.environment)));
+			return rawType;
+		}
+	}
+
+	private RawTypeBinding findRawType(TypeBinding[] derivedTypes, ReferenceBinding unannotatedGenericType, ReferenceBinding unannotatedEnclosingType) {
+		for (int i = 0, length = derivedTypes.length; i < length; i++) {
 			TypeBinding derivedType = derivedTypes[i];
-			if (derivedType == null) 
-				break;
 			if (!derivedType.isRawType() || derivedType.actualType() != unannotatedGenericType || derivedType.hasTypeAnnotations()) //$IDENTITY-COMPARISON$
 				continue;
 			if (derivedType.enclosingType() == unannotatedEnclosingType) //$IDENTITY-COMPARISON$
 				return (RawTypeBinding) derivedType;
 		}
-
-		if (i == length) {
-			System.arraycopy(derivedTypes, 0, derivedTypes = new TypeBinding[length * 2], 0, length);
-			this.types[unannotatedGenericType.id] = derivedTypes;
-		}
-		
-		TypeBinding rawTytpe = derivedTypes[i] = new RawTypeBinding(unannotatedGenericType, unannotatedEnclosingType, this.environment);
-		int typesLength = this.types.length;
-		if (this.typeid == typesLength)
-			System.arraycopy(this.types, 0, this.types = new TypeBinding[typesLength * 2][], 0, typesLength);
-		this.types[this.typeid] = new TypeBinding[1];
-		return (RawTypeBinding) (this.types[rawTytpe.id = this.typeid++][0] = rawTytpe);
+		return null;
 	}
 	
 	public RawTypeBinding getRawType(ReferenceBinding genericType, ReferenceBinding enclosingType, AnnotationBinding[] annotations) {
@@ -223,12 +293,21 @@ public class TypeSystem {
 		}
 		TypeBinding unannotatedBound = bound == null ? null : getUnannotatedType(bound);
 
-		TypeBinding[] derivedTypes = this.types[unannotatedGenericType.id];  // by construction, cachedInfo != null now.
-		int i, length = derivedTypes.length;
-		for (i = 0; i < length; i++) {
+		int id = unannotatedGenericType.id;
+		WildcardBinding wildcard = findWildcard(derivedTypes(id), unannotatedGenericType, rank, unannotatedBound, unannotatedOtherBounds, boundKind);
+		if (wildcard != null)
+			return wildcard;
+		synchronized (lock(id)) {
+			wildcard = findWildcard(derivedTypes(id), unannotatedGenericType, rank, unannotatedBound, unannotatedOtherBounds, boundKind);
+			if (wildcard == null)
+				addDerivedType(id, newType(wildcard = new WildcardBinding(unannotatedGenericType, rank, unannotatedBound, unannotatedOtherBounds, boundKind, this.environment)));
+			return wildcard;
+		}
+	}
+
+	private WildcardBinding findWildcard(TypeBinding[] derivedTypes, ReferenceBinding unannotatedGenericType, int rank, TypeBinding unannotatedBound, TypeBinding[] unannotatedOtherBounds, int boundKind) {
+		for (int i = 0, length = derivedTypes.length; i < length; i++) {
 			TypeBinding derivedType = derivedTypes[i];
-			if (derivedType == null) 
-				break;
 			if (!derivedType.isWildcard() || derivedType.actualType() != unannotatedGenericType || derivedType.hasTypeAnnotations()) //$IDENTITY-COMPARISON$
 				continue;
 			if (derivedType.rank() != rank || derivedType.boundKind() != boundKind || derivedType.bound() != unannotatedBound) //$IDENTITY-COMPARISON$
@@ -236,18 +315,7 @@ public class TypeSystem {
 			if (Util.effectivelyEqual(derivedType.additionalBounds(), unannotatedOtherBounds))
 				return (WildcardBinding) derivedType;
 		}
-		
-		if (i == length) {
-			System.arraycopy(derivedTypes, 0, derivedTypes = new TypeBinding[length * 2], 0, length);
-			this.types[unannotatedGenericType.id] = derivedTypes;
-		}
-		TypeBinding wildcard = derivedTypes[i] = new WildcardBinding(unannotatedGenericType, rank, unannotatedBound, unannotatedOtherBounds, boundKind, this.environment);
-	
-		int typesLength = this.types.length;
-		if (this.typeid == typesLength)
-			System.arraycopy(this.types, 0, this.types = new TypeBinding[typesLength * 2][], 0, typesLength);
-		this.types[this.typeid] = new TypeBinding[1];
-		return (WildcardBinding) (this.types[wildcard.id = this.typeid++][0] = wildcard);
+		return null;
 	}
 	
 	public WildcardBinding getWildcard(ReferenceBinding genericType, int rank, TypeBinding bound, TypeBinding[] otherBounds, int boundKind, AnnotationBinding[] annotations) {
@@ -260,23 +328,16 @@ public class TypeSystem {
 	
 	protected final TypeBinding /* @NonNull */ [] getDerivedTypes(TypeBinding keyType) {
 		keyType = getUnannotatedType(keyType);
-		return this.types[keyType.id];
+		return derivedTypes(keyType.id);
 	}
 	
 	private TypeBinding cacheDerivedType(TypeBinding keyType, TypeBinding derivedType) {
 		if (keyType == null || derivedType == null || keyType.id == TypeIds.NoId)
 			throw new IllegalStateException();
 		
-		TypeBinding[] derivedTypes = this.types[keyType.id];
-		int i = 0, length = derivedTypes.length;
-		while (i < length && derivedTypes[i] != null) {
-			i++;
-		}
-		if (i == length) {
-			System.arraycopy(derivedTypes, 0, derivedTypes = new TypeBinding[length * 2], 0, length);
-			this.types[keyType.id] = derivedTypes;
+		synchronized (lock(keyType.id)) {
+			return addDerivedType(keyType.id, derivedType);
 		}
-		return derivedTypes[i] = derivedType;
 	}
 	
 	protected final TypeBinding cacheDerivedType(TypeBinding keyType, TypeBinding nakedType, TypeBinding derivedType) {
@@ -306,13 +367,16 @@ public class TypeSystem {
 	   We may return a resolved annotation when requested for unresolved one, but not vice versa. 
 	*/
 	public final AnnotationBinding getAnnotationType(ReferenceBinding annotationType, boolean requiredResolved) {
-		AnnotationBinding annotation = (AnnotationBinding) this.annotationTypes.get(annotationType);
-		if (annotation == null) {
-			if (requiredResolved)
-				annotation = new AnnotationBinding(annotationType, Binding.NO_ELEMENT_VALUE_PAIRS);
-			else 
-				annotation = new UnresolvedAnnotationBinding(annotationType, Binding.NO_ELEMENT_VALUE_PAIRS, this.environment);
-			this.annotationTypes.put(annotationType, annotation);
+		AnnotationBinding annotation;
+		synchronized (this) {
+			annotation = (AnnotationBinding) this.annotationTypes.get(annotationType);
+			if (annotation == null) {
+				if (requiredResolved)
+					annotation = new AnnotationBinding(annotationType, Binding.NO_ELEMENT_VALUE_PAIRS);
+				else 
+					annotation = new UnresolvedAnnotationBinding(annotationType, Binding.NO_ELEMENT_VALUE_PAIRS, this.environment);
+				this.annotationTypes.put(annotationType, annotation);
+			}
 		}
 		if (requiredResolved)
 			annotation.resolve();
@@ -323,26 +387,33 @@ public class TypeSystem {
 		return false;
 	}
 
-	public void reset() {
+	public synchronized void reset() {
 		this.annotationTypes = new SimpleLookupTable(16);
-		this.typeid = TypeIds.T_LastWellKnownTypeId;
-		this.types = new TypeBinding[TypeIds.T_LastWellKnownTypeId * 2][];
+		this.typeid.set(TypeIds.T_LastWellKnownTypeId);
+		this.chunks = newChunks(0, TypeIds.T_LastWellKnownTypeId * 2);
 	}
 	
 	public void updateCaches(UnresolvedReferenceBinding unresolvedType, ReferenceBinding resolvedType) {
 		final int unresolvedTypeId = unresolvedType.id;
 		if (unresolvedTypeId != TypeIds.NoId) {
-			if (this.types[unresolvedTypeId] != null && this.types[unresolvedTypeId][0] == unresolvedType) { //$IDENTITY-COMPARISON$
-				resolvedType.id = unresolvedTypeId;
-				this.types[unresolvedTypeId][0] = resolvedType;
+			synchronized (lock(unresolvedTypeId)) {
+				TypeBinding[] derivedTypes = derivedTypes(unresolvedTypeId);
+				if (derivedTypes != null && derivedTypes[0] == unresolvedType) { //$IDENTITY-COMPARISON$
+					resolvedType.id = unresolvedTypeId;
+					derivedTypes = derivedTypes.clone();
+					derivedTypes[0] = resolvedType;
+					setDerivedTypes(unresolvedTypeId, derivedTypes);
+				}
 			}
 		}
-		if (this.annotationTypes.get(unresolvedType) != null) { // update the key
-			Object[] keys = this.annotationTypes.keyTable;
-			for (int i = 0, l = keys.length; i < l; i++) {
-				if (keys[i] == unresolvedType) {
-					keys[i] = resolvedType; // hashCode is based on compoundName so this works.
-					break;
+		synchronized (this) {
+			if (this.annotationTypes.get(unresolvedType) != null) { // update the key
+				Object[] keys = this.annotationTypes.keyTable;
+				for (int i = 0, l = keys.length; i < l; i++) {
+					if (keys[i] == unresolvedType) {
+						keys[i] = resolvedType; // hashCode is based on compoundName so this works.
+						break;
+					}
 				}
 			}
 		}
@@ -356,13 +427,24 @@ public class TypeSystem {
 		if (keyType == null || intersectingTypesLength == 1)
 			return keyType;
 					
-		TypeBinding[] derivedTypes = getDerivedTypes(keyType);
-		int i, length = derivedTypes.length;
+		keyType = getUnannotatedType(keyType);
+		int id = keyType.id;
+		TypeBinding intersectionCastType = findIntersectionCastType(derivedTypes(id), intersectingTypes);
+		if (intersectionCastType != null)
+			return intersectionCastType;
+		synchronized (lock(id)) {
+			intersectionCastType = findIntersectionCastType(derivedTypes(id), intersectingTypes);
+			if (intersectionCastType == null)
+				intersectionCastType = addDerivedType(id, new IntersectionCastTypeBinding(intersectingTypes, this.environment));
+			return intersectionCastType;
+		}
+	}
+
+	private TypeBinding findIntersectionCastType(TypeBinding[] derivedTypes, ReferenceBinding[] intersectingTypes) {
+		int intersectingTypesLength = intersectingTypes.length;
 		next:
-		for (i = 0; i < length; i++) {
+		for (int i = 0, length = derivedTypes.length; i < length; i++) {
 			TypeBinding derivedType = derivedTypes[i];
-			if (derivedType == null) 
-				break;
 			if (!derivedType.isIntersectionCastType())
 				continue;
 			ReferenceBinding [] priorIntersectingTypes = derivedType.getIntersectingTypes();
@@ -374,6 +456,6 @@ public class TypeSystem {
 			}	
 			return derivedType;
 		}
-		return cacheDerivedType(keyType, new IntersectionCastTypeBinding(intersectingTypes, this.environment));
+		return null;
 	}
 }
\ No newline at end of file
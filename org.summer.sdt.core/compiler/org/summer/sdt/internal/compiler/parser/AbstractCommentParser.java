@@ -642,7 +642,7 @@ public abstract class AbstractCommentParser implements JavadocTagConstants {
 				if (readToken() == TerminalTokens.TokenNameIdentifier) {
 					consumeToken();
 					try {
-						if (CharOperation.equals(this.scanner.getCurrentIdentifierSource(), HREF_TAG, false) &&
+						if (this.scanner.currentTokenSourceEquals(HREF_TAG, false) &&
 							readToken() == TerminalTokens.TokenNameEQUAL) {
 							consumeToken();
 							if (readToken() == TerminalTokens.TokenNameStringLiteral) {
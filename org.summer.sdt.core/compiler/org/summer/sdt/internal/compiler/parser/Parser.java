@@ -33,6 +33,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -198,6 +199,10 @@ public class Parser extends CommitRollbackParser implements ConflictedParser, Op
 	public static byte rhs[] = null;
 
 	public static int[] reverse_index = null;
+
+	// the tables built in FILEPREFIX<n>.rsc by buildFilesFromLPG, packed so that they are loaded in one read
+	private final static String TABLES_FILE = "parser.rsc"; //$NON-NLS-1$
+	private final static int TABLE_COUNT = 24;
 	public static char[] recovery_templates_index = null;
 	public static char[] recovery_templates = null;
 	public static char[] statements_recovery_filter = null;
@@ -415,6 +420,35 @@ public class Parser extends CommitRollbackParser implements ConflictedParser, Op
 		}
 		System.out.println(filename + " creation complete"); //$NON-NLS-1$
 	}
+	/*
+	 * Packs the tables built in prefix<1..count>.rsc into the given file, each table being preceded by its length,
+	 * and deletes them.
+	 */
+	private final static void buildFileForTables(String filename, String prefix, int count) {
+		java.io.DataOutputStream stream = null;
+		try {
+			stream = new java.io.DataOutputStream(new java.io.BufferedOutputStream(new java.io.FileOutputStream(filename)));
+			stream.writeInt(count);
+			for (int i = 1; i <= count; i++) {
+				File table = new File(prefix + i + ".rsc"); //$NON-NLS-1$
+				byte[] bytes = Util.getFileByteContent(table);
+				stream.writeInt(bytes.length);
+				stream.write(bytes);
+				table.delete();
+			}
+		} catch(IOException e) {
+			// ignore
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+		System.out.println(filename + " creation complete"); //$NON-NLS-1$
+	}
 	private final static void buildFileForTable(String filename, char[] chars) {
 		byte[] bytes = new byte[chars.length * 2];
 		for (int i = 0; i < chars.length; i++) {
@@ -658,6 +692,7 @@ public class Parser extends CommitRollbackParser implements ConflictedParser, Op
 				newLhs,
 				tokens);
 	
+		buildFileForTables(TABLES_FILE, prefix, i);
 	
 		System.out.println(Messages.parser_moveFiles);
 	}
@@ -695,46 +730,45 @@ public class Parser extends CommitRollbackParser implements ConflictedParser, Op
 	}
 	public final static void initTables() throws java.io.IOException {
 	
-		final String prefix = FILEPREFIX;
-		int i = 0;
-		lhs = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		char[] chars = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
+		ByteBuffer tables = readTables(TABLES_FILE);
+		lhs = nextTable(tables);
+		char[] chars = nextTable(tables);
 		check_table = new short[chars.length];
 		for (int c = chars.length; c-- > 0;) {
 			check_table[c] = (short) (chars[c] - 32768);
 		}
-		asb = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		asr = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		nasb = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		nasr = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		terminal_index = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		non_terminal_index = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		term_action = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
+		asb = nextTable(tables);
+		asr = nextTable(tables);
+		nasb = nextTable(tables);
+		nasr = nextTable(tables);
+		terminal_index = nextTable(tables);
+		non_terminal_index = nextTable(tables);
+		term_action = nextTable(tables);
 	
-		scope_prefix = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		scope_suffix = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		scope_lhs = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		scope_state_set = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		scope_rhs = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		scope_state = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		in_symb = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
+		scope_prefix = nextTable(tables);
+		scope_suffix = nextTable(tables);
+		scope_lhs = nextTable(tables);
+		scope_state_set = nextTable(tables);
+		scope_rhs = nextTable(tables);
+		scope_state = nextTable(tables);
+		in_symb = nextTable(tables);
 	
-		rhs = readByteTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		term_check = readByteTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		scope_la = readByteTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
+		rhs = nextByteTable(tables);
+		term_check = nextByteTable(tables);
+		scope_la = nextByteTable(tables);
 	
-		name = readNameTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
+		name = nameTable(nextTable(tables));
 	
-		rules_compliance = readLongTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
+		rules_compliance = nextLongTable(tables);
 	
 		readableName = readReadableNameTable(READABLE_NAMES_FILE + ".props"); //$NON-NLS-1$
 	
 		reverse_index = computeReverseTable(terminal_index, non_terminal_index, name);
 	
-		recovery_templates_index = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
-		recovery_templates = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
+		recovery_templates_index = nextTable(tables);
+		recovery_templates = nextTable(tables);
 	
-		statements_recovery_filter = readTable(prefix + (++i) + ".rsc"); //$NON-NLS-1$
+		statements_recovery_filter = nextTable(tables);
 	
 		base_action = lhs;
 	}
@@ -748,6 +782,63 @@ public class Parser extends CommitRollbackParser implements ConflictedParser, Op
 		return -base_check(state);
 	}
 
+	/*
+	 * Reads the packed tables at once, and answers them positioned on the first one.
+	 */
+	private static ByteBuffer readTables(String filename) throws java.io.IOException {
+	
+		//files are located at Parser.class directory
+	
+		InputStream stream = Parser.class.getResourceAsStream(filename);
+		if (stream == null) {
+			throw new java.io.IOException(Messages.bind(Messages.parser_missingFile, filename));
+		}
+		byte[] bytes = null;
+		try {
+			bytes = Util.getInputStreamAsByteArray(stream, -1);
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+		ByteBuffer tables = ByteBuffer.wrap(bytes); // big endian, as written by buildFileForTables
+		if (bytes.length < 4 || tables.getInt() != TABLE_COUNT)
+			throw new java.io.IOException(Messages.bind(Messages.parser_corruptedFile, filename));
+		return tables;
+	}
+	/*
+	 * Answers the next packed table, and moves the tables past it.
+	 */
+	private static ByteBuffer nextTableBytes(ByteBuffer tables, int unitSize) throws java.io.IOException {
+		int length;
+		//minimal integrity check (whole number of units expected)
+		if (tables.remaining() < 4 || (length = tables.getInt()) < 0 || length > tables.remaining() || length % unitSize != 0)
+			throw new java.io.IOException(Messages.bind(Messages.parser_corruptedFile, TABLES_FILE));
+		ByteBuffer table = tables.slice();
+		table.limit(length);
+		tables.position(tables.position() + length);
+		return table;
+	}
+	private static byte[] nextByteTable(ByteBuffer tables) throws java.io.IOException {
+		ByteBuffer table = nextTableBytes(tables, 1);
+		byte[] bytes = new byte[table.remaining()];
+		table.get(bytes);
+		return bytes;
+	}
+	private static long[] nextLongTable(ByteBuffer tables) throws java.io.IOException {
+		ByteBuffer table = nextTableBytes(tables, 8);
+		long[] longs = new long[table.remaining() / 8];
+		table.asLongBuffer().get(longs);
+		return longs;
+	}
+	private static char[] nextTable(ByteBuffer tables) throws java.io.IOException {
+		ByteBuffer table = nextTableBytes(tables, 2);
+		char[] chars = new char[table.remaining() / 2];
+		table.asCharBuffer().get(chars);
+		return chars;
+	}
 	protected static byte[] readByteTable(String filename) throws java.io.IOException {
 	
 		//files are located at Parser.class directory
@@ -817,7 +908,9 @@ public class Parser extends CommitRollbackParser implements ConflictedParser, Op
 	}
 
 	protected static String[] readNameTable(String filename) throws java.io.IOException {
-		char[] contents = readTable(filename);
+		return nameTable(readTable(filename));
+	}
+	private static String[] nameTable(char[] contents) {
 		char[][] nameAsChar = CharOperation.splitOn('\n', contents);
 	
 		String[] result = new String[nameAsChar.length + 1];
@@ -216,6 +216,11 @@ public class RecoveryScanner extends Scanner {
 		return super.getCurrentIdentifierSource();
 	}
 
+	public boolean currentTokenSourceEquals(char[] name, boolean isCaseSensitive) {
+		if(this.fakeTokenSource != null) return CharOperation.equals(this.fakeTokenSource, name, isCaseSensitive);
+		return super.currentTokenSourceEquals(name, isCaseSensitive);
+	}
+
 	public char[] getCurrentTokenSourceString() {
 		if(this.fakeTokenSource != null) return this.fakeTokenSource;
 		return super.getCurrentTokenSourceString();
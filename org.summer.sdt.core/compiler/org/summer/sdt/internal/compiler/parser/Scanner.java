@@ -460,6 +460,16 @@ public class Scanner implements TerminalTokens {
 		System.arraycopy(this.source, this.startPosition, result, 0, length);
 		return result;
 	}
+	/**
+	 * Answers whether the source of the current token, unicodes being precomputed, is the given name,
+	 * without copying it.
+	 */
+	public boolean currentTokenSourceEquals(char[] name, boolean isCaseSensitive) {
+		if (this.withoutUnicodePtr != 0)
+			// 0 is used as a fast test flag so the real first char is in position 1
+			return CharOperation.equals(this.withoutUnicodeBuffer, 1, this.withoutUnicodePtr + 1, name, 0, name.length, isCaseSensitive);
+		return CharOperation.equals(this.source, this.startPosition, this.currentPosition, name, 0, name.length, isCaseSensitive);
+	}
 	public int getCurrentTokenEndPosition(){
 		return this.currentPosition - 1;
 	}
@@ -45,6 +45,8 @@ public class ScannerHelper {
 
 	public final static int MAX_OBVIOUS = 128;
 	public final static int[] OBVIOUS_IDENT_CHAR_NATURES = new int[MAX_OBVIOUS];
+	// the lower case of each obvious character, looked up by the case insensitive comparisons
+	private final static char[] OBVIOUS_LOWER_CASES = new char[MAX_OBVIOUS];
 
 	public final static int C_JLS_SPACE = ASTNode.Bit9;
 	public final static int C_SPECIAL = ASTNode.Bit8;
@@ -89,6 +91,8 @@ public class ScannerHelper {
 			OBVIOUS_IDENT_CHAR_NATURES[i] = C_LOWER_LETTER | C_IDENT_PART | C_IDENT_START;
 		for (int i = 'A'; i <= 'Z'; i++)
 			OBVIOUS_IDENT_CHAR_NATURES[i] = C_UPPER_LETTER | C_IDENT_PART | C_IDENT_START;
+		for (int i = 0; i < MAX_OBVIOUS; i++)
+			OBVIOUS_LOWER_CASES[i] = i >= 'A' && i <= 'Z' ? (char) (i + 32) : (char) i;
 
 		OBVIOUS_IDENT_CHAR_NATURES['_'] = C_SPECIAL | C_IDENT_PART | C_IDENT_START;
 		OBVIOUS_IDENT_CHAR_NATURES['$'] = C_SPECIAL | C_IDENT_PART | C_IDENT_START;
@@ -472,13 +476,8 @@ public static char toUpperCase(char c) {
 	return Character.toUpperCase(c);
 }
 public static char toLowerCase(char c) {
-	if (c < MAX_OBVIOUS) {
-		if ((ScannerHelper.OBVIOUS_IDENT_CHAR_NATURES[c] & ScannerHelper.C_LOWER_LETTER) != 0) {
-			return c;
-		} else if ((ScannerHelper.OBVIOUS_IDENT_CHAR_NATURES[c] & ScannerHelper.C_UPPER_LETTER) != 0) {
-			return (char) (32 + c);
-		}
-	}
+	if (c < MAX_OBVIOUS)
+		return OBVIOUS_LOWER_CASES[c];
 	return Character.toLowerCase(c);
 }
 public static boolean isLowerCase(char c) {
@@ -1561,6 +1561,8 @@ public class ProblemReporter extends ProblemHandler {
 				return this.underScoreIsLambdaParameter ? ProblemSeverities.Error : ProblemSeverities.Warning;
 			case IProblem.LambdaShapeComputationError:
 				return ProblemSeverities.InternalError;
+			case IProblem.ExcessiveInferenceWork:
+				return ProblemSeverities.Warning;
 		}
 		int irritant = getIrritant(problemID);
 		if (irritant != 0) {
@@ -10067,6 +10069,23 @@ public class ProblemReporter extends ProblemHandler {
 		}
 		this.handle(IProblem.GenericInferenceError, args, args, severity|ProblemSeverities.InternalError, start, end);	
 	}
+	public void excessiveInferenceWork(InvocationSite invocationSite) {
+		int start = 0, end = 0;
+		if (invocationSite != null) {
+			start = invocationSite.sourceStart();
+			end = invocationSite.sourceEnd();
+		}
+		this.handle(IProblem.ExcessiveInferenceWork, NoArgument, NoArgument, start, end);
+	}
+	public void javascriptUnsupportedConstruct(ASTNode location, String construct) {
+		String[] arguments = new String[] {construct};
+		this.handle(
+			IProblem.JavascriptUnsupportedConstruct,
+			arguments,
+			arguments,
+			location.sourceStart,
+			location.sourceEnd);
+	}
 	public void uninternedIdentityComparison(EqualExpression expr, TypeBinding lhs, TypeBinding rhs, CompilationUnitDeclaration unit) {
 		
 		char [] lhsName = lhs.sourceName();
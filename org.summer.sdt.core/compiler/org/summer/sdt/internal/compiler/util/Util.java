@@ -14,6 +14,7 @@ package org.summer.sdt.internal.compiler.util;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -21,9 +22,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.List;
 import java.util.StringTokenizer;
@@ -698,6 +704,45 @@ public class Util implements SuffixConstants {
 			}
 		}
 	}
+	/**
+	 * Releases the memory mapping of the given buffer right away instead of when the buffer is collected.
+	 * Some platforms do not delete, rename or truncate a file while a part of it is mapped.
+	 * <p>
+	 * The buffer, and any duplicate of it, must not be used anymore: the caller has to make sure that no
+	 * other thread reads it. The buffer must be the one answered by the mapping, not a duplicate or a slice.
+	 * </p>
+	 * @return whether the mapping was released, otherwise it is released once the buffer is collected
+	 */
+	public static boolean unmap(ByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect())
+			return false;
+		try {
+			// Java 9 and above
+			Class unsafeClass = Class.forName("sun.misc.Unsafe"); //$NON-NLS-1$
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", new Class[] { ByteBuffer.class }); //$NON-NLS-1$
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe"); //$NON-NLS-1$
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), new Object[] { buffer });
+			return true;
+		} catch (NoSuchMethodException e) {
+			// before Java 9, see below
+		} catch (Exception e) {
+			return false;
+		}
+		try {
+			Method cleanerMethod = buffer.getClass().getMethod("cleaner", new Class[0]); //$NON-NLS-1$
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(buffer, new Object[0]);
+			if (cleaner == null)
+				return false;
+			Method cleanMethod = cleaner.getClass().getMethod("clean", new Class[0]); //$NON-NLS-1$
+			cleanMethod.setAccessible(true);
+			cleanMethod.invoke(cleaner, new Object[0]);
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
 	public static int hashCode(Object[] array) {
 		int prime = 31;
 		if (array == null) {
@@ -1006,6 +1051,19 @@ public class Util implements SuffixConstants {
 			output.close();
 		}
 	}
+	/**
+	 * Write the given javascript contents (UTF-8 encoded) to disk, see {@link #writeToDisk(boolean, String, String, ClassFile)}.
+	 */
+	public static void writeToDisk(boolean generatePackagesStructure, String outputPath, String relativeFileName, char[] javascript) throws IOException {
+		FileOutputStream file = getFileOutputStream(generatePackagesStructure, outputPath, relativeFileName);
+		Writer output = new BufferedWriter(new OutputStreamWriter(file, UTF_8), DEFAULT_WRITING_SIZE);
+		try {
+			output.write(javascript, 0, javascript.length);
+			output.flush();
+		} finally {
+			output.close();
+		}
+	}
 	public static void recordNestedType(ClassFile classFile, TypeBinding typeBinding) {
 		if (classFile.visitedTypes == null) {
 			classFile.visitedTypes = new HashSet(3);
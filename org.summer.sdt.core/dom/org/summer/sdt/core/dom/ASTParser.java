@@ -865,6 +865,12 @@ public class ASTParser {
 	 * bindings are being resolved.
 	 * </p>
 	 * <p>
+	 * When bindings are being resolved, the method bodies of the compilation units may be
+	 * parsed on background threads. The units are still resolved, converted and reported
+	 * one at a time in the calling thread, so that the bindings of all the ASTs come from
+	 * the same environment and the requestor callbacks are made in the calling thread.
+	 * </p>
+	 * <p>
 	 * A successful call to this method returns all settings to their
 	 * default values so the object is ready to be reused.
 	 * </p>
@@ -954,6 +960,12 @@ public class ASTParser {
 	 * bindings are being resolved.
 	 * </p>
 	 * <p>
+	 * When bindings are being resolved, the method bodies of the compilation units may be
+	 * parsed on background threads. The units are still resolved, converted and reported
+	 * one at a time in the calling thread, so that the bindings of all the ASTs come from
+	 * the same environment and the requestor callbacks are made in the calling thread.
+	 * </p>
+	 * <p>
 	 * A successful call to this method returns all settings to their
 	 * default values so the object is ready to be reused.
 	 * </p>
@@ -341,6 +341,26 @@ class CompilationUnitResolver extends Compiler {
 	public void initializeParser() {
 		this.parser = new CommentRecorderParser(this.problemReporter, false);
 	}
+
+	/* (non-Javadoc)
+	 * @see org.summer.sdt.internal.compiler.Compiler#newWorkerParser()
+	 */
+	protected Parser newWorkerParser() {
+		ProblemReporter reporter = new ProblemReporter(this.problemReporter.policy, this.options, this.problemReporter.problemFactory);
+		return new CommentRecorderParser(reporter, false);
+	}
+
+	/*
+	 * The units passed to createASTs(...) can be many, so their method bodies are parsed on worker threads
+	 * unless the compiler is asked to use a single thread. Only the parsing is done in parallel: the units are
+	 * resolved and converted one after the other, since the lookup environment and the binding tables are
+	 * shared by all the units and are not thread-safe. Splitting the units between several environments would
+	 * give distinct bindings for the same element in different ASTs of the same batch.
+	 */
+	private void initializeThreads() {
+		String setting = System.getProperty("jdt.compiler.useSingleThread"); //$NON-NLS-1$
+		this.useSingleThread = setting != null && setting.equals("true"); //$NON-NLS-1$
+	}
 	public void process(CompilationUnitDeclaration unit, int i) {
 		// don't resolve a second time the same unit (this would create the same binding twice)
 		char[] fileName = unit.compilationResult.getFileName();
@@ -582,6 +602,7 @@ class CompilationUnitResolver extends Compiler {
 					problemFactory,
 					monitor,
 					javaProject != null);
+			resolver.initializeThreads();
 			resolver.resolve(compilationUnits, bindingKeys, requestor, apiLevel, options, owner, flags);
 			if (NameLookup.VERBOSE) {
 				System.out.println(Thread.currentThread() + " TIME SPENT in NameLoopkup#seekTypesInSourcePackage: " + environment.nameLookup.timeSpentInSeekTypesInSourcePackage + "ms");  //$NON-NLS-1$ //$NON-NLS-2$
@@ -633,6 +654,7 @@ class CompilationUnitResolver extends Compiler {
 						problemFactory,
 						monitor,
 						false);
+				resolver.initializeThreads();
 				resolver.resolve(sourceUnits, encodings, bindingKeys, requestor, apiLevel, options, flags);
 				if (NameLookup.VERBOSE && (environment instanceof CancelableNameEnvironment)) {
 					CancelableNameEnvironment cancelableNameEnvironment = (CancelableNameEnvironment) environment;
@@ -855,12 +877,14 @@ class CompilationUnitResolver extends Compiler {
 			org.summer.sdt.internal.compiler.env.ICompilationUnit[] sourceUnits = new org.summer.sdt.internal.compiler.env.ICompilationUnit[length];
 			System.arraycopy(compilationUnits, 0, sourceUnits, 0, length);
 			beginToCompile(sourceUnits, bindingKeys);
+			startParsingMethodBodies();
 			// process all units (some more could be injected in the loop by the lookup environment)
 			for (int i = 0; i < this.totalUnits; i++) {
 				if (resolvedRequestedSourcesAndKeys(i)) {
 					// no need to keep resolving if no more ASTs and no more binding keys are needed
 					// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=114935
 					// cleanup remaining units
+					stopParsingMethodBodies();
 					for (; i < this.totalUnits; i++) {
 						this.unitsToProcess[i].cleanUp();
 						this.unitsToProcess[i] = null;
@@ -949,6 +973,7 @@ class CompilationUnitResolver extends Compiler {
 			this.handleInternalException(e, unit, null);
 			throw e; // rethrow
 		} finally {
+			stopParsingMethodBodies();
 			// disconnect ourselves from ast requestor
 			astRequestor.compilationUnitResolver = null;
 		}
@@ -988,12 +1013,14 @@ class CompilationUnitResolver extends Compiler {
 				sourceUnits[count++] = new org.summer.sdt.internal.compiler.batch.CompilationUnit(contents, sourceUnitPath, encoding);
 			}
 			beginToCompile(sourceUnits, bindingKeys);
+			startParsingMethodBodies();
 			// process all units (some more could be injected in the loop by the lookup environment)
 			for (int i = 0; i < this.totalUnits; i++) {
 				if (resolvedRequestedSourcesAndKeys(i)) {
 					// no need to keep resolving if no more ASTs and no more binding keys are needed
 					// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=114935
 					// cleanup remaining units
+					stopParsingMethodBodies();
 					for (; i < this.totalUnits; i++) {
 						this.unitsToProcess[i].cleanUp();
 						this.unitsToProcess[i] = null;
@@ -1082,6 +1109,7 @@ class CompilationUnitResolver extends Compiler {
 			this.handleInternalException(e, unit, null);
 			throw e; // rethrow
 		} finally {
+			stopParsingMethodBodies();
 			// disconnect ourselves from ast requestor
 			astRequestor.compilationUnitResolver = null;
 		}
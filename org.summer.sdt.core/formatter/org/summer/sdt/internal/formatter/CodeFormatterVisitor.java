@@ -187,6 +187,8 @@ public class CodeFormatterVisitor extends ASTVisitor {
 	private Scanner localScanner;
 	public DefaultCodeFormatterOptions preferences;
 	public Scribe scribe;
+	// whether the methods outside the regions to format are left as is, see skipOutsideRegions(AbstractMethodDeclaration)
+	boolean skipMethodsOutsideRegions = true;
 
 	// Binary expression positions storage
 	final static long  EXPRESSIONS_POS_ENTER_EQUALITY = 1;
@@ -1625,7 +1627,9 @@ public class CodeFormatterVisitor extends ASTVisitor {
 						}
 					} else if (member instanceof AbstractMethodDeclaration) {
 						isChunkStart = memberAlignment.checkChunkStart(METHOD, i, this.scribe.scanner.currentPosition);
-						format((AbstractMethodDeclaration) member, null, isChunkStart, i == 0);
+						if (!skipOutsideRegions((AbstractMethodDeclaration) member)) {
+							format((AbstractMethodDeclaration) member, null, isChunkStart, i == 0);
+						}
 					} else {
 						isChunkStart = memberAlignment.checkChunkStart(TYPE, i, this.scribe.scanner.currentPosition);
 						format((TypeDeclaration)member, null, isChunkStart, i == 0);
@@ -2272,7 +2276,9 @@ public class CodeFormatterVisitor extends ASTVisitor {
 							}
 						} else if (member instanceof AbstractMethodDeclaration) {
 							isChunkStart = memberAlignment.checkChunkStart(Alignment.CHUNK_METHOD, i, this.scribe.scanner.currentPosition);
-							format((AbstractMethodDeclaration) member, typeDeclaration.scope, isChunkStart, i == 0);
+							if (!skipOutsideRegions((AbstractMethodDeclaration) member)) {
+								format((AbstractMethodDeclaration) member, typeDeclaration.scope, isChunkStart, i == 0);
+							}
 						} else if (member instanceof TypeDeclaration) {
 							isChunkStart = memberAlignment.checkChunkStart(Alignment.CHUNK_TYPE, i, this.scribe.scanner.currentPosition);
 							format((TypeDeclaration)member, typeDeclaration.scope, isChunkStart, i == 0);
@@ -2303,6 +2309,24 @@ public class CodeFormatterVisitor extends ASTVisitor {
 		this.scribe.exitMemberAlignment(memberAlignment);
 	}
 
+	/*
+	 * Leaves the given method as is when none of the edits of its formatting would be kept, the method being
+	 * outside the regions to format. Answers whether the method was skipped.
+	 * The last member of class body declarations is handled the same way: it is only skipped when a line
+	 * break follows it, and the source after it is formatted from the same state as after printing it.
+	 */
+	private boolean skipOutsideRegions(AbstractMethodDeclaration methodDeclaration) {
+		if (!this.skipMethodsOutsideRegions) {
+			return false;
+		}
+		int declarationSourceEnd = methodDeclaration.declarationSourceEnd;
+		if (this.scribe.scanner.source[declarationSourceEnd] != '}' || !this.scribe.canSkipUpTo(declarationSourceEnd)) {
+			return false;
+		}
+		this.scribe.skipUpTo(declarationSourceEnd);
+		return true;
+	}
+
 	private void formatTypeOpeningBraceForEnumConstant(String bracePosition, boolean insertSpaceBeforeBrace, TypeDeclaration typeDeclaration) {
 		int fieldCount = (typeDeclaration.fields == null) ? 0 : typeDeclaration.fields.length;
 		int methodCount = (typeDeclaration.methods == null) ? 0 : typeDeclaration.methods.length;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import java.util.Map;
 
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Region;
+import org.eclipse.text.edits.ReplaceEdit;
 import org.eclipse.text.edits.TextEdit;
 import org.summer.sdt.core.JavaCore;
 import org.summer.sdt.core.compiler.ITerminalSymbols;
@@ -61,6 +62,12 @@ public class DefaultCodeFormatter extends CodeFormatter {
 	private CodeFormatterVisitor newCodeFormatter;
 	private Map options;
 
+	/**
+	 * Whether the methods outside the regions to format are left as is instead of being formatted,
+	 * their edits being dropped. Both give the same edits, tests turn it off to compare them.
+	 */
+	public boolean skipMethodsOutsideRegions = true;
+
 	private DefaultCodeFormatterOptions preferences;
 
 	public DefaultCodeFormatter() {
@@ -157,6 +164,38 @@ public class DefaultCodeFormatter extends CodeFormatter {
 			throw new IllegalArgumentException();
 		}
 
+		TextEdit textEdit = internalFormat(kind, source, regions, indentationLevel, lineSeparator);
+		if (DEBUG && this.skipMethodsOutsideRegions) {
+			checkSkippedMethods(kind, source, regions, indentationLevel, lineSeparator, textEdit);
+		}
+		return textEdit;
+	}
+
+	/*
+	 * Formats the source again without leaving the methods outside the regions as is, and reports
+	 * when this does not answer the same edits.
+	 */
+	private void checkSkippedMethods(int kind, String source, IRegion[] regions, int indentationLevel, String lineSeparator, TextEdit textEdit) {
+		CodeFormatterVisitor codeFormatter = this.newCodeFormatter;
+		this.skipMethodsOutsideRegions = false;
+		try {
+			TextEdit expectedEdit = internalFormat(kind, source, regions, indentationLevel, lineSeparator);
+			String expected = toDebugString(expectedEdit);
+			String actual = toDebugString(textEdit);
+			if (!expected.equals(actual)) {
+				System.out.println("Skipping the methods outside the regions changed the edits"); //$NON-NLS-1$
+				System.out.println("Expected:"); //$NON-NLS-1$
+				System.out.println(expected);
+				System.out.println("Actual:"); //$NON-NLS-1$
+				System.out.println(actual);
+			}
+		} finally {
+			this.skipMethodsOutsideRegions = true;
+			this.newCodeFormatter = codeFormatter;
+		}
+	}
+
+	private TextEdit internalFormat(int kind, String source, IRegion[] regions, int indentationLevel, String lineSeparator) {
 		this.codeSnippetParsingUtil = new CodeSnippetParsingUtil();
 		boolean includeComments =  (kind & F_INCLUDE_COMMENTS) != 0;
 		switch(kind & K_MASK) {
@@ -240,6 +279,7 @@ public class DefaultCodeFormatter extends CodeFormatter {
 		this.preferences.initial_indentation_level = indentationLevel;
 
 		this.newCodeFormatter = new CodeFormatterVisitor(this.preferences, this.options, regions, this.codeSnippetParsingUtil, includeComments);
+		this.newCodeFormatter.skipMethodsOutsideRegions = this.skipMethodsOutsideRegions;
 
 		return this.newCodeFormatter.format(source, compilationUnitDeclaration);
 	}
@@ -367,6 +407,7 @@ public class DefaultCodeFormatter extends CodeFormatter {
 		this.preferences.initial_indentation_level = indentationLevel;
 
 		this.newCodeFormatter = new CodeFormatterVisitor(this.preferences, this.options, regions, this.codeSnippetParsingUtil, includeComments);
+		this.newCodeFormatter.skipMethodsOutsideRegions = this.skipMethodsOutsideRegions;
 		return this.newCodeFormatter.format(source, bodyDeclarations);
 	}
 
@@ -379,6 +420,7 @@ public class DefaultCodeFormatter extends CodeFormatter {
 		this.preferences.initial_indentation_level = indentationLevel;
 
 		this.newCodeFormatter = new CodeFormatterVisitor(this.preferences, this.options, regions, this.codeSnippetParsingUtil, includeComments);
+		this.newCodeFormatter.skipMethodsOutsideRegions = this.skipMethodsOutsideRegions;
 
 		TextEdit textEdit = this.newCodeFormatter.format(source, expression);
 		return textEdit;
@@ -393,6 +435,7 @@ public class DefaultCodeFormatter extends CodeFormatter {
 		this.preferences.initial_indentation_level = indentationLevel;
 
 		this.newCodeFormatter = new CodeFormatterVisitor(this.preferences, this.options, regions, this.codeSnippetParsingUtil, includeComments);
+		this.newCodeFormatter.skipMethodsOutsideRegions = this.skipMethodsOutsideRegions;
 
 		return this.newCodeFormatter.format(source, constructorDeclaration);
 	}
@@ -467,6 +510,28 @@ public class DefaultCodeFormatter extends CodeFormatter {
 		return formatCompilationUnit(source, indentationLevel, lineSeparator, regions, includeComments);
 	}
 
+	private static String toDebugString(TextEdit edit) {
+		StringBuffer buffer = new StringBuffer();
+		toDebugString(edit, buffer);
+		return buffer.toString();
+	}
+
+	private static void toDebugString(TextEdit edit, StringBuffer buffer) {
+		if (edit == null) {
+			buffer.append("null"); //$NON-NLS-1$
+			return;
+		}
+		buffer.append('[').append(edit.getOffset()).append(", ").append(edit.getLength()).append(']'); //$NON-NLS-1$
+		if (edit instanceof ReplaceEdit) {
+			buffer.append(" \"").append(((ReplaceEdit) edit).getText()).append('"'); //$NON-NLS-1$
+		}
+		buffer.append('\n');
+		TextEdit[] children = edit.getChildren();
+		for (int i = 0, length = children.length; i < length; i++) {
+			toDebugString(children[i], buffer);
+		}
+	}
+
 	/**
 	 * True if
 	 * 1. All regions are within maxLength
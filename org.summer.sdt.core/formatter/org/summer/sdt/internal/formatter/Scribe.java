@@ -354,6 +354,13 @@ public class Scribe implements IJavaDocTagConstants {
     			if (editEnd < regionStart) { // the edit ends before the region's start => no possible overlap of region's start
 	    			bottom = i+1;
 				} else {
+					// Several edits overlap the region's start when one ends where the next starts, always
+					// adapt the last one so that the result does not depend on the other edits
+					while (i < topEnd && sortedEdits[i+1].offset <= regionStart) {
+						edit = sortedEdits[++i];
+						editStart = edit.offset;
+						editEnd = editStart + edit.length;
+					}
 					// Count the lines of the edit which are outside the region
 					int linesOutside = 0;
 					StringBuffer spacesOutside = new StringBuffer();
@@ -467,6 +474,10 @@ public class Scribe implements IJavaDocTagConstants {
    			if (regionEnd < editStart) {	// the edit starts after the region's end => no possible overlap of region's end
     			topEnd = i-1;
     		} else if (regionEnd == editStart) {	// special case when the edit starts just after the region's end...
+    			// ...take the first of the edits starting there so that the result does not depend on the other edits
+    			while (i > bottom && sortedEdits[i-1].offset == regionEnd) {
+    				edit = sortedEdits[--i];
+    			}
     			// ...we got the last index of the edit inside the region
 				topEnd = i - 1;
     			// this last edit is valid only if it's an insertion and if it has indentation
@@ -5056,9 +5067,72 @@ public class Scribe implements IJavaDocTagConstants {
 		this.maxLines = this.lineEnds == null ? -1 : this.lineEnds.length - 1;
 		this.scanner.lineEnds = this.lineEnds;
 		this.scanner.linePtr = this.maxLines;
+		this.adaptedRegions = null;
 		initFormatterCommentParser();
 	}
 
+	/**
+	 * Answers whether the source from the current position up to the given end position can be left as is
+	 * without changing the edits answered by {@link #getRootEdit()}: none of its edits would be kept since the
+	 * source does not touch the regions to format, and its formatting could not change the formatting of the
+	 * rest of the source.
+	 * <p>
+	 * The given end position is expected to be the last token of a member, followed by a line break.
+	 * </p>
+	 */
+	boolean canSkipUpTo(int endPosition) {
+		if (!this.editsEnabled || this.currentAlignment != null || this.nlsTagCounter > 0) {
+			return false;
+		}
+		int startPosition = this.scanner.currentPosition;
+		if (endPosition + 1 >= this.scannerEndPosition) {
+			return false;
+		}
+		char[] source = this.scanner.source;
+		if (source[endPosition + 1] != '\r' && source[endPosition + 1] != '\n') {
+			return false;
+		}
+		if (this.adaptedRegions == null) {
+			adaptRegions();
+		}
+		for (int i = 0, length = this.adaptedRegions.length; i < length; i++) {
+			int offset = this.adaptedRegions[i].getOffset();
+			if (offset > endPosition + 2) {
+				break;
+			}
+			// edits touching the bounds of a region are adapted to it, keep away from them
+			if (offset + this.adaptedRegions[i].getLength() >= startPosition - 1) {
+				return false;
+			}
+		}
+		if (this.useTags) {
+			// formatting of the skipped source could be disabled or enabled
+			if (this.disablingTag != null && CharOperation.indexOf(this.disablingTag, source, true, startPosition, endPosition + 1) >= 0) {
+				return false;
+			}
+			if (this.enablingTag != null && CharOperation.indexOf(this.enablingTag, source, true, startPosition, endPosition + 1) >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Leaves the source from the current position up to the given end position as is, as if it had been
+	 * printed with its last token at the given end position, see {@link #canSkipUpTo(int)}.
+	 */
+	void skipUpTo(int endPosition) {
+		this.scanner.resetTo(endPosition + 1, this.scannerEndPosition - 1);
+		this.scanner.startPosition = endPosition;
+		this.currentToken = TerminalTokens.TokenNameRBRACE;
+		this.column = this.indentationLevel + 2;
+		this.lastNumberOfNewLines = 0;
+		this.needSpace = false;
+		this.pendingSpace = false;
+		this.preserveLineBreakIndentation = false;
+		this.lastLineComment.contiguous = false;
+	}
+
 	private void resize() {
 		System.arraycopy(this.edits, 0, (this.edits = new OptimizedReplaceEdit[this.editsIndex * 2]), 0, this.editsIndex);
 	}
@@ -71,6 +71,8 @@ public abstract class CompletionRequestor {
 
 	private boolean requireExtendedContext = false;
 
+	private int maxProposals = 0;
+
 	/**
 	 * Creates a new completion requestor.
 	 * The requestor is interested in all kinds of completion
@@ -355,4 +357,38 @@ public abstract class CompletionRequestor {
 	public void setRequireExtendedContext(boolean require) {
 		this.requireExtendedContext = require;
 	}
+
+	/**
+	 * Returns the maximum number of proposals this requestor accepts, or
+	 * <code>0</code> if it accepts all of them.
+	 *
+	 * By default this method return <code>0</code>.
+	 *
+	 * @return the maximum number of proposals, or <code>0</code> if there is no limit
+	 *
+	 * @see #setMaxProposals(int)
+	 *
+	 * @since 3.10
+	 */
+	public int getMaxProposals() {
+		return this.maxProposals;
+	}
+
+	/**
+	 * Sets the maximum number of proposals this requestor accepts.
+	 * <p>
+	 * When limited, only the proposals of highest relevance are accepted,
+	 * by decreasing relevance, once all candidates have been considered, that is
+	 * right before {@link #endReporting()}. Proposals of the same relevance are
+	 * accepted in the order they were found. The candidates which cannot be among
+	 * the accepted proposals are dropped before their proposal is created.
+	 * </p>
+	 *
+	 * @param max the maximum number of proposals, or <code>0</code> to accept all of them
+	 *
+	 * @since 3.10
+	 */
+	public void setMaxProposals(int max) {
+		this.maxProposals = max < 0 ? 0 : max;
+	}
 }
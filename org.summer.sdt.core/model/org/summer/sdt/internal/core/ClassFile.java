@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.summer.sdt.internal.core;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,6 +28,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.summer.sdt.core.*;
 import org.summer.sdt.core.compiler.IProblem;
+import org.summer.sdt.internal.compiler.classfmt.BinaryTypeCache;
 import org.summer.sdt.internal.compiler.classfmt.ClassFileReader;
 import org.summer.sdt.internal.compiler.classfmt.ClassFormatException;
 import org.summer.sdt.internal.compiler.env.IBinaryType;
@@ -345,7 +347,10 @@ public class ClassFile extends Openable implements IClassFile, SuffixConstants {
 			String entryName = Util.concatWith(pkg.names, getElementName(), '/');
 			ZipEntry ze = zip.getEntry(entryName);
 			if (ze != null) {
-				byte contents[] = org.summer.sdt.internal.compiler.util.Util.getZipEntryByteContent(ze, zip);
+				BinaryTypeCache cache = BinaryTypeCache.getShared();
+				byte contents[] = cache == null
+					? org.summer.sdt.internal.compiler.util.Util.getZipEntryByteContent(ze, zip)
+					: cache.getJarCache(new File(zip.getName())).getClassFileBytes(zip, entryName);
 				String fileName = root.getHandleIdentifier() + IDependent.JAR_FILE_ENTRY_SEPARATOR + entryName;
 				return new ClassFileReader(contents, fileName.toCharArray(), fullyInitialize);
 			}
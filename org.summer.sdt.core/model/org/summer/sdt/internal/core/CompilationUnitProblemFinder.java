@@ -27,6 +27,7 @@ import org.summer.sdt.internal.compiler.impl.CompilerOptions;
 import org.summer.sdt.internal.compiler.lookup.PackageBinding;
 import org.summer.sdt.internal.compiler.parser.SourceTypeConverter;
 import org.summer.sdt.internal.compiler.problem.AbortCompilation;
+import org.summer.sdt.internal.compiler.problem.ProblemReporter;
 import org.summer.sdt.internal.core.util.CommentRecorderParser;
 import org.summer.sdt.internal.core.util.Util;
 
@@ -37,6 +38,13 @@ import org.summer.sdt.internal.core.util.Util;
 @SuppressWarnings({ "rawtypes", "unchecked" })
 public class CompilationUnitProblemFinder extends Compiler {
 
+	/*
+	 * The state of the working copy being reconciled and its state after the previous reconcile, if any.
+	 * Both are null when the bodies of all methods are analysed.
+	 */
+	ReconcileState reconcileState;
+	ReconcileState previousReconcileState;
+
 	/**
 	 * Answer a new CompilationUnitVisitor using the given name environment and compiler options.
 	 * The environment and options will be in effect for the lifetime of the compiler.
@@ -128,6 +136,28 @@ public class CompilationUnitProblemFinder extends Compiler {
 		}
 	}
 
+	/* (non-Javadoc)
+	 * Only analyse the method bodies that changed since the previous reconcile of the working copy.
+	 * @see org.summer.sdt.internal.compiler.Compiler#analyseAndGenerateCode(CompilationUnitDeclaration, boolean, boolean)
+	 */
+	protected void analyseAndGenerateCode(CompilationUnitDeclaration unit, boolean analyzeCode, boolean generateCode) {
+		if (this.reconcileState == null || !analyzeCode || !generateCode) {
+			super.analyseAndGenerateCode(unit, analyzeCode, generateCode);
+			return;
+		}
+		CompilationResult unitResult = unit.compilationResult;
+		int resolvedProblemCount = unitResult.problemCount;
+		CategorizedProblem[] knownProblems = this.reconcileState.skipUnchangedBodies(unit, this.previousReconcileState);
+		super.analyseAndGenerateCode(unit, analyzeCode, generateCode);
+		if (knownProblems != null) {
+			for (int i = 0, length = knownProblems.length; i < length; i++) {
+				CategorizedProblem problem = knownProblems[i];
+				unitResult.record(problem, unit, problem.isError() && ProblemReporter.getIrritant(problem.getID()) == 0);
+			}
+		}
+		this.reconcileState.recordBodyProblems(unit, resolvedProblemCount);
+	}
+
 	protected static CompilerOptions getCompilerOptions(Map settings, boolean creatingAST, boolean statementsRecovery) {
 		CompilerOptions compilerOptions = new CompilerOptions(settings);
 		compilerOptions.performMethodsFullRecovery = statementsRecovery;
@@ -170,6 +200,7 @@ public class CompilationUnitProblemFinder extends Compiler {
 		throws JavaModelException {
 
 		JavaProject project = (JavaProject) unitElement.getJavaProject();
+		long modificationStamp = JavaModelManager.getJavaModelManager().deltaState.getModificationStamp();
 		CancelableNameEnvironment environment = null;
 		CancelableProblemFactory problemFactory = null;
 		CompilationUnitProblemFinder problemFinder = null;
@@ -177,7 +208,8 @@ public class CompilationUnitProblemFinder extends Compiler {
 		try {
 			environment = new CancelableNameEnvironment(project, workingCopyOwner, monitor);
 			problemFactory = new CancelableProblemFactory(monitor);
-			CompilerOptions compilerOptions = getCompilerOptions(project.getOptions(true), creatingAST, ((reconcileFlags & ICompilationUnit.ENABLE_STATEMENTS_RECOVERY) != 0));
+			Map projectOptions = project.getOptions(true);
+			CompilerOptions compilerOptions = getCompilerOptions(projectOptions, creatingAST, ((reconcileFlags & ICompilationUnit.ENABLE_STATEMENTS_RECOVERY) != 0));
 			boolean ignoreMethodBodies = (reconcileFlags & ICompilationUnit.IGNORE_METHOD_BODIES) != 0;
 			compilerOptions.ignoreMethodBodies = ignoreMethodBodies;
 			problemFinder = new CompilationUnitProblemFinder(
@@ -192,6 +224,17 @@ public class CompilationUnitProblemFinder extends Compiler {
 			}
 			try {
 				if (parser != null) {
+					// the working copy is being made consistent: reuse what its previous reconcile found in unchanged method bodies
+					JavaModelManager.PerWorkingCopyInfo perWorkingCopyInfo = analyzeAndGenerateCode ? unitElement.getPerWorkingCopyInfo() : null;
+					if (perWorkingCopyInfo != null) {
+						problemFinder.previousReconcileState = perWorkingCopyInfo.reconcileState;
+						problemFinder.reconcileState = new ReconcileState(
+							projectOptions,
+							reconcileFlags,
+							creatingAST,
+							modificationStamp,
+							getWorkingCopyInfos(unitElement, workingCopyOwner));
+					}
 					problemFinder.parser = parser;
 					unit = parser.parseCompilationUnit(unitElement, true/*full parse*/, monitor);
 					problemFinder.resolve(
@@ -200,6 +243,8 @@ public class CompilationUnitProblemFinder extends Compiler {
 						true, // verify methods
 						analyzeAndGenerateCode, // analyze code
 						analyzeAndGenerateCode); // generate code
+					if (perWorkingCopyInfo != null)
+						perWorkingCopyInfo.reconcileState = problemFinder.reconcileState;
 				} else {
 					unit =
 						problemFinder.resolve(
@@ -271,6 +316,23 @@ public class CompilationUnitProblemFinder extends Compiler {
 		return process(unitElement, null/*use default Parser*/, workingCopyOwner, problems, creatingAST, reconcileFlags, monitor);
 	}
 
+	/*
+	 * Returns the element infos of the working copies visible from the given one, which the problems of the
+	 * given one depend on. A working copy gets a new info each time it is made consistent.
+	 */
+	private static Object[] getWorkingCopyInfos(CompilationUnit unitElement, WorkingCopyOwner workingCopyOwner) {
+		JavaModelManager manager = JavaModelManager.getJavaModelManager();
+		ICompilationUnit[] workingCopies = manager.getWorkingCopies(workingCopyOwner, true/*add primary working copies*/);
+		if (workingCopies == null)
+			return new Object[0];
+		Object[] infos = new Object[workingCopies.length];
+		for (int i = 0, length = workingCopies.length; i < length; i++) {
+			if (!workingCopies[i].equals(unitElement))
+				infos[i] = manager.getInfo(workingCopies[i]);
+		}
+		return infos;
+	}
+
 	/* (non-Javadoc)
 	 * Fix for bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=60689.
 	 * @see org.summer.sdt.internal.compiler.Compiler#initializeParser()
@@ -19,6 +19,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -116,6 +117,20 @@ public class DeltaProcessingState implements IResourceChangeListener {
 	 */
 	private HashSet externalElementsToRefresh;
 
+	/*
+	 * Incremented each time a POST_CHANGE delta is fired, so that the results computed against a state of the
+	 * Java model can be known to be stale (see CompilationUnitProblemFinder)
+	 */
+	private AtomicLong modificationStamp = new AtomicLong();
+
+	public long getModificationStamp() {
+		return this.modificationStamp.get();
+	}
+
+	public void incrementModificationStamp() {
+		this.modificationStamp.incrementAndGet();
+	}
+
 	/*
 	 * Need to clone defensively the listener information, in case some listener is reacting to some notification iteration by adding/changing/removing
 	 * any of the other (for example, if it deregisters itself).
@@ -1510,6 +1510,8 @@ public class DeltaProcessor {
 			System.out.println(deltaToNotify == null ? "<NONE>" : deltaToNotify.toString()); //$NON-NLS-1$
 		}
 		if (deltaToNotify != null) {
+			this.state.incrementModificationStamp();
+
 			// flush now so as to keep listener reactions to post their own deltas for subsequent iteration
 			flush();
 
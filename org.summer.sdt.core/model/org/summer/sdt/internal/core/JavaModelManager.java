@@ -22,6 +22,9 @@ import java.net.URI;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
@@ -49,6 +52,7 @@ import org.summer.sdt.internal.codeassist.CompletionEngine;
 import org.summer.sdt.internal.codeassist.SelectionEngine;
 import org.summer.sdt.internal.compiler.AbstractAnnotationProcessorManager;
 import org.summer.sdt.internal.compiler.Compiler;
+import org.summer.sdt.internal.compiler.classfmt.BinaryTypeCache;
 import org.summer.sdt.internal.compiler.classfmt.ClassFileConstants;
 import org.summer.sdt.internal.compiler.env.AccessRestriction;
 import org.summer.sdt.internal.compiler.impl.CompilerOptions;
@@ -96,6 +100,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 	/**
 	 * Define a zip cache object.
+	 * The zip files it holds are shared, the thread only keeps one reference to each of them until it is flushed.
 	 */
 	static class ZipCache {
 		private Map map;
@@ -108,17 +113,14 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 		public void flush() {
 			Thread currentThread = Thread.currentThread();
+			JavaModelManager manager = JavaModelManager.getJavaModelManager();
 			Iterator iterator = this.map.values().iterator();
 			while (iterator.hasNext()) {
-				try {
-					ZipFile zipFile = (ZipFile)iterator.next();
-					if (JavaModelManager.ZIP_ACCESS_VERBOSE) {
-						System.out.println("(" + currentThread + ") [JavaModelManager.flushZipFiles()] Closing ZipFile on " +zipFile.getName()); //$NON-NLS-1$//$NON-NLS-2$
-					}
-					zipFile.close();
-				} catch (IOException e) {
-					// problem occured closing zip file: cannot do much more
+				ZipFile zipFile = (ZipFile)iterator.next();
+				if (JavaModelManager.ZIP_ACCESS_VERBOSE) {
+					System.out.println("(" + currentThread + ") [JavaModelManager.flushZipFiles()] Releasing ZipFile on " +zipFile.getName()); //$NON-NLS-1$//$NON-NLS-2$
 				}
+				manager.releaseZipFile(zipFile);
 			}
 		}
 
@@ -126,10 +128,75 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			return (ZipFile) this.map.get(path);
 		}
 
+		boolean contains(ZipFile zipFile) {
+			return this.map.containsValue(zipFile);
+		}
+
 		public void setCache(IPath path, ZipFile zipFile) {
 			this.map.put(path, zipFile);
 		}
 	}
+	/**
+	 * A zip file opened once for all the threads, see {@link JavaModelManager#getZipFile(IPath)}.
+	 * Its reference count is -1 once it is closed, it cannot be acquired anymore then.
+	 */
+	static class SharedZipFile {
+		final IPath path;
+		final File localFile;
+		final ZipFile zipFile;
+		final long lastModified;
+		final long length;
+		final AtomicInteger references = new AtomicInteger(1); // the thread which opens it uses it
+		volatile long lastRelease;
+
+		SharedZipFile(IPath path, File localFile, ZipFile zipFile) {
+			this.path = path;
+			this.localFile = localFile;
+			this.zipFile = zipFile;
+			this.lastModified = localFile.lastModified();
+			this.length = localFile.length();
+			this.lastRelease = System.currentTimeMillis();
+		}
+
+		boolean acquire() {
+			int count;
+			while ((count = this.references.get()) >= 0) {
+				if (this.references.compareAndSet(count, count + 1))
+					return true;
+			}
+			return false; // already closed
+		}
+
+		/*
+		 * Answers whether the last reference was released.
+		 */
+		boolean release() {
+			this.lastRelease = System.currentTimeMillis();
+			return this.references.decrementAndGet() == 0;
+		}
+
+		/*
+		 * Closes the zip file if it is not used. Answers whether it was closed by this call.
+		 */
+		boolean close() {
+			if (!this.references.compareAndSet(0, -1))
+				return false;
+			try {
+				if (JavaModelManager.ZIP_ACCESS_VERBOSE) {
+					System.out.println("(" + Thread.currentThread() + ") [JavaModelManager.SharedZipFile.close()] Closing ZipFile on " + this.zipFile.getName()); //$NON-NLS-1$	//$NON-NLS-2$
+				}
+				this.zipFile.close();
+			} catch (IOException e) {
+				// problem occured closing zip file: cannot do much more
+			}
+			return true;
+		}
+
+		boolean isStale() {
+			return this.localFile.lastModified() != this.lastModified || this.localFile.length() != this.length;
+		}
+	}
+
 	/**
 	 * Unique handle onto the JavaModel
 	 */
@@ -1377,6 +1444,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		int useCount = 0;
 		IProblemRequestor problemRequestor;
 		CompilationUnit workingCopy;
+		volatile ReconcileState reconcileState; // what the last problem detection learnt about the method bodies
 		public PerWorkingCopyInfo(CompilationUnit workingCopy, IProblemRequestor problemRequestor) {
 			this.workingCopy = workingCopy;
 			this.problemRequestor = problemRequestor;
@@ -1438,6 +1506,16 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 */
 	private ThreadLocal zipFiles = new ThreadLocal();
 
+	/*
+	 * The zip files shared by all the threads, keyed by path (IPath -> SharedZipFile) and by zip file (ZipFile -> SharedZipFile).
+	 * Unused zip files are closed after ZIP_FILE_IDLE_TIME, or when the archive changed on disk.
+	 */
+	private final ConcurrentHashMap sharedZipFiles = new ConcurrentHashMap();
+	private final ConcurrentHashMap sharedZipFilesByZipFile = new ConcurrentHashMap();
+	private final AtomicLong lastZipFilesEviction = new AtomicLong();
+	static final long ZIP_FILE_IDLE_TIME = 60000;
+	static final long ZIP_FILE_EVICTION_INTERVAL = 10000;
+
 	private UserLibraryManager userLibraryManager;
 	
 	/*
@@ -1655,16 +1733,66 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 	public void closeZipFile(ZipFile zipFile) {
 		if (zipFile == null) return;
-		if (this.zipFiles.get() != null) {
-			return; // zip file will be closed by call to flushZipFiles
+		ZipCache zipCache = (ZipCache) this.zipFiles.get();
+		if (zipCache != null && zipCache.contains(zipFile)) {
+			return; // zip file will be released by call to flushZipFiles
 		}
-		try {
-			if (JavaModelManager.ZIP_ACCESS_VERBOSE) {
-				System.out.println("(" + Thread.currentThread() + ") [JavaModelManager.closeZipFile(ZipFile)] Closing ZipFile on " +zipFile.getName()); //$NON-NLS-1$	//$NON-NLS-2$
+		releaseZipFile(zipFile);
+	}
+
+	/*
+	 * Releases a reference to the given zip file, which is only closed when it is no longer shared.
+	 */
+	void releaseZipFile(ZipFile zipFile) {
+		SharedZipFile shared = (SharedZipFile) this.sharedZipFilesByZipFile.get(zipFile);
+		if (shared == null) {
+			// not opened by getZipFile(IPath)
+			try {
+				if (JavaModelManager.ZIP_ACCESS_VERBOSE) {
+					System.out.println("(" + Thread.currentThread() + ") [JavaModelManager.closeZipFile(ZipFile)] Closing ZipFile on " +zipFile.getName()); //$NON-NLS-1$	//$NON-NLS-2$
+				}
+				zipFile.close();
+			} catch (IOException e) {
+				// problem occured closing zip file: cannot do much more
+			}
+			return;
+		}
+		if (shared.release() && this.sharedZipFiles.get(shared.path) != shared)
+			closeSharedZipFile(shared); // the archive changed on disk and is no longer shared
+		evictIdleZipFiles();
+	}
+
+	private void closeSharedZipFile(SharedZipFile shared) {
+		if (shared.close())
+			this.sharedZipFilesByZipFile.remove(shared.zipFile);
+	}
+
+	private void closeSharedZipFiles() {
+		Iterator iterator = this.sharedZipFiles.values().iterator();
+		while (iterator.hasNext()) {
+			SharedZipFile shared = (SharedZipFile) iterator.next();
+			shared.references.set(0); // close even if it is still used
+			closeSharedZipFile(shared);
+		}
+		this.sharedZipFiles.clear();
+	}
+
+	/*
+	 * Closes the shared zip files which have not been used for ZIP_FILE_IDLE_TIME.
+	 * The check is done at most once per ZIP_FILE_EVICTION_INTERVAL.
+	 */
+	private void evictIdleZipFiles() {
+		long now = System.currentTimeMillis();
+		long last = this.lastZipFilesEviction.get();
+		if (now - last < ZIP_FILE_EVICTION_INTERVAL || !this.lastZipFilesEviction.compareAndSet(last, now))
+			return;
+		Iterator iterator = this.sharedZipFiles.values().iterator();
+		while (iterator.hasNext()) {
+			SharedZipFile shared = (SharedZipFile) iterator.next();
+			if (shared.references.get() == 0 && now - shared.lastRelease > ZIP_FILE_IDLE_TIME && shared.close()) {
+				this.sharedZipFiles.remove(shared.path, shared);
+				this.sharedZipFilesByZipFile.remove(shared.zipFile);
 			}
-			zipFile.close();
-		} catch (IOException e) {
-			// problem occured closing zip file: cannot do much more
 		}
 	}
 
@@ -2597,12 +2725,58 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	}
 
 	/**
-	 * Returns the File to use for saving and restoring the last built state for the given project.
+	 * Returns the File to use for restoring the last built state for the given project.
+	 * <p>
+	 * A state read from a state file keeps mapping it, so a new state is not written over the previous
+	 * state file but to a new one, see {@link #saveBuiltState(PerProjectInfo)}. The state files are
+	 * "state.dat", then "state.1.dat", "state.2.dat"..., the most recent one is answered.
+	 * </p>
 	 */
 	private File getSerializationFile(IProject project) {
 		if (!project.exists()) return null;
-		IPath workingLocation = project.getWorkingLocation(JavaCore.PLUGIN_ID);
-		return workingLocation.append("state.dat").toFile(); //$NON-NLS-1$
+		File directory = project.getWorkingLocation(JavaCore.PLUGIN_ID).toFile();
+		File file = new File(directory, "state.dat"); //$NON-NLS-1$
+		long generation = 0;
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (int i = 0, length = files.length; i < length; i++) {
+				long fileGeneration = getStateFileGeneration(files[i].getName());
+				if (fileGeneration > generation) {
+					generation = fileGeneration;
+					file = files[i];
+				}
+			}
+		}
+		return file;
+	}
+
+	/*
+	 * Answers the generation of the given state file name, 0 for "state.dat", -1 if it is not a state file name.
+	 */
+	private static long getStateFileGeneration(String fileName) {
+		if (fileName.equals("state.dat")) //$NON-NLS-1$
+			return 0;
+		if (!fileName.startsWith("state.") || !fileName.endsWith(".dat")) //$NON-NLS-1$ //$NON-NLS-2$
+			return -1;
+		try {
+			long generation = Long.parseLong(fileName.substring(6, fileName.length() - 4));
+			return generation > 0 ? generation : -1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/*
+	 * Deletes the state files in the given directory but the given one. A state file still mapped by a state
+	 * read from it may not be deleted on some platforms, it is then deleted by a following save.
+	 */
+	private static void deleteStateFiles(File directory, File keep) {
+		File[] files = directory.listFiles();
+		if (files == null) return;
+		for (int i = 0, length = files.length; i < length; i++) {
+			if (!files[i].equals(keep) && getStateFileGeneration(files[i].getName()) >= 0)
+				files[i].delete();
+		}
 	}
 
 	public static UserLibraryManager getUserLibraryManager() {
@@ -2670,6 +2844,9 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 * Returns the open ZipFile at the given path. If the ZipFile
 	 * does not yet exist, it is created, opened, and added to the cache
 	 * of open ZipFiles.
+	 * 
+	 * The ZipFile is shared with the other threads and must be given back
+	 * to closeZipFile(ZipFile) instead of being closed.
 	 *
 	 * The path must be a file system path if representing an external
 	 * zip/jar, or it must be an absolute workspace relative path if
@@ -2688,6 +2865,29 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 				&& (zipFile = zipCache.getCache(path)) != null) {
 			return zipFile;
 		}
+		zipFile = getSharedZipFile(path);
+		if (zipCache != null) {
+			zipCache.setCache(path, zipFile);
+		}
+		return zipFile;
+	}
+
+	private ZipFile getSharedZipFile(IPath path) throws CoreException {
+		while (true) {
+			SharedZipFile shared = (SharedZipFile) this.sharedZipFiles.get(path);
+			if (shared == null)
+				break;
+			if (shared.isStale()) {
+				// the last thread using it will close it
+				if (this.sharedZipFiles.remove(path, shared))
+					closeSharedZipFile(shared);
+			} else if (shared.acquire()) {
+				return shared.zipFile;
+			} else {
+				this.sharedZipFiles.remove(path, shared); // closed concurrently
+			}
+		}
+
 		File localFile = null;
 		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
 		IResource file = root.findMember(path);
@@ -2709,10 +2909,25 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			if (ZIP_ACCESS_VERBOSE) {
 				System.out.println("(" + Thread.currentThread() + ") [JavaModelManager.getZipFile(IPath)] Creating ZipFile on " + localFile ); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-			zipFile = new ZipFile(localFile);
-			if (zipCache != null) {
-				zipCache.setCache(path, zipFile);
+			ZipFile zipFile = new ZipFile(localFile);
+			SharedZipFile shared = new SharedZipFile(path, localFile, zipFile);
+			this.sharedZipFilesByZipFile.put(zipFile, shared);
+			SharedZipFile existing;
+			while ((existing = (SharedZipFile) this.sharedZipFiles.putIfAbsent(path, shared)) != null) {
+				// another thread opened it first
+				if (!existing.isStale() && existing.acquire()) {
+					this.sharedZipFilesByZipFile.remove(zipFile);
+					try {
+						zipFile.close();
+					} catch (IOException e) {
+						// problem occured closing zip file: cannot do much more
+					}
+					return existing.zipFile;
+				}
+				if (this.sharedZipFiles.remove(path, existing))
+					closeSharedZipFile(existing);
 			}
+			evictIdleZipFiles();
 			return zipFile;
 		} catch (IOException e) {
 			addInvalidArchive(path);
@@ -3796,7 +4011,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 					if (!kind.equals("STATE")) //$NON-NLS-1$
 						throw new IOException(Messages.build_wrongFileFormat);
 					if (in.readBoolean())
-						return JavaBuilder.readState(project, in);
+						return JavaBuilder.readState(project, in, file);
 					if (JavaBuilder.DEBUG)
 						System.out.println("Saved state thinks last build failed for " + project.getName()); //$NON-NLS-1$
 				} finally {
@@ -4025,11 +4240,15 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	private void saveBuiltState(PerProjectInfo info) throws CoreException {
 		if (JavaBuilder.DEBUG)
 			System.out.println(Messages.bind(Messages.build_saveStateProgress, info.project.getName()));
-		File file = getSerializationFile(info.project);
-		if (file == null) return;
+		File previousFile = getSerializationFile(info.project);
+		if (previousFile == null) return;
 		long t = System.currentTimeMillis();
+		// the previous state file may still be mapped by the states read from it, so the state is written to a new one
+		File directory = previousFile.getParentFile();
+		File file = new File(directory, "state." + (getStateFileGeneration(previousFile.getName()) + 1) + ".dat"); //$NON-NLS-1$ //$NON-NLS-2$
+		File tempFile = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
 		try {
-			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
 			try {
 				out.writeUTF(JavaCore.PLUGIN_ID);
 				out.writeUTF("STATE"); //$NON-NLS-1$
@@ -4042,9 +4261,15 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			} finally {
 				out.close();
 			}
+			if (!tempFile.renameTo(file)) {
+				tempFile.delete();
+				throw new IOException(Messages.bind(Messages.build_cannotSaveState, info.project.getName()));
+			}
+			deleteStateFiles(directory, file);
 		} catch (RuntimeException e) {
 			try {
-				file.delete();
+				tempFile.delete();
+				deleteStateFiles(directory, null); // the previous state does not match the output anymore
 			} catch(SecurityException se) {
 				// could not delete file: cannot do much more
 			}
@@ -4053,7 +4278,8 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 					Messages.bind(Messages.build_cannotSaveState, info.project.getName()), e));
 		} catch (IOException e) {
 			try {
-				file.delete();
+				tempFile.delete();
+				deleteStateFiles(directory, null); // the previous state does not match the output anymore
 			} catch(SecurityException se) {
 				// could not delete file: cannot do much more
 			}
@@ -4892,8 +5118,8 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		if (state == null) { // delete state file to ensure a full build happens if the workspace crashes
 			try {
 				File file = getSerializationFile(project);
-				if (file != null && file.exists())
-					file.delete();
+				if (file != null)
+					deleteStateFiles(file.getParentFile(), null);
 			} catch(SecurityException se) {
 				// could not delete file: cannot do much more
 			}
@@ -4997,6 +5223,10 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			// request state folder creation (workaround 19885)
 			JavaCore.getPlugin().getStateLocation();
 
+			// share the class files read from jars across builds and sessions
+			if (System.getProperty(BinaryTypeCache.DIRECTORY_PROPERTY) == null)
+				BinaryTypeCache.setSharedDirectory(JavaCore.getPlugin().getStateLocation().append("binaryTypeCache").toFile()); //$NON-NLS-1$
+
 			// Initialize eclipse preferences
 			initializePreferences();
 
@@ -5107,6 +5337,15 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			this.indexManager.shutdown();
 		}
 
+		// Close the zip files shared by all the threads
+		closeSharedZipFiles();
+
+		// Save the class files read from jars since they were last saved
+		BinaryTypeCache binaryTypeCache = BinaryTypeCache.getShared();
+		if (binaryTypeCache != null) {
+			binaryTypeCache.save();
+		}
+
 		// Stop listening to preferences changes
 		preferences.removePreferenceChangeListener(this.propertyListener);
 		((IEclipsePreferences) this.preferencesLookup[PREF_DEFAULT].parent()).removeNodeChangeListener(this.defaultNodeListener);
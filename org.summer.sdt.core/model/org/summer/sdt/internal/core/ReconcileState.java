@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+import org.summer.sdt.core.compiler.CategorizedProblem;
+import org.summer.sdt.core.compiler.IProblem;
+import org.summer.sdt.internal.compiler.CompilationResult;
+import org.summer.sdt.internal.compiler.ast.ASTNode;
+import org.summer.sdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.summer.sdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.summer.sdt.internal.compiler.ast.MethodDeclaration;
+import org.summer.sdt.internal.compiler.ast.TypeDeclaration;
+import org.summer.sdt.internal.compiler.classfmt.ClassFileConstants;
+import org.summer.sdt.internal.compiler.lookup.ExtraCompilerModifiers;
+import org.summer.sdt.internal.compiler.problem.DefaultProblem;
+import org.summer.sdt.internal.compiler.problem.ProblemSeverities;
+import org.summer.sdt.internal.compiler.util.Util;
+
+/**
+ * What the problem detection of a working copy learnt about the bodies of its methods: their source and the
+ * problems found by their flow analysis and code generation.
+ * <p>
+ * The next problem detection of the same working copy only analyses the bodies that changed, provided that
+ * nothing else they depend on changed: the source outside of the method bodies, the compiler options, the
+ * other working copies and the rest of the Java model. The unchanged bodies are still parsed and resolved,
+ * since their bindings are needed by the DOM AST and by the problems about unused members, but the problems
+ * of their flow analysis and code generation are copied from this state.
+ * </p>
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+class ReconcileState {
+
+	private static final Comparator BODY_START_COMPARATOR = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			return ((AbstractMethodDeclaration) o1).bodyStart - ((AbstractMethodDeclaration) o2).bodyStart;
+		}
+	};
+
+	// what the problems depend on besides the source of the unit
+	private final Map options;
+	private final int reconcileFlags;
+	private final boolean creatingAST;
+	private final long modificationStamp;
+	private final Object[] workingCopyInfos;
+
+	// the methods of the top level and member types sorted by position, and the problems found in their bodies
+	private char[] source;
+	private int[] bodyStarts;
+	private int[] bodyEnds;
+	private CategorizedProblem[][] bodyProblems;
+
+	ReconcileState(Map options, int reconcileFlags, boolean creatingAST, long modificationStamp, Object[] workingCopyInfos) {
+		this.options = options;
+		this.reconcileFlags = reconcileFlags;
+		this.creatingAST = creatingAST;
+		this.modificationStamp = modificationStamp;
+		this.workingCopyInfos = workingCopyInfos;
+	}
+
+	/*
+	 * Returns the methods of the top level and member types of the given unit that have a body, sorted by position.
+	 */
+	private static AbstractMethodDeclaration[] collectMethods(CompilationUnitDeclaration unit) {
+		ArrayList methods = new ArrayList();
+		if (unit.types != null)
+			collectMethods(unit.types, methods);
+		if (unit.module != null && unit.module.types != unit.types)
+			collectMethods(unit.module.types, methods);
+		AbstractMethodDeclaration[] result = new AbstractMethodDeclaration[methods.size()];
+		methods.toArray(result);
+		Arrays.sort(result, BODY_START_COMPARATOR);
+		// the types of the module may also be the types of the unit
+		int count = 0;
+		for (int i = 0, length = result.length; i < length; i++) {
+			if (count == 0 || result[count - 1] != result[i])
+				result[count++] = result[i];
+		}
+		if (count < result.length)
+			System.arraycopy(result, 0, result = new AbstractMethodDeclaration[count], 0, count);
+		return result;
+	}
+
+	private static void collectMethods(TypeDeclaration[] types, ArrayList methods) {
+		for (int i = 0, length = types.length; i < length; i++) {
+			TypeDeclaration type = types[i];
+			if (type.methods != null) {
+				for (int j = 0, count = type.methods.length; j < count; j++) {
+					AbstractMethodDeclaration method = type.methods[j];
+					if (method.isClinit() || (method.bits & ASTNode.IsDefaultConstructor) != 0)
+						continue;
+					if ((method.modifiers & (ExtraCompilerModifiers.AccSemicolonBody | ClassFileConstants.AccAbstract | ClassFileConstants.AccNative)) != 0)
+						continue;
+					if (method.bodyStart <= 0 || method.bodyEnd < method.bodyStart)
+						continue;
+					methods.add(method);
+				}
+			}
+			if (type.memberTypes != null)
+				collectMethods(type.memberTypes, methods);
+		}
+	}
+
+	/*
+	 * Answers whether the problems recorded in this state can be reused with the given one.
+	 */
+	private boolean isCompatibleWith(ReconcileState state) {
+		if (this.bodyProblems == null) return false;
+		if (this.modificationStamp != state.modificationStamp) return false;
+		if (this.reconcileFlags != state.reconcileFlags) return false;
+		if (this.creatingAST != state.creatingAST) return false;
+		if (!this.options.equals(state.options)) return false;
+		Object[] infos = state.workingCopyInfos;
+		if (this.workingCopyInfos.length != infos.length) return false;
+		for (int i = 0, length = infos.length; i < length; i++) {
+			if (this.workingCopyInfos[i] != infos[i]) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Answers whether the given source, outside of the given method bodies, is the same as the recorded one.
+	 */
+	private boolean hasSameStructure(char[] newSource, int[] newBodyStarts, int[] newBodyEnds) {
+		int count = newBodyStarts.length;
+		if (this.bodyStarts.length != count) return false;
+		int oldStart = 0, newStart = 0;
+		for (int i = 0; i <= count; i++) {
+			int oldEnd = i == count ? this.source.length : this.bodyStarts[i];
+			int newEnd = i == count ? newSource.length : newBodyStarts[i];
+			if (!regionMatches(this.source, oldStart, oldEnd, newSource, newStart, newEnd))
+				return false;
+			if (i < count) {
+				oldStart = this.bodyEnds[i];
+				newStart = newBodyEnds[i];
+			}
+		}
+		return true;
+	}
+
+	private static boolean regionMatches(char[] source1, int start1, int end1, char[] source2, int start2, int end2) {
+		if (end1 - start1 != end2 - start2) return false;
+		for (int i = start1, j = start2; i < end1; i++, j++) {
+			if (source1[i] != source2[j]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Flags the regular methods of the given resolved unit whose body is unchanged since the given previous state
+	 * so that their flow analysis and code generation are skipped, then answers the problems previously found
+	 * in these bodies, moved to their new positions. Also remembers the methods of the unit so that
+	 * {@link #recordBodyProblems(CompilationUnitDeclaration, int)} can be called once it is analysed.
+	 */
+	CategorizedProblem[] skipUnchangedBodies(CompilationUnitDeclaration unit, ReconcileState previous) {
+		CompilationResult result = unit.compilationResult;
+		this.source = result.compilationUnit.getContents();
+		AbstractMethodDeclaration[] methods = collectMethods(unit);
+		int count = methods.length;
+		this.bodyStarts = new int[count];
+		this.bodyEnds = new int[count];
+		for (int i = 0; i < count; i++) {
+			this.bodyStarts[i] = methods[i].bodyStart;
+			this.bodyEnds[i] = methods[i].bodyEnd;
+		}
+		if (result.hasSyntaxError || previous == null || !previous.isCompatibleWith(this)
+				|| !previous.hasSameStructure(this.source, this.bodyStarts, this.bodyEnds))
+			return null;
+
+		ArrayList knownProblems = null;
+		int[] lineEnds = result.getLineSeparatorPositions();
+		for (int i = 0; i < count; i++) {
+			AbstractMethodDeclaration method = methods[i];
+			CategorizedProblem[] problems = previous.bodyProblems[i];
+			if (problems == null || !(method instanceof MethodDeclaration) || method.ignoreFurtherInvestigation || method.binding == null)
+				continue;
+			if (!regionMatches(previous.source, previous.bodyStarts[i], previous.bodyEnds[i], this.source, this.bodyStarts[i], this.bodyEnds[i]))
+				continue;
+			method.skipBodyAnalysis = true;
+			int delta = this.bodyStarts[i] - previous.bodyStarts[i];
+			for (int j = 0, length = problems.length; j < length; j++) {
+				if (knownProblems == null)
+					knownProblems = new ArrayList();
+				knownProblems.add(moveProblem(problems[j], delta, lineEnds));
+			}
+		}
+		if (knownProblems == null)
+			return null;
+		CategorizedProblem[] problems = new CategorizedProblem[knownProblems.size()];
+		knownProblems.toArray(problems);
+		return problems;
+	}
+
+	private static CategorizedProblem moveProblem(CategorizedProblem problem, int delta, int[] lineEnds) {
+		int start = problem.getSourceStart() + delta;
+		int line = Util.getLineNumber(start, lineEnds, 0, lineEnds.length - 1);
+		return new DefaultProblem(
+			problem.getOriginatingFileName(),
+			problem.getMessage(),
+			problem.getID(),
+			problem.getArguments(),
+			problem.isError() ? ProblemSeverities.Error : ProblemSeverities.Warning,
+			start,
+			problem.getSourceEnd() + delta,
+			line,
+			Util.searchColumnNumber(lineEnds, line, start));
+	}
+
+	/**
+	 * Records the problems found since the given problem count by the flow analysis and code generation of the
+	 * regular methods of the given unit, which must be the one given to
+	 * {@link #skipUnchangedBodies(CompilationUnitDeclaration, ReconcileState)}.
+	 */
+	void recordBodyProblems(CompilationUnitDeclaration unit, int resolvedProblemCount) {
+		CompilationResult result = unit.compilationResult;
+		if (result.hasSyntaxError)
+			return;
+		int count = this.bodyStarts.length;
+		AbstractMethodDeclaration[] methods = collectMethods(unit);
+		if (methods.length != count)
+			return;
+		ArrayList[] problems = new ArrayList[count];
+		boolean[] unknown = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			AbstractMethodDeclaration method = methods[i];
+			if (!(method instanceof MethodDeclaration) || method.ignoreFurtherInvestigation || method.binding == null)
+				unknown[i] = true;
+			else
+				problems[i] = new ArrayList();
+		}
+		for (int i = resolvedProblemCount, problemCount = result.problemCount; i < problemCount; i++) {
+			CategorizedProblem problem = result.problems[i];
+			int index = indexOfMethod(methods, problem.getSourceStart());
+			if (index < 0 || unknown[index])
+				continue;
+			switch (problem.getID()) {
+				case IProblem.UnusedPrivateMethod :
+				case IProblem.UnusedTypeParameter :
+					// reported about the method itself before its body is analysed, hence found again each time,
+					// but the ones about the methods of the local and anonymous types of the body are not
+					int start = problem.getSourceStart();
+					if (start < methods[index].bodyStart || start > methods[index].bodyEnd)
+						continue;
+			}
+			if (problem.getClass() != DefaultProblem.class) {
+				unknown[index] = true;
+				continue;
+			}
+			problems[index].add(problem);
+		}
+		this.bodyProblems = new CategorizedProblem[count][];
+		for (int i = 0; i < count; i++) {
+			if (unknown[i]) continue;
+			this.bodyProblems[i] = new CategorizedProblem[problems[i].size()];
+			problems[i].toArray(this.bodyProblems[i]);
+		}
+	}
+
+	/*
+	 * Returns the index of the method declared at the given position, or -1 if none.
+	 */
+	private static int indexOfMethod(AbstractMethodDeclaration[] methods, int position) {
+		int low = 0, high = methods.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			AbstractMethodDeclaration method = methods[middle];
+			if (position < method.declarationSourceStart)
+				high = middle - 1;
+			else if (position > method.declarationSourceEnd)
+				low = middle + 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+}
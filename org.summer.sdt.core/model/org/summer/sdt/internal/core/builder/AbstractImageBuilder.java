@@ -647,11 +647,8 @@ public abstract class AbstractImageBuilder implements ICompilerRequestor, ICompi
 		}
 	
 		String[] dependencies = result.dependencies;
-		if (dependencies != null) {
-			ReferenceCollection refs = (ReferenceCollection) this.newState.references.get(result.sourceFile.typeLocator());
-			if (refs != null)
-				refs.addDependencies(dependencies);
-		}
+		if (dependencies != null)
+			this.newState.recordDependencies(result.sourceFile.typeLocator(), dependencies);
 	}
 	
 	/**
@@ -13,6 +13,7 @@ package org.summer.sdt.internal.core.builder;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.*;
+import org.summer.sdt.internal.compiler.classfmt.BinaryTypeCache;
 import org.summer.sdt.internal.compiler.classfmt.ClassFileReader;
 import org.summer.sdt.internal.compiler.classfmt.ClassFormatException;
 import org.summer.sdt.internal.compiler.env.AccessRuleSet;
@@ -84,6 +85,7 @@ public class ClasspathJar extends ClasspathLocation {
 	boolean closeZipFileAtEnd;
 	SimpleSet knownPackageNames;
 	AccessRuleSet accessRuleSet;
+	BinaryTypeCache.JarCache binaryTypes; // class files of the jar cached across builds, null if there is no shared cache
 	
 	ClasspathJar(IFile resource, AccessRuleSet accessRuleSet) {
 		this.resource = resource;
@@ -111,6 +113,9 @@ public class ClasspathJar extends ClasspathLocation {
 		this.accessRuleSet = accessRuleSet;
 	}
 	
+	/*
+	 * The zip file comes from JavaModelManager.getZipFile(IPath), it is given back to the model manager on cleanup.
+	 */
 	public ClasspathJar(ZipFile zipFile, AccessRuleSet accessRuleSet) {
 		this.zipFilename = zipFile.getName();
 		this.zipFile = zipFile;
@@ -120,12 +125,20 @@ public class ClasspathJar extends ClasspathLocation {
 	}
 	
 	public void cleanup() {
-		if (this.zipFile != null && this.closeZipFileAtEnd) {
-			try {
-				this.zipFile.close();
-			} catch(IOException e) { // ignore it
+		if (this.binaryTypes != null) {
+			this.binaryTypes.save();
+			this.binaryTypes = null;
+		}
+		if (this.zipFile != null) {
+			if (this.closeZipFileAtEnd) {
+				try {
+					this.zipFile.close();
+				} catch(IOException e) { // ignore it
+				}
+			} else {
+				org.summer.sdt.internal.core.JavaModelManager.getJavaModelManager().closeZipFile(this.zipFile); // shared with the other threads
 			}
-			this.zipFile = null;
+			this.zipFile = null; // opened again if needed
 		}
 		this.knownPackageNames = null;
 	}
@@ -145,7 +158,9 @@ public class ClasspathJar extends ClasspathLocation {
 		if (!isPackage(qualifiedPackageName)) return null; // most common case
 	
 		try {
-			ClassFileReader reader = ClassFileReader.read(this.zipFile, qualifiedBinaryFileName);
+			ClassFileReader reader = this.binaryTypes == null
+				? ClassFileReader.read(this.zipFile, qualifiedBinaryFileName)
+				: this.binaryTypes.read(this.zipFile, qualifiedBinaryFileName);
 			if (reader != null) {
 				if (this.accessRuleSet == null)
 					return new NameEnvironmentAnswer(reader, null);
@@ -180,6 +195,9 @@ public class ClasspathJar extends ClasspathLocation {
 				this.closeZipFileAtEnd = true;
 			}
 			this.knownPackageNames = findPackageSet(this);
+			BinaryTypeCache cache = BinaryTypeCache.getShared();
+			if (cache != null)
+				this.binaryTypes = cache.getJarCache(this.zipFilename, lastModified(), new File(this.zipFilename).length());
 		} catch(Exception e) {
 			this.knownPackageNames = new SimpleSet(); // assume for this build the zipFile is empty
 		}
@@ -197,29 +197,43 @@ public class IncrementalImageBuilder extends AbstractImageBuilder {
 			internedSimpleNames = null;
 		char[][] internedRootNames = ReferenceCollection.internSimpleNames(rootSet, false);
 	
-		Object[] keyTable = this.newState.references.keyTable;
-		Object[] valueTable = this.newState.references.valueTable;
-		next : for (int i = 0, l = valueTable.length; i < l; i++) {
-			String typeLocator = (String) keyTable[i];
-			if (typeLocator != null) {
-				if (affectedTypes != null && !affectedTypes.includes(typeLocator)) continue next;
-				ReferenceCollection refs = (ReferenceCollection) valueTable[i];
-				if (refs.includes(internedQualifiedNames, internedSimpleNames, internedRootNames)) {
-					IFile file = this.javaBuilder.currentProject.getFile(typeLocator);
-					SourceFile sourceFile = findSourceFile(file, true);
-					if (sourceFile == null) continue next;
-					if (this.sourceFiles.contains(sourceFile)) continue next;
-					if (this.compiledAllAtOnce && this.previousSourceFiles != null && this.previousSourceFiles.contains(sourceFile))
-						continue next; // can skip previously compiled files since already saw hierarchy related problems
-	
-					if (JavaBuilder.DEBUG)
-						System.out.println("  adding affected source file " + typeLocator); //$NON-NLS-1$
-					this.sourceFiles.add(sourceFile);
+		// only the types referencing one of the simple names can be affected, unless a well known name was found
+		String[] typeLocators = internedSimpleNames == null ? null : this.newState.getLocatorsReferencing(internedSimpleNames);
+		if (typeLocators == null) {
+			Object[] keyTable = this.newState.references.keyTable;
+			for (int i = 0, l = keyTable.length; i < l; i++) {
+				String typeLocator = (String) keyTable[i];
+				if (typeLocator != null) {
+					if (affectedTypes != null && !affectedTypes.includes(typeLocator)) continue;
+					ReferenceCollection refs = this.newState.referenceCollectionAt(i); // stored collections are only decoded to be checked
+					if (refs.includes(internedQualifiedNames, internedSimpleNames, internedRootNames))
+						addAffectedSourceFile(typeLocator);
 				}
 			}
+		} else {
+			for (int i = 0, l = typeLocators.length; i < l; i++) {
+				String typeLocator = typeLocators[i];
+				if (affectedTypes != null && !affectedTypes.includes(typeLocator)) continue;
+				ReferenceCollection refs = this.newState.peekReferenceCollection(typeLocator);
+				if (refs != null && refs.includes(internedQualifiedNames, internedSimpleNames, internedRootNames))
+					addAffectedSourceFile(typeLocator);
+			}
 		}
 	}
 	
+	private void addAffectedSourceFile(String typeLocator) {
+		IFile file = this.javaBuilder.currentProject.getFile(typeLocator);
+		SourceFile sourceFile = findSourceFile(file, true);
+		if (sourceFile == null) return;
+		if (this.sourceFiles.contains(sourceFile)) return;
+		if (this.compiledAllAtOnce && this.previousSourceFiles != null && this.previousSourceFiles.contains(sourceFile))
+			return; // can skip previously compiled files since already saw hierarchy related problems
+	
+		if (JavaBuilder.DEBUG)
+			System.out.println("  adding affected source file " + typeLocator); //$NON-NLS-1$
+		this.sourceFiles.add(sourceFile);
+	}
+	
 	protected void addDependentsOf(IPath path, boolean isStructuralChange) {
 		addDependentsOf(path, isStructuralChange, this.qualifiedStrings, this.simpleStrings, this.rootStrings);
 	}
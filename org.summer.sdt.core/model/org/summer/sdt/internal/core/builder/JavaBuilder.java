@@ -149,6 +149,10 @@ public class JavaBuilder extends IncrementalProjectBuilder {
 		return State.read(project, in);
 	}
 	
+	public static State readState(IProject project, DataInputStream in, File file) throws IOException {
+		return State.read(project, in, file);
+	}
+	
 	public static void writeState(Object state, DataOutputStream out) throws IOException {
 		((State) state).write(out);
 	}
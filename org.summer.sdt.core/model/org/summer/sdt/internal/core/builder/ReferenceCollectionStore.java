@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.summer.sdt.internal.core.builder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The reference collections of a state read from disk, kept in their serialized form.
+ * <p>
+ * The buffer usually maps the end of the state file. Each collection is encoded at some offset as:
+ * <pre>
+ * byte		1 (AdditionalTypeCollection) or 2 (ReferenceCollection)
+ * char[][]	defined type names (only for 1)
+ * int[]		interned qualified name ids
+ * int[]		interned simple name ids
+ * int[]		interned root name ids
+ * </pre>
+ * where arrays are written as their length followed by their elements.
+ * </p>
+ */
+class ReferenceCollectionStore {
+
+	static final byte ADDITIONAL_TYPE_COLLECTION = 1;
+	static final byte REFERENCE_COLLECTION = 2;
+
+	ByteBuffer buffer;
+	char[][][] internedQualifiedNames;
+	char[][] internedSimpleNames;
+	char[][] internedRootNames;
+
+	ReferenceCollectionStore(ByteBuffer buffer, char[][][] internedQualifiedNames, char[][] internedSimpleNames, char[][] internedRootNames) {
+		this.buffer = buffer;
+		this.internedQualifiedNames = internedQualifiedNames;
+		this.internedSimpleNames = internedSimpleNames;
+		this.internedRootNames = internedRootNames;
+	}
+
+	/**
+	 * Decodes the collection stored at the given offset. The names are shared with the interned name tables.
+	 */
+	ReferenceCollection read(int offset) {
+		ByteBuffer data = this.buffer;
+		int position = offset;
+		byte kind = data.get(position++);
+		char[][] definedTypeNames = null;
+		if (kind == ADDITIONAL_TYPE_COLLECTION) {
+			int length = data.getInt(position);
+			position += 4;
+			definedTypeNames = new char[length][];
+			for (int i = 0; i < length; i++) {
+				int nLength = data.getInt(position);
+				position += 4;
+				char[] name = new char[nLength];
+				for (int j = 0; j < nLength; j++, position += 2)
+					name[j] = data.getChar(position);
+				definedTypeNames[i] = name;
+			}
+		}
+		int length = data.getInt(position);
+		position += 4;
+		char[][][] qualifiedNames = length == 0 ? ReferenceCollection.EmptyQualifiedNames : new char[length][][];
+		for (int i = 0; i < length; i++, position += 4)
+			qualifiedNames[i] = this.internedQualifiedNames[data.getInt(position)];
+		length = data.getInt(position);
+		position += 4;
+		char[][] simpleNames = length == 0 ? ReferenceCollection.EmptySimpleNames : new char[length][];
+		for (int i = 0; i < length; i++, position += 4)
+			simpleNames[i] = this.internedSimpleNames[data.getInt(position)];
+		length = data.getInt(position);
+		position += 4;
+		char[][] rootNames = length == 0 ? ReferenceCollection.EmptySimpleNames : new char[length][];
+		for (int i = 0; i < length; i++, position += 4)
+			rootNames[i] = this.internedRootNames[data.getInt(position)];
+
+		if (kind == ADDITIONAL_TYPE_COLLECTION)
+			return new AdditionalTypeCollection(definedTypeNames, qualifiedNames, simpleNames, rootNames);
+		return new ReferenceCollection(qualifiedNames, simpleNames, rootNames);
+	}
+}
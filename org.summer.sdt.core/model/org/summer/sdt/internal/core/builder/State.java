@@ -20,6 +20,8 @@ import org.summer.sdt.internal.core.ClasspathAccessRule;
 import org.summer.sdt.internal.core.JavaModelManager;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.*;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
@@ -30,7 +32,12 @@ public class State {
 	public ClasspathMultiDirectory[] sourceLocations;
 	ClasspathLocation[] binaryLocations;
 	// keyed by the project relative path of the type (i.e. "src1/p1/p2/A.java"), value is a ReferenceCollection or an AdditionalTypeCollection
+	// or the Integer offset of the collection in the storedReferences when it has not been decoded yet
 	SimpleLookupTable references;
+	ReferenceCollectionStore storedReferences;
+	// keyed by interned simple name, value is the String[] of the type locators whose reference collection includes it
+	// built on demand from the references and then kept up to date, it may also answer locators which no longer reference the name
+	private SimpleLookupTable simpleNameIndex;
 	// keyed by qualified type name "p1/p2/A", value is the project relative path which defines this type "src1/p1/p2/A.java"
 	public SimpleLookupTable typeLocators;
 	
@@ -44,7 +51,7 @@ public class State {
 	private StringSet structurallyChangedTypes;
 	public static int MaxStructurallyChangedTypes = 100; // keep track of ? structurally changed types, otherwise consider all to be changed
 	
-	public static final byte VERSION = 0x001B;
+	public static final byte VERSION = 0x001C;
 	
 	static final byte SOURCE_FOLDER = 1;
 	static final byte BINARY_FOLDER = 2;
@@ -84,10 +91,13 @@ public class State {
 		this.buildNumber = lastState.buildNumber + 1;
 		this.lastStructuralBuildTime = lastState.lastStructuralBuildTime;
 		this.structuralBuildTimes = lastState.structuralBuildTimes;
+		this.storedReferences = lastState.storedReferences; // shared with the copied references table
 	
 		try {
 			this.references = (SimpleLookupTable) lastState.references.clone();
 			this.typeLocators = (SimpleLookupTable) lastState.typeLocators.clone();
+			// the locator arrays are never modified, so they can be shared
+			this.simpleNameIndex = lastState.simpleNameIndex == null ? null : (SimpleLookupTable) lastState.simpleNameIndex.clone();
 		} catch (CloneNotSupportedException e) {
 			this.references = new SimpleLookupTable(lastState.references.elementSize);
 			Object[] keyTable = lastState.references.keyTable;
@@ -106,12 +116,71 @@ public class State {
 	}
 	public char[][] getDefinedTypeNamesFor(String typeLocator) {
 		Object c = this.references.get(typeLocator);
+		if (c instanceof Integer)
+			c = this.storedReferences.read(((Integer) c).intValue());
 		if (c instanceof AdditionalTypeCollection)
 			return ((AdditionalTypeCollection) c).definedTypeNames;
 		return null; // means only one type is defined with the same name as the file... saves space
 	}
 	
+	/**
+	 * Answers the reference collection of the given type locator, decoding it from the stored
+	 * references and keeping it in the references table if needed. Answers null if the type locator is unknown.
+	 */
+	ReferenceCollection getReferenceCollection(String typeLocator) {
+		Object c = this.references.get(typeLocator);
+		if (c instanceof Integer) {
+			c = this.storedReferences.read(((Integer) c).intValue());
+			this.references.put(typeLocator, c);
+		}
+		return (ReferenceCollection) c;
+	}
+	
+	/**
+	 * Answers the reference collection of the given type locator or null if it is unknown.
+	 * A stored collection is decoded but not kept, so it must not be modified.
+	 */
+	ReferenceCollection peekReferenceCollection(String typeLocator) {
+		Object c = this.references.get(typeLocator);
+		if (c instanceof Integer)
+			return this.storedReferences.read(((Integer) c).intValue());
+		return (ReferenceCollection) c;
+	}
+	
+	/**
+	 * Answers the reference collection at the given index of the references value table.
+	 * A stored collection is decoded but not kept, so it must not be modified.
+	 */
+	ReferenceCollection referenceCollectionAt(int index) {
+		Object c = this.references.valueTable[index];
+		if (c instanceof Integer)
+			return this.storedReferences.read(((Integer) c).intValue());
+		return (ReferenceCollection) c;
+	}
+	
+	/**
+	 * Answers the type locators whose reference collection includes at least one of the given interned simple names.
+	 * The answer may also contain locators which no longer reference these names or which have been removed.
+	 */
+	String[] getLocatorsReferencing(char[][] internedSimpleNames) {
+		if (this.simpleNameIndex == null)
+			buildSimpleNameIndex();
+		StringSet found = new StringSet(7);
+		ArrayList locators = new ArrayList();
+		for (int i = 0, l = internedSimpleNames.length; i < l; i++) {
+			String[] referencing = (String[]) this.simpleNameIndex.get(internedSimpleNames[i]);
+			if (referencing != null)
+				for (int j = 0, m = referencing.length; j < m; j++)
+					if (found.add(referencing[j]))
+						locators.add(referencing[j]);
+		}
+		String[] result = new String[locators.size()];
+		locators.toArray(result);
+		return result;
+	}
+	
 	public SimpleLookupTable getReferences() {
+		loadStoredReferences();
 		return this.references;
 	}
 	
@@ -159,6 +228,57 @@ public class State {
 		return this.typeLocators.containsKey(qualifiedTypeName);
 	}
 	
+	/*
+	 * Index the simple names of all the reference collections, the stored collections are decoded but not kept.
+	 */
+	private void buildSimpleNameIndex() {
+		SimpleLookupTable index = new SimpleLookupTable(this.references.elementSize * 4);
+		Object[] keyTable = this.references.keyTable;
+		for (int i = 0, l = keyTable.length; i < l; i++) {
+			if (keyTable[i] == null) continue;
+			char[][] names = referenceCollectionAt(i).simpleNameReferences;
+			for (int j = 0, m = names.length; j < m; j++) {
+				ArrayList locators = (ArrayList) index.get(names[j]);
+				if (locators == null)
+					index.put(names[j], locators = new ArrayList(3));
+				locators.add(keyTable[i]);
+			}
+		}
+		Object[] valueTable = index.valueTable;
+		for (int i = 0, l = valueTable.length; i < l; i++) {
+			if (valueTable[i] != null) {
+				ArrayList locators = (ArrayList) valueTable[i];
+				valueTable[i] = locators.toArray(new String[locators.size()]);
+			}
+		}
+		this.simpleNameIndex = index;
+	}
+	
+	private void indexSimpleName(char[] internedName, String typeLocator) {
+		// the arrays can be shared with the index of a previous state, so they are replaced instead of modified
+		String[] locators = (String[]) this.simpleNameIndex.get(internedName);
+		if (locators == null) {
+			locators = new String[] {typeLocator};
+		} else {
+			int length = locators.length;
+			System.arraycopy(locators, 0, locators = new String[length + 1], 0, length);
+			locators[length] = typeLocator;
+		}
+		this.simpleNameIndex.put(internedName, locators);
+	}
+	
+	/*
+	 * Decode all the stored reference collections, the storedReferences are no longer needed afterwards.
+	 */
+	private void loadStoredReferences() {
+		if (this.storedReferences == null) return;
+		Object[] valueTable = this.references.valueTable;
+		for (int i = 0, l = valueTable.length; i < l; i++)
+			if (valueTable[i] instanceof Integer)
+				valueTable[i] = this.storedReferences.read(((Integer) valueTable[i]).intValue());
+		this.storedReferences = null;
+	}
+	
 	boolean isSourceFolderEmpty(IContainer sourceFolder) {
 		String sourceFolderName = sourceFolder.getProjectRelativePath().addTrailingSeparator().toString();
 		Object[] table = this.typeLocators.valueTable;
@@ -169,12 +289,34 @@ public class State {
 	}
 	
 	void record(String typeLocator, char[][][] qualifiedRefs, char[][] simpleRefs, char[][] rootRefs, char[] mainTypeName, ArrayList typeNames) {
+		ReferenceCollection refs;
 		if (typeNames.size() == 1 && CharOperation.equals(mainTypeName, (char[]) typeNames.get(0))) {
-			this.references.put(typeLocator, new ReferenceCollection(qualifiedRefs, simpleRefs, rootRefs));
+			refs = new ReferenceCollection(qualifiedRefs, simpleRefs, rootRefs);
 		} else {
 			char[][] definedTypeNames = new char[typeNames.size()][]; // can be empty when no types are defined
 			typeNames.toArray(definedTypeNames);
-			this.references.put(typeLocator, new AdditionalTypeCollection(definedTypeNames, qualifiedRefs, simpleRefs, rootRefs));
+			refs = new AdditionalTypeCollection(definedTypeNames, qualifiedRefs, simpleRefs, rootRefs);
+		}
+		if (this.simpleNameIndex != null) {
+			ReferenceCollection previous = peekReferenceCollection(typeLocator);
+			char[][] names = refs.simpleNameReferences;
+			for (int i = 0, l = names.length; i < l; i++)
+				if (previous == null || !previous.includes(names[i]))
+					indexSimpleName(names[i], typeLocator);
+		}
+		this.references.put(typeLocator, refs);
+	}
+	
+	void recordDependencies(String typeLocator, String[] dependencies) {
+		ReferenceCollection refs = getReferenceCollection(typeLocator);
+		if (refs == null) return;
+	
+		int previousLength = refs.simpleNameReferences.length;
+		refs.addDependencies(dependencies);
+		if (this.simpleNameIndex != null) {
+			char[][] names = refs.simpleNameReferences; // new names are appended
+			for (int i = previousLength, l = names.length; i < l; i++)
+				indexSimpleName(names[i], typeLocator);
 		}
 	}
 	
@@ -220,6 +362,14 @@ public class State {
 	}
 	
 	static State read(IProject project, DataInputStream in) throws IOException {
+		return read(project, in, null);
+	}
+	
+	/**
+	 * Reads the state from the given stream. When the stream reads the given file, the stored reference collections
+	 * which end the file are memory-mapped instead of being read, and each collection is decoded on first use.
+	 */
+	static State read(IProject project, DataInputStream in, File file) throws IOException {
 		if (JavaBuilder.DEBUG)
 			System.out.println("About to read state " + project.getName()); //$NON-NLS-1$
 		if (VERSION != in.readByte()) {
@@ -302,35 +452,26 @@ public class State {
 		newState.references = new SimpleLookupTable(length = in.readInt());
 		for (int i = 0; i < length; i++) {
 			String typeLocator = internedTypeLocators[in.readInt()];
-			ReferenceCollection collection = null;
-			switch (in.readByte()) {
-				case 1 :
-					char[][] additionalTypeNames = readNames(in);
-					char[][][] qualifiedNames = new char[in.readInt()][][];
-					for (int j = 0, m = qualifiedNames.length; j < m; j++)
-						qualifiedNames[j] = internedQualifiedNames[in.readInt()];
-					char[][] simpleNames = new char[in.readInt()][];
-					for (int j = 0, m = simpleNames.length; j < m; j++)
-						simpleNames[j] = internedSimpleNames[in.readInt()];
-					char[][] rootNames = new char[in.readInt()][];
-					for (int j = 0, m = rootNames.length; j < m; j++)
-						rootNames[j] = internedRootNames[in.readInt()];
-					collection = new AdditionalTypeCollection(additionalTypeNames, qualifiedNames, simpleNames, rootNames);
-					break;
-				case 2 :
-					char[][][] qNames = new char[in.readInt()][][];
-					for (int j = 0, m = qNames.length; j < m; j++)
-						qNames[j] = internedQualifiedNames[in.readInt()];
-					char[][] sNames = new char[in.readInt()][];
-					for (int j = 0, m = sNames.length; j < m; j++)
-						sNames[j] = internedSimpleNames[in.readInt()];
-					char[][] rNames = new char[in.readInt()][];
-					for (int j = 0, m = rNames.length; j < m; j++)
-						rNames[j] = internedRootNames[in.readInt()];
-					collection = new ReferenceCollection(qNames, sNames, rNames);
+			newState.references.put(typeLocator, new Integer(in.readInt()));
+		}
+	
+		int dataLength = in.readInt();
+		ByteBuffer data;
+		long fileLength = file == null ? -1 : file.length();
+		if (fileLength >= dataLength) {
+			// the stored collections end the file
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+			try {
+				data = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, fileLength - dataLength, dataLength);
+			} finally {
+				randomAccessFile.close(); // the mapping stays valid
 			}
-			newState.references.put(typeLocator, collection);
+		} else {
+			byte[] bytes = new byte[dataLength];
+			in.readFully(bytes);
+			data = ByteBuffer.wrap(bytes);
 		}
+		newState.storedReferences = new ReferenceCollectionStore(data, internedQualifiedNames, internedSimpleNames, internedRootNames);
 		if (JavaBuilder.DEBUG)
 			System.out.println("Successfully read state for " + newState.javaProjectName); //$NON-NLS-1$
 		return newState;
@@ -402,6 +543,9 @@ public class State {
 		Object[] keyTable;
 		Object[] valueTable;
 	
+		// the stored collections are rewritten with new name ids, and the state file they may map is about to be replaced
+		loadStoredReferences();
+	
 	/*
 	 * byte		VERSION
 	 * String		project name
@@ -608,8 +752,10 @@ public class State {
 	/*
 	 * References table
 	 * int		interned locator id
-	 * ReferenceCollection
+	 * int		offset of the ReferenceCollection in the stored collections
 	*/
+		ByteArrayOutputStream dataBytes = new ByteArrayOutputStream(this.references.elementSize * 32);
+		DataOutputStream data = new DataOutputStream(dataBytes);
 		out.writeInt(length = this.references.elementSize);
 		if (length > 0) {
 			keyTable = this.references.keyTable;
@@ -618,40 +764,50 @@ public class State {
 					length--;
 					Integer index = (Integer) internedTypeLocators.get(keyTable[i]);
 					out.writeInt(index.intValue());
+					out.writeInt(data.size());
 					ReferenceCollection collection = (ReferenceCollection) valueTable[i];
 					if (collection instanceof AdditionalTypeCollection) {
-						out.writeByte(1);
+						data.writeByte(ReferenceCollectionStore.ADDITIONAL_TYPE_COLLECTION);
 						AdditionalTypeCollection atc = (AdditionalTypeCollection) collection;
-						writeNames(atc.definedTypeNames, out);
+						writeNames(atc.definedTypeNames, data);
 					} else {
-						out.writeByte(2);
+						data.writeByte(ReferenceCollectionStore.REFERENCE_COLLECTION);
 					}
 					char[][][] qNames = collection.qualifiedNameReferences;
 					int qLength = qNames.length;
-					out.writeInt(qLength);
+					data.writeInt(qLength);
 					for (int j = 0; j < qLength; j++) {
 						index = (Integer) internedQualifiedNames.get(qNames[j]);
-						out.writeInt(index.intValue());
+						data.writeInt(index.intValue());
 					}
 					char[][] sNames = collection.simpleNameReferences;
 					int sLength = sNames.length;
-					out.writeInt(sLength);
+					data.writeInt(sLength);
 					for (int j = 0; j < sLength; j++) {
 						index = (Integer) internedSimpleNames.get(sNames[j]);
-						out.writeInt(index.intValue());
+						data.writeInt(index.intValue());
 					}
 					char[][] rNames = collection.rootReferences;
 					int rLength = rNames.length;
-					out.writeInt(rLength);
+					data.writeInt(rLength);
 					for (int j = 0; j < rLength; j++) {
 						index = (Integer) internedRootNames.get(rNames[j]);
-						out.writeInt(index.intValue());
+						data.writeInt(index.intValue());
 					}
 				}
 			}
 			if (JavaBuilder.DEBUG && length != 0)
 				System.out.println("references table is inconsistent"); //$NON-NLS-1$
 		}
+	
+	/*
+	 * Stored collections, must end the state
+	 * int		length
+	 * byte[]	ReferenceCollections
+	*/
+		data.flush();
+		out.writeInt(dataBytes.size());
+		dataBytes.writeTo(out);
 	}
 	
 	private void writeName(char[] name, DataOutputStream out) throws IOException {
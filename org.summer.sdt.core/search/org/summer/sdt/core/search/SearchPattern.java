@@ -2433,8 +2433,7 @@ public boolean matchesName(char[] pattern, char[] name) {
 				break;
 
 			case R_PATTERN_MATCH :
-				if (!isCaseSensitive)
-					pattern = CharOperation.toLowerCase(pattern);
+				// the case is ignored in place, without lowercasing the pattern each time
 				return CharOperation.match(pattern, name, isCaseSensitive);
 
 			case SearchPattern.R_CAMELCASE_MATCH:
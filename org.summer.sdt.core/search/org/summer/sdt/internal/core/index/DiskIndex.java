@@ -11,6 +11,8 @@
 package org.summer.sdt.internal.core.index;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.summer.sdt.core.compiler.CharOperation;
 import org.summer.sdt.core.search.*;
@@ -21,6 +23,18 @@ import org.summer.sdt.internal.compiler.util.SimpleSet;
 import org.summer.sdt.internal.compiler.util.SimpleSetOfCharArray;
 import org.summer.sdt.internal.core.util.*;
 
+/**
+ * An index file on disk.
+ * <p>
+ * The file is memory-mapped read-only when it is first queried: category tables and document names
+ * are decoded straight from the mapping, page by page as the operating system brings them in, instead
+ * of being read onto the heap. The words of each category table are sorted and followed by the offset
+ * of each entry, so exact and prefix queries binary search the mapped table.
+ * </p><p>
+ * A file is never modified once written: saving an index writes a new file which replaces the previous
+ * one, so a query running against the previous disk index keeps reading a consistent mapping.
+ * </p>
+ */
 public class DiskIndex {
 
 	IndexLocation indexLocation;
@@ -31,22 +45,20 @@ public class DiskIndex {
 	private int[] chunkOffsets;
 	private int documentReferenceSize; // 1, 2 or more bytes... depends on # of document names
 	private int startOfCategoryTables;
-	private HashtableOfIntValues categoryOffsets, categoryEnds;
+	private HashtableOfIntValues categoryOffsets; // category name -> offset of the sorted table of entry offsets
 	
 	private int cacheUserCount;
-	private String[][] cachedChunks; // decompressed chunks of document names
-	private HashtableOfObject categoryTables; // category name -> HashtableOfObject(words -> int[] of document #'s) or offset if not read yet
-	private char[] cachedCategoryName;
+	private String[][] cachedChunks; // decompressed chunks of document names, only the chunks which were asked for
+	private HashtableOfObject categoryTables; // category name -> HashtableOfObject(words -> int[] of document #'s) while writing a new index file
+	private ByteBuffer indexBuffer; // read-only mapping of the index file, or its contents if it cannot be mapped
 	
-	private static final int DEFAULT_BUFFER_SIZE = 2048;
-	private static int BUFFER_READ_SIZE = DEFAULT_BUFFER_SIZE;
-	private static final int BUFFER_WRITE_SIZE = DEFAULT_BUFFER_SIZE;
+	private static final int BUFFER_WRITE_SIZE = 2048;
 	private byte[] streamBuffer;
-	private int bufferIndex, bufferEnd; // used when reading from the file into the streamBuffer
+	private int bufferIndex; // used when writing data to the streamBuffer
 	private int streamEnd; // used when writing data from the streamBuffer to the file
 	char separator = Index.DEFAULT_SEPARATOR;
 	
-	public static final String SIGNATURE= "INDEX VERSION 1.127"; //$NON-NLS-1$
+	public static final String SIGNATURE= "INDEX VERSION 1.128"; //$NON-NLS-1$
 	private static final char[] SIGNATURE_CHARS = SIGNATURE.toCharArray();
 	public static boolean DEBUG = false;
 	
@@ -54,6 +66,7 @@ public class DiskIndex {
 	private static final int DELETED = -2;
 	
 	private static final int CHUNK_SIZE = 100;
+	private static final int LARGE_ARRAY_SIZE = 256;
 	
 	private static final SimpleSetOfCharArray INTERNED_CATEGORY_NAMES = new SimpleSetOfCharArray(20);
 	
@@ -81,6 +94,111 @@ public class DiskIndex {
 	}
 	}
 	
+	/**
+	 * Reads the index file from a given position. Only absolute gets are used on the
+	 * shared buffer, so concurrent queries each use their own reader without locking.
+	 */
+	static class IndexReader {
+	
+	ByteBuffer buffer;
+	int position;
+	
+	IndexReader(ByteBuffer buffer, int position) {
+		this.buffer = buffer;
+		this.position = position;
+	}
+	int readUnsignedByte() {
+		return this.buffer.get(this.position++) & 0xFF;
+	}
+	int readInt() {
+		int val = this.buffer.getInt(this.position);
+		this.position += 4;
+		return val;
+	}
+	/**
+	 * Decodes the next character of a string written by writeStreamChars() in a modified UTF-8 format.
+	 */
+	char readChar() throws UTFDataFormatException {
+		byte b = this.buffer.get(this.position++);
+		switch (b & 0xF0) {
+			case 0x00 :
+			case 0x10 :
+			case 0x20 :
+			case 0x30 :
+			case 0x40 :
+			case 0x50 :
+			case 0x60 :
+			case 0x70 :
+				return (char) b;
+			case 0xC0 :
+			case 0xD0 :
+				char next = (char) this.buffer.get(this.position++);
+				if ((next & 0xC0) != 0x80) {
+					throw new UTFDataFormatException();
+				}
+				char ch = (char) ((b & 0x1F) << 6);
+				ch |= next & 0x3F;
+				return ch;
+			case 0xE0 :
+				char first = (char) this.buffer.get(this.position++);
+				char second = (char) this.buffer.get(this.position++);
+				if ((first & second & 0xC0) != 0x80) {
+					throw new UTFDataFormatException();
+				}
+				ch = (char) ((b & 0x0F) << 12);
+				ch |= ((first& 0x3F) << 6);
+				ch |= second & 0x3F;
+				return ch;
+			default:
+				throw new UTFDataFormatException();
+		}
+	}
+	char[] readChars() throws UTFDataFormatException {
+		int length = readUnsignedByte() << 8; // the length is a number of chars, not bytes
+		length += readUnsignedByte();
+		char[] word = new char[length];
+		for (int i = 0; i < length; i++)
+			word[i] = readChar();
+		return word;
+	}
+	/**
+	 * Compares the next string with the given key without decoding it onto the heap.
+	 * When prefix is true, a string which starts with the key is considered equal.
+	 */
+	int compareChars(char[] key, boolean prefix) throws UTFDataFormatException {
+		int length = readUnsignedByte() << 8;
+		length += readUnsignedByte();
+		int keyLength = key.length;
+		int max = length < keyLength ? length : keyLength;
+		for (int i = 0; i < max; i++) {
+			char c = readChar();
+			if (c != key[i])
+				return c - key[i];
+		}
+		if (prefix && length >= keyLength) return 0;
+		return length - keyLength;
+	}
+	int[] readDocumentArray(int arraySize, int documentReferenceSize) {
+		int[] indexes = new int[arraySize];
+		switch (documentReferenceSize) {
+			case 1 :
+				for (int i = 0; i < arraySize; i++)
+					indexes[i] = this.buffer.get(this.position++) & 0xFF;
+				break;
+			case 2 :
+				for (int i = 0; i < arraySize; i++) {
+					indexes[i] = this.buffer.getShort(this.position) & 0xFFFF;
+					this.position += 2;
+				}
+				break;
+			default :
+				for (int i = 0; i < arraySize; i++)
+					indexes[i] = readInt();
+				break;
+		}
+		return indexes;
+	}
+	}
 	
 	DiskIndex() {
 		this.headerInfoOffset = -1;
@@ -91,9 +209,8 @@ public class DiskIndex {
 		this.cacheUserCount = -1;
 		this.cachedChunks = null;
 		this.categoryTables = null;
-		this.cachedCategoryName = null;
 		this.categoryOffsets = null;
-		this.categoryEnds = null;
+		this.indexBuffer = null;
 	}
 	DiskIndex(IndexLocation location) throws IOException {
 		this();
@@ -163,95 +280,78 @@ public class DiskIndex {
 		if (this.categoryOffsets == null) return null; // file is empty
 	
 		HashtableOfObject results = null; // initialized if needed
+		ByteBuffer buffer = getIndexBuffer();
+		IndexReader reader = new IndexReader(buffer, 0);
 		
 		// No need to check the results table for duplicates while processing the
 		// first category table or if the first category tables doesn't have any results.
 		boolean prevResults = false;
-		if (key == null) {
-			for (int i = 0, l = categories.length; i < l; i++) {
-				HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], true); // cache if key is null since its a definite match
-				if (wordsToDocNumbers != null) {
-					char[][] words = wordsToDocNumbers.keyTable;
-					Object[] values = wordsToDocNumbers.valueTable;
+		for (int i = 0, l = categories.length; i < l; i++) {
+			int offset = this.categoryOffsets.get(categories[i]);
+			if (offset != HashtableOfIntValues.NO_VALUE) {
+				int size = buffer.getInt(offset);
+				int entries = offset + 4; // offset of each word -> int[] pair, sorted by word
+				if (key == null) {
 					if (results == null)
-						results = new HashtableOfObject(wordsToDocNumbers.elementSize);
-					for (int j = 0, m = words.length; j < m; j++)
-						if (words[j] != null)
-							results = addQueryResult(results, words[j], values[j], memoryIndex, prevResults);
-				}
-				prevResults = results != null;
-			}
-			if (results != null && this.cachedChunks == null)
-				cacheDocumentNames();
-		} else {
-			switch (matchRule) {
-				case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE:
-					for (int i = 0, l = categories.length; i < l; i++) {
-						HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
-						Object value;
-						if (wordsToDocNumbers != null && (value = wordsToDocNumbers.get(key)) != null)
-							results = addQueryResult(results, key, value, memoryIndex, prevResults);
-						prevResults = results != null;
+						results = new HashtableOfObject(size);
+					for (int j = 0; j < size; j++) {
+						reader.position = buffer.getInt(entries + j * 4);
+						char[] word = reader.readChars();
+						results = addQueryResult(results, word, readDocuments(reader), memoryIndex, prevResults);
 					}
-					break;
-				case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE:
-					for (int i = 0, l = categories.length; i < l; i++) {
-						HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
-						if (wordsToDocNumbers != null) {
-							char[][] words = wordsToDocNumbers.keyTable;
-							Object[] values = wordsToDocNumbers.valueTable;
-							for (int j = 0, m = words.length; j < m; j++) {
-								char[] word = words[j];
-								if (word != null && key[0] == word[0] && CharOperation.prefixEquals(key, word))
-									results = addQueryResult(results, word, values[j], memoryIndex, prevResults);
+				} else {
+					switch (matchRule) {
+						case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE:
+							int index = findFirstWord(reader, entries, size, key);
+							if (index < size) {
+								reader.position = buffer.getInt(entries + index * 4);
+								if (reader.compareChars(key, false) == 0)
+									results = addQueryResult(results, key, readDocuments(reader), memoryIndex, prevResults);
 							}
-						}
-						prevResults = results != null;
-					}
-					break;
-				default:
-					for (int i = 0, l = categories.length; i < l; i++) {
-						HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
-						if (wordsToDocNumbers != null) {
-							char[][] words = wordsToDocNumbers.keyTable;
-							Object[] values = wordsToDocNumbers.valueTable;
-							for (int j = 0, m = words.length; j < m; j++) {
-								char[] word = words[j];
-								if (word != null && Index.isMatch(key, word, matchRule))
-									results = addQueryResult(results, word, values[j], memoryIndex, prevResults);
+							break;
+						case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE:
+							// the words starting with the key follow the first word which is not less than the key
+							for (int j = findFirstWord(reader, entries, size, key); j < size; j++) {
+								int entry = buffer.getInt(entries + j * 4);
+								reader.position = entry;
+								if (reader.compareChars(key, true) != 0) break;
+								reader.position = entry;
+								char[] word = reader.readChars();
+								results = addQueryResult(results, word, readDocuments(reader), memoryIndex, prevResults);
+							}
+							break;
+						default:
+							char[][] prefixes = Index.getMatchingPrefixes(key, matchRule);
+							if (prefixes == null) {
+								for (int j = 0; j < size; j++) {
+									reader.position = buffer.getInt(entries + j * 4);
+									char[] word = reader.readChars();
+									if (Index.isMatch(key, word, matchRule))
+										results = addQueryResult(results, word, readDocuments(reader), memoryIndex, prevResults);
+								}
+								break;
+							}
+							// only check the words starting with one of the prefixes, they follow the first word which is not less than it
+							for (int p = 0, prefixCount = prefixes.length; p < prefixCount; p++) {
+								char[] prefix = prefixes[p];
+								for (int j = findFirstWord(reader, entries, size, prefix); j < size; j++) {
+									int entry = buffer.getInt(entries + j * 4);
+									reader.position = entry;
+									if (reader.compareChars(prefix, true) != 0) break;
+									reader.position = entry;
+									char[] word = reader.readChars();
+									if (Index.isMatch(key, word, matchRule))
+										results = addQueryResult(results, word, readDocuments(reader), memoryIndex, prevResults);
+								}
 							}
-						}
-						prevResults = results != null;
 					}
+				}
 			}
+			prevResults = results != null;
 		}
 	
 		return results;
 	}
-	private void cacheDocumentNames() throws IOException {
-		// will need all document names so get them now
-		this.cachedChunks = new String[this.numberOfChunks][];
-		InputStream stream = this.indexLocation.getInputStream();
-		try {
-			if (this.numberOfChunks > 5) BUFFER_READ_SIZE <<= 1;
-			int offset = this.chunkOffsets[0];
-			stream.skip(offset);
-			this.streamBuffer = new byte[BUFFER_READ_SIZE];
-			this.bufferIndex = 0;
-			this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
-			for (int i = 0; i < this.numberOfChunks; i++) {
-				int size = i == this.numberOfChunks - 1 ? this.sizeOfLastChunk : CHUNK_SIZE;
-				readChunk(this.cachedChunks[i] = new String[size], stream, 0, size);
-			}
-		} catch (IOException e) {
-			this.cachedChunks = null;
-			throw e;
-		} finally {
-			stream.close();
-			this.streamBuffer = null;
-			BUFFER_READ_SIZE = DEFAULT_BUFFER_SIZE;
-		}
-	}
 	private String[] computeDocumentNames(String[] onDiskNames, int[] positions, SimpleLookupTable indexedDocuments, MemoryIndex memoryIndex) {
 		int onDiskLength = onDiskNames.length;
 		Object[] docNames = memoryIndex.docsToReferences.keyTable;
@@ -370,34 +470,84 @@ public class DiskIndex {
 			}
 		}
 	}
+	private boolean deleteIndexFile(boolean writeLocked) {
+		if (this.indexLocation.delete())
+			return true;
+		// some platforms do not delete a file while it is mapped
+		ByteBuffer buffer = this.indexBuffer;
+		this.indexBuffer = null;
+		if (!writeLocked)
+			// a query may still read the mapping, so leave it to the GC, the caller fails and the file is deleted by a later save
+			return false;
+		// no query can read the mapping while the write lock is held, so release it right away
+		return org.summer.sdt.internal.compiler.util.Util.unmap(buffer) && this.indexLocation.delete();
+	}
+	/**
+	 * Answers the index of the first word of a sorted category table which is not less than the given key,
+	 * or size if all the words are less than the key.
+	 */
+	private int findFirstWord(IndexReader reader, int entries, int size, char[] key) throws IOException {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			reader.position = reader.buffer.getInt(entries + mid * 4);
+			if (reader.compareChars(key, false) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+	private synchronized ByteBuffer getIndexBuffer() throws IOException {
+		if (this.indexBuffer == null) {
+			File file = this.indexLocation.getIndexFile();
+			if (file == null) {
+				// pre-built index inside a jar, cannot be mapped
+				InputStream stream = this.indexLocation.getInputStream();
+				try {
+					this.indexBuffer = ByteBuffer.wrap(org.summer.sdt.internal.compiler.util.Util.getInputStreamAsByteArray(stream, -1));
+				} finally {
+					stream.close();
+				}
+			} else {
+				RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+				try {
+					FileChannel channel = randomAccessFile.getChannel();
+					this.indexBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // the mapping stays valid once the file is closed
+				} finally {
+					randomAccessFile.close();
+				}
+			}
+		}
+		return this.indexBuffer;
+	}
 	void initialize(boolean reuseExistingFile) throws IOException {
 		if (this.indexLocation.exists()) {
 			if (reuseExistingFile) {
-				InputStream stream = this.indexLocation.getInputStream();
-				if (stream == null) {
-					throw new IOException("Failed to use the index file"); //$NON-NLS-1$
-				}
-				this.streamBuffer = new byte[BUFFER_READ_SIZE];
-				this.bufferIndex = 0;
-				this.bufferEnd = stream.read(this.streamBuffer, 0, 128);
 				try {
-					char[] signature = readStreamChars(stream);
+					IndexReader reader = new IndexReader(getIndexBuffer(), 0);
+					char[] signature = reader.readChars();
 					if (!CharOperation.equals(signature, SIGNATURE_CHARS)) {
 						throw new IOException(Messages.exception_wrongFormat);
 					}
-					this.headerInfoOffset = readStreamInt(stream);
+					this.headerInfoOffset = reader.readInt();
 					if (this.headerInfoOffset > 0) { // file is empty if its not set
-						stream.skip(this.headerInfoOffset - this.bufferEnd); // assume that the header info offset is over current buffer end
-						this.bufferIndex = 0;
-						this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
-						readHeaderInfo(stream);
+						reader.position = this.headerInfoOffset;
+						readHeaderInfo(reader);
 					}
-				} finally {
-					stream.close();
+				} catch (IndexOutOfBoundsException e) {
+					this.indexBuffer = null;
+					if (DEBUG)
+						System.out.println("initialize - Index file is truncated " + this.indexLocation); //$NON-NLS-1$
+					throw new IOException("Index file is corrupted " + this.indexLocation); //$NON-NLS-1$
+				} catch (IOException e) {
+					this.indexBuffer = null;
+					throw e;
 				}
 				return;
 			}
-			if (!this.indexLocation.delete()) {
+			if (!deleteIndexFile(false/*nothing is mapped yet*/)) {
 				if (DEBUG)
 					System.out.println("initialize - Failed to delete index " + this.indexLocation); //$NON-NLS-1$
 				throw new IOException("Failed to delete index " + this.indexLocation); //$NON-NLS-1$
@@ -406,7 +556,7 @@ public class DiskIndex {
 		if (this.indexLocation.createNewFile()) {
 			FileOutputStream stream = new FileOutputStream(this.indexLocation.getIndexFile(), false);
 			try {
-				this.streamBuffer = new byte[BUFFER_READ_SIZE];
+				this.streamBuffer = new byte[BUFFER_WRITE_SIZE];
 				this.bufferIndex = 0;
 				writeStreamChars(stream, SIGNATURE_CHARS);
 				writeStreamInt(stream, -1); // file is empty
@@ -417,6 +567,7 @@ public class DiskIndex {
 				}
 			} finally {
 				stream.close();
+				this.streamBuffer = null;
 			}
 		} else {
 			if (DEBUG)
@@ -436,7 +587,6 @@ public class DiskIndex {
 	
 		int size = diskIndex.categoryOffsets == null ? 8 : diskIndex.categoryOffsets.elementSize;
 		this.categoryOffsets = new HashtableOfIntValues(size);
-		this.categoryEnds = new HashtableOfIntValues(size);
 		this.categoryTables = new HashtableOfObject(size);
 		this.separator = diskIndex.separator;
 	}
@@ -460,7 +610,7 @@ public class DiskIndex {
 		if (wordsToDocs == null)
 			wordsToDocs = new HashtableOfObject(3);
 	
-		HashtableOfObject oldWordsToDocs = onDisk.readCategoryTable(categoryName, true);
+		HashtableOfObject oldWordsToDocs = onDisk.readCategoryTable(categoryName);
 		if (oldWordsToDocs != null) {
 			char[][] oldWords = oldWordsToDocs.keyTable;
 			Object[] oldArrayOffsets = oldWordsToDocs.valueTable;
@@ -497,12 +647,15 @@ public class DiskIndex {
 					}
 				}
 			}
-			onDisk.categoryTables.put(categoryName, null); // flush cached table
 		}
 		writeCategoryTable(categoryName, wordsToDocs, stream);
 	}
-	DiskIndex mergeWith(MemoryIndex memoryIndex) throws IOException {
-	 	// assume write lock is held
+	/**
+	 * Writes the merge of this index and the given memory index in a new index file.
+	 * The mapping of the previous index file is only released right away when
+	 * <code>writeLocked</code> states that the caller holds the write lock of the index monitor.
+	 */
+	DiskIndex mergeWith(MemoryIndex memoryIndex, boolean writeLocked) throws IOException {
 		// compute & write out new docNames
 		if (this.indexLocation == null) {
 			throw new IOException("Pre-built index file not writeable");  //$NON-NLS-1$
@@ -557,7 +710,7 @@ public class DiskIndex {
 			newDiskIndex.writeOffsetToHeader(offsetToHeader);
 	
 			// rename file by deleting previous index file & renaming temp one
-			if (oldIndexFile.exists() && !oldIndexFile.delete()) {
+			if (oldIndexFile.exists() && !deleteIndexFile(writeLocked)) {
 				if (DEBUG)
 					System.out.println("mergeWith - Failed to delete " + this.indexLocation); //$NON-NLS-1$
 				throw new IOException("Failed to delete index file " + this.indexLocation); //$NON-NLS-1$
@@ -577,142 +730,42 @@ public class DiskIndex {
 		newDiskIndex.indexLocation = this.indexLocation;
 		return newDiskIndex;
 	}
-	private synchronized String[] readAllDocumentNames() throws IOException {
+	private String[] readAllDocumentNames() throws IOException {
 		if (this.numberOfChunks <= 0)
 			return CharOperation.NO_STRINGS;
 	
-		InputStream stream = this.indexLocation.getInputStream();
-		try {
-			int offset = this.chunkOffsets[0];
-			stream.skip(offset);
-			this.streamBuffer = new byte[BUFFER_READ_SIZE];
-			this.bufferIndex = 0;
-			this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
-			int lastIndex = this.numberOfChunks - 1;
-			String[] docNames = new String[lastIndex * CHUNK_SIZE + this.sizeOfLastChunk];
-			for (int i = 0; i < this.numberOfChunks; i++)
-				readChunk(docNames, stream, i * CHUNK_SIZE, i < lastIndex ? CHUNK_SIZE : this.sizeOfLastChunk);
-			return docNames;
-		} finally {
-			stream.close();
-			this.streamBuffer = null;
-		}
+		IndexReader reader = new IndexReader(getIndexBuffer(), this.chunkOffsets[0]);
+		int lastIndex = this.numberOfChunks - 1;
+		String[] docNames = new String[lastIndex * CHUNK_SIZE + this.sizeOfLastChunk];
+		for (int i = 0; i < this.numberOfChunks; i++) // each chunk follows the previous one
+			readChunk(docNames, reader, i * CHUNK_SIZE, i < lastIndex ? CHUNK_SIZE : this.sizeOfLastChunk);
+		return docNames;
 	}
-	private synchronized HashtableOfObject readCategoryTable(char[] categoryName, boolean readDocNumbers) throws IOException {
+	private HashtableOfObject readCategoryTable(char[] categoryName) throws IOException {
 		// result will be null if categoryName is unknown
 		int offset = this.categoryOffsets.get(categoryName);
 		if (offset == HashtableOfIntValues.NO_VALUE) {
 			return null;
 		}
 	
-		if (this.categoryTables == null) {
-			this.categoryTables = new HashtableOfObject(3);
-		} else {
-			HashtableOfObject cachedTable = (HashtableOfObject) this.categoryTables.get(categoryName);
-			if (cachedTable != null) {
-				if (readDocNumbers) { // must cache remaining document number arrays
-					Object[] arrayOffsets = cachedTable.valueTable;
-					for (int i = 0, l = arrayOffsets.length; i < l; i++)
-						if (arrayOffsets[i] instanceof Integer)
-							arrayOffsets[i] = readDocumentNumbers(arrayOffsets[i]);
-				}
-				return cachedTable;
-			}
-		}
-	
-		InputStream stream = this.indexLocation.getInputStream();
-		HashtableOfObject categoryTable = null;
-		char[][] matchingWords = null;
-		int count = 0;
-		int firstOffset = -1;
-		this.streamBuffer = new byte[BUFFER_READ_SIZE];
-		try {
-			stream.skip(offset);
-			this.bufferIndex = 0;
-			this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
-			int size = readStreamInt(stream);
-			try {
-				if (size < 0) { // DEBUG
-					System.err.println("-------------------- DEBUG --------------------"); //$NON-NLS-1$
-					System.err.println("file = "+this.indexLocation); //$NON-NLS-1$
-					System.err.println("offset = "+offset); //$NON-NLS-1$
-					System.err.println("size = "+size); //$NON-NLS-1$
-					System.err.println("--------------------   END   --------------------"); //$NON-NLS-1$
-				}
-				categoryTable = new HashtableOfObject(size);
-			} catch (OutOfMemoryError oom) {
-				// DEBUG
-				oom.printStackTrace();
-				System.err.println("-------------------- DEBUG --------------------"); //$NON-NLS-1$
-				System.err.println("file = "+this.indexLocation); //$NON-NLS-1$
-				System.err.println("offset = "+offset); //$NON-NLS-1$
-				System.err.println("size = "+size); //$NON-NLS-1$
-				System.err.println("--------------------   END   --------------------"); //$NON-NLS-1$
-				throw oom;
-			}
-			int largeArraySize = 256;
-			for (int i = 0; i < size; i++) {
-				char[] word = readStreamChars(stream);
-				int arrayOffset = readStreamInt(stream);
-				// if arrayOffset is:
-				//		<= 0 then the array size == 1 with the value -> -arrayOffset
-				//		> 1 & < 256 then the size of the array is > 1 & < 256, the document array follows immediately
-				//		256 if the array size >= 256 followed by another int which is the offset to the array (written prior to the table)
-				if (arrayOffset <= 0) {
-					categoryTable.putUnsafely(word, new int[] {-arrayOffset}); // store 1 element array by negating documentNumber
-				} else if (arrayOffset < largeArraySize) {
-					categoryTable.putUnsafely(word, readStreamDocumentArray(stream, arrayOffset)); // read in-lined array providing size
-				} else {
-					arrayOffset = readStreamInt(stream); // read actual offset
-					if (readDocNumbers) {
-						if (matchingWords == null)
-							matchingWords = new char[size][];
-						if (count == 0)
-							firstOffset = arrayOffset;
-						matchingWords[count++] = word;
-					}
-					categoryTable.putUnsafely(word, new Integer(arrayOffset)); // offset to array in the file
-				}
-			}
-			this.categoryTables.put(INTERNED_CATEGORY_NAMES.get(categoryName), categoryTable);
-			// cache the table as long as its not too big
-			// in practice, some tables can be greater than 500K when they contain more than 10K elements
-			this.cachedCategoryName = categoryTable.elementSize < 20000 ? categoryName : null;
-		} catch (IOException ioe) {
-			this.streamBuffer = null;
-			throw ioe;
-		} finally {
-			stream.close();
-		}
-	
-		if (matchingWords != null && count > 0) {
-			stream = this.indexLocation.getInputStream();
-			try {
-				stream.skip(firstOffset);
-				this.bufferIndex = 0;
-				this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
-				for (int i = 0; i < count; i++) { // each array follows the previous one
-					categoryTable.put(matchingWords[i], readStreamDocumentArray(stream, readStreamInt(stream)));
-				}
-			} catch (IOException ioe) {
-				this.streamBuffer = null;
-				throw ioe;
-			} finally {
-				stream.close();
-			}
+		ByteBuffer buffer = getIndexBuffer();
+		IndexReader reader = new IndexReader(buffer, 0);
+		int size = buffer.getInt(offset);
+		HashtableOfObject categoryTable = new HashtableOfObject(size);
+		for (int i = 0; i < size; i++) {
+			reader.position = buffer.getInt(offset + 4 + i * 4);
+			char[] word = reader.readChars();
+			categoryTable.putUnsafely(word, readDocumentNumbers(readDocuments(reader)));
 		}
-		this.streamBuffer = null;
 		return categoryTable;
 	}
-	private void readChunk(String[] docNames, InputStream stream, int index, int size) throws IOException {
-		String current = new String(readStreamChars(stream));
+	private void readChunk(String[] docNames, IndexReader reader, int index, int size) throws IOException {
+		String current = new String(reader.readChars());
 		docNames[index++] = current;
 		for (int i = 1; i < size; i++) {
-			if (stream != null && this.bufferIndex + 2 >= this.bufferEnd)
-				readStreamBuffer(stream);
-			int start = this.streamBuffer[this.bufferIndex++] & 0xFF;
-			int end = this.streamBuffer[this.bufferIndex++] & 0xFF;
-			String next  = new String(readStreamChars(stream));
+			int start = reader.readUnsignedByte();
+			int end = reader.readUnsignedByte();
+			String next  = new String(reader.readChars());
 			if (start > 0) {
 				if (end > 0) {
 					int length = current.length();
@@ -735,64 +788,43 @@ public class DiskIndex {
 		int chunkNumber = docNumber / CHUNK_SIZE;
 		String[] chunk = this.cachedChunks[chunkNumber];
 		if (chunk == null) {
-			boolean isLastChunk = chunkNumber == this.numberOfChunks - 1;
-			int start = this.chunkOffsets[chunkNumber];
-			int numberOfBytes = (isLastChunk ? this.startOfCategoryTables : this.chunkOffsets[chunkNumber + 1]) - start;
-			if (numberOfBytes < 0)
-				throw new IllegalArgumentException();
-			this.streamBuffer = new byte[numberOfBytes];
-			this.bufferIndex = 0;
-			InputStream file = this.indexLocation.getInputStream();
-			try {
-				file.skip(start);
-				if (file.read(this.streamBuffer, 0, numberOfBytes) != numberOfBytes)
-					throw new IOException();
-			} catch (IOException ioe) {
-				this.streamBuffer = null;
-				throw ioe;
-			} finally {
-				file.close();
-			}
-			int numberOfNames = isLastChunk ? this.sizeOfLastChunk : CHUNK_SIZE;
+			// only decode the chunk which holds the name, the others stay in the mapped file
+			int numberOfNames = chunkNumber == this.numberOfChunks - 1 ? this.sizeOfLastChunk : CHUNK_SIZE;
 			chunk = new String[numberOfNames];
-			try {
-				readChunk(chunk, null, 0, numberOfNames);
-			} catch (IOException ioe) {
-				this.streamBuffer = null;
-				throw ioe;
-			}
+			readChunk(chunk, new IndexReader(getIndexBuffer(), this.chunkOffsets[chunkNumber]), 0, numberOfNames);
 			this.cachedChunks[chunkNumber] = chunk;
 		}
-		this.streamBuffer = null;
 		return chunk[docNumber - (chunkNumber * CHUNK_SIZE)];
 	}
-	synchronized int[] readDocumentNumbers(Object arrayOffset) throws IOException {
+	int[] readDocumentNumbers(Object arrayOffset) throws IOException {
 		// arrayOffset is either a cached array of docNumbers or an Integer offset in the file
 		if (arrayOffset instanceof int[])
 			return (int[]) arrayOffset;
 	
-		InputStream stream = this.indexLocation.getInputStream();
-		try {
-			int offset = ((Integer) arrayOffset).intValue();
-			stream.skip(offset);
-			this.streamBuffer = new byte[BUFFER_READ_SIZE];
-			this.bufferIndex = 0;
-			this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
-			return readStreamDocumentArray(stream, readStreamInt(stream));
-		} finally {
-			stream.close();
-			this.streamBuffer = null;
-		}
+		IndexReader reader = new IndexReader(getIndexBuffer(), ((Integer) arrayOffset).intValue());
+		return reader.readDocumentArray(reader.readInt(), this.documentReferenceSize);
 	}
-	private void readHeaderInfo(InputStream stream) throws IOException {
+	private Object readDocuments(IndexReader reader) {
+		// reader is positioned after a word, if the next int is:
+		//		<= 0 then the array size == 1 with the value -> -arrayOffset
+		//		> 1 & < 256 then the size of the array is > 1 & < 256, the document array follows immediately
+		//		256 if the array size >= 256 followed by another int which is the offset to the array (written prior to the table)
+		int arrayOffset = reader.readInt();
+		if (arrayOffset <= 0)
+			return new int[] {-arrayOffset}; // store 1 element array by negating documentNumber
+		if (arrayOffset < LARGE_ARRAY_SIZE)
+			return reader.readDocumentArray(arrayOffset, this.documentReferenceSize); // read in-lined array providing size
+		return new Integer(reader.readInt()); // offset to array in the file, only read if the documents are asked for
+	}
+	private void readHeaderInfo(IndexReader reader) throws IOException {
 	
 		// must be same order as writeHeaderInfo()
-		this.numberOfChunks = readStreamInt(stream);
-		this.sizeOfLastChunk = this.streamBuffer[this.bufferIndex++] & 0xFF;
-		this.documentReferenceSize = this.streamBuffer[this.bufferIndex++] & 0xFF;
-		this.separator = (char) (this.streamBuffer[this.bufferIndex++] & 0xFF);
-		long length = this.indexLocation.length();
-		if (length != -1 && this.numberOfChunks > length) {
+		this.numberOfChunks = reader.readInt();
+		this.sizeOfLastChunk = reader.readUnsignedByte();
+		this.documentReferenceSize = reader.readUnsignedByte();
+		this.separator = (char) reader.readUnsignedByte();
+		long length = reader.buffer.limit();
+		if (this.numberOfChunks > length) {
 			// not an accurate check, but good enough https://bugs.eclipse.org/bugs/show_bug.cgi?id=350612
 			if (DEBUG)
 				System.out.println("Index file is corrupted " + this.indexLocation); //$NON-NLS-1$
@@ -800,34 +832,22 @@ public class DiskIndex {
 		}
 		this.chunkOffsets = new int[this.numberOfChunks];
 		for (int i = 0; i < this.numberOfChunks; i++)
-			this.chunkOffsets[i] = readStreamInt(stream);
+			this.chunkOffsets[i] = reader.readInt();
 	
-		this.startOfCategoryTables = readStreamInt(stream);
+		this.startOfCategoryTables = reader.readInt();
 	
-		int size = readStreamInt(stream);
-		this.categoryOffsets = new HashtableOfIntValues(size);
-		this.categoryEnds = new HashtableOfIntValues(size);
-		if (length != -1 && size > length) {
+		int size = reader.readInt();
+		if (size > length) {
 			//  not an accurate check, but good enough  https://bugs.eclipse.org/bugs/show_bug.cgi?id=350612
 			if (DEBUG)
 				System.out.println("Index file is corrupted " + this.indexLocation); //$NON-NLS-1$
 			throw new IOException("Index file is corrupted " + this.indexLocation); //$NON-NLS-1$
 		}
-		char[] previousCategory = null;
-		int offset = -1;
+		this.categoryOffsets = new HashtableOfIntValues(size);
 		for (int i = 0; i < size; i++) {
-			char[] categoryName = INTERNED_CATEGORY_NAMES.get(readStreamChars(stream));
-			offset = readStreamInt(stream);
-			this.categoryOffsets.put(categoryName, offset); // cache offset to category table
-			if (previousCategory != null) {
-				this.categoryEnds.put(previousCategory, offset); // cache end of the category table
-			}
-			previousCategory = categoryName;
-		}
-		if (previousCategory != null) {
-			this.categoryEnds.put(previousCategory, this.headerInfoOffset); // cache end of the category table
+			char[] categoryName = INTERNED_CATEGORY_NAMES.get(reader.readChars());
+			this.categoryOffsets.put(categoryName, reader.readInt()); // cache offset to category table
 		}
-		this.categoryTables = new HashtableOfObject(3);
 	}
 	synchronized void startQuery() {
 		this.cacheUserCount++;
@@ -837,159 +857,7 @@ public class DiskIndex {
 			// clear cached items
 			this.cacheUserCount = -1;
 			this.cachedChunks = null;
-			if (this.categoryTables != null) {
-				if (this.cachedCategoryName == null) {
-					this.categoryTables = null;
-				} else if (this.categoryTables.elementSize > 1) {
-					HashtableOfObject newTables = new HashtableOfObject(3);
-					newTables.put(this.cachedCategoryName, this.categoryTables.get(this.cachedCategoryName));
-					this.categoryTables = newTables;
-				}
-			}
-		}
-	}
-	private void readStreamBuffer(InputStream stream) throws IOException {
-		// if we're about to read a known amount at the end of the existing buffer, but it does not completely fit
-		// so we need to shift the remaining bytes to be read, and fill the buffer from the stream
-		if (this.bufferEnd < this.streamBuffer.length) {
-			if (stream.available() == 0)
-				return; // we're at the end of the stream - nothing left to read
-		}
-	
-		int bytesInBuffer = this.bufferEnd - this.bufferIndex;
-		if (bytesInBuffer > 0)
-			System.arraycopy(this.streamBuffer, this.bufferIndex, this.streamBuffer, 0, bytesInBuffer);
-		this.bufferEnd = bytesInBuffer + stream.read(this.streamBuffer, bytesInBuffer, this.bufferIndex);
-		this.bufferIndex = 0;
-	}
-	/**
-	 * Reads in a string from the specified data input stream. The
-	 * string has been encoded using a modified UTF-8 format.
-	 * <p>
-	 * The first two bytes are read as an unsigned short.
-	 * This value gives the number of following bytes that are in the encoded string,
-	 * not the length of the resulting string. The following bytes are then
-	 * interpreted as bytes encoding characters in the UTF-8 format
-	 * and are converted into characters.
-	 * <p>
-	 * This method blocks until all the bytes are read, the end of the
-	 * stream is detected, or an exception is thrown.
-	 *
-	 * @param      stream   a data input stream.
-	 * @return     UTF decoded string as a char array
-	 * @exception  EOFException if this end of data input is reached while reading it.
-	 * @exception  IOException if an I/O error occurs while reading data input.
-	 * @exception  UTFDataFormatException  if the bytes do not represent a
-	 *               valid UTF-8 encoding of a Unicode string.
-	 */
-	private char[] readStreamChars(InputStream stream) throws IOException {
-		// read chars array length
-		if (stream != null && this.bufferIndex + 2 >= this.bufferEnd)
-			readStreamBuffer(stream);
-		int length = (this.streamBuffer[this.bufferIndex++] & 0xFF) << 8;
-		length += this.streamBuffer[this.bufferIndex++] & 0xFF;
-	
-		// fill the chars from bytes buffer
-		char[] word = new char[length];
-		int i = 0;
-		while (i < length) {
-			// how many characters can be decoded without refilling the buffer?
-			int charsInBuffer = i + ((this.bufferEnd - this.bufferIndex) / 3);
-			// all the characters must already be in the buffer if we're at the end of the stream
-			if (charsInBuffer > length || stream == null  || (this.bufferEnd != this.streamBuffer.length && stream.available() == 0))
-				charsInBuffer = length;
-			while (i < charsInBuffer) {
-				byte b = this.streamBuffer[this.bufferIndex++];
-				switch (b & 0xF0) {
-					case 0x00 :
-					case 0x10 :
-					case 0x20 :
-					case 0x30 :
-					case 0x40 :
-					case 0x50 :
-					case 0x60 :
-					case 0x70 :
-						word[i++]= (char) b;
-						break;
-					case 0xC0 :
-					case 0xD0 :
-						char next = (char) this.streamBuffer[this.bufferIndex++];
-						if ((next & 0xC0) != 0x80) {
-							throw new UTFDataFormatException();
-						}
-						char ch = (char) ((b & 0x1F) << 6);
-						ch |= next & 0x3F;
-						word[i++] = ch;
-						break;
-					case 0xE0 :
-						char first = (char) this.streamBuffer[this.bufferIndex++];
-						char second = (char) this.streamBuffer[this.bufferIndex++];
-						if ((first & second & 0xC0) != 0x80) {
-							throw new UTFDataFormatException();
-						}
-						ch = (char) ((b & 0x0F) << 12);
-						ch |= ((first& 0x3F) << 6);
-						ch |= second & 0x3F;
-						word[i++] = ch;
-						break;
-					default:
-						throw new UTFDataFormatException();
-				}
-			}
-			if (i < length && stream != null)
-				readStreamBuffer(stream);
-		}
-		return word;
-	}
-	private int[] readStreamDocumentArray(InputStream stream, int arraySize) throws IOException {
-		int[] indexes = new int[arraySize];
-		if (arraySize == 0) return indexes;
-	
-		int i = 0;
-		switch (this.documentReferenceSize) {
-			case 1 :
-				while (i < arraySize) {
-					// how many bytes without refilling the buffer?
-					int bytesInBuffer = i + this.bufferEnd - this.bufferIndex;
-					if (bytesInBuffer > arraySize)
-						bytesInBuffer = arraySize;
-					while (i < bytesInBuffer) {
-						indexes[i++] = this.streamBuffer[this.bufferIndex++] & 0xFF;
-					}
-					if (i < arraySize && stream != null)
-						readStreamBuffer(stream);
-				}
-				break;
-			case 2 :
-				while (i < arraySize) {
-					// how many shorts without refilling the buffer?
-					int shortsInBuffer = i + ((this.bufferEnd - this.bufferIndex) / 2);
-					if (shortsInBuffer > arraySize)
-						shortsInBuffer = arraySize;
-					while (i < shortsInBuffer) {
-						int val = (this.streamBuffer[this.bufferIndex++] & 0xFF) << 8;
-						indexes[i++] = val + (this.streamBuffer[this.bufferIndex++] & 0xFF);
-					}
-					if (i < arraySize && stream != null)
-						readStreamBuffer(stream);
-				}
-				break;
-			default :
-				while (i < arraySize) {
-					indexes[i++] = readStreamInt(stream);
-				}
-				break;
 		}
-		return indexes;
-	}
-	private int readStreamInt(InputStream stream) throws IOException {
-		if (this.bufferIndex + 4 >= this.bufferEnd) {
-			readStreamBuffer(stream);
-		}
-		int val = (this.streamBuffer[this.bufferIndex++] & 0xFF) << 24;
-		val += (this.streamBuffer[this.bufferIndex++] & 0xFF) << 16;
-		val += (this.streamBuffer[this.bufferIndex++] & 0xFF) << 8;
-		return val + (this.streamBuffer[this.bufferIndex++] & 0xFF);
 	}
 	private void writeAllDocumentNames(String[] sortedDocNames, FileOutputStream stream) throws IOException {
 		if (sortedDocNames.length == 0)
@@ -1068,13 +936,13 @@ public class DiskIndex {
 	private void writeCategoryTable(char[] categoryName, HashtableOfObject wordsToDocs, FileOutputStream stream) throws IOException {
 		// the format of a category table is as follows:
 		// any document number arrays with >= 256 elements are written before the table (the offset to each array is remembered)
-		// then the number of word->int[] pairs in the table is written
-		// for each word -> int[] pair, the word is written followed by:
+		// then each word -> int[] pair is written in the order of the words, the word is followed by:
 		//		an int <= 0 if the array size == 1
 		//		an int > 1 & < 256 for the size of the array if its > 1 & < 256, the document array follows immediately
 		//		256 if the array size >= 256 followed by another int which is the offset to the array (written prior to the table)
+		// then the number of word->int[] pairs in the table is written, followed by the offset of each pair
+		// the category offset points to the number of pairs, so that the words can be binary searched
 	
-		int largeArraySize = 256;
 		Object[] values = wordsToDocs.valueTable;
 		for (int i = 0, l = values.length; i < l; i++) {
 			Object o = values[i];
@@ -1082,33 +950,45 @@ public class DiskIndex {
 				if (o instanceof IntList)
 					o = values[i] = ((IntList) values[i]).asArray();
 				int[] documentNumbers = (int[]) o;
-				if (documentNumbers.length >= largeArraySize) {
+				if (documentNumbers.length >= LARGE_ARRAY_SIZE) {
 					values[i] = new Integer(this.streamEnd);
 					writeDocumentNumbers(documentNumbers, stream);
 				}
 			}
 		}
 	
-		this.categoryOffsets.put(categoryName, this.streamEnd); // remember the offset to the start of the table
-		this.categoryTables.put(categoryName, null); // flush cached table
-		writeStreamInt(stream, wordsToDocs.elementSize);
-		char[][] words = wordsToDocs.keyTable;
-		for (int i = 0, l = words.length; i < l; i++) {
-			Object o = values[i];
-			if (o != null) {
-				writeStreamChars(stream, words[i]);
-				if (o instanceof int[]) {
-					int[] documentNumbers = (int[]) o;
-					if (documentNumbers.length == 1)
-						writeStreamInt(stream, -documentNumbers[0]); // store an array of 1 element by negating the documentNumber (can be zero)
-					else
-						writeDocumentNumbers(documentNumbers, stream);
-				} else {
-					writeStreamInt(stream, largeArraySize); // mark to identify that an offset follows
-					writeStreamInt(stream, ((Integer) o).intValue()); // offset in the file of the array of document numbers
-				}
+		char[][] keys = wordsToDocs.keyTable;
+		char[][] words = new char[wordsToDocs.elementSize][];
+		int size = 0;
+		for (int i = 0, l = keys.length; i < l; i++)
+			if (values[i] != null)
+				words[size++] = keys[i];
+		if (size < words.length)
+			System.arraycopy(words, 0, words = new char[size][], 0, size);
+		Util.sort(words);
+	
+		int[] entryOffsets = new int[size];
+		for (int i = 0; i < size; i++) {
+			entryOffsets[i] = this.streamEnd;
+			Object o = wordsToDocs.get(words[i]);
+			writeStreamChars(stream, words[i]);
+			if (o instanceof int[]) {
+				int[] documentNumbers = (int[]) o;
+				if (documentNumbers.length == 1)
+					writeStreamInt(stream, -documentNumbers[0]); // store an array of 1 element by negating the documentNumber (can be zero)
+				else
+					writeDocumentNumbers(documentNumbers, stream);
+			} else {
+				writeStreamInt(stream, LARGE_ARRAY_SIZE); // mark to identify that an offset follows
+				writeStreamInt(stream, ((Integer) o).intValue()); // offset in the file of the array of document numbers
 			}
 		}
+	
+		this.categoryOffsets.put(categoryName, this.streamEnd); // remember the offset to the sorted entries of the table
+		this.categoryTables.put(categoryName, null); // flush cached table
+		writeStreamInt(stream, size);
+		for (int i = 0; i < size; i++)
+			writeStreamInt(stream, entryOffsets[i]);
 	}
 	private void writeDocumentNumbers(int[] documentNumbers, FileOutputStream stream) throws IOException {
 		// must store length as a positive int to detect in-lined array of 1 element
@@ -14,6 +14,7 @@ import java.io.*;
 
 import org.summer.sdt.core.compiler.CharOperation;
 import org.summer.sdt.core.search.*;
+import org.summer.sdt.internal.compiler.parser.ScannerHelper;
 import org.summer.sdt.internal.compiler.util.HashtableOfObject;
 import org.summer.sdt.internal.compiler.util.SimpleSet;
 import org.summer.sdt.internal.core.search.indexing.ReadWriteMonitor;
@@ -87,6 +88,124 @@ public class Index {
 	}
 	
 	
+	/*
+	 * At most that many prefixes are looked up to answer a case insensitive query, see getMatchingPrefixes(char[], int).
+	 */
+	static final int MAX_CASE_PREFIXES = 16;
+	
+	private static char[][] CaseVariants; // ASCII char -> all the chars whose lower case is this char
+	
+	/**
+	 * Returns prefixes such that any word matching the given pattern, as told by {@link #isMatch(char[], char[], int)},
+	 * starts with one of them, none of them starting with another. Returns null if any word may match.
+	 * <p>
+	 * Looking these prefixes up in a sorted table of words is what answers prefix, camel case and pattern queries
+	 * without checking every word. For a case insensitive query, each case of the leading characters of the pattern
+	 * is a prefix to look up.
+	 * </p>
+	 */
+	public static char[][] getMatchingPrefixes(char[] pattern, int matchRule) {
+		if (pattern == null) return null;
+		int patternLength = pattern.length;
+		if (patternLength == 0) return null;
+	
+		char[][] prefixes;
+		switch(matchRule & MATCH_RULE_INDEX_MASK) {
+			case SearchPattern.R_EXACT_MATCH :
+			case SearchPattern.R_PREFIX_MATCH :
+				return getCasePrefixes(pattern, patternLength);
+			case SearchPattern.R_PATTERN_MATCH :
+				return getCasePrefixes(pattern, getWildcardStart(pattern));
+			case SearchPattern.R_CAMELCASE_MATCH:
+			case SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH:
+				// either a camel case match, which starts like the pattern until its first upper case, or a case insensitive prefix match
+				prefixes = getCasePrefixes(pattern, patternLength);
+				if (prefixes == null) return null;
+				int length = prefixes.length;
+				System.arraycopy(prefixes, 0, prefixes = new char[length + 1][], 0, length);
+				prefixes[length] = CharOperation.subarray(pattern, 0, getCamelCasePartEnd(pattern));
+				return removeLongerPrefixes(prefixes);
+			case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE :
+			case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE :
+				return new char[][] {pattern};
+			case SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE :
+				int wildcard = getWildcardStart(pattern);
+				return wildcard == 0 ? null : new char[][] {CharOperation.subarray(pattern, 0, wildcard)};
+			case SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CASE_SENSITIVE :
+			case SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH | SearchPattern.R_CASE_SENSITIVE :
+				return new char[][] {CharOperation.subarray(pattern, 0, getCamelCasePartEnd(pattern))};
+		}
+		return null;
+	}
+	// the end of the leading characters which a camel case match must start with, see CharOperation#camelCaseMatch()
+	private static int getCamelCasePartEnd(char[] pattern) {
+		for (int i = 1, length = pattern.length; i < length; i++) {
+			char c = pattern[i];
+			if (c < ScannerHelper.MAX_OBVIOUS) {
+				if ((ScannerHelper.OBVIOUS_IDENT_CHAR_NATURES[c] & (ScannerHelper.C_UPPER_LETTER | ScannerHelper.C_DIGIT)) != 0)
+					return i;
+			} else if (!Character.isJavaIdentifierPart(c) || Character.isUpperCase(c) || Character.isDigit(c)) {
+				return i;
+			}
+		}
+		return pattern.length;
+	}
+	private static int getWildcardStart(char[] pattern) {
+		for (int i = 0, length = pattern.length; i < length; i++)
+			if (pattern[i] == '*' || pattern[i] == '?')
+				return i;
+		return pattern.length;
+	}
+	// the prefixes made of each case of the given leading characters of the pattern, null if there are too many
+	private static char[][] getCasePrefixes(char[] pattern, int end) {
+		char[][] variants = getCaseVariants();
+		char[][] prefixes = new char[][] {CharOperation.NO_CHAR};
+		for (int i = 0; i < end; i++) {
+			char lowerCase = ScannerHelper.toLowerCase(pattern[i]);
+			if (lowerCase >= 128) break; // the chars having the same lower case are not known
+			char[] cases = variants[lowerCase];
+			int count = prefixes.length * cases.length;
+			if (count > MAX_CASE_PREFIXES) break;
+			char[][] longerPrefixes = new char[count][];
+			for (int j = 0, k = 0, length = prefixes.length; j < length; j++)
+				for (int c = 0; c < cases.length; c++)
+					longerPrefixes[k++] = CharOperation.append(prefixes[j], cases[c]);
+			prefixes = longerPrefixes;
+		}
+		return prefixes[0].length == 0 ? null : prefixes;
+	}
+	private static synchronized char[][] getCaseVariants() {
+		if (CaseVariants == null) {
+			char[][] variants = new char[128][];
+			for (int c = 0; c <= Character.MAX_VALUE; c++) {
+				char lowerCase = ScannerHelper.toLowerCase((char) c);
+				if (lowerCase < 128)
+					variants[lowerCase] = variants[lowerCase] == null ? new char[] {(char) c} : CharOperation.append(variants[lowerCase], (char) c);
+			}
+			for (int c = 0; c < 128; c++)
+				if (variants[c] == null)
+					variants[c] = new char[] {(char) c}; // an upper case letter, never looked up
+			CaseVariants = variants;
+		}
+		return CaseVariants;
+	}
+	private static char[][] removeLongerPrefixes(char[][] prefixes) {
+		int length = prefixes.length, count = 0;
+		char[][] kept = new char[length][];
+		nextPrefix : for (int i = 0; i < length; i++) {
+			for (int j = 0; j < length; j++) {
+				if (i == j) continue;
+				if (CharOperation.prefixEquals(prefixes[j], prefixes[i])
+						&& (prefixes[j].length < prefixes[i].length || j < i)) // keep the first of equal prefixes
+					continue nextPrefix;
+			}
+			kept[count++] = prefixes[i];
+		}
+		if (count < length)
+			System.arraycopy(kept, 0, kept = new char[count][], 0, count);
+		return kept;
+	}
+	
 	public Index(IndexLocation location, String containerPath, boolean reuseExistingFile) throws IOException {
 		this.containerPath = containerPath;
 		this.monitor = new ReadWriteMonitor();
@@ -189,12 +308,12 @@ public class Index {
 		this.diskIndex.initialize(false/*do not reuse the index file*/);
 	}
 	public void save() throws IOException {
-		// must own the write lock of the monitor
+		// must own the write lock of the monitor, otherwise the mapping of the index file is left to the GC
 		if (!hasChanged()) return;
 	
 		int numberOfChanges = this.memoryIndex.docsToReferences.elementSize;
 		this.diskIndex.separator = this.separator;
-		this.diskIndex = this.diskIndex.mergeWith(this.memoryIndex);
+		this.diskIndex = this.diskIndex.mergeWith(this.memoryIndex, this.monitor.isWriting());
 		this.memoryIndex = new MemoryIndex();
 		if (numberOfChanges > 1000)
 			System.gc(); // reclaim space if the MemoryIndex was very BIG
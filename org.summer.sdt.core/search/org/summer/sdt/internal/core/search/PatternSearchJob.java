@@ -11,11 +11,22 @@
 package org.summer.sdt.internal.core.search;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.summer.sdt.core.search.*;
+import org.summer.sdt.internal.compiler.env.AccessRuleSet;
 import org.summer.sdt.internal.core.JavaModelManager;
 import org.summer.sdt.internal.core.index.FileIndexLocation;
 import org.summer.sdt.internal.core.index.Index;
@@ -35,6 +46,20 @@ public class PatternSearchJob implements IJob {
 	protected boolean areIndexesReady;
 	protected long executionTime = 0;
 	
+	/*
+	 * Searches touching at least this many indexes query them concurrently.
+	 */
+	static final int CONCURRENT_QUERY_THRESHOLD = 4;
+	static final int MAX_QUERY_THREADS = 4;
+	private static ThreadPoolExecutor QueryExecutor;
+	
+	static class QueryThread extends Thread {
+		QueryThread(Runnable runnable) {
+			super(runnable, "Java Index Query"); //$NON-NLS-1$
+			setDaemon(true);
+		}
+	}
+	
 	public PatternSearchJob(SearchPattern pattern, SearchParticipant participant, IJavaSearchScope scope, IndexQueryRequestor requestor) {
 		this.pattern = pattern;
 		this.participant = participant;
@@ -61,11 +86,15 @@ public class PatternSearchJob implements IJob {
 			int max = indexes.length;
 			if (progressMonitor != null)
 				progressMonitor.beginTask("", max); //$NON-NLS-1$
-			for (int i = 0; i < max; i++) {
-				isComplete &= search(indexes[i], progressMonitor);
-				if (progressMonitor != null) {
-					if (progressMonitor.isCanceled()) throw new OperationCanceledException();
-					progressMonitor.worked(1);
+			if (max >= CONCURRENT_QUERY_THRESHOLD && this.requestor != null && MatchLocator.canQueryIndexesConcurrently(this.pattern) && getQueryExecutor() != null) {
+				isComplete = searchConcurrently(indexes, progressMonitor);
+			} else {
+				for (int i = 0; i < max; i++) {
+					isComplete &= search(indexes[i], progressMonitor);
+					if (progressMonitor != null) {
+						if (progressMonitor.isCanceled()) throw new OperationCanceledException();
+						progressMonitor.worked(1);
+					}
 				}
 			}
 			if (JobManager.VERBOSE)
@@ -78,27 +107,50 @@ public class PatternSearchJob implements IJob {
 	}
 	public Index[] getIndexes(IProgressMonitor progressMonitor) {
 		// acquire the in-memory indexes on the fly
-		IndexLocation[] indexLocations;
-		int length;
-		if (this.participant instanceof JavaSearchParticipant) {
-			indexLocations = ((JavaSearchParticipant)this.participant).selectIndexURLs(this.pattern, this.scope);
-			length = indexLocations.length;
-		} else {
-			IPath[] paths = this.participant.selectIndexes(this.pattern, this.scope);
-			length = paths.length;
-			indexLocations = new IndexLocation[paths.length];
-			for (int i = 0, len = paths.length; i < len; i++) {
-				indexLocations[i] = new FileIndexLocation(paths[i].toFile(), true);
-			}
-		}
+		IndexLocation[] indexLocations = getIndexLocations();
 		Index[] indexes = JavaModelManager.getIndexManager().getIndexes(indexLocations, progressMonitor);
-		this.areIndexesReady = indexes.length == length;
+		this.areIndexesReady = indexes.length == indexLocations.length;
 		return indexes;
 	}
+	/**
+	 * Answers the locations of the indexes selected by the participant for the pattern and scope.
+	 */
+	public IndexLocation[] getIndexLocations() {
+		if (this.participant instanceof JavaSearchParticipant)
+			return ((JavaSearchParticipant)this.participant).selectIndexURLs(this.pattern, this.scope);
+		IPath[] paths = this.participant.selectIndexes(this.pattern, this.scope);
+		IndexLocation[] indexLocations = new IndexLocation[paths.length];
+		for (int i = 0, len = paths.length; i < len; i++) {
+			indexLocations[i] = new FileIndexLocation(paths[i].toFile(), true);
+		}
+		return indexLocations;
+	}
+	/*
+	 * Answers the pool the indexes are queried in, or null if there is a single processor
+	 * or if this is a query thread: a requestor searching again must not wait for its own pool.
+	 */
+	private static synchronized ThreadPoolExecutor getQueryExecutor() {
+		if (Thread.currentThread() instanceof QueryThread)
+			return null;
+		if (QueryExecutor == null) {
+			int threads = Math.min(Runtime.getRuntime().availableProcessors(), MAX_QUERY_THREADS);
+			if (threads < 2) return null;
+			QueryExecutor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					return new QueryThread(runnable);
+				}
+			});
+			QueryExecutor.allowCoreThreadTimeOut(true); // do not keep idle threads once searching is over
+		}
+		return QueryExecutor;
+	}
 	public String getJobFamily() {
 		return ""; //$NON-NLS-1$
 	}
 	public boolean search(Index index, IProgressMonitor progressMonitor) {
+		return search(index, this.requestor, progressMonitor);
+	}
+	protected boolean search(Index index, IndexQueryRequestor queryRequestor, IProgressMonitor progressMonitor) {
 		if (index == null) return COMPLETE;
 		if (progressMonitor != null && progressMonitor.isCanceled()) throw new OperationCanceledException();
 		ReadWriteMonitor monitor = index.monitor;
@@ -106,8 +158,11 @@ public class PatternSearchJob implements IJob {
 		try {
 			monitor.enterRead(); // ask permission to read
 			long start = System.currentTimeMillis();
-			MatchLocator.findIndexMatches(this.pattern, index, this.requestor, this.participant, this.scope, progressMonitor);
-			this.executionTime += System.currentTimeMillis() - start;
+			MatchLocator.findIndexMatches(this.pattern, index, queryRequestor, this.participant, this.scope, progressMonitor);
+			long time = System.currentTimeMillis() - start;
+			synchronized (this) {
+				this.executionTime += time;
+			}
 			return COMPLETE;
 		} catch (IOException e) {
 			if (e instanceof java.io.EOFException)
@@ -117,6 +172,82 @@ public class PatternSearchJob implements IJob {
 			monitor.exitRead(); // finished reading
 		}
 	}
+	/*
+	 * Queries the given indexes in the query pool. The matches found in each index are passed to the requestor
+	 * while the other indexes are being queried, one index at a time since requestors are not thread safe.
+	 * Only returns once every query is over, so that the requestor is never called after the job is done.
+	 */
+	private boolean searchConcurrently(Index[] indexes, final IProgressMonitor progressMonitor) {
+		final IndexQueryRequestor queryRequestor = new IndexQueryRequestor() {
+			public synchronized boolean acceptIndexMatch(String documentPath, SearchPattern indexRecord, SearchParticipant searchParticipant, AccessRuleSet access) {
+				return PatternSearchJob.this.requestor.acceptIndexMatch(documentPath, indexRecord, searchParticipant, access);
+			}
+		};
+		final boolean[] stopped = new boolean[1];
+		int max = indexes.length;
+		CompletionService<Boolean> completionService = new ExecutorCompletionService<Boolean>(getQueryExecutor());
+		Future[] queries = new Future[max];
+		for (int i = 0; i < max; i++) {
+			final Index index = indexes[i];
+			queries[i] = completionService.submit(new Callable<Boolean>() {
+				public Boolean call() {
+					synchronized (stopped) {
+						if (stopped[0]) return Boolean.valueOf(FAILED);
+					}
+					return Boolean.valueOf(search(index, queryRequestor, progressMonitor));
+				}
+			});
+		}
+
+		boolean isComplete = COMPLETE;
+		Throwable failure = null;
+		boolean interrupted = false;
+		for (int i = 0; i < max;) {
+			Future<Boolean> query;
+			try {
+				query = completionService.take();
+			} catch (InterruptedException e) {
+				interrupted = true;
+				failure = new OperationCanceledException();
+				stopQueries(queries, stopped);
+				continue;
+			}
+			i++;
+			try {
+				isComplete &= query.get().booleanValue();
+			} catch (CancellationException e) {
+				// stopped before it started
+			} catch (InterruptedException e) {
+				// cannot happen, the query is done
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause();
+					stopQueries(queries, stopped);
+				}
+			}
+			if (progressMonitor != null) {
+				if (failure == null && progressMonitor.isCanceled()) {
+					failure = new OperationCanceledException();
+					stopQueries(queries, stopped);
+				}
+				progressMonitor.worked(1);
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		if (failure instanceof Error)
+			throw (Error) failure;
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		return isComplete;
+	}
+	private void stopQueries(Future[] queries, boolean[] stopped) {
+		synchronized (stopped) {
+			stopped[0] = true;
+		}
+		for (int i = 0, l = queries.length; i < l; i++)
+			queries[i].cancel(false); // let the running queries finish, they check the progress monitor
+	}
 	public String toString() {
 		return "searching " + this.pattern.toString(); //$NON-NLS-1$
 	}
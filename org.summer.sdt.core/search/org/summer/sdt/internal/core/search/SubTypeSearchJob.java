@@ -37,10 +37,12 @@ public Index[] getIndexes(IProgressMonitor progressMonitor) {
 	this.indexes.asArray(values);
 	return values;
 }
-public boolean search(Index index, IProgressMonitor progressMonitor) {
+protected boolean search(Index index, IndexQueryRequestor queryRequestor, IProgressMonitor progressMonitor) {
 	if (index == null) return COMPLETE;
-	if (this.indexes.addIfNotIncluded(index) == index)
-		index.startQuery();
-	return super.search(index, progressMonitor);
+	synchronized (this.indexes) { // indexes may be queried concurrently
+		if (this.indexes.addIfNotIncluded(index) == index)
+			index.startQuery();
+	}
+	return super.search(index, queryRequestor, progressMonitor);
 }
 }
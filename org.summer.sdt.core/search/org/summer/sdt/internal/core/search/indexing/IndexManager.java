@@ -41,6 +41,12 @@ import org.summer.sdt.internal.core.util.Util;
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class IndexManager extends JobManager implements IIndexConstants {
 
+	/*
+	 * The tables below are shared by the threads executing the index requests (see processingThreadsCount())
+	 * and by the client threads searching the indexes: they are only read or written while holding the lock
+	 * of the index manager, which is also the lock of the job queue.
+	 */
+
 	// key = containerPath, value = indexLocation path
 	// indexLocation path is created by appending an index file name to the getJavaPluginWorkingLocation() path
 	public SimpleLookupTable indexLocations = new SimpleLookupTable();
@@ -64,6 +70,9 @@ public class IndexManager extends JobManager implements IIndexConstants {
 	public static final Integer REBUILDING_STATE = new Integer(3);
 	public static final Integer REUSE_STATE = new Integer(4);
 	
+	// maximum number of threads updating different indexes at the same time
+	static final int MAX_INDEXING_THREADS = 4;
+
 	// search participants who register indexes with the index manager
 	private SimpleLookupTable participantsContainers = null;
 	private boolean participantUpdated = false;
@@ -129,17 +138,19 @@ public class IndexManager extends JobManager implements IIndexConstants {
 			knownPaths.add(IndexLocation);
 		}
 	
-		if (this.indexStates != null) {
-			Object[] keys = this.indexStates.keyTable;
-			IndexLocation[] locations = new IndexLocation[this.indexStates.elementSize];
-			int count = 0;
-			for (int i = 0, l = keys.length; i < l; i++) {
-				IndexLocation key = (IndexLocation) keys[i];
-				if (key != null && !knownPaths.includes(key))
-					locations[count++] = key;
+		synchronized (this) {
+			if (this.indexStates != null) {
+				Object[] keys = this.indexStates.keyTable;
+				IndexLocation[] locations = new IndexLocation[this.indexStates.elementSize];
+				int count = 0;
+				for (int i = 0, l = keys.length; i < l; i++) {
+					IndexLocation key = (IndexLocation) keys[i];
+					if (key != null && !knownPaths.includes(key))
+						locations[count++] = key;
+				}
+				if (count > 0)
+					removeIndexesState(locations);
 			}
-			if (count > 0)
-				removeIndexesState(locations);
 		}
 		deleteIndexFiles(knownPaths);
 	}
@@ -361,36 +372,39 @@ public class IndexManager extends JobManager implements IIndexConstants {
 			}
 			// may trigger some index recreation work
 			IndexLocation indexLocation = locations[i];
-			Index index = getIndex(indexLocation);
-			if (index == null) {
-				// only need containerPath if the index must be built
-				IPath containerPath = (IPath) this.indexLocations.keyForValue(indexLocation);
-				if (containerPath != null) {// sanity check
-					index = getIndex(containerPath, indexLocation, true /*reuse index file*/, false /*do not create if none*/);
-					if (index != null && this.javaLikeNamesChanged && !index.isIndexForJar()) {
-						// When a change in java like names extension has been detected, all
-						// non jar files indexes (i.e. containing sources) need to be rebuilt.
-						// see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=286379
-						File indexFile = index.getIndexFile();
-						if (indexFile.exists()) {
-							if (DEBUG)
-								Util.verbose("Change in javaLikeNames - removing index file for " + containerPath ); //$NON-NLS-1$
-							indexFile.delete();
+			Index index;
+			synchronized (this) {
+				index = getIndex(indexLocation);
+				if (index == null) {
+					// only need containerPath if the index must be built
+					IPath containerPath = (IPath) this.indexLocations.keyForValue(indexLocation);
+					if (containerPath != null) {// sanity check
+						index = getIndex(containerPath, indexLocation, true /*reuse index file*/, false /*do not create if none*/);
+						if (index != null && this.javaLikeNamesChanged && !index.isIndexForJar()) {
+							// When a change in java like names extension has been detected, all
+							// non jar files indexes (i.e. containing sources) need to be rebuilt.
+							// see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=286379
+							File indexFile = index.getIndexFile();
+							if (indexFile.exists()) {
+								if (DEBUG)
+									Util.verbose("Change in javaLikeNames - removing index file for " + containerPath ); //$NON-NLS-1$
+								indexFile.delete();
+							}
+							this.indexes.put(indexLocation, null);
+							rebuildIndex(indexLocation, containerPath);
+							index = null;
 						}
-						this.indexes.put(indexLocation, null);
-						rebuildIndex(indexLocation, containerPath);
-						index = null;
-					}
-				} else {
-					if (indexLocation.isParticipantIndex() && indexLocation.exists()) { // the index belongs to non-jdt search participant
-						try {
-							IPath container = getParticipantsContainer(indexLocation);
-							if (container != null) {
-								index = new Index(indexLocation, container.toOSString(), true /*reuse index file*/);
-								this.indexes.put(indexLocation, index);
+					} else {
+						if (indexLocation.isParticipantIndex() && indexLocation.exists()) { // the index belongs to non-jdt search participant
+							try {
+								IPath container = getParticipantsContainer(indexLocation);
+								if (container != null) {
+									index = new Index(indexLocation, container.toOSString(), true /*reuse index file*/);
+									this.indexes.put(indexLocation, index);
+								}
+							} catch (IOException e) {
+								// ignore
 							}
-						} catch (IOException e) {
-							// ignore
 						}
 					}
 				}
@@ -611,11 +625,8 @@ public class IndexManager extends JobManager implements IIndexConstants {
 	 */
 	public void indexSourceFolder(JavaProject javaProject, IPath sourceFolder, char[][] inclusionPatterns, char[][] exclusionPatterns) {
 		IProject project = javaProject.getProject();
-		if (this.jobEnd > this.jobStart) {
-			// skip it if a job to index the project is already in the queue
-			IndexRequest request = new IndexAllProject(project, this);
-			if (isJobWaiting(request)) return;
-		}
+		// skip it if a job to index the project is already in the queue
+		if (isJobWaiting(new IndexAllProject(project, this))) return;
 	
 		request(new AddFolderToIndex(sourceFolder, project, inclusionPatterns, exclusionPatterns, this));
 	}
@@ -632,10 +643,48 @@ public class IndexManager extends JobManager implements IIndexConstants {
 	 * Advance to the next available job, once the current one has been completed.
 	 * Note: clients awaiting until the job count is zero are still waiting at this point.
 	 */
-	protected synchronized void moveToNextJob() {
+	protected synchronized void moveToNextJob(IJob completedJob) {
 		// remember that one job was executed, and we will need to save indexes at some point
 		this.needToSave = true;
-		super.moveToNextJob();
+		super.moveToNextJob(completedJob);
+	}
+	/**
+	 * Index requests updating different indexes are independent.
+	 */
+	protected Object jobKey(IJob job) {
+		if (job instanceof IndexRequest)
+			return ((IndexRequest) job).getJobKey();
+		return null;
+	}
+	/**
+	 * A search only waits for the requests updating the indexes it queries.
+	 * The requests are keyed by their container (or by their index location for the requests of
+	 * search participants), so the keys are the selected index locations and the containers
+	 * currently using them: a search also waits for a request queued before a pre-built index
+	 * location replaced the default one of its container.
+	 */
+	protected Object[] jobKeysAwaitedBy(IJob concurrentJob) {
+		if (!(concurrentJob instanceof PatternSearchJob))
+			return null;
+		IndexLocation[] locations = ((PatternSearchJob) concurrentJob).getIndexLocations();
+		ArrayList keys = new ArrayList(locations.length * 2);
+		synchronized (this) {
+			Object[] containers = this.indexLocations.keyTable;
+			Object[] containerLocations = this.indexLocations.valueTable;
+			for (int i = 0, length = locations.length; i < length; i++) {
+				keys.add(locations[i]);
+				for (int j = 0, l = containers.length; j < l; j++)
+					if (containers[j] != null && locations[i].equals(containerLocations[j]))
+						keys.add(containers[j]);
+			}
+		}
+		return keys.toArray();
+	}
+	/**
+	 * Jars and folders are indexed concurrently, leaving a processor to the foreground work.
+	 */
+	protected int processingThreadsCount() {
+		return Math.min(MAX_INDEXING_THREADS, Runtime.getRuntime().availableProcessors() - 1);
 	}
 	/**
 	 * No more job awaiting.
@@ -831,11 +880,8 @@ public class IndexManager extends JobManager implements IIndexConstants {
 	 */
 	public void removeSourceFolderFromIndex(JavaProject javaProject, IPath sourceFolder, char[][] inclusionPatterns, char[][] exclusionPatterns) {
 		IProject project = javaProject.getProject();
-		if (this.jobEnd > this.jobStart) {
-			// skip it if a job to index the project is already in the queue
-			IndexRequest request = new IndexAllProject(project, this);
-			if (isJobWaiting(request)) return;
-		}
+		// skip it if a job to index the project is already in the queue
+		if (isJobWaiting(new IndexAllProject(project, this))) return;
 	
 		request(new RemoveFolderFromIndex(sourceFolder, inclusionPatterns, exclusionPatterns, project, this));
 	}
@@ -906,12 +952,13 @@ public class IndexManager extends JobManager implements IIndexConstants {
 		}
 		synchronized (this) {
 			IPath containerPath = new Path(index.containerPath);
-			if (this.jobEnd > this.jobStart) {
-				for (int i = this.jobEnd; i > this.jobStart; i--) { // skip the current job
-					IJob job = this.awaitingJobs[i];
-					if (job instanceof IndexRequest)
-						if (((IndexRequest) job).containerPath.equals(containerPath)) return;
-				}
+			// the queue also holds the running requests, not only the one at its start: skip them all,
+			// the caller included, only a waiting request updates this index again
+			for (int i = this.jobEnd; i >= this.jobStart; i--) {
+				IJob job = this.awaitingJobs[i];
+				if (isJobRunning(job)) continue;
+				if (job instanceof IndexRequest)
+					if (((IndexRequest) job).containerPath.equals(containerPath)) return;
 			}
 			IndexLocation indexLocation = computeIndexLocation(containerPath);
 			updateIndexState(indexLocation, SAVED_STATE);
@@ -924,6 +971,8 @@ public class IndexManager extends JobManager implements IIndexConstants {
 		// only save cached indexes... the rest were not modified
 		ArrayList toSave = new ArrayList();
 		synchronized(this) {
+			// reset the flag first, a request completed while saving sets it again
+			this.needToSave = false;
 			Object[] valueTable = this.indexes.valueTable;
 			for (int i = 0, l = valueTable.length; i < l; i++) {
 				Index index = (Index) valueTable[i];
@@ -962,11 +1011,14 @@ public class IndexManager extends JobManager implements IIndexConstants {
 				monitor.exitRead();
 			}
 		}
-		if (this.participantsContainers != null && this.participantUpdated) {
-			writeParticipantsIndexNamesFile();
-			this.participantUpdated = false;
+		synchronized(this) {
+			if (this.participantsContainers != null && this.participantUpdated) {
+				writeParticipantsIndexNamesFile();
+				this.participantUpdated = false;
+			}
+			if (!allSaved)
+				this.needToSave = true;
 		}
-		this.needToSave = !allSaved;
 	}
 	public void scheduleDocumentIndexing(final SearchDocument searchDocument, IPath container, final IndexLocation indexLocation, final SearchParticipant searchParticipant) {
 		request(new IndexRequest(container, this) {
@@ -990,6 +1042,9 @@ public class IndexManager extends JobManager implements IIndexConstants {
 				}
 				return true;
 			}
+			public Object getJobKey() {
+				return indexLocation; // several containers may update the index of a search participant
+			}
 			public String toString() {
 				return "indexing " + searchDocument.getPath(); //$NON-NLS-1$
 			}
@@ -1121,7 +1176,7 @@ public class IndexManager extends JobManager implements IIndexConstants {
 		}
 	
 	}
-	public void updateParticipant(IPath indexPath, IPath containerPath) {
+	public synchronized void updateParticipant(IPath indexPath, IPath containerPath) {
 		if (this.participantsContainers == null) {
 			readParticipantsIndexNamesFile();
 		}
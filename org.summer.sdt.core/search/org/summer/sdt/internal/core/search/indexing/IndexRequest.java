@@ -36,6 +36,15 @@ public abstract class IndexRequest implements IJob {
 		// tag the index as inconsistent
 		this.manager.aboutToUpdateIndex(this.containerPath, updatedIndexState());
 	}
+	/**
+	 * Answers the key of the index updated by this request, by default the path of its container.
+	 * Requests with different keys can be executed concurrently.
+	 * The container is used rather than the location of its index since this location can change
+	 * until the request is executed, e.g. when a pre-built index replaces the default one.
+	 */
+	public Object getJobKey() {
+		return this.containerPath;
+	}
 	public String getJobFamily() {
 		return this.containerPath.toString();
 	}
@@ -94,6 +94,12 @@ public synchronized void exitWriteEnterRead() {
 	exitWrite();
 	enterRead();
 }
+/**
+ * Answers whether the write lock is held, when it is no reader is inside the monitor.
+ */
+public synchronized boolean isWriting() {
+	return this.status < 0;
+}
 public String toString() {
 	StringBuffer buffer = new StringBuffer();
 	if (this.status == 0) {
@@ -136,6 +136,7 @@ public class SourceIndexer extends AbstractIndexer implements ITypeRequestor, Su
 	}
 	
 	public void resolveDocument() {
+		INameEnvironment nameEnvironment = null;
 		try {
 			IPath path = new Path(this.document.getPath());
 			IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(path.segment(0));
@@ -156,7 +157,7 @@ public class SourceIndexer extends AbstractIndexer implements ITypeRequestor, Su
 			this.cud = this.basicParser.parse(this.compilationUnit, new CompilationResult(this.compilationUnit, 0, 0, this.options.maxProblemsPerUnit));
 
 			// Use a non model name environment to avoid locks, monitors and such.
-			INameEnvironment nameEnvironment = new JavaSearchNameEnvironment(javaProject, JavaModelManager.getJavaModelManager().getWorkingCopies(DefaultWorkingCopyOwner.PRIMARY, true/*add primary WCs*/));
+			nameEnvironment = new JavaSearchNameEnvironment(javaProject, JavaModelManager.getJavaModelManager().getWorkingCopies(DefaultWorkingCopyOwner.PRIMARY, true/*add primary WCs*/));
 			this.lookupEnvironment = new LookupEnvironment(this, this.options, problemReporter, nameEnvironment);
 			reduceParseTree(this.cud);
 			this.lookupEnvironment.buildTypeBindings(this.cud, null);
@@ -167,6 +168,10 @@ public class SourceIndexer extends AbstractIndexer implements ITypeRequestor, Su
 			if (JobManager.VERBOSE) {
 				e.printStackTrace();
 			}
+		} finally {
+			// the resolved bindings are enough to index the document, give the zip files back
+			if (nameEnvironment != null)
+				nameEnvironment.cleanup();
 		}
 	}
 
@@ -73,6 +73,13 @@ public void findIndexMatches(Index index, IndexQueryRequestor requestor, SearchP
 		if (names[i] != null)
 			acceptMatch((String) names[i], containerPath, separator, null/*no pattern*/, requestor, participant, scope, progressMonitor); // AndPatterns cannot provide the decoded result
 }
+/**
+ * Returns whether the successive queries walk a cursor kept in this pattern,
+ * in which case the pattern cannot query several indexes at the same time.
+ */
+boolean hasQueryCursor() {
+	return true;
+}
 /**
  * Returns whether another query must be done.
  */
@@ -68,6 +68,10 @@ public JavaSearchNameEnvironment(IJavaProject javaProject, org.summer.sdt.core.I
 	}
 }
 
+/**
+ * Releases the resources of the locations, in particular gives the zip files of the archives
+ * back to the {@link JavaModelManager}.
+ */
 public void cleanup() {
 	for (int i = 0, length = this.locations.length; i < length; i++) {
 		this.locations[i].cleanup();
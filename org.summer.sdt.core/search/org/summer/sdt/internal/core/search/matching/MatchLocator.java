@@ -18,6 +18,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipFile;
 
 import org.eclipse.core.resources.IResource;
@@ -106,6 +113,21 @@ static {
 	}
 }
 
+/*
+ * Searches with several slices of possible matches locate them concurrently. The slices are smaller than
+ * MAX_AT_ONCE so that about as many units are parsed at once as when they are located one slice at a time.
+ */
+static final int MAX_LOCATOR_THREADS = 4;
+static final int MIN_CONCURRENT_SLICE = 50;
+private static ThreadPoolExecutor LocatorExecutor;
+
+static class LocatorThread extends Thread {
+	LocatorThread(Runnable runnable) {
+		super(runnable, "Java Search Match Locator"); //$NON-NLS-1$
+		setDaemon(true);
+	}
+}
+
 // permanent state
 public SearchPattern pattern;
 public PatternLocator patternLocator;
@@ -151,6 +173,9 @@ SimpleLookupTable bindings;
 // Cache for method handles
 HashSet methodHandles;
 
+// Slices of possible matches to locate concurrently, null when they are located as they are found
+ArrayList locateTasks;
+
 private final boolean searchPackageDeclaration;
 private int sourceStartOfMethodToRetain;
 private int sourceEndOfMethodToRetain;
@@ -167,6 +192,40 @@ public static class WorkingCopyDocument extends JavaSearchDocument {
 	}
 }
 
+/*
+ * A slice of the possible matches of a project, located by a copy of the locator which has its own lookup
+ * environment. Its matches are kept until the matches of the previous slices have been reported.
+ */
+class LocateTask implements Callable {
+	final JavaProject javaProject;
+	final PossibleMatch[] possibleMatches;
+	final int start;
+	final int length;
+	final ArrayList matches = new ArrayList();
+
+	LocateTask(JavaProject javaProject, PossibleMatch[] possibleMatches, int start, int length) {
+		this.javaProject = javaProject;
+		this.possibleMatches = possibleMatches;
+		this.start = start;
+		this.length = length;
+	}
+	public Object call() throws CoreException {
+		MatchLocator locator = newSliceLocator(this.matches);
+		JavaModelManager manager = JavaModelManager.getJavaModelManager();
+		manager.cacheZipFiles(locator);
+		try {
+			locator.locateMatches(this.javaProject, this.possibleMatches, this.start, this.length);
+		} catch (JavaModelException e) {
+			// problem with classpath in this project -> skip it
+		} finally {
+			if (locator.nameEnvironment != null)
+				locator.nameEnvironment.cleanup();
+			manager.flushZipFiles(locator);
+		}
+		return null;
+	}
+}
+
 public static class WrappedCoreException extends RuntimeException {
 	private static final long serialVersionUID = 8354329870126121212L; // backward compatible
 	public CoreException coreException;
@@ -266,6 +325,21 @@ public static ClassFileReader classFileReader(IType type) {
 	return null;
 }
 
+/**
+ * Answers whether the given pattern can query several indexes at the same time.
+ */
+public static boolean canQueryIndexesConcurrently(SearchPattern pattern) {
+	if (pattern instanceof IntersectingPattern)
+		return !((IntersectingPattern) pattern).hasQueryCursor();
+	if (pattern instanceof OrPattern) {
+		SearchPattern[] patterns = ((OrPattern) pattern).patterns;
+		for (int i = 0, length = patterns.length; i < length; i++)
+			if (!canQueryIndexesConcurrently(patterns[i]))
+				return false;
+	}
+	return pattern != null;
+}
+
 /**
  * Query a given index for matching entries. Assumes the sender has opened the index and will close when finished.
  */
@@ -1041,8 +1115,8 @@ protected boolean hasAlreadyDefinedType(CompilationUnitDeclaration parsedUnit) {
  */
 public void initialize(JavaProject project, int possibleMatchSize) throws JavaModelException {
 	// clean up name environment only if there are several possible match as it is reused
-	// when only one possible match (bug 58581)
-	if (this.nameEnvironment != null && possibleMatchSize != 1) {
+	// when only one possible match (bug 58581), unless it holds zip files which must be given back
+	if (this.nameEnvironment != null && (possibleMatchSize != 1 || this.nameEnvironment instanceof JavaSearchNameEnvironment)) {
 		this.nameEnvironment.cleanup();
 		this.unitScope = null; // don't leak a reference to the cleaned-up name environment
 	}
@@ -1196,6 +1270,14 @@ protected void locateMatches(JavaProject javaProject, PossibleMatchSet matchSet,
 		this.progressWorked += expected-length;
 		this.progressMonitor.worked( expected-length);
 	}
+	if (this.locateTasks != null) {
+		// located once all the projects are known, a large project being shared between the threads
+		int threads = LocatorExecutor.getMaximumPoolSize();
+		int sliceSize = Math.max(MIN_CONCURRENT_SLICE, Math.min(MAX_AT_ONCE / threads, (length + threads - 1) / threads));
+		for (int index = 0; index < length; index += sliceSize)
+			this.locateTasks.add(new LocateTask(javaProject, possibleMatches, index, Math.min(sliceSize, length - index)));
+		return;
+	}
 	// locate matches (processed matches are limited to avoid problem while using VM default memory heap size)
 	for (int index = 0; index < length;) {
 		int max = Math.min(MAX_AT_ONCE, length - index);
@@ -1257,6 +1339,8 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 		// initialize pattern for polymorphic search (i.e. method reference pattern)
 		this.patternLocator.initializePolymorphicSearch(this);
 
+		if (getLocatorExecutor() != null)
+			this.locateTasks = new ArrayList();
 		JavaProject previousJavaProject = null;
 		PossibleMatchSet matchSet = new PossibleMatchSet();
 		Util.sort(searchDocuments, new Util.Comparer() {
@@ -1336,12 +1420,18 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 				// problem with classpath in last project -> ignore
 			}
 		}
+		if (this.locateTasks != null) {
+			ArrayList tasks = this.locateTasks;
+			this.locateTasks = null;
+			locateSlices(tasks);
+		}
 
 		if (this.searchPackageDeclaration) {
 			locatePackageDeclarations(searchParticipant, javaModelProjects);
 		}
 
 	} finally {
+		this.locateTasks = null;
 		if (this.progressMonitor != null)
 			this.progressMonitor.done();
 		if (this.nameEnvironment != null)
@@ -1351,6 +1441,111 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 		this.bindings = null;
 	}
 }
+/*
+ * Locates the given slices of possible matches in the locator pool, then reports their matches in the order
+ * of the slices, as if the slices were located one after the other. A single slice is located by this locator.
+ */
+private void locateSlices(ArrayList tasks) throws CoreException {
+	int size = tasks.size();
+	if (size == 1) {
+		LocateTask task = (LocateTask) tasks.get(0);
+		try {
+			locateMatches(task.javaProject, task.possibleMatches, task.start, task.length);
+		} catch (JavaModelException e) {
+			// problem with classpath in this project -> skip it
+		}
+		this.patternLocator.clear();
+		return;
+	}
+	ThreadPoolExecutor executor = getLocatorExecutor();
+	Future[] futures = new Future[size];
+	for (int i = 0; i < size; i++)
+		futures[i] = executor.submit((LocateTask) tasks.get(i));
+
+	Throwable failure = null;
+	boolean interrupted = false;
+	for (int i = 0; i < size && failure == null; i++) {
+		LocateTask task = (LocateTask) tasks.get(i);
+		tasks.set(i, null); // release the matches of the slice once reported
+		try {
+			futures[i].get();
+			for (int j = 0, length = task.matches.size(); j < length; j++)
+				this.requestor.acceptSearchMatch((SearchMatch) task.matches.get(j));
+			if (this.progressMonitor != null) {
+				if (this.progressMonitor.isCanceled())
+					failure = new OperationCanceledException();
+				int steps = (this.progressWorked + task.length) / this.progressStep - this.progressWorked / this.progressStep;
+				this.progressWorked += task.length;
+				if (steps > 0) this.progressMonitor.worked(steps * this.progressStep);
+			}
+		} catch (InterruptedException e) {
+			interrupted = true;
+			failure = new OperationCanceledException();
+		} catch (ExecutionException e) {
+			failure = e.getCause();
+		} catch (CoreException e) {
+			failure = e;
+		}
+	}
+	if (failure != null) {
+		// the slices being located only keep their matches, they are not waited for
+		for (int i = 0; i < size; i++)
+			futures[i].cancel(false);
+	}
+	if (interrupted)
+		Thread.currentThread().interrupt();
+	if (failure instanceof CoreException)
+		throw (CoreException) failure;
+	if (failure instanceof Error)
+		throw (Error) failure;
+	if (failure instanceof RuntimeException)
+		throw (RuntimeException) failure;
+}
+/*
+ * Answers the pool locating slices of possible matches, or null if there is a single processor
+ * or if this is a locator thread: a requestor searching again must not wait for its own pool.
+ */
+private static synchronized ThreadPoolExecutor getLocatorExecutor() {
+	if (Thread.currentThread() instanceof LocatorThread)
+		return null;
+	if (LocatorExecutor == null) {
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), MAX_LOCATOR_THREADS);
+		if (threads < 2) return null;
+		LocatorExecutor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				return new LocatorThread(runnable);
+			}
+		});
+		LocatorExecutor.allowCoreThreadTimeOut(true); // do not keep idle threads once searching is over
+	}
+	return LocatorExecutor;
+}
+/*
+ * Answers a copy of this locator for a slice of possible matches, which keeps its matches in the given list.
+ * Its pattern locator shares the polymorphic search of this one, and it is canceled with this one.
+ */
+MatchLocator newSliceLocator(final ArrayList matches) {
+	final IProgressMonitor monitor = this.progressMonitor;
+	MatchLocator locator = new MatchLocator(
+		this.pattern,
+		new SearchRequestor() {
+			public void acceptSearchMatch(SearchMatch match) {
+				matches.add(match);
+			}
+		},
+		this.scope,
+		new NullProgressMonitor() {
+			public boolean isCanceled() {
+				return monitor != null && monitor.isCanceled();
+			}
+		});
+	locator.workingCopies = this.workingCopies;
+	locator.handleFactory = new HandleFactory();
+	locator.bindings = new SimpleLookupTable();
+	locator.progressStep = 1; // progress is reported by this locator as slices complete
+	locator.patternLocator.initializePolymorphicSearch(locator, this.patternLocator);
+	return locator;
+}
 /**
  * Locates the package declarations corresponding to this locator's pattern.
  */
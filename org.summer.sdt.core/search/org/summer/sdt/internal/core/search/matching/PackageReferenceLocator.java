@@ -101,7 +101,7 @@ protected int matchLevelForTokens(char[][] tokens) {
 	switch (this.matchMode) {
 		case SearchPattern.R_EXACT_MATCH:
 		case SearchPattern.R_PREFIX_MATCH:
-			if (CharOperation.prefixEquals(this.pattern.pkgName, CharOperation.concatWith(tokens, '.'), this.isCaseSensitive)) {
+			if (CharOperation.prefixEquals(this.pattern.pkgName, tokens, '.', this.isCaseSensitive)) {
 				return POSSIBLE_MATCH;
 			}
 			break;
@@ -176,6 +176,13 @@ protected TypeBinding getTypeNameBinding(int index) {
 public void initializePolymorphicSearch(MatchLocator locator) {
 	// default is to do nothing
 }
+/**
+ * Initializes this search pattern for the given locator like the given locator of the same pattern,
+ * already initialized, without searching again.
+ */
+public void initializePolymorphicSearch(MatchLocator locator, PatternLocator initializedLocator) {
+	// default is to do nothing
+}
 public int match(Annotation node, MatchingNodeSet nodeSet) {
 	// each subtype should override if needed
 	return IMPOSSIBLE_MATCH;
@@ -308,10 +315,6 @@ protected int matchNameValue(char[] pattern, char[] name) {
 			break;
 
 		case SearchPattern.R_PATTERN_MATCH:
-			// TODO_PERFS (frederic) Not sure this lowercase is necessary
-			if (!this.isCaseSensitive) {
-				pattern = CharOperation.toLowerCase(pattern);
-			}
 			if (CharOperation.match(pattern, name, this.isCaseSensitive)) {
 				return POSSIBLE_MATCH;
 			}
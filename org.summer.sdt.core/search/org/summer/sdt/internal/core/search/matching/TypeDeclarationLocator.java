@@ -99,7 +99,7 @@ protected int resolveLevelForType(char[] simpleNamePattern, char[] qualification
 
 	// pattern was created from a Java element: qualification is the package name.
 	char[] fullQualificationPattern = CharOperation.concat(qualificationPattern, enclosingNamePattern, '.');
-	if (CharOperation.equals(this.pattern.pkg, CharOperation.concatWith(type.getPackage().compoundName, '.')))
+	if (this.pattern.pkg != null && CharOperation.equals(this.pattern.pkg, type.getPackage().compoundName, '.', true))
 		return resolveLevelForType(simpleNamePattern, fullQualificationPattern, type);
 	return IMPOSSIBLE_MATCH;
 }
@@ -126,6 +126,9 @@ public class TypeReferencePattern extends IntersectingPattern {
 	public char[][] getIndexCategories() {
 		return this.categories;
 	}
+	boolean hasQueryCursor() {
+		return this.segments != null; // a simple name is the only key
+	}
 	protected boolean hasNextQuery() {
 		if (this.segments == null) return false;
 
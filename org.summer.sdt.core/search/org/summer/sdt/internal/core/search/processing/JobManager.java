@@ -10,21 +10,40 @@
  *******************************************************************************/
 package org.summer.sdt.internal.core.search.processing;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
 import org.summer.sdt.internal.core.util.Messages;
 import org.summer.sdt.internal.core.util.Util;
 
+/**
+ * Executes the requested jobs in background, in the order they were requested.
+ * <p>
+ * Subclasses may let several threads process the queue by answering more than one
+ * {@link #processingThreadsCount() processing thread} and by answering a {@link #jobKey(IJob) key}
+ * for their jobs: jobs with the same key are executed one after the other in queue order,
+ * jobs with different keys can be executed concurrently, and a job without key is executed
+ * alone once all the jobs queued before it have completed.
+ * </p>
+ */
 public abstract class JobManager implements Runnable {
 
-	/* queue of jobs to execute */
+	/* queue of jobs to execute, jobs stay in the queue until they have completed
+	    the running jobs may be anywhere in the queue, not only at jobStart */
 	protected IJob[] awaitingJobs = new IJob[10];
 	protected int jobStart = 0;
 	protected int jobEnd = -1;
 	protected boolean executing = false;
 
+	/* jobs of the queue being executed, by the processing thread or by the helper threads */
+	private IJob[] runningJobs = new IJob[1];
+	private int runningCount = 0;
+
 	/* background processing */
 	protected Thread processingThread;
+	private Thread[] helperThreads;
 	protected Job progressJob;
 
 	/* counter indicating whether job execution is enabled or not, disabled if <= 0
@@ -36,6 +55,8 @@ public abstract class JobManager implements Runnable {
 	public boolean activated = false;
 
 	private int awaitingClients = 0;
+	/* keys of the jobs the awaiting clients depend on (one array per client), these jobs are executed first */
+	private ArrayList awaitedKeys = new ArrayList();
 
 	/**
 	 * Invoked exactly once, in background, before starting processing any job
@@ -50,9 +71,31 @@ public abstract class JobManager implements Runnable {
 		// pretend busy in case concurrent job attempts performing before activated
 		return this.activated ? this.jobEnd - this.jobStart + 1 : 1;
 	}
+	/**
+	 * Answer the amount of awaiting jobs having one of the given keys, or no key.
+	 * Passing null answers the amount of all awaiting jobs.
+	 */
+	public synchronized int awaitingJobsCount(Object[] keys) {
+		if (keys == null || !this.activated)
+			return awaitingJobsCount();
+		int count = 0;
+		for (int i = this.jobStart; i <= this.jobEnd; i++) {
+			Object key = jobKey(this.awaitingJobs[i]);
+			if (key == null || contains(keys, key))
+				count++;
+		}
+		return count;
+	}
+	private static boolean contains(Object[] keys, Object key) {
+		for (int i = 0, length = keys.length; i < length; i++)
+			if (key.equals(keys[i])) return true;
+		return false;
+	}
 	/**
 	 * Answers the first job in the queue, or null if there is no job available
 	 * Until the job has completed, the job manager will keep answering the same job.
+	 * Note: with several processing threads, this is the oldest job which has not completed yet,
+	 * it may not be running while later jobs are, use {@link #isJobRunning(IJob)} to know it.
 	 */
 	public synchronized IJob currentJob() {
 		if (this.enableCount > 0 && this.jobStart <= this.jobEnd)
@@ -75,22 +118,29 @@ public abstract class JobManager implements Runnable {
 
 		try {
 			IJob currentJob;
-			// cancel current job if it belongs to the given family
+			IJob[] currentJobs;
+			// cancel current jobs if they belong to the given family
 			synchronized(this){
-				currentJob = currentJob();
+				currentJobs = new IJob[this.runningCount];
+				for (int i = 0, index = 0, length = this.runningJobs.length; i < length; i++)
+					if (this.runningJobs[i] != null)
+						currentJobs[index++] = this.runningJobs[i];
 				disable();
 			}
-			if (currentJob != null && (jobFamily == null || currentJob.belongsTo(jobFamily))) {
-				currentJob.cancel();
+			for (int i = 0, length = currentJobs.length; i < length; i++) {
+				currentJob = currentJobs[i];
+				if (jobFamily == null || currentJob.belongsTo(jobFamily)) {
+					currentJob.cancel();
 
-				// wait until current active job has finished
-				while (this.processingThread != null && this.executing){
-					try {
-						if (VERBOSE)
-							Util.verbose("-> waiting end of current background job - " + currentJob); //$NON-NLS-1$
-						Thread.sleep(50);
-					} catch(InterruptedException e){
-						// ignore
+					// wait until current active job has finished
+					while (this.processingThread != null && isJobRunning(currentJob)){
+						try {
+							if (VERBOSE)
+								Util.verbose("-> waiting end of current background job - " + currentJob); //$NON-NLS-1$
+							Thread.sleep(50);
+						} catch(InterruptedException e){
+							// ignore
+						}
 					}
 				}
 			}
@@ -126,25 +176,116 @@ public abstract class JobManager implements Runnable {
 			Util.verbose("ENABLING  background indexing"); //$NON-NLS-1$
 		notifyAll(); // wake up the background thread if it is waiting (context must be synchronized)
 	}
+	protected synchronized boolean isJobRunning(IJob job) {
+		for (int i = 0, length = this.runningJobs.length; i < length; i++)
+			if (this.runningJobs[i] == job) return true;
+		return false;
+	}
 	protected synchronized boolean isJobWaiting(IJob request) {
-		for (int i = this.jobEnd; i > this.jobStart; i--) // don't check job at jobStart, as it may have already started
-			if (request.equals(this.awaitingJobs[i])) return true;
+		for (int i = this.jobEnd; i >= this.jobStart; i--) {
+			IJob job = this.awaitingJobs[i];
+			if (isJobRunning(job)) continue; // don't check jobs which have already started
+			if (request.equals(job)) return true;
+		}
 		return false;
 	}
 	/**
-	 * Advance to the next available job, once the current one has been completed.
+	 * Answers the key of the resource the given job updates, or null if the job may interfere
+	 * with any other job. Jobs with different keys are executed concurrently when there is
+	 * more than one processing thread.
+	 * By default, jobs have no key and are executed one at a time.
+	 */
+	protected Object jobKey(IJob job) {
+		return null;
+	}
+	/**
+	 * Answers the keys of the jobs which must complete before the given concurrent job can be
+	 * performed (these jobs are executed first), or null if it must wait for all awaiting jobs.
+	 */
+	protected Object[] jobKeysAwaitedBy(IJob concurrentJob) {
+		return null;
+	}
+	/**
+	 * Answers the number of threads processing the jobs, by default 1.
+	 */
+	protected int processingThreadsCount() {
+		return 1;
+	}
+	/**
+	 * Remove the given job from the queue once it has been completed.
 	 * Note: clients awaiting until the job count is zero are still waiting at this point.
 	 */
-	protected synchronized void moveToNextJob() {
-		//if (!enabled) return;
+	protected synchronized void moveToNextJob(IJob completedJob) {
+		for (int i = 0, length = this.runningJobs.length; i < length; i++) {
+			if (this.runningJobs[i] == completedJob) {
+				this.runningJobs[i] = null;
+				this.runningCount--;
+				break;
+			}
+		}
+		this.executing = this.runningCount > 0;
 
-		if (this.jobStart <= this.jobEnd) {
-			this.awaitingJobs[this.jobStart++] = null;
-			if (this.jobStart > this.jobEnd) {
-				this.jobStart = 0;
-				this.jobEnd = -1;
+		for (int i = this.jobStart; i <= this.jobEnd; i++) {
+			if (this.awaitingJobs[i] == completedJob) {
+				// shift the jobs queued before the completed one to keep the queue in order
+				System.arraycopy(this.awaitingJobs, this.jobStart, this.awaitingJobs, this.jobStart + 1, i - this.jobStart);
+				this.awaitingJobs[this.jobStart++] = null;
+				if (this.jobStart > this.jobEnd) {
+					this.jobStart = 0;
+					this.jobEnd = -1;
+				}
+				break;
 			}
 		}
+		notifyAll(); // wake up the threads waiting for this job to complete
+	}
+	/**
+	 * Answers the next job to execute and marks it as running, or null if the remaining jobs
+	 * must wait until the running ones have completed.
+	 * The first job of the queue whose key is awaited by a client is preferred, otherwise the first
+	 * job of the queue whose key differs from the keys of all the jobs queued before it.
+	 */
+	private IJob claimNextJob() {
+		if (this.enableCount <= 0 || this.runningCount == this.runningJobs.length)
+			return null;
+		IJob claimed = null;
+		HashSet queuedKeys = new HashSet();
+		for (int i = this.jobStart; i <= this.jobEnd; i++) {
+			IJob job = this.awaitingJobs[i];
+			Object key = jobKey(job);
+			if (key == null) {
+				// a job without key runs alone once all the jobs before it have completed
+				if (claimed == null && i == this.jobStart && this.runningCount == 0)
+					claimed = job;
+				break;
+			}
+			if (!queuedKeys.add(key)) continue; // a job for the same key is queued before this one
+			if (isJobRunning(job)) continue;
+			if (isKeyAwaited(key)) {
+				claimed = job;
+				break;
+			}
+			if (claimed == null) {
+				claimed = job;
+				if (this.awaitedKeys.isEmpty()) break;
+			}
+		}
+		if (claimed != null) {
+			for (int i = 0, length = this.runningJobs.length; i < length; i++) {
+				if (this.runningJobs[i] == null) {
+					this.runningJobs[i] = claimed;
+					break;
+				}
+			}
+			this.runningCount++;
+			this.executing = true;
+		}
+		return claimed;
+	}
+	private boolean isKeyAwaited(Object key) {
+		for (int i = 0, size = this.awaitedKeys.size(); i < size; i++)
+			if (contains((Object[]) this.awaitedKeys.get(i), key)) return true;
+		return false;
 	}
 	/**
 	 * When idle, give chance to do something
@@ -178,7 +319,8 @@ public abstract class JobManager implements Runnable {
 			int concurrentJobWork = 100;
 			if (progress != null)
 				progress.beginTask("", concurrentJobWork); //$NON-NLS-1$
-			if (awaitingJobsCount() > 0) {
+			Object[] keys = waitingPolicy == IJob.WaitUntilReady ? jobKeysAwaitedBy(searchJob) : null;
+			if (awaitingJobsCount(keys) > 0) {
 				switch (waitingPolicy) {
 
 					case IJob.ForceImmediate :
@@ -214,18 +356,24 @@ public abstract class JobManager implements Runnable {
 							// and bug 42760 NullPointerException in JobManager when searching)
 							Thread t = this.processingThread;
 							int originalPriority = t == null ? -1 : t.getPriority();
+							Thread[] helpers = this.helperThreads;
 							try {
 								if (t != null)
 									t.setPriority(Thread.currentThread().getPriority());
+								if (helpers != null)
+									for (int i = 0, length = helpers.length; i < length; i++)
+										helpers[i].setPriority(Thread.currentThread().getPriority());
 								synchronized(this) {
 									this.awaitingClients++;
+									if (keys != null)
+										this.awaitedKeys.add(keys);
 								}
 								IJob previousJob = null;
 								int awaitingJobsCount;
 								int lastJobsCount = totalWork;
 								float lastWorked = 0;
 								float totalWorked = 0;
-								while ((awaitingJobsCount = awaitingJobsCount()) > 0) {
+								while ((awaitingJobsCount = awaitingJobsCount(keys)) > 0) {
 									if ((subProgress != null && subProgress.isCanceled())
 											|| this.processingThread == null)
 										throw new OperationCanceledException();
@@ -264,9 +412,15 @@ public abstract class JobManager implements Runnable {
 							} finally {
 								synchronized(this) {
 									this.awaitingClients--;
+									if (keys != null)
+										this.awaitedKeys.remove(keys);
 								}
 								if (t != null && originalPriority > -1 && t.isAlive())
 									t.setPriority(originalPriority);
+								if (helpers != null && originalPriority > -1)
+									for (int i = 0, length = helpers.length; i < length; i++)
+										if (helpers[i].isAlive())
+											helpers[i].setPriority(originalPriority);
 							}
 						} finally {
 							if (subProgress != null)
@@ -328,7 +482,76 @@ public abstract class JobManager implements Runnable {
 			// https://bugs.eclipse.org/bugs/show_bug.cgi?id=296343
 			// set the context loader to avoid leaking the current context loader
 			this.processingThread.setContextClassLoader(this.getClass().getClassLoader());
+
+			int threadCount = Math.max(1, processingThreadsCount());
+			this.runningJobs = new IJob[threadCount];
+			this.runningCount = 0;
+			this.executing = false;
+			this.helperThreads = null;
+			if (threadCount > 1) {
+				final Thread owner = this.processingThread;
+				this.helperThreads = new Thread[threadCount - 1];
+				for (int i = 0; i < threadCount - 1; i++) {
+					Thread helper = new Thread(processName()) {
+						public void run() {
+							processJobs(owner);
+						}
+					};
+					helper.setDaemon(true);
+					helper.setPriority(Thread.NORM_PRIORITY-1);
+					helper.setContextClassLoader(this.getClass().getClassLoader());
+					this.helperThreads[i] = helper;
+				}
+			}
 			this.processingThread.start();
+			if (this.helperThreads != null)
+				for (int i = 0, length = this.helperThreads.length; i < length; i++)
+					this.helperThreads[i].start();
+		}
+	}
+	/**
+	 * Loop performing the jobs which can be executed concurrently with the ones of the processing thread,
+	 * until the given processing thread is shut down.
+	 */
+	void processJobs(Thread owner) {
+		while (this.processingThread == owner) {
+			IJob job;
+			synchronized (this) {
+				if (this.processingThread != owner) return;
+				if ((job = claimNextJob()) == null) {
+					try {
+						wait(); // wait until a new job is posted or a running one has completed
+					} catch (InterruptedException e) {
+						// ignore
+					}
+					continue;
+				}
+			}
+			if (VERBOSE)
+				Util.verbose("STARTING background job - " + job); //$NON-NLS-1$
+			try {
+				job.execute(null);
+			} catch (RuntimeException e) {
+				// log exception, the index of the job may be inconsistent but the other ones can still be updated
+				Util.log(e, "Background Indexer Crash Recovery"); //$NON-NLS-1$
+			} catch (Error e) {
+				if (this.processingThread == owner && !(e instanceof ThreadDeath)) {
+					// log exception, this helper thread stops but the other threads go on with the remaining jobs
+					Util.log(e, "Background Indexer Crash Recovery"); //$NON-NLS-1$
+				}
+				throw e;
+			} finally {
+				if (VERBOSE)
+					Util.verbose("FINISHED background job - " + job); //$NON-NLS-1$
+				moveToNextJob(job);
+			}
+			if (this.awaitingClients == 0) {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+			}
 		}
 	}
 	/**
@@ -370,7 +593,8 @@ public abstract class JobManager implements Runnable {
 						if (this.processingThread == null) continue;
 
 						// must check for new job inside this sync block to avoid timing hole
-						if ((job = currentJob()) == null) {
+						if (currentJob() == null) {
+							job = null;
 							if (this.progressJob != null) {
 								this.progressJob.cancel();
 								this.progressJob = null;
@@ -380,6 +604,10 @@ public abstract class JobManager implements Runnable {
 							else
 								notifyIdle(System.currentTimeMillis() - idlingStart);
 							this.wait(); // wait until a new job is posted (or reenabled:38901)
+						} else if ((job = claimNextJob()) == null) {
+							// the remaining jobs depend on the ones run by the helper threads
+							this.wait(); // wait until a running job has completed
+							continue;
 						} else {
 							idlingStart = -1;
 						}
@@ -395,7 +623,6 @@ public abstract class JobManager implements Runnable {
 						Util.verbose("STARTING background job - " + job); //$NON-NLS-1$
 					}
 					try {
-						this.executing = true;
 						if (this.progressJob == null) {
 							this.progressJob = new ProgressJob(Messages.bind(Messages.jobmanager_indexing, "", "")); //$NON-NLS-1$ //$NON-NLS-2$
 							this.progressJob.setPriority(Job.LONG);
@@ -405,10 +632,9 @@ public abstract class JobManager implements Runnable {
 						/*boolean status = */job.execute(null);
 						//if (status == FAILED) request(job);
 					} finally {
-						this.executing = false;
 						if (VERBOSE)
 							Util.verbose("FINISHED background job - " + job); //$NON-NLS-1$
-						moveToNextJob();
+						moveToNextJob(job);
 						if (this.awaitingClients == 0)
 							Thread.sleep(50);
 					}
@@ -448,16 +674,20 @@ public abstract class JobManager implements Runnable {
 			Util.verbose("Shutdown"); //$NON-NLS-1$
 
 		disable();
-		discardJobs(null); // will wait until current executing job has completed
+		discardJobs(null); // will wait until current executing jobs have completed
 		Thread thread = this.processingThread;
+		Thread[] helpers = this.helperThreads;
 		try {
 			if (thread != null) { // see http://bugs.eclipse.org/bugs/show_bug.cgi?id=31858
 				synchronized (this) {
-					this.processingThread = null; // mark the job manager as shutting down so that the thread will stop by itself
-					notifyAll(); // ensure its awake so it can be shutdown
+					this.processingThread = null; // mark the job manager as shutting down so that the threads will stop by themselves
+					notifyAll(); // ensure they are awake so they can be shutdown
 				}
-				// in case processing thread is handling a job
+				// in case processing threads are handling a job
 				thread.join();
+				if (helpers != null)
+					for (int i = 0, length = helpers.length; i < length; i++)
+						helpers[i].join();
 			}
 			Job job = this.progressJob;
 			if (job != null) {